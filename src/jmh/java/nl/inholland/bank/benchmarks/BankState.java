@@ -0,0 +1,133 @@
+package nl.inholland.bank.benchmarks;
+
+import nl.inholland.bank.BankApplication;
+import nl.inholland.bank.models.Account;
+import nl.inholland.bank.models.Limits;
+import nl.inholland.bank.models.Role;
+import nl.inholland.bank.models.User;
+import nl.inholland.bank.models.dtos.AccountDTO.AccountRequest;
+import nl.inholland.bank.repositories.AccountRepository;
+import nl.inholland.bank.repositories.UserLimitsRepository;
+import nl.inholland.bank.repositories.UserRepository;
+import nl.inholland.bank.services.AccountService;
+import nl.inholland.bank.services.UserLimitsService;
+import nl.inholland.bank.utils.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The application running against its in-memory H2 database, with a number of extra customers that each have a current
+ * account with enough money for every benchmark. Benchmarks run as the seeded employee.
+ */
+@State(Scope.Benchmark)
+public class BankState {
+    // Number of customers added on top of the data of ApplicationDataInitializer.
+    @Param("1000")
+    public int users;
+    // Value for spring.jpa.properties.bankapi.id.allocation-size.
+    @Param("50")
+    public int allocationSize;
+
+    private ConfigurableApplicationContext context;
+    private final List<String> ibans = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // The security configuration needs Spring MVC, so the server is started too, on a free port.
+        context = new SpringApplicationBuilder(BankApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.jpa.properties.bankapi.id.allocation-size=" + allocationSize,
+                        "logging.level.root=WARN")
+                .run();
+
+        UserRepository userRepository = getBean(UserRepository.class);
+        AccountRepository accountRepository = getBean(AccountRepository.class);
+        AccountService accountService = getBean(AccountService.class);
+        UserLimitsService userLimitsService = getBean(UserLimitsService.class);
+        UserLimitsRepository userLimitsRepository = getBean(UserLimitsRepository.class);
+        TransactionTemplate transactionTemplate = getBean(TransactionTemplate.class);
+        int bsnPrefix = 10_000_000;
+        for (int i = 0; i < users; i++) {
+            String bsn = null;
+            while (bsn == null) {
+                bsn = bsn(bsnPrefix++);
+            }
+            String username = "bench" + i;
+            String userBsn = bsn;
+
+            // Same steps as UserService.addUser and AccountService.addAccount, without hashing the password.
+            transactionTemplate.executeWithoutResult(status -> {
+                User user = new User("Bench", "Mark", username + "@example.com", userBsn, "0612345678",
+                        LocalDate.of(2000, 1, 1), username, "Password1!", Role.CUSTOMER);
+                user.setLimits(userLimitsService.getDefaultLimits());
+                userRepository.save(user);
+                Limits limits = userLimitsService.getDefaultLimits();
+                limits.setUser(user);
+                userLimitsRepository.save(limits);
+
+                Account account = accountService.addAccount(new AccountRequest("EURO", "CURRENT", user.getId()));
+                account.setBalance(100_000_000_000L);
+                accountRepository.save(account);
+                ibans.add(account.getIBAN());
+            });
+        }
+
+        // Benchmark threads all act as the employee, who may transfer between any accounts.
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        JwtTokenProvider jwtTokenProvider = getBean(JwtTokenProvider.class);
+        String token = jwtTokenProvider.createToken("employee", Role.EMPLOYEE).jwt();
+        SecurityContextHolder.getContext().setAuthentication(jwtTokenProvider.getAuthentication(token));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    /**
+     * @param prefix The first eight digits.
+     * @return A BSN that passes the eleven test, or null if no last digit makes it pass.
+     */
+    private static String bsn(int prefix) {
+        String digits = String.valueOf(prefix);
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            sum += Character.getNumericValue(digits.charAt(i)) * (9 - i);
+        }
+        int lastDigit = sum % 11;
+        return lastDigit == 10 ? null : digits + lastDigit;
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public List<String> getIbans() {
+        return ibans;
+    }
+
+    /**
+     * @return Two different seeded accounts, sender first.
+     */
+    public String[] randomAccountPair() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sender = random.nextInt(ibans.size());
+        int receiver = (sender + 1 + random.nextInt(ibans.size() - 1)) % ibans.size();
+        return new String[]{ibans.get(sender), ibans.get(receiver)};
+    }
+}
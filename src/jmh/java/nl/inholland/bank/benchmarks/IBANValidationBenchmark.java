@@ -0,0 +1,61 @@
+package nl.inholland.bank.benchmarks;
+
+import nl.inholland.bank.models.DutchIBANValidator;
+import nl.inholland.bank.models.IBANGenerator;
+import org.apache.commons.validator.routines.IBANValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * IBAN validation as it was (a new commons IBANValidator per call) against the Dutch validator, with and without its
+ * cache of recently validated IBANs. Cycles through a number of different IBANs, to compare cache hits with misses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IBANValidationBenchmark {
+    // Number of different IBANs that are validated in turn.
+    @Param({"16", "4096"})
+    public int ibans;
+
+    private String[] values;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        values = new String[ibans];
+        for (int i = 0; i < ibans; i++) {
+            values[i] = IBANGenerator.generateIBAN().toString();
+        }
+    }
+
+    private String nextIban() {
+        next = (next + 1) % values.length;
+        return values[next];
+    }
+
+    @Benchmark
+    public boolean commonsValidator() {
+        return new IBANValidator().isValid(nextIban());
+    }
+
+    @Benchmark
+    public boolean dutchValidatorWithoutCache() {
+        return DutchIBANValidator.isValidWithoutCache(nextIban());
+    }
+
+    @Benchmark
+    public boolean dutchValidator() {
+        return DutchIBANValidator.isValid(nextIban());
+    }
+}
@@ -0,0 +1,52 @@
+package nl.inholland.bank.benchmarks;
+
+import nl.inholland.bank.models.Role;
+import nl.inholland.bank.services.RefreshTokenBlacklistService;
+import nl.inholland.bank.services.UserDetailsService;
+import nl.inholland.bank.utils.JwtKeyProvider;
+import nl.inholland.bank.utils.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Verifying an access token and loading its user, with the token cache disabled (ttl 0) and enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtTokenProviderBenchmark {
+    // Value for bankapi.token.cache.ttl in milliseconds.
+    @Param({"0", "60000"})
+    public long cacheTtl;
+
+    private JwtTokenProvider jwtTokenProvider;
+    private String token;
+
+    @Setup
+    public void setUp(BankState bank) {
+        jwtTokenProvider = new JwtTokenProvider(bank.getBean(UserDetailsService.class), bank.getBean(JwtKeyProvider.class),
+                bank.getBean(RefreshTokenBlacklistService.class));
+        ReflectionTestUtils.setField(jwtTokenProvider, "validityInMilliseconds", 3_600_000L);
+        ReflectionTestUtils.setField(jwtTokenProvider, "cacheTtlInMilliseconds", cacheTtl);
+        ReflectionTestUtils.setField(jwtTokenProvider, "cacheMaxSize", 10_000);
+
+        token = jwtTokenProvider.createToken("bobby", Role.CUSTOMER).jwt();
+    }
+
+    @Benchmark
+    public Authentication getAuthentication() {
+        return jwtTokenProvider.getAuthentication(token);
+    }
+}
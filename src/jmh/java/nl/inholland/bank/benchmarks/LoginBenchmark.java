@@ -0,0 +1,42 @@
+package nl.inholland.bank.benchmarks;
+
+import nl.inholland.bank.models.dtos.AuthDTO.LoginRequest;
+import nl.inholland.bank.models.dtos.Token;
+import nl.inholland.bank.services.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.naming.AuthenticationException;
+
+/**
+ * Logins of the seeded customer, from as many threads as there are cores, with the BCrypt cost the application picked
+ * at startup. Divide the score by the number of cores for the logins per second per core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+public class LoginBenchmark {
+    private UserService userService;
+    private final LoginRequest loginRequest = new LoginRequest("bobby", "Password4!");
+
+    @Setup
+    public void setUp(BankState bank) {
+        userService = bank.getBean(UserService.class);
+    }
+
+    @Benchmark
+    public Token login() throws AuthenticationException {
+        return userService.login(loginRequest);
+    }
+}
@@ -0,0 +1,44 @@
+package nl.inholland.bank.benchmarks;
+
+import nl.inholland.bank.services.RefreshTokenBlacklistService;
+import nl.inholland.bank.utils.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Checking a refresh token that was never used against the blacklist, which is what nearly every refresh does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RefreshTokenBlacklistBenchmark {
+    // Tokens that were used before, so the blacklist is not empty.
+    private static final int BLACKLISTED = 1000;
+
+    private RefreshTokenBlacklistService refreshTokenBlacklistService;
+    private String token;
+
+    @Setup
+    public void setUp(BankState bank) {
+        refreshTokenBlacklistService = bank.getBean(RefreshTokenBlacklistService.class);
+        JwtTokenProvider jwtTokenProvider = bank.getBean(JwtTokenProvider.class);
+        for (int i = 0; i < BLACKLISTED; i++) {
+            refreshTokenBlacklistService.blacklist(jwtTokenProvider.createRefreshToken("bench" + i));
+        }
+        token = jwtTokenProvider.createRefreshToken("bobby");
+    }
+
+    @Benchmark
+    public boolean isBlacklisted() {
+        return refreshTokenBlacklistService.isBlacklisted(token);
+    }
+}
@@ -0,0 +1,57 @@
+package nl.inholland.bank.benchmarks;
+
+import nl.inholland.bank.models.Transaction;
+import nl.inholland.bank.models.TransactionBatchResult;
+import nl.inholland.bank.models.dtos.TransactionDTO.TransactionRequest;
+import nl.inholland.bank.services.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transfers between seeded accounts through the database, one at a time and in batches.
+ * Each single transfer locks, checks and updates both accounts and inserts the transaction, so the id allocation size
+ * can be compared with -p allocationSize=1,50.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class TransactionBenchmark {
+    private static final int BATCH_SIZE = 100;
+
+    private TransactionService transactionService;
+
+    @Setup
+    public void setUp(BankState bank) {
+        transactionService = bank.getBean(TransactionService.class);
+    }
+
+    @Benchmark
+    public Transaction processTransaction(BankState bank) throws Exception {
+        String[] accounts = bank.randomAccountPair();
+        return transactionService.processTransaction(new TransactionRequest(accounts[0], accounts[1], 1, "benchmark"));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<TransactionBatchResult> processTransactions(BankState bank) throws Exception {
+        List<TransactionRequest> requests = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            String[] accounts = bank.randomAccountPair();
+            requests.add(new TransactionRequest(accounts[0], accounts[1], 1, "benchmark"));
+        }
+        return transactionService.processTransactions(requests, false);
+    }
+}
@@ -0,0 +1,99 @@
+package nl.inholland.bank.benchmarks;
+
+import nl.inholland.bank.models.*;
+import nl.inholland.bank.repositories.UserRepository;
+import nl.inholland.bank.services.DailySpendService;
+import nl.inholland.bank.services.UserLimitsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calculating the remaining daily limit of a user from a list of today's transactions, without the database, compared
+ * with looking up the running total that DailySpendService keeps, which does not depend on the number of transactions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserLimitsBenchmark {
+    // Number of transactions the user made today.
+    @Param({"10", "1000"})
+    public int transactions;
+
+    private UserLimitsService userLimitsService;
+    private Limits limits;
+    private List<Transaction> todaysTransactions;
+
+    @Setup
+    public void setUp() {
+        // Only the calculation is measured, so the service needs no repositories.
+        userLimitsService = new UserLimitsService(null, null, null, new DailySpendService(null, null, null, null));
+
+        User user = new User();
+        user.setId(1);
+        User otherUser = new User();
+        otherUser.setId(2);
+        Account currentAccount = new Account(user, 1000, CurrencyType.EURO, "NL62INHO2395766879", AccountType.CURRENT, 0);
+        Account savingAccount = new Account(user, 1000, CurrencyType.EURO, "NL19INHO2943276296", AccountType.SAVING, 0);
+        Account otherAccount = new Account(otherUser, 1000, CurrencyType.EURO, "NL04INHO2539494278", AccountType.CURRENT, 0);
+
+        limits = new Limits();
+        limits.setDailyTransactionLimit(200000);
+
+        // A mix of transfers, withdrawals and transfers to the saving account, which do not count.
+        todaysTransactions = new ArrayList<>(transactions);
+        for (int i = 0; i < transactions; i++) {
+            Account receiver = switch (i % 3) {
+                case 0 -> otherAccount;
+                case 1 -> null;
+                default -> savingAccount;
+            };
+            Transaction transaction = new Transaction();
+            transaction.setUser(user);
+            transaction.setAccountSender(currentAccount);
+            transaction.setAccountReceiver(receiver);
+            transaction.setAmount(100);
+            transaction.setTimestamp(LocalDateTime.now());
+            todaysTransactions.add(transaction);
+        }
+    }
+
+    /**
+     * The running total of the seeded customer in the running application, which is cached after the first lookup.
+     */
+    @State(Scope.Benchmark)
+    public static class DailySpendState {
+        private DailySpendService dailySpendService;
+        private int userId;
+
+        @Setup
+        public void setUp(BankState bank) {
+            dailySpendService = bank.getBean(DailySpendService.class);
+            userId = bank.getBean(UserRepository.class).findUserByUsername("bobby").orElseThrow().getId();
+            dailySpendService.getSpentToday(userId);
+        }
+    }
+
+    @Benchmark
+    public long calculateRemainingDailyLimit() {
+        return userLimitsService.calculateRemainingDailyLimit(limits, todaysTransactions, 1);
+    }
+
+    @Benchmark
+    public long remainingDailyLimitFromDailySpend(DailySpendState dailySpend) {
+        return limits.getDailyTransactionLimit() - dailySpend.dailySpendService.getSpentToday(dailySpend.userId);
+    }
+}
@@ -0,0 +1,103 @@
+package nl.inholland.bank.benchmarks;
+
+import nl.inholland.bank.models.*;
+import nl.inholland.bank.services.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+
+/**
+ * Checks and formatting that run on every request, measured without the application context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ValidationBenchmark {
+    private UserService userService;
+    private Transaction transaction;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        // isPasswordValid and convertStringToLocalDate do not use any of the dependencies of the service.
+        userService = new UserService(null, null, null, null, null);
+
+        user = new User();
+        user.setId(1);
+        transaction = new Transaction();
+        transaction.setTransactionType(TransactionType.TRANSACTION);
+        transaction.setAmount(12345);
+        transaction.setCurrencyType(CurrencyType.EURO);
+        transaction.setAccountReceiver(new Account(user, 1000, CurrencyType.EURO, "NL62INHO2395766879", AccountType.CURRENT, 0));
+        transaction.setMemo("rent");
+    }
+
+    @Benchmark
+    public boolean isValidIBAN() {
+        return IBANGenerator.isValidIBAN("NL62INHO2395766879");
+    }
+
+    @Benchmark
+    public boolean isValidIBANInvalid() {
+        return IBANGenerator.isValidIBAN("NL00INHO0000000000");
+    }
+
+    @Benchmark
+    public boolean isPasswordValid() {
+        return userService.isPasswordValid("Password1!");
+    }
+
+    @Benchmark
+    public boolean isPasswordValidInvalid() {
+        return userService.isPasswordValid("password");
+    }
+
+    @Benchmark
+    public LocalDate convertStringToLocalDate() {
+        return userService.convertStringToLocalDate("1990-05-17");
+    }
+
+    @Benchmark
+    public String setEmail() {
+        user.setEmail("john.doe@example.com");
+        return user.getEmail();
+    }
+
+    @Benchmark
+    public String setPhoneNumber() {
+        user.setPhoneNumber("+3161234567");
+        return user.getPhoneNumber();
+    }
+
+    @Benchmark
+    public String setBsn() {
+        user.setBsn("123456782");
+        return user.getBsn();
+    }
+
+    @Benchmark
+    public long toCents() {
+        return Money.toCents(123.45);
+    }
+
+    @Benchmark
+    public long setAmount() {
+        transaction.setAmount(12345);
+        return transaction.getAmount();
+    }
+
+    @Benchmark
+    public String getDescription() {
+        return transaction.getDescription();
+    }
+}
@@ -1,5 +1,7 @@
 package nl.inholland.bank.configurators;
 
+import nl.inholland.bank.utils.AdaptiveBCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -8,9 +10,20 @@ import java.util.Random;
 
 @Component
 public class BeanFactory {
+    @Value("${bankapi.passwords.bcrypt.strength:0}")
+    private int bcryptStrength;
+    @Value("${bankapi.passwords.bcrypt.target-time:100}")
+    private long bcryptTargetTime;
+    @Value("${bankapi.passwords.bcrypt.minimum-strength:10}")
+    private int bcryptMinimumStrength;
+
     @Bean
     public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        // Without a configured strength, hashes are made as expensive as the target time allows on this machine
+        if (bcryptStrength > 0) {
+            return new AdaptiveBCryptPasswordEncoder(bcryptStrength);
+        }
+        return AdaptiveBCryptPasswordEncoder.calibrate(bcryptTargetTime, bcryptMinimumStrength);
     }
 
     @Bean
@@ -0,0 +1,13 @@
+package nl.inholland.bank.configurators;
+
+import nl.inholland.bank.repositories.SliceableJpaRepository;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Gives every repository findSlice, for paged searches without a count query.
+ */
+@Configuration
+@EnableJpaRepositories(basePackages = "nl.inholland.bank.repositories", repositoryBaseClass = SliceableJpaRepository.class)
+public class RepositoryConfiguration {
+}
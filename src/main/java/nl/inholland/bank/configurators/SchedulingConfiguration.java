@@ -0,0 +1,12 @@
+package nl.inholland.bank.configurators;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the scheduled jobs, such as closing the month into account statements.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
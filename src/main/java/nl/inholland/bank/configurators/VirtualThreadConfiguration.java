@@ -0,0 +1,55 @@
+package nl.inholland.bank.configurators;
+
+import nl.inholland.bank.utils.BoundedDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs every request on its own virtual thread instead of on the Tomcat thread pool.
+ * Enabled with bankapi.threads.virtual.enabled, which needs Java 21 (build with the java21 profile).
+ * Because requests are no longer limited by the number of Tomcat threads, the number of threads holding a database
+ * connection is limited by a {@link BoundedDataSource}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "bankapi.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Bean
+    public static BeanPostProcessor boundedDataSourcePostProcessor(
+            @Value("${bankapi.threads.virtual.jdbc.permits:10}") int permits,
+            @Value("${bankapi.threads.virtual.jdbc.timeout:30000}") long timeoutInMilliseconds) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BoundedDataSource)) {
+                    return new BoundedDataSource(dataSource, permits, timeoutInMilliseconds);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        // Looked up at runtime, so the application still compiles for Java 17.
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Virtual threads need Java 21 or newer, running on " + Runtime.version() + ".", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor.", e);
+        }
+    }
+}
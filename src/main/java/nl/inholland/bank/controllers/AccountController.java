@@ -1,18 +1,37 @@
 package nl.inholland.bank.controllers;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import nl.inholland.bank.models.Account;
+import nl.inholland.bank.models.AccountBulkResult;
 import nl.inholland.bank.models.Role;
 import nl.inholland.bank.models.User;
 import nl.inholland.bank.models.dtos.AccountDTO.*;
 import nl.inholland.bank.models.dtos.ExceptionResponse;
+import nl.inholland.bank.models.exceptions.OperationNotAllowedException;
+import nl.inholland.bank.models.exceptions.PasswordHashingBusyException;
+import nl.inholland.bank.services.AccountOnboardingService;
 import nl.inholland.bank.services.AccountService;
+import nl.inholland.bank.services.BalanceService;
 import nl.inholland.bank.services.UserService;
+import org.hibernate.ObjectNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
 import javax.naming.AuthenticationException;
 import javax.security.auth.login.AccountNotFoundException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -20,14 +39,26 @@ import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/accounts")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = PagingHeaders.TOTAL_COUNT)
 public class AccountController {
+    private static final String NDJSON = "application/x-ndjson";
+
     private final AccountService accountService;
     private final UserService userService;
+    private final AccountOnboardingService accountOnboardingService;
+    private final BalanceService balanceService;
+    private final ObjectMapper objectMapper;
+    @Value("${bankapi.accounts.bulk.chunk-size:500}")
+    private int bulkChunkSize;
 
-    public AccountController(AccountService accountService, UserService userService) {
+    public AccountController(AccountService accountService, UserService userService,
+                             AccountOnboardingService accountOnboardingService, BalanceService balanceService,
+                             ObjectMapper objectMapper) {
         this.accountService = accountService;
         this.userService = userService;
+        this.accountOnboardingService = accountOnboardingService;
+        this.balanceService = balanceService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/{userId}")
@@ -52,6 +83,25 @@ public class AccountController {
         return ResponseEntity.ok(accountResponses);
     }
 
+    /**
+     * Gets the balance of an account at a moment, from the nearest balance checkpoint and the transactions after it.
+     * Customers can only see the balance of their own accounts.
+     * @param at The moment (ISO date-time), now if not given.
+     */
+    @GetMapping("/{iban}/balance")
+    public ResponseEntity getBalanceAt(@PathVariable String iban,
+                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<LocalDateTime> at)
+            throws AccountNotFoundException, AuthenticationException {
+        Account account = accountService.getAccountByIBAN(iban);
+        if (userService.getBearerUserRole() != Role.EMPLOYEE && userService.getBearerUserRole() != Role.ADMIN
+                && !Objects.equals(userService.getBearerUsername(), account.getUser().getUsername())) {
+            throw new AuthenticationException("Unauthorized request");
+        }
+
+        LocalDateTime moment = at.orElseGet(LocalDateTime::now);
+        return ResponseEntity.ok(new AccountBalanceResponse(account.getIBAN(), moment, balanceService.getBalanceAt(account, moment)));
+    }
+
     @PostMapping
     public ResponseEntity addAccount(@RequestBody AccountRequest accountRequest) throws AuthenticationException {
         if (userService.getBearerUserRole() != Role.EMPLOYEE && userService.getBearerUserRole() != Role.ADMIN) {
@@ -65,6 +115,84 @@ public class AccountController {
 
     }
 
+    /**
+     * Opens accounts in bulk. Reads one AccountBulkRequest per line (NDJSON) and writes one AccountBulkItemResponse per
+     * line back, while the request is still being read. Lines are handled in chunks of bankapi.accounts.bulk.chunk-size.
+     */
+    @PostMapping(value = "/bulk", consumes = NDJSON, produces = NDJSON)
+    public void addAccountsInBulk(HttpServletRequest request, HttpServletResponse response) throws AuthenticationException, IOException {
+        if (userService.getBearerUserRole() != Role.EMPLOYEE && userService.getBearerUserRole() != Role.ADMIN) {
+            throw new AuthenticationException("Unauthorized request");
+        }
+
+        response.setStatus(200);
+        response.setContentType(NDJSON);
+        BufferedReader reader = request.getReader();
+        Writer writer = response.getWriter();
+
+        List<AccountBulkRequest> chunk = new ArrayList<>();
+        List<Integer> chunkLines = new ArrayList<>();
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            try {
+                chunk.add(objectMapper.readValue(line, AccountBulkRequest.class));
+                chunkLines.add(lineNumber);
+            } catch (JsonProcessingException e) {
+                writeLine(writer, new AccountBulkItemResponse(lineNumber, 400, null, null, "Line is not valid JSON."));
+            }
+
+            if (chunk.size() >= bulkChunkSize) {
+                writeChunk(writer, chunk, chunkLines);
+            }
+        }
+        writeChunk(writer, chunk, chunkLines);
+    }
+
+    private void writeChunk(Writer writer, List<AccountBulkRequest> chunk, List<Integer> chunkLines) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        for (AccountBulkResult result : accountOnboardingService.onboard(chunk)) {
+            int lineNumber = chunkLines.get(result.index());
+            if (result.isSuccessful()) {
+                List<AccountResponse> accountResponses = result.accounts().stream().map(this::buildAccountResponse).toList();
+                writeLine(writer, new AccountBulkItemResponse(lineNumber, 201, result.user().getId(), accountResponses, null));
+            } else {
+                writeLine(writer, new AccountBulkItemResponse(lineNumber, getStatusForError(result.error()), null, null,
+                        result.error().getMessage()));
+            }
+        }
+        writer.flush();
+
+        chunk.clear();
+        chunkLines.clear();
+    }
+
+    private void writeLine(Writer writer, AccountBulkItemResponse itemResponse) throws IOException {
+        writer.write(objectMapper.writeValueAsString(itemResponse));
+        writer.write('\n');
+    }
+
+    private int getStatusForError(Exception error) {
+        if (error instanceof ObjectNotFoundException) {
+            return 404;
+        } else if (error instanceof DataAccessException) {
+            return 409;
+        } else if (error instanceof OperationNotAllowedException) {
+            return 403;
+        } else if (error instanceof PasswordHashingBusyException) {
+            return 503;
+        }
+        return 400;
+    }
+
     @PutMapping("/{userId}/{id}")
     public ResponseEntity activateAccount(@PathVariable int userId, @PathVariable int id,
                                           @RequestBody AccountActiveRequest accountActiveRequest) throws AccountNotFoundException, AuthenticationException {
@@ -109,7 +237,8 @@ public class AccountController {
             @RequestParam(name = "IBAN") Optional<String> IBAN,
             @RequestParam Optional<String> firstName,
             @RequestParam Optional<String> lastName,
-            @RequestParam Optional<String> accountType
+            @RequestParam Optional<String> accountType,
+            @RequestParam Optional<Boolean> withTotalCount
     ) {
         // Retrieve accounts
 
@@ -119,20 +248,26 @@ public class AccountController {
 
         List<Account> accounts = accountService.getAccounts(page, limit, iban, firstName, lastName, accountType);
 
+        // Only count all accounts when asked to, it takes a second query
+        HttpHeaders headers = new HttpHeaders();
+        if (withTotalCount.orElse(false)) {
+            headers.set(PagingHeaders.TOTAL_COUNT, String.valueOf(accountService.countAccounts(iban, firstName, lastName, accountType)));
+        }
+
         if (userService.getBearerUserRole() == Role.CUSTOMER) {
             // Convert to client responses
             List<AccountClientResponse> accountClientResponses = accounts.stream()
                     .map(this::buildAccountClientResponse)
                     .collect(Collectors.toList());
 
-            return ResponseEntity.status(200).body(accountClientResponses);
+            return ResponseEntity.status(200).headers(headers).body(accountClientResponses);
         } else {
             // Convert to account responses
             List<AccountResponse> accountResponses = accounts.stream()
                     .map(this::buildAccountResponse)
                     .collect(Collectors.toList());
 
-            return ResponseEntity.status(200).body(accountResponses);
+            return ResponseEntity.status(200).headers(headers).body(accountResponses);
         }
     }
 
@@ -0,0 +1,14 @@
+package nl.inholland.bank.controllers;
+
+/**
+ * Response headers of the list endpoints.
+ */
+public final class PagingHeaders {
+    // Number of results over all pages, only counted when the request asks for it with withTotalCount=true
+    public static final String TOTAL_COUNT = "X-Total-Count";
+    // Cursor of the next slice of transactions
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+
+    private PagingHeaders() {
+    }
+}
@@ -0,0 +1,91 @@
+package nl.inholland.bank.controllers;
+
+import nl.inholland.bank.models.Account;
+import nl.inholland.bank.models.AccountStatement;
+import nl.inholland.bank.models.Role;
+import nl.inholland.bank.models.dtos.AccountDTO.AccountStatementResponse;
+import nl.inholland.bank.services.AccountService;
+import nl.inholland.bank.services.StatementService;
+import nl.inholland.bank.services.UserService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import javax.naming.AuthenticationException;
+import javax.security.auth.login.AccountNotFoundException;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+@Controller
+@RequestMapping("/accounts")
+@CrossOrigin(origins = "*")
+public class StatementController {
+    private final StatementService statementService;
+    private final AccountService accountService;
+    private final UserService userService;
+
+    public StatementController(StatementService statementService, AccountService accountService, UserService userService) {
+        this.statementService = statementService;
+        this.accountService = accountService;
+        this.userService = userService;
+    }
+
+    /**
+     * Gets the closed months of an account, newest first. Customers can only see the statements of their own accounts.
+     * @param month Only the statement of this month (yyyy-MM), if given.
+     */
+    @GetMapping("/{iban}/statements")
+    public ResponseEntity getStatements(@PathVariable String iban, @RequestParam Optional<String> month)
+            throws AccountNotFoundException, AuthenticationException {
+        Account account = accountService.getAccountByIBAN(iban);
+        if (userService.getBearerUserRole() != Role.EMPLOYEE && userService.getBearerUserRole() != Role.ADMIN
+                && !Objects.equals(userService.getBearerUsername(), account.getUser().getUsername())) {
+            throw new AuthenticationException("Unauthorized request");
+        }
+
+        List<AccountStatementResponse> statementResponses = statementService
+                .getStatements(account.getId(), month.map(this::parseMonth))
+                .stream()
+                .map(statement -> buildStatementResponse(account, statement))
+                .toList();
+
+        return ResponseEntity.ok(statementResponses);
+    }
+
+    /**
+     * Closes a month that has ended for all accounts that do not have a statement for it yet,
+     * for example a month in which the scheduled job did not run.
+     */
+    @PostMapping("/statements")
+    public ResponseEntity closeMonth(@RequestParam String month) throws AuthenticationException {
+        if (userService.getBearerUserRole() != Role.EMPLOYEE && userService.getBearerUserRole() != Role.ADMIN) {
+            throw new AuthenticationException("Unauthorized request");
+        }
+
+        int written = statementService.closeMonth(parseMonth(month));
+        return ResponseEntity.ok(written);
+    }
+
+    private YearMonth parseMonth(String month) {
+        try {
+            return YearMonth.parse(month);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Month must be formatted as yyyy-MM.");
+        }
+    }
+
+    private AccountStatementResponse buildStatementResponse(Account account, AccountStatement statement) {
+        return new AccountStatementResponse(
+                account.getIBAN(),
+                statement.getMonth().toString(),
+                statement.getOpeningBalance(),
+                statement.getClosingBalance(),
+                statement.getTotalIn(),
+                statement.getTotalOut(),
+                statement.getTransactionCount()
+        );
+    }
+}
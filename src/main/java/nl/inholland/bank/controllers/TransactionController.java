@@ -1,20 +1,31 @@
 package nl.inholland.bank.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import nl.inholland.bank.models.Money;
 import nl.inholland.bank.models.Transaction;
-import nl.inholland.bank.models.dtos.TransactionDTO.TransactionRequest;
-import nl.inholland.bank.models.dtos.TransactionDTO.TransactionResponse;
-import nl.inholland.bank.models.dtos.TransactionDTO.TransactionSearchRequest;
-import nl.inholland.bank.models.dtos.TransactionDTO.WithdrawDepositRequest;
-import nl.inholland.bank.models.exceptions.UserNotTheOwnerOfAccountException;
+import nl.inholland.bank.models.TransactionBatchResult;
+import nl.inholland.bank.models.TransactionCursor;
+import nl.inholland.bank.models.TransactionSummary;
+import nl.inholland.bank.models.dtos.TransactionDTO.*;
+import nl.inholland.bank.models.exceptions.*;
+import nl.inholland.bank.services.AccountLaneService;
 import nl.inholland.bank.services.TransactionService;
+import org.hibernate.ObjectNotFoundException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
 import javax.naming.InsufficientResourcesException;
 import javax.security.auth.login.AccountNotFoundException;
 import javax.security.sasl.AuthenticationException;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -22,12 +33,17 @@ import java.util.Optional;
 
 @Controller
 @RequestMapping("/transactions")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {PagingHeaders.NEXT_CURSOR, PagingHeaders.TOTAL_COUNT})
 public class TransactionController {
     private final TransactionService transactionService;
+    private final AccountLaneService accountLaneService;
+    private final ObjectMapper objectMapper;
 
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, AccountLaneService accountLaneService,
+                                 ObjectMapper objectMapper) {
         this.transactionService = transactionService;
+        this.accountLaneService = accountLaneService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/withdraw")
@@ -42,7 +58,9 @@ public class TransactionController {
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Object> transferMoney(@RequestBody TransactionRequest request) throws InsufficientResourcesException, UserNotTheOwnerOfAccountException, AccountNotFoundException, javax.naming.AuthenticationException {
         // Process transaction
-        Transaction transaction = transactionService.processTransaction(request);
+        Transaction transaction = accountLaneService.isEnabled()
+                ? accountLaneService.processTransaction(request)
+                : transactionService.processTransaction(request);
 
         // Build the response
         TransactionResponse response = buildTransactionResponse(transaction);
@@ -51,9 +69,40 @@ public class TransactionController {
         return ResponseEntity.status(201).body(response);
     }
 
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> transferMoneyBatch(@RequestBody TransactionBatchRequest request) {
+        if (request.transactions() == null || request.transactions().isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one transaction.");
+        }
+
+        List<TransactionBatchResult> results = transactionService.processTransactions(request.transactions(), request.all_or_nothing());
+
+        List<TransactionBatchItemResponse> itemResponses = new ArrayList<>();
+        int successful = 0;
+        for (TransactionBatchResult result : results) {
+            if (result.isSuccessful()) {
+                successful++;
+                itemResponses.add(new TransactionBatchItemResponse(result.index(), 201, buildTransactionResponse(result.transaction()), null));
+            } else {
+                itemResponses.add(new TransactionBatchItemResponse(result.index(), getStatusForError(result.error()), null, result.error().getMessage()));
+            }
+        }
+
+        TransactionBatchResponse response = new TransactionBatchResponse(successful, results.size() - successful, itemResponses);
+
+        // 207 Multi-Status if not all transactions were made
+        return ResponseEntity.status(successful == results.size() ? 201 : 207).body(response);
+    }
+
+    /**
+     * Without a cursor, returns the given page of transactions. With a cursor (empty for the first slice), returns the
+     * transactions after it, newest first, and the cursor of the next slice in the X-Next-Cursor header if there is one.
+     * The number of transactions over all pages is only counted with withTotalCount=true, in the X-Total-Count header.
+     */
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Object> getTransactions(
             @RequestParam Optional<Integer> page,
+            @RequestParam Optional<String> cursor,
             @RequestParam Optional<Integer> limit,
             @RequestParam Optional<Double> minAmount,
             @RequestParam Optional<Double> maxAmount,
@@ -64,24 +113,86 @@ public class TransactionController {
             @RequestParam Optional<String> ibanReceiver,
             @RequestParam Optional<Integer> userSenderID,
             @RequestParam Optional<Integer> userReceiverID,
-            @RequestParam Optional<String> transactionType
+            @RequestParam Optional<String> transactionType,
+            @RequestParam Optional<Boolean> withTotalCount
     ) throws AuthenticationException {
         // Group values
         TransactionSearchRequest request = new TransactionSearchRequest(
-                minAmount, maxAmount, startDate, endDate, transactionID, ibanSender, ibanReceiver,
-                userSenderID, userReceiverID, transactionType
+                minAmount.map(Money::toCents), maxAmount.map(Money::toCents), startDate, endDate, transactionID,
+                ibanSender, ibanReceiver, userSenderID, userReceiverID, transactionType
         );
 
         // Retrieve transactions
-        List<Transaction> transactions = transactionService.getTransactions(page, limit, request);
+        HttpHeaders headers = new HttpHeaders();
+        List<TransactionSummary> transactions;
+        if (cursor.isPresent()) {
+            Slice<TransactionSummary> slice = transactionService.getTransactionsAfter(cursor, limit, request);
+            transactions = slice.getContent();
+            if (slice.hasNext()) {
+                headers.set(PagingHeaders.NEXT_CURSOR, TransactionCursor.of(transactions.get(transactions.size() - 1)).encode());
+            }
+        } else {
+            transactions = transactionService.getTransactions(page, limit, request);
+        }
+        if (withTotalCount.orElse(false)) {
+            headers.set(PagingHeaders.TOTAL_COUNT, String.valueOf(transactionService.countTransactions(request)));
+        }
 
         // Convert transactions to transactionResponses
         List<TransactionResponse> transactionResponses = new ArrayList<>();
-        for (Transaction transaction : transactions) {
+        for (TransactionSummary transaction : transactions) {
             transactionResponses.add(buildTransactionResponse(transaction));
         }
 
-        return ResponseEntity.status(200).body(transactionResponses);
+        return ResponseEntity.status(200).headers(headers).body(transactionResponses);
+    }
+
+    /**
+     * Exports all transactions of a search, oldest first, as CSV (the default) or NDJSON. Takes the same filters and
+     * has the same access rules as GET /transactions, without pages: transactions are written while they are read.
+     */
+    @GetMapping("/export")
+    public void exportTransactions(
+            @RequestParam Optional<String> format,
+            @RequestParam Optional<Double> minAmount,
+            @RequestParam Optional<Double> maxAmount,
+            @RequestParam Optional<LocalDateTime> startDate,
+            @RequestParam Optional<LocalDateTime> endDate,
+            @RequestParam Optional<Integer> transactionID,
+            @RequestParam Optional<String> ibanSender,
+            @RequestParam Optional<String> ibanReceiver,
+            @RequestParam Optional<Integer> userSenderID,
+            @RequestParam Optional<Integer> userReceiverID,
+            @RequestParam Optional<String> transactionType,
+            HttpServletResponse response
+    ) throws AuthenticationException, IOException {
+        TransactionSearchRequest request = new TransactionSearchRequest(
+                minAmount.map(Money::toCents), maxAmount.map(Money::toCents), startDate, endDate, transactionID,
+                ibanSender, ibanReceiver, userSenderID, userReceiverID, transactionType
+        );
+
+        TransactionExportWriter writer = new TransactionExportWriter(response, format.orElse("csv"), objectMapper,
+                this::buildTransactionResponse);
+        transactionService.exportTransactions(request, writer);
+        writer.finish();
+    }
+
+    @GetMapping(value = "/lanes", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('EMPLOYEE')")
+    public ResponseEntity<Object> getLaneStatistics() {
+        long batches = accountLaneService.getBatchCount();
+        long batchedCredits = accountLaneService.getBatchedCreditCount();
+
+        LaneStatisticsResponse response = new LaneStatisticsResponse(
+                accountLaneService.isEnabled(),
+                accountLaneService.getQueueDepths(),
+                batches,
+                batchedCredits,
+                accountLaneService.getLargestBatch(),
+                batches == 0 ? 0 : (double) batchedCredits / batches
+        );
+
+        return ResponseEntity.status(200).body(response);
     }
 
     @PostMapping("/deposit")
@@ -93,6 +204,26 @@ public class TransactionController {
         return ResponseEntity.status(201).body(response);
     }
 
+    // Same status codes as the ErrorHandler uses for a single transaction, anything unexpected is a server error
+    private int getStatusForError(Exception error) {
+        if (error instanceof AccountNotFoundException || error instanceof ObjectNotFoundException) {
+            return 404;
+        } else if (error instanceof IllegalArgumentException || error instanceof DataIntegrityViolationException) {
+            return 400;
+        } else if (error instanceof UserNotTheOwnerOfAccountException
+                || error instanceof AccountIsNotActiveException
+                || error instanceof InactiveAccountException
+                || error instanceof SameAccountTransferException
+                || error instanceof OperationNotAllowedException
+                || error instanceof InsufficientFundsException
+                || error instanceof TransactionLimitException
+                || error instanceof DailyTransactionLimitException
+                || error instanceof DisabledException) {
+            return 403;
+        }
+        return 500;
+    }
+
     public TransactionResponse buildTransactionResponse(Transaction transaction) {
         String senderIBAN = transaction.getAccountSender() != null ? transaction.getAccountSender().getIBAN() : null;
         String receiverIBAN = transaction.getAccountReceiver() != null ? transaction.getAccountReceiver().getIBAN() : null;
@@ -109,4 +240,18 @@ public class TransactionController {
                 transaction.getTransactionType()
         );
     }
+
+    public TransactionResponse buildTransactionResponse(TransactionSummary transaction) {
+        return new TransactionResponse(
+                transaction.id(),
+                transaction.username(),
+                transaction.senderIBAN(),
+                transaction.receiverIBAN(),
+                transaction.amount(),
+                transaction.currencyType(),
+                transaction.timestamp(),
+                transaction.description(),
+                transaction.transactionType()
+        );
+    }
 }
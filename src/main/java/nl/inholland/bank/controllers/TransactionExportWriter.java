@@ -0,0 +1,126 @@
+package nl.inholland.bank.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import nl.inholland.bank.models.Money;
+import nl.inholland.bank.models.TransactionSummary;
+import nl.inholland.bank.models.dtos.TransactionDTO.TransactionResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Writes the transactions of an export to the response, one line per transaction, as CSV or as NDJSON with the same
+ * objects as GET /transactions. Nothing is written before the first transaction, or before finish when there are none,
+ * so an error that happens before that still gets the usual JSON error response.
+ */
+class TransactionExportWriter implements Consumer<TransactionSummary> {
+    static final String CSV = "text/csv";
+    static final String NDJSON = "application/x-ndjson";
+    private static final String CSV_HEADER =
+            "id,username,sender_iban,receiver_iban,amount,currency_type,timestamp,description,transaction_type\n";
+
+    private final HttpServletResponse response;
+    private final boolean csv;
+    private final ObjectMapper objectMapper;
+    private final Function<TransactionSummary, TransactionResponse> toResponse;
+    private Writer writer;
+
+    /**
+     * @param format Either csv or ndjson.
+     */
+    TransactionExportWriter(HttpServletResponse response, String format, ObjectMapper objectMapper,
+                            Function<TransactionSummary, TransactionResponse> toResponse) {
+        if (!format.equalsIgnoreCase("csv") && !format.equalsIgnoreCase("ndjson")) {
+            throw new IllegalArgumentException("Format must be csv or ndjson.");
+        }
+
+        this.response = response;
+        this.csv = format.equalsIgnoreCase("csv");
+        this.objectMapper = objectMapper;
+        this.toResponse = toResponse;
+    }
+
+    @Override
+    public void accept(TransactionSummary transaction) {
+        try {
+            start();
+            if (csv) {
+                writeCsv(transaction);
+            } else {
+                writer.write(objectMapper.writeValueAsString(toResponse.apply(transaction)));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the CSV header if there were no transactions, and sends what is left to the client.
+     */
+    void finish() throws IOException {
+        start();
+        writer.flush();
+    }
+
+    private void start() throws IOException {
+        if (writer != null) {
+            return;
+        }
+
+        response.setStatus(200);
+        response.setContentType(csv ? CSV : NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"transactions." + (csv ? "csv" : "ndjson") + "\"");
+        writer = response.getWriter();
+        if (csv) {
+            writer.write(CSV_HEADER);
+        }
+    }
+
+    private void writeCsv(TransactionSummary transaction) throws IOException {
+        writer.write(String.valueOf(transaction.id()));
+        writer.write(',');
+        writeCsvField(transaction.username());
+        writer.write(',');
+        writeCsvField(transaction.senderIBAN());
+        writer.write(',');
+        writeCsvField(transaction.receiverIBAN());
+        writer.write(',');
+        writer.write(Money.format(transaction.amount()));
+        writer.write(',');
+        writeCsvField(transaction.currencyType() == null ? null : transaction.currencyType().toString());
+        writer.write(',');
+        writeCsvField(transaction.timestamp() == null ? null : transaction.timestamp().toString());
+        writer.write(',');
+        writeCsvField(transaction.description());
+        writer.write(',');
+        writeCsvField(transaction.transactionType() == null ? null : transaction.transactionType().toString());
+        writer.write('\n');
+    }
+
+    // Fields with a separator, quote or line break are quoted, with quotes doubled (RFC 4180). Null is an empty field.
+    private void writeCsvField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -9,6 +9,7 @@ import nl.inholland.bank.models.dtos.ExceptionResponse;
 import nl.inholland.bank.models.dtos.UserDTO.*;
 import nl.inholland.bank.services.UserLimitsService;
 import nl.inholland.bank.services.UserService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
@@ -22,7 +23,7 @@ import java.util.Optional;
 
 @Controller
 @RequestMapping("/users")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = PagingHeaders.TOTAL_COUNT)
 public class UserController {
     private final UserService userService;
     private final UserLimitsService userLimitsService;
@@ -38,17 +39,24 @@ public class UserController {
             @RequestParam Optional<Integer> limit,
             @RequestParam Optional<String> name,
             @RequestParam(name = "has_no_accounts") Optional<Boolean> hasNoAccounts,
-            @RequestParam Optional<Boolean> active
+            @RequestParam Optional<Boolean> active,
+            @RequestParam Optional<Boolean> withTotalCount
     ) {
         List<User> users = userService.getAllUsers(page, limit, name, hasNoAccounts, active);
 
+        // Only count all users when asked to, it takes a second query
+        HttpHeaders headers = new HttpHeaders();
+        if (withTotalCount.orElse(false)) {
+            headers.set(PagingHeaders.TOTAL_COUNT, String.valueOf(userService.countUsers(name, hasNoAccounts, active)));
+        }
+
         if (userService.getBearerUserRole() == Role.EMPLOYEE || userService.getBearerUserRole() == Role.ADMIN) {
             List<UserResponse> userResponses = new ArrayList<>();
             for (User user : users) {
                 userResponses.add(mapUserToUserResponse(user));
             }
 
-            return ResponseEntity.status(200).body(userResponses);
+            return ResponseEntity.status(200).headers(headers).body(userResponses);
         }
 
         List<UserForClientResponse> userForClientResponses = new ArrayList<>();
@@ -56,7 +64,7 @@ public class UserController {
             userForClientResponses.add(mapUserToUserForClientResponse(user));
         }
 
-        return ResponseEntity.status(200).body(userForClientResponses);
+        return ResponseEntity.status(200).headers(headers).body(userForClientResponses);
     }
 
     @GetMapping("/{id}")
@@ -22,11 +22,20 @@ public class JwtTokenFilter extends OncePerRequestFilter {
 
     @Override
     public void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws IOException, ServletException {
-        String token = getToken(request);
-
         // Before each check, clear the old authentication.
         jwtTokenProvider.clearAuthentication();
 
+        try {
+            authenticate(request, response, filterChain);
+        } finally {
+            // The authentication is kept per thread, so do not leave it behind for the next request on this thread.
+            jwtTokenProvider.clearAuthentication();
+        }
+    }
+
+    private void authenticate(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws IOException, ServletException {
+        String token = getToken(request);
+
         try {
             Authentication authentication = jwtTokenProvider.getAuthentication(token);
             SecurityContextHolder.getContext().setAuthentication(authentication);
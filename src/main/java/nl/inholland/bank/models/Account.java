@@ -5,27 +5,36 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 @Entity
 @Data
 @NoArgsConstructor
 public class Account {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "account_seq")
+    @GenericGenerator(name = "account_seq", strategy = "nl.inholland.bank.utils.PooledSequenceGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "account_seq"))
     private int id;
     @ManyToOne(cascade = CascadeType.ALL)
     @JsonIgnore
     @ToString.Exclude
     private User user;
-    private double balance;
+    // In cents, see Money
+    private long balance;
     private CurrencyType currencyType;
     @Column(unique = true)
     private String IBAN;
     private AccountType type;
     private boolean isActive;
-    private double absoluteLimit;
+    private long absoluteLimit;
+    // Transactions since the last balance checkpoint of the account, see BalanceService
+    @JsonIgnore
+    private int transactionsSinceCheckpoint;
 
-    public Account(User user, double balance, CurrencyType currencyType, String IBAN, AccountType type, double absoluteLimit) {
+    public Account(User user, long balance, CurrencyType currencyType, String IBAN, AccountType type, long absoluteLimit) {
         this.user = user;
         this.balance = balance;
         this.currencyType = currencyType;
@@ -35,14 +44,6 @@ public class Account {
         this.absoluteLimit = absoluteLimit;
     }
 
-    public void setBalance(double balance) {
-        if (Double.isNaN(balance)) {
-            throw new IllegalArgumentException("Balance cannot be NaN");
-        }
-
-        this.balance = balance;
-    }
-
     public void setCurrencyType(CurrencyType currencyType) {
         if (currencyType == null) {
             throw new IllegalArgumentException("Currency type cannot be null");
@@ -75,7 +76,7 @@ public class Account {
         this.isActive = active;
     }
 
-    public void setAbsoluteLimit(double absoluteLimit) {
+    public void setAbsoluteLimit(long absoluteLimit) {
         if (absoluteLimit > 0) {
             throw new IllegalArgumentException("Absolute limit cannot be higher than 0");
         }
@@ -0,0 +1,7 @@
+package nl.inholland.bank.models;
+
+/**
+ * The balance of an account, without loading the account and its user.
+ */
+public record AccountBalance(int accountId, long balance) {
+}
@@ -0,0 +1,16 @@
+package nl.inholland.bank.models;
+
+import java.util.List;
+
+/**
+ * Outcome of a single line of a bulk onboarding request.
+ * @param index The position of the line in its chunk.
+ * @param user The new or existing user, null if the line failed.
+ * @param accounts The opened accounts, null if the line failed.
+ * @param error The reason nothing was saved for the line, null if it succeeded.
+ */
+public record AccountBulkResult(int index, User user, List<Account> accounts, Exception error) {
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
@@ -0,0 +1,49 @@
+package nl.inholland.bank.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * A closed month of an account: the balance at the start and end of the month, and the money that went in and out.
+ * Written once per account and month by the statement service, so statements and past balances are looked up
+ * instead of replaying all transactions.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"accountId", "statementMonth"}))
+public class AccountStatement {
+    @Id
+    @GeneratedValue
+    private Integer id;
+    @Column(nullable = false)
+    private int accountId;
+    // The first day of the month
+    @Column(nullable = false)
+    private LocalDate statementMonth;
+    // In cents, see Money
+    private long openingBalance;
+    private long closingBalance;
+    private long totalIn;
+    private long totalOut;
+    private long transactionCount;
+
+    public AccountStatement(int accountId, YearMonth month, long openingBalance, long totalIn, long totalOut,
+                            long transactionCount) {
+        this.accountId = accountId;
+        this.statementMonth = month.atDay(1);
+        this.openingBalance = openingBalance;
+        this.totalIn = totalIn;
+        this.totalOut = totalOut;
+        this.closingBalance = openingBalance + totalIn - totalOut;
+        this.transactionCount = transactionCount;
+    }
+
+    public YearMonth getMonth() {
+        return YearMonth.from(statementMonth);
+    }
+}
@@ -0,0 +1,10 @@
+package nl.inholland.bank.models;
+
+/**
+ * The money that went in or out of an account over a period.
+ * @param accountId The id of the account.
+ * @param amount The sum of the amounts of the transactions.
+ * @param count The number of transactions.
+ */
+public record AccountTotals(int accountId, long amount, long count) {
+}
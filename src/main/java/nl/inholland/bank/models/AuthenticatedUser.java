@@ -0,0 +1,14 @@
+package nl.inholland.bank.models;
+
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * The user behind a verified token, with everything needed to authorize a request without going to the database.
+ * @param id The id of the user.
+ * @param username The username of the user.
+ * @param role The role of the user.
+ * @param active False if the user has been deactivated.
+ * @param userDetails The user details used by Spring Security.
+ */
+public record AuthenticatedUser(int id, String username, Role role, boolean active, UserDetails userDetails) {
+}
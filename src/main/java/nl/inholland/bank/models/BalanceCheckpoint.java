@@ -0,0 +1,38 @@
+package nl.inholland.bank.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The balance of an account right after one of its transactions, written after every so many transactions of the
+ * account. The balance at any other moment is the balance of the nearest checkpoint with only the transactions in
+ * between replayed.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class BalanceCheckpoint {
+    @Id
+    @GeneratedValue
+    private Integer id;
+    @Column(nullable = false)
+    private int accountId;
+    // The timestamp and id of the transaction, the same order as TransactionCursor
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+    private int transactionId;
+    private long balance;
+
+    public BalanceCheckpoint(int accountId, Transaction transaction, long balance) {
+        this.accountId = accountId;
+        this.timestamp = transaction.getTimestamp();
+        this.transactionId = transaction.getId();
+        this.balance = balance;
+    }
+}
@@ -2,22 +2,25 @@ package nl.inholland.bank.models;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Data
 @NoArgsConstructor
 public class BlacklistedRefreshToken {
+    // SHA-256 of the token in hex, the token itself is not kept.
     @Id
-    @GeneratedValue
-    private long id;
-    @Column(length = 1000)
-    private String token;
+    @Column(length = 64)
+    private String tokenHash;
+    // Used tokens expire within the refresh token lifetime after this, then the row is removed.
+    private LocalDateTime blacklistedAt;
 
-    public BlacklistedRefreshToken(String token) {
-        this.token = token;
+    public BlacklistedRefreshToken(String tokenHash, LocalDateTime blacklistedAt) {
+        this.tokenHash = tokenHash;
+        this.blacklistedAt = blacklistedAt;
     }
 }
@@ -0,0 +1,40 @@
+package nl.inholland.bank.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Running total of the money a user has spent on a given day.
+ * Kept up to date by the transaction service, so the daily limit check does not have to scan all transactions.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"userId", "spendDate"}))
+public class DailySpend {
+    @Id
+    @GeneratedValue
+    private Integer id;
+    @Column(nullable = false)
+    private int userId;
+    @Column(nullable = false)
+    private LocalDate spendDate;
+    // In cents, see Money
+    private long amount;
+
+    public DailySpend(int userId, LocalDate spendDate, long amount) {
+        this.userId = userId;
+        this.spendDate = spendDate;
+        this.amount = amount;
+    }
+
+    public void setAmount(long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Daily spend cannot be lower than 0");
+        }
+        this.amount = amount;
+    }
+}
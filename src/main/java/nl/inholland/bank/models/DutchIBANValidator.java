@@ -0,0 +1,103 @@
+package nl.inholland.bank.models;
+
+/**
+ * Validates Dutch IBANs (NLkk BBBB 0123456789) without creating any objects.
+ * The check digits are verified with the mod-97 rule directly over the characters, instead of building a number.
+ * IBANs that were valid recently are remembered, so looking up the same accounts again only costs a string comparison.
+ */
+public class DutchIBANValidator {
+    private static final int LENGTH = 18;
+    private static final int CACHE_SIZE = 256;
+
+    // Direct-mapped: each IBAN has a single slot based on its hash, a newer IBAN replaces the older one in that slot.
+    // Slots are written without synchronisation, which is safe because strings are immutable.
+    private static final String[] recentlyValid = new String[CACHE_SIZE];
+
+    private DutchIBANValidator() {
+    }
+
+    /**
+     * Checks if the given IBAN is a valid Dutch IBAN, in upper case and without spaces.
+     * @param iban The IBAN to check.
+     * @return Returns a true or false statement.
+     */
+    public static boolean isValid(String iban) {
+        if (iban == null || iban.length() != LENGTH) {
+            return false;
+        }
+
+        int slot = iban.hashCode() & (CACHE_SIZE - 1);
+        if (iban.equals(recentlyValid[slot])) {
+            return true;
+        }
+
+        if (!isValidWithoutCache(iban)) {
+            return false;
+        }
+
+        recentlyValid[slot] = iban;
+        return true;
+    }
+
+    /**
+     * Same as {@link #isValid(String)}, without looking at or adding to the recently validated IBANs.
+     * @param iban The IBAN to check.
+     * @return Returns a true or false statement.
+     */
+    public static boolean isValidWithoutCache(CharSequence iban) {
+        if (iban == null || iban.length() != LENGTH || iban.charAt(0) != 'N' || iban.charAt(1) != 'L') {
+            return false;
+        }
+
+        // Check digits, bank code and account number.
+        for (int i = 2; i < LENGTH; i++) {
+            char c = iban.charAt(i);
+            boolean valid = (i >= 4 && i < 8) ? isLetter(c) : isDigit(c);
+            if (!valid) {
+                return false;
+            }
+        }
+
+        // Move the first four characters to the end, the result must be 1 modulo 97.
+        int remainder = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            remainder = mod97(remainder, iban.charAt((i + 4) % LENGTH));
+        }
+
+        return remainder == 1;
+    }
+
+    /**
+     * Adds the country code and check digits to the bank code and account number.
+     * @param bban The bank code and account number, like INHO0123456789.
+     * @return Returns the IBAN.
+     */
+    public static String withCheckDigits(String bban) {
+        int remainder = 0;
+        for (int i = 0; i < bban.length(); i++) {
+            remainder = mod97(remainder, bban.charAt(i));
+        }
+        for (char c : new char[]{'N', 'L', '0', '0'}) {
+            remainder = mod97(remainder, c);
+        }
+
+        int checkDigits = 98 - remainder;
+        return "NL" + (checkDigits < 10 ? "0" : "") + checkDigits + bban;
+    }
+
+    // Adds a character to the remainder, letters count as 10 to 35.
+    private static int mod97(int remainder, char c) {
+        if (isDigit(c)) {
+            return (remainder * 10 + (c - '0')) % 97;
+        }
+        return (remainder * 100 + (c - 'A' + 10)) % 97;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+}
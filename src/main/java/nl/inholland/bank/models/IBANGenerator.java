@@ -1,11 +1,12 @@
 package nl.inholland.bank.models;
 
-import org.apache.commons.validator.routines.IBANValidator;
 import org.iban4j.CountryCode;
 import org.iban4j.Iban;
 
 
 public class IBANGenerator {
+    public static final long MAX_ACCOUNT_NUMBER = 9_999_999_999L;
+
     /**
      * Generates a random IBAN with the standard (NLxxINHO0xxxxxxxxx).
      * @return Returns a randomly generated IBAN.
@@ -18,7 +19,21 @@ public class IBANGenerator {
     }
 
     /**
-     * Checks if the given IBAN is valid.
+     * Creates the IBAN of an account number of this bank.
+     * @param accountNumber The account number, at most ten digits.
+     * @return Returns the IBAN, like NLxxINHO0123456789.
+     */
+    public static String createIBAN(long accountNumber)
+    {
+        if (accountNumber < 0 || accountNumber > MAX_ACCOUNT_NUMBER) {
+            throw new IllegalArgumentException("Account number must have at most ten digits.");
+        }
+
+        return DutchIBANValidator.withCheckDigits(String.format("INHO%010d", accountNumber));
+    }
+
+    /**
+     * Checks if the given IBAN is valid. Only Dutch IBANs are accepted, as all accounts are of this bank.
      * @param iban The IBAN to check.
      * @return Returns a true or false statement.
      */
@@ -29,8 +44,7 @@ public class IBANGenerator {
                 return true;
             }
 
-           IBANValidator ibanValidator = new IBANValidator();
-           return ibanValidator.isValid(iban);
+            return DutchIBANValidator.isValid(iban);
         }
         return false;
     }
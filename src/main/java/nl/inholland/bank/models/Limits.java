@@ -15,11 +15,12 @@ public class Limits {
     @Id
     @GeneratedValue
     private Integer id;
-    private double transactionLimit;
-    private double dailyTransactionLimit;
+    // In cents, see Money
+    private long transactionLimit;
+    private long dailyTransactionLimit;
     @Transient
     // Calculated by the service
-    private double remainingDailyTransactionLimit;
+    private long remainingDailyTransactionLimit;
 
     @ToString.Exclude
     @JsonIgnore
@@ -27,21 +28,21 @@ public class Limits {
     @OnDelete(action = OnDeleteAction.CASCADE)
     private User user;
 
-    public void setTransactionLimit(double transactionLimit) {
+    public void setTransactionLimit(long transactionLimit) {
         if (transactionLimit < 0) {
             throw new IllegalArgumentException("Transaction limit cannot be lower than 0");
         }
         this.transactionLimit = transactionLimit;
     }
 
-    public void setDailyTransactionLimit(double dailyTransactionLimit) {
+    public void setDailyTransactionLimit(long dailyTransactionLimit) {
         if (dailyTransactionLimit < 0) {
             throw new IllegalArgumentException("Daily transaction limit cannot be lower than 0");
         }
         this.dailyTransactionLimit = dailyTransactionLimit;
     }
 
-    public void setRemainingDailyTransactionLimit(double remainingDailyTransactionLimit) {
+    public void setRemainingDailyTransactionLimit(long remainingDailyTransactionLimit) {
         if (remainingDailyTransactionLimit < 0) {
             remainingDailyTransactionLimit = 0; // Can't be lower than 0.
         }
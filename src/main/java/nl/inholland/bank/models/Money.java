@@ -0,0 +1,72 @@
+package nl.inholland.bank.models;
+
+/**
+ * Amounts of money are whole cents in a long, everywhere from the database to the DTOs, so adding them up is exact.
+ * Euros with decimals only exist in JSON and request parameters, and are converted here, without allocating.
+ */
+public final class Money {
+    // The largest amount in euros whose cents still fit in a long
+    private static final double MAX_EUROS = Long.MAX_VALUE / 100.0;
+
+    private Money() {
+    }
+
+    /**
+     * Converts an amount in euros to cents.
+     * @param euros The amount in euros, with at most two decimals.
+     * @return Returns the amount in cents.
+     * @throws IllegalArgumentException If the amount has more than two decimals or is not a finite number.
+     */
+    public static long toCents(double euros) {
+        if (!Double.isFinite(euros) || Math.abs(euros) >= MAX_EUROS) {
+            throw new IllegalArgumentException("Amount is not a valid number.");
+        }
+
+        // 0.1 and the like are not exact as a double, so the cents are only close to a whole number.
+        // The error stays within a few ulps, anything further off had more than two decimals.
+        double scaled = euros * 100;
+        double cents = Math.rint(scaled);
+        if (Math.abs(scaled - cents) > 4 * Math.ulp(scaled)) {
+            throw new IllegalArgumentException("Amount can not have more than two decimals.");
+        }
+        return (long) cents;
+    }
+
+    /**
+     * Converts an amount in cents to euros, for JSON.
+     * @param cents The amount in cents.
+     * @return Returns the amount in euros.
+     */
+    public static double toEuros(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * Writes an amount in cents as euros with two decimals, like 1234.50 or -0.05.
+     * @param builder The builder to append to.
+     * @param cents The amount in cents.
+     * @return Returns the builder.
+     */
+    public static StringBuilder appendEuros(StringBuilder builder, long cents) {
+        if (cents < 0) {
+            builder.append('-');
+        }
+        // Long.MIN_VALUE has no positive counterpart, its remainder and quotient are negated separately.
+        long euros = Math.abs(cents / 100);
+        long remainder = Math.abs(cents % 100);
+        builder.append(euros).append('.');
+        if (remainder < 10) {
+            builder.append('0');
+        }
+        return builder.append(remainder);
+    }
+
+    /**
+     * Formats an amount in cents as euros with two decimals, like 1234.50 or -0.05.
+     * @param cents The amount in cents.
+     * @return Returns the formatted amount.
+     */
+    public static String format(long cents) {
+        return appendEuros(new StringBuilder(24), cents).toString();
+    }
+}
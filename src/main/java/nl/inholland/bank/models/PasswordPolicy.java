@@ -0,0 +1,69 @@
+package nl.inholland.bank.models;
+
+/**
+ * The rules a new password has to follow: at least 8 characters on a single line, with at least one digit, one
+ * lowercase letter, one uppercase letter and one special character. A password is checked in a single pass over its
+ * characters without building any objects, so it is cheap to check many of them while users are onboarded.
+ */
+public final class PasswordPolicy {
+    public static final int MINIMUM_LENGTH = 8;
+
+    // The special characters are '!@#$%^&*()_{}:;'",./<>?' and everything from '+' up to '=', which includes the
+    // digits. This is what the policy has always accepted.
+    private static final boolean[] SPECIAL_CHARACTERS = createSpecialCharacters("!@#$%^&*()_{}:;'\",./<>?");
+
+    private PasswordPolicy() {
+    }
+
+    private static boolean[] createSpecialCharacters(String characters) {
+        boolean[] special = new boolean[128];
+        for (int i = 0; i < characters.length(); i++) {
+            special[characters.charAt(i)] = true;
+        }
+        for (char c = '+'; c <= '='; c++) {
+            special[c] = true;
+        }
+        return special;
+    }
+
+    /**
+     * Checks if a password follows the rules.
+     * @param password Password to check.
+     * @return True if the password follows the rules, false if not.
+     */
+    public static boolean isSatisfiedBy(String password) {
+        if (password == null || password.length() < MINIMUM_LENGTH) {
+            return false;
+        }
+
+        boolean hasDigit = false;
+        boolean hasLowercase = false;
+        boolean hasUppercase = false;
+        boolean hasSpecial = false;
+        // Characters outside the basic plane take two chars, but only count as one towards the length.
+        int characters = 0;
+        int length = password.length();
+        for (int i = 0; i < length; i++) {
+            char c = password.charAt(i);
+            if (isLineTerminator(c)) {
+                return false;
+            }
+            if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(password.charAt(i + 1))) {
+                i++;
+            } else if (c < SPECIAL_CHARACTERS.length) {
+                hasDigit |= c >= '0' && c <= '9';
+                hasLowercase |= c >= 'a' && c <= 'z';
+                hasUppercase |= c >= 'A' && c <= 'Z';
+                hasSpecial |= SPECIAL_CHARACTERS[c];
+            }
+            characters++;
+        }
+
+        // A password of a single repeated character ('aaaaaaaa') never has both a digit and a lowercase letter.
+        return characters >= MINIMUM_LENGTH && hasDigit && hasLowercase && hasUppercase && hasSpecial;
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
@@ -0,0 +1,27 @@
+package nl.inholland.bank.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A transfer whose money the account lanes still have to add to the receiving account, see AccountLaneService.
+ * The amount is the amount of the transaction.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class PendingCredit {
+    // One per transfer, so a credit that has been applied and removed can not be applied again.
+    @Id
+    private int transactionId;
+    @Column(nullable = false)
+    private int accountId;
+
+    public PendingCredit(int transactionId, int accountId) {
+        this.transactionId = transactionId;
+        this.accountId = accountId;
+    }
+}
@@ -4,18 +4,20 @@ import jakarta.annotation.Nullable;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
-import java.math.BigDecimal;
-import java.text.DecimalFormat;
 import java.time.LocalDateTime;
-import java.util.Objects;
 
 @Entity
 @Data
 @NoArgsConstructor
 public class Transaction {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "transaction_seq")
+    @GenericGenerator(name = "transaction_seq", strategy = "nl.inholland.bank.utils.PooledSequenceGenerator",
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "transaction_seq"))
     @Column
     private int id;
 
@@ -34,8 +36,9 @@ public class Transaction {
     @Nullable
     private Account accountReceiver;
 
+    // In cents, see Money
     @Column
-    private double amount;
+    private long amount;
 
     @Column
     private CurrencyType currencyType;
@@ -43,10 +46,11 @@ public class Transaction {
     @Column
     private TransactionType transactionType;
 
+    // Only the description the user gave, see getDescription
     @Column
-    private String description;
+    private String memo;
     
-    public Transaction(User user, @Nullable Account accountSender, @Nullable Account accountReceiver, double amount, CurrencyType currencyType, TransactionType transactionType) {
+    public Transaction(User user, @Nullable Account accountSender, @Nullable Account accountReceiver, long amount, CurrencyType currencyType, TransactionType transactionType) {
         this.timestamp = LocalDateTime.now();
         this.user = user;
         this.accountSender = accountSender;
@@ -56,13 +60,10 @@ public class Transaction {
         this.transactionType = transactionType;
     }
 
-    public void setAmount(double amount) {
+    public void setAmount(long amount) {
         if (amount <= 0) {
             throw new IllegalArgumentException("Amount cannot be negative or zero.");
         }
-        if (BigDecimal.valueOf(amount).scale() > 2) {
-            throw new IllegalArgumentException("Amount can not have more than two decimals.");
-        }
         this.amount = amount;
     }
 
@@ -108,22 +109,17 @@ public class Transaction {
         this.timestamp = timestamp;
     }
 
-    public void setDescription(String description) {
-        String tempDescription = "";
-
-        if (!Objects.equals(description, "")) {
-            tempDescription = " ('" + description + "')";
-        }
-
-        DecimalFormat decimalFormat = new DecimalFormat("#0.00");
+    public void setMemo(String memo) {
+        // An empty memo is not stored
+        this.memo = memo == null || memo.isEmpty() ? null : memo;
+    }
 
-        if (this.getTransactionType() == TransactionType.TRANSACTION) {
-            this.description = "Transferred " + decimalFormat.format(this.amount) + " "
-                    + this.currencyType + " to " + this.accountReceiver.getIBAN() + tempDescription;
-        } else if (this.getTransactionType() == TransactionType.DEPOSIT) {
-            this.description = "Deposited " + decimalFormat.format(this.amount) + " " + this.currencyType + tempDescription;
-        } else {
-            this.description = "Withdrawn " + decimalFormat.format(this.amount) + " " + this.currencyType + tempDescription;
-        }
+    /**
+     * Renders the description of the transaction, with the memo the user gave at the end.
+     * @return Returns the description, like "Transferred 12.50 EURO to NL01INHO0000000001 ('rent')".
+     */
+    public String getDescription() {
+        return TransactionDescription.render(transactionType, currencyType, amount,
+                accountReceiver == null ? null : accountReceiver.getIBAN(), memo);
     }
 }
@@ -0,0 +1,13 @@
+package nl.inholland.bank.models;
+
+/**
+ * Outcome of a single transaction in a batch.
+ * @param index The position of the transaction in the batch.
+ * @param transaction The created transaction, null if it failed or was rolled back.
+ * @param error The reason the transaction was not made, null if it succeeded.
+ */
+public record TransactionBatchResult(int index, Transaction transaction, Exception error) {
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
@@ -0,0 +1,43 @@
+package nl.inholland.bank.models;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a list of transactions that is ordered from new to old: the timestamp and id of the last transaction
+ * that was returned. The next page starts right after it, so it is found through the index instead of by skipping rows.
+ * Clients get the cursor as an opaque string, and send it back unchanged.
+ * @param timestamp The timestamp of the last returned transaction.
+ * @param id The id of the last returned transaction, to order transactions with the same timestamp.
+ */
+public record TransactionCursor(LocalDateTime timestamp, int id) {
+    public static TransactionCursor of(Transaction transaction) {
+        return new TransactionCursor(transaction.getTimestamp(), transaction.getId());
+    }
+
+    public static TransactionCursor of(TransactionSummary transaction) {
+        return new TransactionCursor(transaction.timestamp(), transaction.id());
+    }
+
+    /**
+     * @param cursor A cursor created by {@link #encode()}.
+     * @return Returns the position in the cursor.
+     */
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            return new TransactionCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Integer.parseInt(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+
+    public String encode() {
+        String value = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,71 @@
+package nl.inholland.bank.models;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Renders the description of a transaction, like "Transferred 12.50 EURO to NL01INHO0000000001 ('rent')".
+ * Only the memo the user gave is stored, the rest of the sentence follows from the other columns and is built when a
+ * transaction is shown. The fixed words around the amount are built once per transaction type and currency and never
+ * change, so the renderer can be used from any thread.
+ */
+public final class TransactionDescription {
+    // The words before and after the amount, the receiving IBAN follows a transfer
+    private record Template(String beforeAmount, String afterAmount) {
+    }
+
+    private static final Map<TransactionType, Map<CurrencyType, Template>> TEMPLATES = createTemplates();
+
+    private TransactionDescription() {
+    }
+
+    private static Map<TransactionType, Map<CurrencyType, Template>> createTemplates() {
+        Map<TransactionType, Map<CurrencyType, Template>> templates = new EnumMap<>(TransactionType.class);
+        for (TransactionType transactionType : TransactionType.values()) {
+            Map<CurrencyType, Template> perCurrency = new EnumMap<>(CurrencyType.class);
+            for (CurrencyType currencyType : CurrencyType.values()) {
+                perCurrency.put(currencyType, createTemplate(transactionType, currencyType));
+            }
+            templates.put(transactionType, Collections.unmodifiableMap(perCurrency));
+        }
+        return Collections.unmodifiableMap(templates);
+    }
+
+    // Anything that is not a transfer or a deposit is described as a withdrawal, as it always has been.
+    private static Template createTemplate(TransactionType transactionType, CurrencyType currencyType) {
+        if (transactionType == TransactionType.TRANSACTION) {
+            return new Template("Transferred ", " " + currencyType + " to ");
+        } else if (transactionType == TransactionType.DEPOSIT) {
+            return new Template("Deposited ", " " + currencyType);
+        }
+        return new Template("Withdrawn ", " " + currencyType);
+    }
+
+    /**
+     * Renders the description of a transaction.
+     * @param transactionType The type of the transaction.
+     * @param currencyType The currency of the amount.
+     * @param amount The amount in cents.
+     * @param receiverIBAN The IBAN of the receiving account, only used for a transfer.
+     * @param memo The description the user gave, null or empty for none.
+     * @return Returns the description.
+     */
+    public static String render(TransactionType transactionType, CurrencyType currencyType, long amount,
+                                String receiverIBAN, String memo) {
+        // Transactions that are still being built may not have a type or currency yet, those are not cached.
+        Template template = transactionType != null && currencyType != null
+                ? TEMPLATES.get(transactionType).get(currencyType)
+                : createTemplate(transactionType, currencyType);
+
+        StringBuilder builder = new StringBuilder(64).append(template.beforeAmount());
+        Money.appendEuros(builder, amount).append(template.afterAmount());
+        if (transactionType == TransactionType.TRANSACTION) {
+            builder.append(receiverIBAN);
+        }
+        if (memo != null && !memo.isEmpty()) {
+            builder.append(" ('").append(memo).append("')");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,23 @@
+package nl.inholland.bank.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a transaction that lists of transactions show, read in the same query that searches them.
+ * Loading whole transactions would also load both accounts, their users and the accounts and limits of those users.
+ * @param username The username of the user that made the transaction.
+ * @param senderIBAN The IBAN of the sending account, null for a deposit.
+ * @param receiverIBAN The IBAN of the receiving account, null for a withdrawal.
+ * @param memo The description the user gave, null for none.
+ */
+public record TransactionSummary(int id, String username, String senderIBAN, String receiverIBAN, long amount,
+                                 CurrencyType currencyType, LocalDateTime timestamp, String memo,
+                                 TransactionType transactionType) {
+    /**
+     * Renders the description of the transaction, the same as Transaction.getDescription.
+     * @return Returns the description.
+     */
+    public String description() {
+        return TransactionDescription.render(transactionType, currencyType, amount, receiverIBAN, memo);
+    }
+}
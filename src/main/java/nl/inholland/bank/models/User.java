@@ -11,12 +11,18 @@ import nl.inholland.bank.models.exceptions.OperationNotAllowedException;
 
 import java.time.LocalDate;
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 @Entity
 @Data
 @NoArgsConstructor(force = true)
 @Table(name = "users")
 public class User {
+    // Compiled once, the setters run for every user that is created or updated.
+    private static final Pattern BSN_PATTERN = Pattern.compile("[0-9]+");
+    private static final Pattern PHONE_NUMBER_PATTERN = Pattern.compile("\\+?\\d+");
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}");
+
     @Id
     @GeneratedValue
     private int id;
@@ -95,7 +101,7 @@ public class User {
         }
 
         // Check if the BSN only contains numbers
-        if (!bsn.matches("[0-9]+")) {
+        if (!BSN_PATTERN.matcher(bsn).matches()) {
             throw new IllegalArgumentException("BSN must only contain numbers");
         }
 
@@ -122,7 +128,7 @@ public class User {
     public void setPhoneNumber(String phoneNumber) {
         // Check if the phone number only contains numbers.
         // Phone number may also start with a '+' sign.
-        if (phoneNumber == null || (!phoneNumber.matches("\\d+") && !phoneNumber.matches("\\+\\d+"))) {
+        if (phoneNumber == null || !PHONE_NUMBER_PATTERN.matcher(phoneNumber).matches()) {
             throw new IllegalArgumentException("Phone number must only contain numbers");
         }
 
@@ -136,7 +142,7 @@ public class User {
     }
 
     public void setEmail(String email) {
-        if (!email.matches("[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}")) {
+        if (!EMAIL_PATTERN.matcher(email).matches()) {
             throw new IllegalArgumentException("Email is not valid");
         }
 
@@ -219,8 +225,8 @@ public class User {
         this.limits = limits;
     }
 
-    public double getTotalBalance() {
-        double sum = 0;
+    public long getTotalBalance() {
+        long sum = 0;
         if (currentAccount != null) {
             sum += currentAccount.getBalance();
         }
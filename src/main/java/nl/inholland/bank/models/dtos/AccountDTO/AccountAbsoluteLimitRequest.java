@@ -1,4 +1,6 @@
 package nl.inholland.bank.models.dtos.AccountDTO;
 
-public record AccountAbsoluteLimitRequest(double absoluteLimit) {
+import nl.inholland.bank.models.dtos.JsonMoney;
+
+public record AccountAbsoluteLimitRequest(@JsonMoney long absoluteLimit) {
 }
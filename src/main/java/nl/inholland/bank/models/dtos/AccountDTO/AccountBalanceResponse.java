@@ -0,0 +1,8 @@
+package nl.inholland.bank.models.dtos.AccountDTO;
+
+import nl.inholland.bank.models.dtos.JsonMoney;
+
+import java.time.LocalDateTime;
+
+public record AccountBalanceResponse(String IBAN, LocalDateTime at, @JsonMoney long balance) {
+}
@@ -0,0 +1,11 @@
+package nl.inholland.bank.models.dtos.AccountDTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+public record AccountBulkItemResponse(int line, int status,
+                                      @JsonInclude(JsonInclude.Include.NON_NULL) Integer user_id,
+                                      @JsonInclude(JsonInclude.Include.NON_NULL) List<AccountResponse> accounts,
+                                      @JsonInclude(JsonInclude.Include.NON_NULL) String error_message) {
+}
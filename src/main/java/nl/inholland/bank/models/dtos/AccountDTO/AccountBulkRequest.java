@@ -0,0 +1,12 @@
+package nl.inholland.bank.models.dtos.AccountDTO;
+
+import nl.inholland.bank.models.dtos.UserDTO.UserRequest;
+
+import java.util.List;
+
+/**
+ * One line of a bulk onboarding request. Opens the given account types for an existing user (user_id),
+ * or for a new customer (user).
+ */
+public record AccountBulkRequest(Integer user_id, UserRequest user, String currency_type, List<String> account_types) {
+}
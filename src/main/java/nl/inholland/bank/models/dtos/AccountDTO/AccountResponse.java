@@ -1,6 +1,8 @@
 package nl.inholland.bank.models.dtos.AccountDTO;
 
+import nl.inholland.bank.models.dtos.JsonMoney;
+
 public record AccountResponse(int id, String IBAN, String currency_type, String account_type,
-                              boolean isActive, double balance, double absolute_limit, String firstName, String lastName) {
+                              boolean isActive, @JsonMoney long balance, @JsonMoney long absolute_limit, String firstName, String lastName) {
 
 }
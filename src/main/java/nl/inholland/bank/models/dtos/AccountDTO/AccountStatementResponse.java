@@ -0,0 +1,7 @@
+package nl.inholland.bank.models.dtos.AccountDTO;
+
+import nl.inholland.bank.models.dtos.JsonMoney;
+
+public record AccountStatementResponse(String IBAN, String month, @JsonMoney long opening_balance, @JsonMoney long closing_balance,
+                                       @JsonMoney long total_in, @JsonMoney long total_out, long transaction_count) {
+}
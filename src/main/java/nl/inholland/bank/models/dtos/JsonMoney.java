@@ -0,0 +1,57 @@
+package nl.inholland.bank.models.dtos;
+
+import com.fasterxml.jackson.annotation.JacksonAnnotationsInside;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+import nl.inholland.bank.models.Money;
+
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An amount in cents that is written to and read from JSON as euros, like 12.5 for 1250 cents.
+ * Reading an amount with more than two decimals fails with the message of {@link Money#toCents(double)}.
+ */
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+@JacksonAnnotationsInside
+@JsonSerialize(using = JsonMoney.Serializer.class)
+@JsonDeserialize(using = JsonMoney.Deserializer.class)
+public @interface JsonMoney {
+    class Serializer extends StdScalarSerializer<Long> {
+        public Serializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public void serialize(Long cents, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeNumber(Money.toEuros(cents));
+        }
+    }
+
+    class Deserializer extends StdScalarDeserializer<Long> {
+        public Deserializer() {
+            super(Long.class);
+        }
+
+        @Override
+        public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return Money.toCents(parser.getValueAsDouble());
+        }
+
+        // A missing or null amount is 0, as it was for the double it replaces
+        @Override
+        public Long getNullValue(DeserializationContext context) {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package nl.inholland.bank.models.dtos.TransactionDTO;
+
+import java.util.List;
+
+public record LaneStatisticsResponse(
+        boolean enabled,
+        List<Integer> queue_depths,
+        long batches,
+        long batched_credits,
+        int largest_batch,
+        double average_batch_size
+) {
+}
@@ -0,0 +1,8 @@
+package nl.inholland.bank.models.dtos.TransactionDTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+public record TransactionBatchItemResponse(int index, int status,
+                                           @JsonInclude(JsonInclude.Include.NON_NULL) TransactionResponse transaction,
+                                           @JsonInclude(JsonInclude.Include.NON_NULL) String error_message) {
+}
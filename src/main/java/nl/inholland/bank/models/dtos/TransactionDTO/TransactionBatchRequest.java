@@ -0,0 +1,6 @@
+package nl.inholland.bank.models.dtos.TransactionDTO;
+
+import java.util.List;
+
+public record TransactionBatchRequest(List<TransactionRequest> transactions, boolean all_or_nothing) {
+}
@@ -0,0 +1,6 @@
+package nl.inholland.bank.models.dtos.TransactionDTO;
+
+import java.util.List;
+
+public record TransactionBatchResponse(int successful, int failed, List<TransactionBatchItemResponse> results) {
+}
@@ -1,4 +1,6 @@
 package nl.inholland.bank.models.dtos.TransactionDTO;
 
-public record TransactionRequest(String sender_iban, String receiver_iban, double amount, String description) {
+import nl.inholland.bank.models.dtos.JsonMoney;
+
+public record TransactionRequest(String sender_iban, String receiver_iban, @JsonMoney long amount, String description) {
 }
@@ -3,9 +3,10 @@ package nl.inholland.bank.models.dtos.TransactionDTO;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import nl.inholland.bank.models.CurrencyType;
 import nl.inholland.bank.models.TransactionType;
+import nl.inholland.bank.models.dtos.JsonMoney;
 
 import java.time.LocalDateTime;
 
 public record TransactionResponse(long id, String username, @JsonInclude(JsonInclude.Include.NON_NULL) String sender_iban, @JsonInclude(JsonInclude.Include.NON_NULL)
-String receiver_iban, double amount, CurrencyType currencyType, LocalDateTime timestamp, String description, TransactionType transactionType) {
+String receiver_iban, @JsonMoney long amount, CurrencyType currencyType, LocalDateTime timestamp, String description, TransactionType transactionType) {
 }
@@ -3,7 +3,7 @@ package nl.inholland.bank.models.dtos.TransactionDTO;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
-public record TransactionSearchRequest(Optional<Double> minAmount, Optional<Double> maxAmount,
+public record TransactionSearchRequest(Optional<Long> minAmount, Optional<Long> maxAmount,
                                        Optional<LocalDateTime> startDate, Optional<LocalDateTime> endDate,
                                        Optional<Integer> transactionID,
                                        Optional<String> ibanSender, Optional<String> ibanReceiver,
@@ -1,6 +1,7 @@
 package nl.inholland.bank.models.dtos.TransactionDTO;
 
 import nl.inholland.bank.models.CurrencyType;
+import nl.inholland.bank.models.dtos.JsonMoney;
 
-public record WithdrawDepositRequest(String IBAN, double amount, CurrencyType currencyType) {
+public record WithdrawDepositRequest(String IBAN, @JsonMoney long amount, CurrencyType currencyType) {
 }
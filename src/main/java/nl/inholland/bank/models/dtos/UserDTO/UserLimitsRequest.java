@@ -1,4 +1,6 @@
 package nl.inholland.bank.models.dtos.UserDTO;
 
-public record UserLimitsRequest(double transaction_limit, double daily_transaction_limit) {
+import nl.inholland.bank.models.dtos.JsonMoney;
+
+public record UserLimitsRequest(@JsonMoney long transaction_limit, @JsonMoney long daily_transaction_limit) {
 }
@@ -1,4 +1,7 @@
 package nl.inholland.bank.models.dtos.UserDTO;
 
-public record UserLimitsResponse(double transaction_limit, double daily_transaction_limit, double remaining_daily_transaction_limit) {
+import nl.inholland.bank.models.dtos.JsonMoney;
+
+public record UserLimitsResponse(@JsonMoney long transaction_limit, @JsonMoney long daily_transaction_limit,
+                                 @JsonMoney long remaining_daily_transaction_limit) {
 }
@@ -1,6 +1,7 @@
 package nl.inholland.bank.models.dtos.UserDTO;
 
 import nl.inholland.bank.models.dtos.AccountDTO.AccountResponse;
+import nl.inholland.bank.models.dtos.JsonMoney;
 
 public record UserResponse(
         int id,
@@ -11,7 +12,7 @@ public record UserResponse(
         String bsn,
         String phone_number,
         String birth_date,
-        Double total_balance,
+        @JsonMoney Long total_balance,
         String role,
         AccountResponse current_account,
         AccountResponse saving_account,
@@ -0,0 +1,7 @@
+package nl.inholland.bank.models.exceptions;
+
+public class PasswordHashingBusyException extends RuntimeException{
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
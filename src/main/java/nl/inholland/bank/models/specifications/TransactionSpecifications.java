@@ -1,10 +1,12 @@
 package nl.inholland.bank.models.specifications;
 
-import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
-import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import nl.inholland.bank.models.Account;
 import nl.inholland.bank.models.Transaction;
+import nl.inholland.bank.models.TransactionCursor;
 import nl.inholland.bank.models.TransactionType;
 import nl.inholland.bank.models.User;
 import org.springframework.data.jpa.domain.Specification;
@@ -13,7 +15,7 @@ import java.time.LocalDateTime;
 
 public class TransactionSpecifications {
 
-    public static Specification<Transaction> withAmountBetween(double minAmount, double maxAmount) {
+    public static Specification<Transaction> withAmountBetween(long minAmount, long maxAmount) {
         return (root, query, builder) ->
                 builder.between(root.get("amount"), minAmount, maxAmount);
     }
@@ -23,26 +25,53 @@ public class TransactionSpecifications {
                 builder.between(root.get("timestamp"), startDate, endDate);
     }
 
+    // Compares the sender account id with the id of the account instead of joining the account, so the transactions are
+    // looked up in the (sender, timestamp, id) index. Joined, H2 goes through the timestamps first, see TransactionIndexTests.
     public static Specification<Transaction> withAccountSenderIBAN(String accountSenderIBAN) {
         return (root, query, builder) ->
-                builder.equal(root.get("accountSender").get("IBAN"), accountSenderIBAN);
+                builder.equal(root.get("accountSender").get("id"), accountWithIBAN(query, builder, accountSenderIBAN));
     }
 
+    // Like withAccountSenderIBAN, through the (receiver, timestamp, id) index.
     public static Specification<Transaction> withAccountReceiverIBAN(String accountReceiverIBAN) {
         return (root, query, builder) ->
-                builder.equal(root.get("accountReceiver").get("IBAN"), accountReceiverIBAN);
+                builder.equal(root.get("accountReceiver").get("id"), accountWithIBAN(query, builder, accountReceiverIBAN));
     }
 
+    // Transactions from or to any account of the user, in one query. TransactionRepository searches both sides on their
+    // own instead, as H2 does not combine the sender and receiver index for the OR, see TransactionIndexTests.
     public static Specification<Transaction> withUserId(int userId) {
-        return (root, query, criteriaBuilder) -> {
-            Join<Transaction, Account> accountSenderJoin = root.join("accountSender", JoinType.LEFT);
-            Join<Transaction, Account> accountReceiverJoin = root.join("accountReceiver", JoinType.LEFT);
+        return fromAccountOfUser(userId).or(toAccountOfUserFromElsewhere(userId));
+    }
+
+    // Transactions from any account of the user. Compares the sender account id with the accounts of the user instead of
+    // joining the account, so the transactions are looked up in the (sender, timestamp, id) index.
+    public static Specification<Transaction> fromAccountOfUser(int userId) {
+        return (root, query, builder) -> root.get("accountSender").get("id").in(accountsOfUser(query, builder, userId));
+    }
+
+    // Transactions to any account of the user, except the ones from an account of the user, which fromAccountOfUser
+    // finds. Looked up in the (receiver, timestamp, id) index like fromAccountOfUser.
+    public static Specification<Transaction> toAccountOfUserFromElsewhere(int userId) {
+        return (root, query, builder) -> builder.and(
+                root.get("accountReceiver").get("id").in(accountsOfUser(query, builder, userId)),
+                builder.or(
+                        builder.isNull(root.get("accountSender")),
+                        builder.not(root.get("accountSender").get("id").in(accountsOfUser(query, builder, userId)))));
+    }
 
-            Predicate senderUserPredicate = criteriaBuilder.equal(accountSenderJoin.get("user").get("id"), userId);
-            Predicate receiverUserPredicate = criteriaBuilder.equal(accountReceiverJoin.get("user").get("id"), userId);
+    private static Subquery<Integer> accountWithIBAN(CriteriaQuery<?> query, CriteriaBuilder builder, String iban) {
+        Subquery<Integer> accountWithIBAN = query.subquery(Integer.class);
+        Root<Account> account = accountWithIBAN.from(Account.class);
+        return accountWithIBAN.select(account.get("id"))
+                .where(builder.equal(account.get("IBAN"), iban));
+    }
 
-            return criteriaBuilder.or(senderUserPredicate, receiverUserPredicate);
-        };
+    private static Subquery<Integer> accountsOfUser(CriteriaQuery<?> query, CriteriaBuilder builder, int userId) {
+        Subquery<Integer> accountsOfUser = query.subquery(Integer.class);
+        Root<Account> account = accountsOfUser.from(Account.class);
+        return accountsOfUser.select(account.get("id"))
+                .where(builder.equal(account.get("user").get("id"), userId));
     }
 
     public static Specification<Transaction> withSenderUser(User senderUser) {
@@ -63,4 +92,13 @@ public class TransactionSpecifications {
     public static Specification<Transaction> withTransactionType(TransactionType transactionType) {
         return (root, query, builder) -> builder.equal(root.get("transactionType"), transactionType);
     }
+
+    // Transactions that come after the cursor when ordered from new to old
+    public static Specification<Transaction> after(TransactionCursor cursor) {
+        return (root, query, builder) -> builder.or(
+                builder.lessThan(root.get("timestamp"), cursor.timestamp()),
+                builder.and(
+                        builder.equal(root.get("timestamp"), cursor.timestamp()),
+                        builder.lessThan(root.get("id"), cursor.id())));
+    }
 }
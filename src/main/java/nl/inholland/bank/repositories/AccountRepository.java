@@ -1,30 +1,86 @@
 package nl.inholland.bank.repositories;
 
 import io.micrometer.common.util.StringUtils;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
 import nl.inholland.bank.models.Account;
+import nl.inholland.bank.models.AccountBalance;
 import nl.inholland.bank.models.AccountType;
 import nl.inholland.bank.models.User;
 import nl.inholland.bank.models.specifications.AccountSpecifications;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AccountRepository extends CrudRepository<Account, Integer>, JpaSpecificationExecutor<Account> {
+public interface AccountRepository extends CrudRepository<Account, Integer>, JpaSpecificationExecutor<Account>,
+        SliceSpecificationExecutor<Account> {
 
     // get all the accounts according to a user id
     List<Account> findAllByUser(User user);
 
     Optional<Account> findByIBAN(String iban);
 
-    default Page<Account> findAccounts(
+    List<Account> findAllByIBANIn(Collection<String> ibans);
+
+    // Only selects the id, so the account itself is not loaded before it is locked.
+    @Query("select a.id from Account a where a.IBAN = :iban")
+    Optional<Integer> findIdByIBAN(@Param("iban") String iban);
+
+    @Query("select a.id from Account a where a.IBAN in :ibans")
+    List<Integer> findIdsByIBANIn(@Param("ibans") Collection<String> ibans);
+
+    // The ids of all accounts, to go through them in chunks
+    @Query("select a.id from Account a order by a.id")
+    List<Integer> findAllIds();
+
+    // The balances of the accounts right before a moment: the current balances with the credits the account lanes have
+    // not added yet, without what went in and out since. In one statement, so a transfer made meanwhile is either
+    // counted in full or not at all.
+    @Query("select new nl.inholland.bank.models.AccountBalance(a.id, a.balance"
+            + " + coalesce((select sum(t.amount) from Transaction t where t.id in"
+            + "     (select p.transactionId from PendingCredit p where p.accountId = a.id)), 0)"
+            + " - coalesce((select sum(t.amount) from Transaction t where t.accountReceiver.id = a.id and t.timestamp >= :moment), 0)"
+            + " + coalesce((select sum(t.amount) from Transaction t where t.accountSender.id = a.id and t.timestamp >= :moment), 0))"
+            + " from Account a where a.id in :ids")
+    List<AccountBalance> findBalancesBeforeByIdIn(@Param("ids") Collection<Integer> ids, @Param("moment") LocalDateTime moment);
+
+    // Locks the account rows until the end of the current transaction, in order of their id.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a.id from Account a where a.id in :ids order by a.id")
+    List<Integer> lockByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Reserves the next block of account numbers, see IBANAllocator. Not read-only, as it advances the sequence.
+    @Transactional
+    @Query(value = "select next value for iban_block_seq", nativeQuery = true)
+    long nextIBANBlock();
+
+    // IBANs of this bank with an account number in the given range, both ten digits.
+    @Query("select a.IBAN from Account a where a.IBAN like 'NL__INHO%' and substring(a.IBAN, 9) between :low and :high")
+    List<String> findIBANsWithAccountNumberBetween(@Param("low") String low, @Param("high") String high);
+
+    default Slice<Account> findAccounts(
             String IBAN, String firstName, String lastName, AccountType accountType, Pageable pageable) {
+        return findSlice(specification(IBAN, firstName, lastName, accountType), pageable);
+    }
+
+    // Counts all accounts that findAccounts can return, over all pages.
+    default long countAccounts(String IBAN, String firstName, String lastName, AccountType accountType) {
+        return count(specification(IBAN, firstName, lastName, accountType));
+    }
+
+    private Specification<Account> specification(String IBAN, String firstName, String lastName, AccountType accountType) {
         Specification<Account> specification = Specification.where(null);
 
         if (StringUtils.isNotBlank(IBAN)) {
@@ -40,6 +96,6 @@ public interface AccountRepository extends CrudRepository<Account, Integer>, Jpa
             specification = specification.and(AccountSpecifications.withAccountType(accountType));
         }
 
-        return findAll(specification, pageable);
+        return specification;
     }
 }
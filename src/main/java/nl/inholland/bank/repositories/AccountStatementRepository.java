@@ -0,0 +1,47 @@
+package nl.inholland.bank.repositories;
+
+import nl.inholland.bank.models.AccountStatement;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@Repository
+public interface AccountStatementRepository extends CrudRepository<AccountStatement, Integer> {
+    /**
+     * Find the statement of an account for a month
+     * @param accountId The id of the account
+     * @param statementMonth The first day of the month
+     * @return The statement, if the month was closed for the account
+     */
+    Optional<AccountStatement> findByAccountIdAndStatementMonth(int accountId, LocalDate statementMonth);
+
+    /**
+     * Find all statements of an account
+     * @param accountId The id of the account
+     * @return The statements, newest month first
+     */
+    List<AccountStatement> findAllByAccountIdOrderByStatementMonthDesc(int accountId);
+
+    /**
+     * Find the statements of a month for some accounts
+     * @param statementMonth The first day of the month
+     * @param accountIds The ids of the accounts
+     * @return The statements of the accounts that were closed for the month
+     */
+    List<AccountStatement> findAllByStatementMonthAndAccountIdIn(LocalDate statementMonth, Collection<Integer> accountIds);
+
+    /**
+     * Find the accounts that were closed for a month
+     * @param statementMonth The first day of the month
+     * @return The ids of the accounts
+     */
+    @Query("select s.accountId from AccountStatement s where s.statementMonth = :statementMonth")
+    Set<Integer> findAccountIdsByStatementMonth(@Param("statementMonth") LocalDate statementMonth);
+}
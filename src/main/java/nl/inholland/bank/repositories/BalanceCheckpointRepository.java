@@ -0,0 +1,29 @@
+package nl.inholland.bank.repositories;
+
+import nl.inholland.bank.models.BalanceCheckpoint;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface BalanceCheckpointRepository extends CrudRepository<BalanceCheckpoint, Integer> {
+    /**
+     * Find the last checkpoint of an account at or before a moment
+     * @param accountId The id of the account
+     * @param timestamp The moment
+     * @return The checkpoint, if the account had one by then
+     */
+    Optional<BalanceCheckpoint> findFirstByAccountIdAndTimestampLessThanEqualOrderByTimestampDescTransactionIdDesc(
+            int accountId, LocalDateTime timestamp);
+
+    /**
+     * Find the first checkpoint of an account after a moment
+     * @param accountId The id of the account
+     * @param timestamp The moment
+     * @return The checkpoint, if the account had one since then
+     */
+    Optional<BalanceCheckpoint> findFirstByAccountIdAndTimestampGreaterThanOrderByTimestampAscTransactionIdAsc(
+            int accountId, LocalDateTime timestamp);
+}
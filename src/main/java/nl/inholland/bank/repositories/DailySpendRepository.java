@@ -0,0 +1,76 @@
+package nl.inholland.bank.repositories;
+
+import jakarta.transaction.Transactional;
+import nl.inholland.bank.models.DailySpend;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface DailySpendRepository extends CrudRepository<DailySpend, Integer> {
+    /**
+     * Find the spend of a user on a given day
+     * @param userId The id of the user
+     * @param spendDate The day
+     * @return The daily spend, if any was recorded
+     */
+    Optional<DailySpend> findByUserIdAndSpendDate(int userId, LocalDate spendDate);
+
+    /**
+     * Find the stored spend of a user on a given day, read from the database rather than the persistence context
+     * @param userId The id of the user
+     * @param spendDate The day
+     * @return The amount spent, if any was recorded
+     */
+    @Query("select d.amount from DailySpend d where d.userId = :userId and d.spendDate = :spendDate")
+    Optional<Long> findAmount(@Param("userId") int userId, @Param("spendDate") LocalDate spendDate);
+
+    /**
+     * Creates the spend of a user for a day with an amount of 0, unless it exists, in a single statement that holds up
+     * when another transaction creates it at the same time. The row stays locked until the calling transaction ends.
+     * @param userId The id of the user
+     * @param spendDate The day
+     * @return The number of merged rows, 1 whether it was created or already there
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "merge into daily_spend (user_id, spend_date) key (user_id, spend_date) values (:userId, :spendDate)",
+            nativeQuery = true)
+    int insertIfMissing(@Param("userId") int userId, @Param("spendDate") LocalDate spendDate);
+
+    /**
+     * Sets the stored spend of a user that was only just created, which is the only time it can still be 0 while the
+     * user spent money that day
+     * @param userId The id of the user
+     * @param spendDate The day
+     * @param amount The amount spent before the spend was stored
+     * @return The number of updated rows, 0 if something was spent already
+     */
+    @Transactional
+    @Modifying
+    @Query("update DailySpend d set d.amount = :amount " +
+            "where d.userId = :userId and d.spendDate = :spendDate and d.amount = 0")
+    int setAmountIfNothingSpent(@Param("userId") int userId, @Param("spendDate") LocalDate spendDate,
+                                @Param("amount") long amount);
+
+    /**
+     * Adds an amount to the stored spend of a user, in a single statement, unless the total would exceed the limit.
+     * The row stays locked until the calling transaction ends.
+     * @param userId The id of the user
+     * @param spendDate The day
+     * @param amount The amount to add
+     * @param limit The highest total allowed
+     * @return The number of updated rows, 0 if nothing was stored yet for that day or the limit would be exceeded
+     */
+    @Transactional
+    @Modifying
+    @Query("update DailySpend d set d.amount = d.amount + :amount " +
+            "where d.userId = :userId and d.spendDate = :spendDate and d.amount + :amount <= :limit")
+    int addToAmountWithinLimit(@Param("userId") int userId, @Param("spendDate") LocalDate spendDate,
+                               @Param("amount") long amount, @Param("limit") long limit);
+}
@@ -0,0 +1,38 @@
+package nl.inholland.bank.repositories;
+
+import nl.inholland.bank.models.PendingCredit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PendingCreditRepository extends CrudRepository<PendingCredit, Integer> {
+    /**
+     * Adds the credit of a transfer in a single insert, without checking first whether it exists
+     * @param transactionId The id of the transfer, which has to be saved already
+     * @param accountId The id of the receiving account
+     * @return The number of inserted rows
+     */
+    @Modifying
+    @Query(value = "insert into pending_credit (transaction_id, account_id) values (:transactionId, :accountId)",
+            nativeQuery = true)
+    int insert(@Param("transactionId") int transactionId, @Param("accountId") int accountId);
+
+    /**
+     * Removes the credits of transfers once they have been added to the balance
+     * @param transactionIds The ids of the transfers
+     * @return The number of removed credits
+     */
+    @Modifying
+    @Query("delete from PendingCredit p where p.transactionId in :transactionIds")
+    int deleteByTransactionIdIn(@Param("transactionIds") Collection<Integer> transactionIds);
+
+    // The accounts that have credits waiting, to retry them
+    @Query("select distinct p.accountId from PendingCredit p")
+    List<Integer> findAccountIds();
+}
@@ -1,13 +1,43 @@
 package nl.inholland.bank.repositories;
 
+import jakarta.transaction.Transactional;
 import nl.inholland.bank.models.BlacklistedRefreshToken;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface RefreshTokenBlacklistRepository extends CrudRepository<BlacklistedRefreshToken, String> {
     /**
-     * Checks if a token is blacklisted
-     * @param token The token to check
-     * @return True if the token is blacklisted, false otherwise
+     * Gets the hashes of all blacklisted tokens
+     * @return The hashes
+     */
+    @Query("select b.tokenHash from BlacklistedRefreshToken b")
+    List<String> findAllTokenHashes();
+
+    /**
+     * Adds a token to the blacklist in a single insert, which fails if it is already there
+     * @param tokenHash The hash of the token
+     * @param blacklistedAt The time it was blacklisted
+     * @return The number of inserted rows
+     * @throws org.springframework.dao.DataIntegrityViolationException If the token is already blacklisted
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "insert into blacklisted_refresh_token (token_hash, blacklisted_at) values (:tokenHash, :blacklistedAt)",
+            nativeQuery = true)
+    int insert(@Param("tokenHash") String tokenHash, @Param("blacklistedAt") LocalDateTime blacklistedAt);
+
+    /**
+     * Removes the tokens that were blacklisted before the given time
+     * @param before Tokens blacklisted before this time are removed
+     * @return The number of removed tokens
      */
-    boolean existsByToken(String token);
+    @Transactional
+    @Modifying
+    @Query("delete from BlacklistedRefreshToken b where b.blacklistedAt < :before")
+    int deleteBlacklistedBefore(@Param("before") LocalDateTime before);
 }
@@ -0,0 +1,53 @@
+package nl.inholland.bank.repositories;
+
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Paged searches that only need the content of a page. Unlike findAll with a Pageable, no count query is made:
+ * one extra row is fetched to tell whether there is a next page. Searches without pages can stream their results instead.
+ * Implemented for every repository by SliceableJpaRepository.
+ */
+@NoRepositoryBean
+public interface SliceSpecificationExecutor<T> {
+    /**
+     * Find the entities of a page
+     * @param specification The specification to filter the entities
+     * @param pageable The page, its size and the order of the entities
+     * @return The entities of the page, and whether there is a next page
+     */
+    Slice<T> findSlice(Specification<T> specification, Pageable pageable);
+
+    /**
+     * Find the entities of a page like findSlice, but only select the given values of them
+     * @param specification The specification to filter the entities
+     * @param pageable The page, its size and the order of the entities
+     * @param projection The class to create from the values, with a constructor that takes them in the same order
+     * @param selection The values to select from the root of the query
+     * @return The projections of the page, and whether there is a next page
+     */
+    <R> Slice<R> findSlice(Specification<T> specification, Pageable pageable, Class<R> projection,
+                           Function<Root<T>, List<Selection<?>>> selection);
+
+    /**
+     * Find all entities like findSlice, as a stream that reads the rows while it is consumed.
+     * The stream has to be consumed and closed inside a transaction.
+     * @param specification The specification to filter the entities
+     * @param sort The order of the entities
+     * @param projection The class to create from the values, with a constructor that takes them in the same order
+     * @param selection The values to select from the root of the query
+     * @param fetchSize The number of rows to read from the database at once
+     * @return The projections of all entities
+     */
+    <R> Stream<R> streamAll(Specification<T> specification, Sort sort, Class<R> projection,
+                            Function<Root<T>, List<Selection<?>>> selection, int fetchSize);
+}
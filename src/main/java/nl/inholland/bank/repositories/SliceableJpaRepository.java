@@ -0,0 +1,84 @@
+package nl.inholland.bank.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Base class of all repositories, see RepositoryConfiguration. Adds findSlice and streamAll to the standard implementation.
+ */
+public class SliceableJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> implements SliceSpecificationExecutor<T> {
+    private final EntityManager entityManager;
+
+    public SliceableJpaRepository(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Slice<T> findSlice(Specification<T> specification, Pageable pageable) {
+        return slice(getQuery(specification, pageable.getSort()), pageable);
+    }
+
+    @Override
+    public <R> Slice<R> findSlice(Specification<T> specification, Pageable pageable, Class<R> projection,
+                                  Function<Root<T>, List<Selection<?>>> selection) {
+        return slice(getQuery(specification, pageable.getSort(), projection, selection), pageable);
+    }
+
+    @Override
+    public <R> Stream<R> streamAll(Specification<T> specification, Sort sort, Class<R> projection,
+                                   Function<Root<T>, List<Selection<?>>> selection, int fetchSize) {
+        return getQuery(specification, sort, projection, selection)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    private <R> TypedQuery<R> getQuery(Specification<T> specification, Sort sort, Class<R> projection,
+                                       Function<Root<T>, List<Selection<?>>> selection) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = builder.createQuery(projection);
+        Root<T> root = query.from(getDomainClass());
+
+        Predicate predicate = specification == null ? null : specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(builder.construct(projection, selection.apply(root).toArray(Selection[]::new)));
+        query.orderBy(QueryUtils.toOrders(sort, root, builder));
+
+        return entityManager.createQuery(query);
+    }
+
+    private <R> Slice<R> slice(TypedQuery<R> query, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(query.getResultList(), pageable, false);
+        }
+
+        // One extra row tells whether there is a next page
+        List<R> content = query
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+}
@@ -1,32 +1,315 @@
 package nl.inholland.bank.repositories;
 
 import io.micrometer.common.util.StringUtils;
-import nl.inholland.bank.models.Transaction;
-import nl.inholland.bank.models.TransactionType;
-import nl.inholland.bank.models.User;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import nl.inholland.bank.models.*;
 import nl.inholland.bank.models.specifications.TransactionSpecifications;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Repository
-public interface TransactionRepository extends CrudRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
+public interface TransactionRepository extends CrudRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction>,
+        SliceSpecificationExecutor<Transaction> {
+    // Newest first, the order of the (timestamp, id) indexes on transactions
+    Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id"));
+    // Oldest first, the order of a statement
+    Sort OLDEST_FIRST = Sort.by(Sort.Order.asc("timestamp"), Sort.Order.asc("id"));
+
     List<Transaction> findAllByTimestampIsAfterAndUserId(LocalDateTime start, int userId);
 
-    default Page<Transaction> findTransactions(
-            double minAmount, double maxAmount,
+    /**
+     * Sums the money that went into each of the accounts over a period, through the receiver index
+     * @param accountIds The ids of the accounts
+     * @param start The start of the period, inclusive
+     * @param end The end of the period, exclusive
+     * @return The totals of the accounts that received money in the period
+     */
+    @Query("select new nl.inholland.bank.models.AccountTotals(t.accountReceiver.id, sum(t.amount), count(t)) from Transaction t"
+            + " where t.accountReceiver.id in :accountIds and t.timestamp >= :start and t.timestamp < :end"
+            + " group by t.accountReceiver.id")
+    List<AccountTotals> sumReceivedByAccount(@Param("accountIds") Collection<Integer> accountIds,
+                                             @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Sums the money that went out of each of the accounts over a period, through the sender index
+     * @param accountIds The ids of the accounts
+     * @param start The start of the period, inclusive
+     * @param end The end of the period, exclusive
+     * @return The totals of the accounts that sent money in the period
+     */
+    @Query("select new nl.inholland.bank.models.AccountTotals(t.accountSender.id, sum(t.amount), count(t)) from Transaction t"
+            + " where t.accountSender.id in :accountIds and t.timestamp >= :start and t.timestamp < :end"
+            + " group by t.accountSender.id")
+    List<AccountTotals> sumSentByAccount(@Param("accountIds") Collection<Integer> accountIds,
+                                         @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Sums the money that went into an account between two transactions, through the receiver index.
+     * Transactions are ordered by timestamp and id, like TransactionCursor.
+     * @param accountId The id of the account
+     * @param fromTimestamp The timestamp of the transaction to start after
+     * @param fromId The id of the transaction to start after
+     * @param toTimestamp The timestamp of the last transaction to include
+     * @param toId The id of the last transaction to include
+     * @return The sum, 0 without transactions
+     */
+    @Query("select coalesce(sum(t.amount), 0) from Transaction t where t.accountReceiver.id = :accountId"
+            + " and t.timestamp >= :fromTimestamp and t.timestamp <= :toTimestamp"
+            + " and (t.timestamp > :fromTimestamp or t.id > :fromId) and (t.timestamp < :toTimestamp or t.id <= :toId)")
+    long sumReceivedBetween(@Param("accountId") int accountId,
+                              @Param("fromTimestamp") LocalDateTime fromTimestamp, @Param("fromId") int fromId,
+                              @Param("toTimestamp") LocalDateTime toTimestamp, @Param("toId") int toId);
+
+    /**
+     * Sums the money that went out of an account between two transactions, through the sender index.
+     * Transactions are ordered by timestamp and id, like TransactionCursor.
+     * @param accountId The id of the account
+     * @param fromTimestamp The timestamp of the transaction to start after
+     * @param fromId The id of the transaction to start after
+     * @param toTimestamp The timestamp of the last transaction to include
+     * @param toId The id of the last transaction to include
+     * @return The sum, 0 without transactions
+     */
+    @Query("select coalesce(sum(t.amount), 0) from Transaction t where t.accountSender.id = :accountId"
+            + " and t.timestamp >= :fromTimestamp and t.timestamp <= :toTimestamp"
+            + " and (t.timestamp > :fromTimestamp or t.id > :fromId) and (t.timestamp < :toTimestamp or t.id <= :toId)")
+    long sumSentBetween(@Param("accountId") int accountId,
+                          @Param("fromTimestamp") LocalDateTime fromTimestamp, @Param("fromId") int fromId,
+                          @Param("toTimestamp") LocalDateTime toTimestamp, @Param("toId") int toId);
+
+    /**
+     * Finds the transfers to an account that the account lanes have not added to its balance yet, oldest first
+     * @param accountId The id of the receiving account
+     * @return The transfers, empty if all of them have been added
+     */
+    @Query("select t from Transaction t where t.id in"
+            + " (select p.transactionId from PendingCredit p where p.accountId = :accountId)"
+            + " order by t.timestamp, t.id")
+    List<Transaction> findPendingCredits(@Param("accountId") int accountId);
+
+    /**
+     * Sums the transfers to an account that the account lanes have not added to its balance yet
+     * @param accountId The id of the receiving account
+     * @return The sum of the amounts, 0 if all of them have been added
+     */
+    @Query("select coalesce(sum(t.amount), 0) from Transaction t where t.id in"
+            + " (select p.transactionId from PendingCredit p where p.accountId = :accountId)")
+    long sumPendingCredits(@Param("accountId") int accountId);
+
+    /**
+     * Gets the balance of an account right after one of its transactions, from its current balance, for an account
+     * whose balance may not include every transaction yet. Credits the account lanes have not added are counted, and
+     * the transactions after the given one are taken back. All in one statement, so every part is read at once.
+     * Transactions are ordered by timestamp and id, like TransactionCursor, with the timestamp as it was stored.
+     * @param accountId The id of the account
+     * @param transactionId The id of the transaction, which has to be saved
+     * @return The balance
+     */
+    @Query("select a.balance"
+            + " + coalesce((select sum(t.amount) from Transaction t where t.id in"
+            + "     (select p.transactionId from PendingCredit p where p.accountId = a.id)), 0)"
+            + " - coalesce((select sum(t.amount) from Transaction t where t.accountReceiver.id = a.id"
+            + "     and t.timestamp >= k.timestamp and (t.timestamp > k.timestamp or t.id > k.id)), 0)"
+            + " + coalesce((select sum(t.amount) from Transaction t where t.accountSender.id = a.id"
+            + "     and t.timestamp >= k.timestamp and (t.timestamp > k.timestamp or t.id > k.id)), 0)"
+            + " from Account a, Transaction k where a.id = :accountId and k.id = :transactionId")
+    long getBalanceAfter(@Param("accountId") int accountId, @Param("transactionId") int transactionId);
+
+    /**
+     * Find a page of transactions, with only the columns of a TransactionSummary, in a single query.
+     * Searches of a user take a query per side, see {@link #specifications}, and come newest first
+     * @return The transactions of the page, and whether there is a next page
+     */
+    default Slice<TransactionSummary> findTransactions(
+            long minAmount, long maxAmount,
             LocalDateTime startDate, LocalDateTime endDate,
             int transactionID,
             String accountSenderIBAN, String accountReceiverIBAN,
             User user, User senderUser, User receiverUser, TransactionType transactionType,
             Pageable pageable) {
+        List<Specification<Transaction>> sides = specifications(minAmount, maxAmount, startDate, endDate,
+                transactionID, accountSenderIBAN, accountReceiverIBAN, user, senderUser, receiverUser, transactionType);
+        if (sides.size() == 1) {
+            return findSlice(sides.get(0), pageable, TransactionSummary.class, TransactionRepository::summary);
+        }
+
+        // Every side up to the end of the page, which is then taken from both together
+        Pageable upToPage = PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize(), NEWEST_FIRST);
+        return merge(sides.stream()
+                .map(side -> findSlice(side, upToPage, TransactionSummary.class, TransactionRepository::summary))
+                .toList(), pageable);
+    }
+
+    /**
+     * Counts all transactions that findTransactions can return, over all pages
+     * @return The number of transactions
+     */
+    default long countTransactions(
+            long minAmount, long maxAmount,
+            LocalDateTime startDate, LocalDateTime endDate,
+            int transactionID,
+            String accountSenderIBAN, String accountReceiverIBAN,
+            User user, User senderUser, User receiverUser, TransactionType transactionType) {
+        return specifications(minAmount, maxAmount, startDate, endDate, transactionID, accountSenderIBAN,
+                accountReceiverIBAN, user, senderUser, receiverUser, transactionType).stream()
+                .mapToLong(this::count)
+                .sum();
+    }
+
+    /**
+     * Same search as findTransactions, newest first, continuing after the cursor instead of at an offset
+     * @param cursor The last transaction of the previous slice, null for the first slice
+     * @param limit The maximum number of transactions
+     * @return The transactions, and whether there are more
+     */
+    default Slice<TransactionSummary> findTransactionsAfter(
+            long minAmount, long maxAmount,
+            LocalDateTime startDate, LocalDateTime endDate,
+            int transactionID,
+            String accountSenderIBAN, String accountReceiverIBAN,
+            User user, User senderUser, User receiverUser, TransactionType transactionType,
+            TransactionCursor cursor, int limit) {
+        Pageable firstSlice = PageRequest.of(0, limit, NEWEST_FIRST);
+        List<Slice<TransactionSummary>> slices = specifications(minAmount, maxAmount, startDate, endDate,
+                transactionID, accountSenderIBAN, accountReceiverIBAN, user, senderUser, receiverUser, transactionType)
+                .stream()
+                .map(side -> cursor == null ? side : side.and(TransactionSpecifications.after(cursor)))
+                .map(side -> findSlice(side, firstSlice, TransactionSummary.class, TransactionRepository::summary))
+                .toList();
 
+        return slices.size() == 1 ? slices.get(0) : merge(slices, firstSlice);
+    }
+
+    // The columns of a TransactionSummary. Deposits have no sender and withdrawals no receiver, so both are left joined.
+    private static List<Selection<?>> summary(Root<Transaction> root) {
+        Join<Transaction, Account> sender = root.join("accountSender", JoinType.LEFT);
+        Join<Transaction, Account> receiver = root.join("accountReceiver", JoinType.LEFT);
+
+        return List.of(root.get("id"), root.get("user").get("username"), sender.get("IBAN"), receiver.get("IBAN"),
+                root.get("amount"), root.get("currencyType"), root.get("timestamp"), root.get("memo"),
+                root.get("transactionType"));
+    }
+
+    /**
+     * Same search as findTransactions, all transactions oldest first, read from the database while the stream is consumed
+     * @param fetchSize The number of transactions to read at once
+     * @return The transactions, to consume and close inside a transaction
+     */
+    default Stream<TransactionSummary> streamTransactions(
+            long minAmount, long maxAmount,
+            LocalDateTime startDate, LocalDateTime endDate,
+            int transactionID,
+            String accountSenderIBAN, String accountReceiverIBAN,
+            User user, User senderUser, User receiverUser, TransactionType transactionType,
+            int fetchSize) {
+        return specifications(minAmount, maxAmount, startDate, endDate, transactionID, accountSenderIBAN,
+                accountReceiverIBAN, user, senderUser, receiverUser, transactionType).stream()
+                .map(side -> streamAll(side, OLDEST_FIRST, TransactionSummary.class, TransactionRepository::summary, fetchSize))
+                .reduce(TransactionRepository::mergeOldestFirst)
+                .orElseThrow();
+    }
+
+    // The page of the pageable from slices that each hold their transactions newest first, up to the end of that page.
+    // The sides of a search of a user never have a transaction in common, so nothing is found twice.
+    private static Slice<TransactionSummary> merge(List<Slice<TransactionSummary>> slices, Pageable pageable) {
+        List<TransactionSummary> merged = slices.stream()
+                .flatMap(slice -> slice.getContent().stream())
+                .sorted(Comparator.comparing(TransactionSummary::timestamp).thenComparing(TransactionSummary::id).reversed())
+                .toList();
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        int to = Math.min(from + pageable.getPageSize(), merged.size());
+        boolean hasNext = to < merged.size() || slices.stream().anyMatch(Slice::hasNext);
+
+        return new SliceImpl<>(merged.subList(from, to), pageable, hasNext);
+    }
+
+    // Both streams oldest first, read one transaction ahead each. Closing the result closes both.
+    private static Stream<TransactionSummary> mergeOldestFirst(Stream<TransactionSummary> first, Stream<TransactionSummary> second) {
+        Comparator<TransactionSummary> oldestFirst = Comparator.comparing(TransactionSummary::timestamp)
+                .thenComparing(TransactionSummary::id);
+        Iterator<TransactionSummary> firstIterator = first.iterator();
+        Iterator<TransactionSummary> secondIterator = second.iterator();
+        Iterator<TransactionSummary> merged = new Iterator<>() {
+            private TransactionSummary nextOfFirst = firstIterator.hasNext() ? firstIterator.next() : null;
+            private TransactionSummary nextOfSecond = secondIterator.hasNext() ? secondIterator.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextOfFirst != null || nextOfSecond != null;
+            }
+
+            @Override
+            public TransactionSummary next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                TransactionSummary next;
+                if (nextOfSecond == null || (nextOfFirst != null && oldestFirst.compare(nextOfFirst, nextOfSecond) <= 0)) {
+                    next = nextOfFirst;
+                    nextOfFirst = firstIterator.hasNext() ? firstIterator.next() : null;
+                } else {
+                    next = nextOfSecond;
+                    nextOfSecond = secondIterator.hasNext() ? secondIterator.next() : null;
+                }
+                return next;
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false)
+                .onClose(first::close)
+                .onClose(second::close);
+    }
+
+    // The search as one specification, or for a user one per side: the transactions from an account of the user, and
+    // the ones to an account of the user from elsewhere. Each side is looked up in its own (account, timestamp, id)
+    // index, which a single query with an OR of both can not do in H2, see TransactionIndexTests.
+    private List<Specification<Transaction>> specifications(
+            long minAmount, long maxAmount,
+            LocalDateTime startDate, LocalDateTime endDate,
+            int transactionID,
+            String accountSenderIBAN, String accountReceiverIBAN,
+            User user, User senderUser, User receiverUser, TransactionType transactionType) {
+        Specification<Transaction> specification = specification(minAmount, maxAmount, startDate, endDate,
+                transactionID, accountSenderIBAN, accountReceiverIBAN, senderUser, receiverUser, transactionType);
+        if (user == null) {
+            return List.of(specification);
+        }
+
+        return List.of(
+                specification.and(TransactionSpecifications.fromAccountOfUser(user.getId())),
+                specification.and(TransactionSpecifications.toAccountOfUserFromElsewhere(user.getId())));
+    }
+
+    private Specification<Transaction> specification(
+            long minAmount, long maxAmount,
+            LocalDateTime startDate, LocalDateTime endDate,
+            int transactionID,
+            String accountSenderIBAN, String accountReceiverIBAN,
+            User senderUser, User receiverUser, TransactionType transactionType) {
         Specification<Transaction> specification = Specification.where(null);
 
         if (minAmount >= 0 && maxAmount >= 0) {
@@ -60,15 +343,11 @@ public interface TransactionRepository extends CrudRepository<Transaction, Long>
             }
         }
 
-        if (user != null) {
-            specification = specification.and(TransactionSpecifications.withUserId(user.getId()));
-        }
-
         // Add the transaction type check
         if (transactionType != null) {
             specification = specification.and(TransactionSpecifications.withTransactionType(transactionType));
         }
 
-        return findAll(specification, pageable);
+        return specification;
     }
 }
@@ -1,17 +1,25 @@
 package nl.inholland.bank.repositories;
 
+import jakarta.transaction.Transactional;
 import nl.inholland.bank.models.User;
 import nl.inholland.bank.models.specifications.UserSpecifications;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
-public interface UserRepository extends CrudRepository<User, Integer> {
+public interface UserRepository extends CrudRepository<User, Integer>, SliceSpecificationExecutor<User> {
     /**
      * Find all users
      * @param specification The specification to filter the users
@@ -20,15 +28,44 @@ public interface UserRepository extends CrudRepository<User, Integer> {
      */
     Page<User> findAll(Specification<User> specification, Pageable pageable);
 
+    /**
+     * Get a reference to a user without loading it
+     * @param id The id of the user
+     * @return The reference, of which only the id can be read without loading the user
+     */
+    User getReferenceById(Integer id);
+
+    /**
+     * Count users
+     * @param specification The specification to filter the users
+     * @return The number of users
+     */
+    long count(Specification<User> specification);
+
     /**
      * Find users by name, accountIsNull and active
      * @param pageable The pageable
      * @param name The name to search for
      * @param accountIsNull Whether the user has No account
      * @param active Whether the user is active
-     * @return The page of users
+     * @return The slice of users
      */
-    default Page<User> findUsers(Pageable pageable, Optional<String> name, Optional<Boolean> accountIsNull, Optional<Boolean> active) {
+    default Slice<User> findUsers(Pageable pageable, Optional<String> name, Optional<Boolean> accountIsNull, Optional<Boolean> active) {
+        return findSlice(specification(name, accountIsNull, active), pageable);
+    }
+
+    /**
+     * Count all users that findUsers can return, over all pages
+     * @param name The name to search for
+     * @param accountIsNull Whether the user has No account
+     * @param active Whether the user is active
+     * @return The number of users
+     */
+    default long countUsers(Optional<String> name, Optional<Boolean> accountIsNull, Optional<Boolean> active) {
+        return count(specification(name, accountIsNull, active));
+    }
+
+    private Specification<User> specification(Optional<String> name, Optional<Boolean> accountIsNull, Optional<Boolean> active) {
         Specification<User> specification = Specification.where(null);
         if (name.isPresent()) {
             specification = specification.and(UserSpecifications.nameContains(name.get()));
@@ -50,7 +87,7 @@ public interface UserRepository extends CrudRepository<User, Integer> {
             }
         }
 
-        return findAll(specification, pageable);
+        return specification;
     }
 
 
@@ -61,6 +98,34 @@ public interface UserRepository extends CrudRepository<User, Integer> {
      */
     Optional<User> findUserByUsername(String username);
 
+    /**
+     * Find which of the given usernames are taken
+     * @param usernames The usernames to look for
+     * @return The usernames that belong to a user
+     */
+    @Query("select u.username from User u where u.username in :usernames")
+    Set<String> findUsernamesByUsernameIn(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Find users by id, together with their accounts and limits in the same query
+     * @param ids The ids of the users
+     * @return The users that exist
+     */
+    @Query("select u from User u left join fetch u.currentAccount left join fetch u.savingAccount left join fetch u.limits where u.id in :ids")
+    List<User> findAllWithAccountsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Replace the password hash of a user, for example after the cost of hashing changed
+     * @param id The id of the user
+     * @param oldPassword The current hash, nothing is replaced if the password was changed in the meantime
+     * @param newPassword The new hash
+     * @return The number of updated rows
+     */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :newPassword where u.id = :id and u.password = :oldPassword")
+    int updatePassword(@Param("id") int id, @Param("oldPassword") String oldPassword, @Param("newPassword") String newPassword);
+
     /**
      * Find a user by email
      * @param email The email to search for
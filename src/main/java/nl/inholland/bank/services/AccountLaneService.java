@@ -0,0 +1,294 @@
+package nl.inholland.bank.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import nl.inholland.bank.models.Account;
+import nl.inholland.bank.models.PendingCredit;
+import nl.inholland.bank.models.Transaction;
+import nl.inholland.bank.models.dtos.TransactionDTO.TransactionRequest;
+import nl.inholland.bank.repositories.AccountRepository;
+import nl.inholland.bank.repositories.PendingCreditRepository;
+import nl.inholland.bank.repositories.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.naming.InsufficientResourcesException;
+import javax.security.auth.login.AccountNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional way of processing transfers, for when a few accounts (like the bank account) receive most of them.
+ * Every account is assigned to one single-threaded lane, based on its id, and all lane work for that account runs there.
+ * A transfer first takes the money from the sender on the lane of the sender, and saves a {@link PendingCredit} for the
+ * receiver in the same database transaction. The lane of the receiver then adds the pending credits of the account to
+ * its balance in one update, and removes them in the same database transaction, so no credit is added twice.
+ * Credits that could not be added, for instance because the application stopped, are retried every
+ * bankapi.transactions.lanes.retry-interval.
+ * Enabled with bankapi.transactions.lanes.enabled, otherwise transfers lock both accounts in the database.
+ * The thread of a request waits for the lanes without holding a database connection, so a lane never waits for a
+ * connection that is held by a request waiting for that lane. That is why spring.jpa.open-in-view is off.
+ */
+@Service
+public class AccountLaneService {
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final PendingCreditRepository pendingCreditRepository;
+    private final TransactionService transactionService;
+    private final BalanceService balanceService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${bankapi.transactions.lanes.enabled:false}")
+    private boolean enabled;
+    @Value("${bankapi.transactions.lanes.count:8}")
+    private int laneCount;
+
+    private ExecutorService[] lanes;
+    // Number of tasks waiting on each lane.
+    private AtomicIntegerArray queueDepths;
+
+    // Transfers waiting for their credit to be added, per receiving account.
+    private final Map<Integer, Queue<CompletableFuture<Void>>> waitingCredits = new ConcurrentHashMap<>();
+    // Accounts that already have a task on their lane which will apply the pending credits.
+    private final Set<Integer> scheduledCredits = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedCredits = new LongAdder();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+
+    public AccountLaneService(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                              PendingCreditRepository pendingCreditRepository, TransactionService transactionService,
+                              BalanceService balanceService, PlatformTransactionManager transactionManager) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.pendingCreditRepository = pendingCreditRepository;
+        this.transactionService = transactionService;
+        this.balanceService = balanceService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        lanes = new ExecutorService[laneCount];
+        queueDepths = new AtomicIntegerArray(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            String name = "account-lane-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, name));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (lanes != null) {
+            for (ExecutorService lane : lanes) {
+                lane.shutdown();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Processes the transaction on the lanes of the sender and receiver accounts.
+     * Returns once the money has been taken from the sender and added to the receiver. When adding it fails, the
+     * transaction is returned all the same, as it has been made, and the credit is retried later.
+     * Must not be called within a database transaction, which would hold its connection while waiting for the lanes.
+     *
+     * @param request The request given of the attempted transaction information.
+     * @return Returns the newly made transaction.
+     * @throws AccountNotFoundException          If no account has been found.
+     * @throws InsufficientResourcesException    If not enough money is present on the sender account.
+     * @throws javax.naming.AuthenticationException If the user is not authenticated.
+     */
+    public Transaction processTransaction(TransactionRequest request) throws AccountNotFoundException,
+            InsufficientResourcesException,
+            javax.naming.AuthenticationException {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Transfers on the account lanes cannot be made within a database transaction.");
+        }
+
+        // Each lookup returns its connection right away, as there is no transaction or open-in-view session to keep it
+        Integer senderId = accountRepository.findIdByIBAN(request.sender_iban().toUpperCase()).orElse(null);
+        Integer receiverId = accountRepository.findIdByIBAN(request.receiver_iban().toUpperCase()).orElse(null);
+        if (senderId == null || receiverId == null) {
+            // Let the transaction service throw the same errors as always.
+            return transactionService.processTransaction(request);
+        }
+
+        Transaction transaction;
+        try {
+            transaction = runOnLane(senderId, () -> transactionService.processDebit(request)).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AccountNotFoundException exception) {
+                throw exception;
+            } else if (e.getCause() instanceof InsufficientResourcesException exception) {
+                throw exception;
+            } else if (e.getCause() instanceof javax.naming.AuthenticationException exception) {
+                throw exception;
+            }
+            throw rethrow(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the transaction.", e);
+        }
+
+        try {
+            applyCredits(receiverId);
+        } catch (RuntimeException e) {
+            // The credit stays pending until retryPendingCredits adds it.
+        }
+        return transaction;
+    }
+
+    /**
+     * Adds the pending credits of an account to its balance on its lane, together with all other credits waiting for
+     * that account. Returns once they have been added.
+     *
+     * @param accountId The id of the account.
+     */
+    public void applyCredits(int accountId) {
+        CompletableFuture<Void> applied = new CompletableFuture<>();
+        waitingCredits.computeIfAbsent(accountId, id -> new ConcurrentLinkedQueue<>()).add(applied);
+        scheduleCredits(accountId);
+
+        try {
+            applied.get();
+        } catch (ExecutionException e) {
+            throw rethrow(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the credit.", e);
+        }
+    }
+
+    /**
+     * Adds the credits that are still pending, of transfers whose credit failed or was never tried.
+     * Runs on the lanes of the accounts, or right away when the lanes are disabled.
+     */
+    @Scheduled(fixedDelayString = "${bankapi.transactions.lanes.retry-interval:60000}")
+    public void retryPendingCredits() {
+        for (int accountId : pendingCreditRepository.findAccountIds()) {
+            if (enabled) {
+                scheduleCredits(accountId);
+            } else {
+                addPendingCredits(accountId);
+            }
+        }
+    }
+
+    /**
+     * @return The number of tasks waiting on each lane, empty if the lanes are disabled.
+     */
+    public List<Integer> getQueueDepths() {
+        List<Integer> depths = new ArrayList<>();
+        for (int i = 0; lanes != null && i < lanes.length; i++) {
+            depths.add(queueDepths.get(i));
+        }
+        return depths;
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getBatchedCreditCount() {
+        return batchedCredits.sum();
+    }
+
+    public int getLargestBatch() {
+        return largestBatch.get();
+    }
+
+    private <T> Future<T> runOnLane(int accountId, Callable<T> task) {
+        if (!enabled) {
+            throw new IllegalStateException("Account lanes are not enabled.");
+        }
+
+        int lane = Math.floorMod(accountId, lanes.length);
+        // The task runs as the user of the request that submitted it, the lane thread has no authentication of its own.
+        Callable<T> authenticatedTask = new DelegatingSecurityContextCallable<>(task);
+        queueDepths.incrementAndGet(lane);
+        return lanes[lane].submit(() -> {
+            queueDepths.decrementAndGet(lane);
+            return authenticatedTask.call();
+        });
+    }
+
+    private void scheduleCredits(int accountId) {
+        if (scheduledCredits.add(accountId)) {
+            runOnLane(accountId, () -> {
+                applyWaitingCredits(accountId);
+                return null;
+            });
+        }
+    }
+
+    private void applyWaitingCredits(int accountId) {
+        // Unmark first, so credits added from now on schedule a new task instead of being missed.
+        scheduledCredits.remove(accountId);
+
+        // Every transfer that is waiting saved its credit before it started waiting, so the credits added next include it.
+        List<CompletableFuture<Void>> waiting = new ArrayList<>();
+        Queue<CompletableFuture<Void>> queue = waitingCredits.get(accountId);
+        for (CompletableFuture<Void> applied = queue == null ? null : queue.poll(); applied != null; applied = queue.poll()) {
+            waiting.add(applied);
+        }
+
+        try {
+            addPendingCredits(accountId);
+            waiting.forEach(applied -> applied.complete(null));
+        } catch (RuntimeException e) {
+            waiting.forEach(applied -> applied.completeExceptionally(e));
+        }
+    }
+
+    // Adds all pending credits of the account in one database transaction, with the account locked, so credits that
+    // are added at the same time by a retry are not added twice.
+    private void addPendingCredits(int accountId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            accountRepository.lockByIdIn(List.of(accountId));
+            List<Transaction> credits = transactionRepository.findPendingCredits(accountId);
+            if (credits.isEmpty()) {
+                return;
+            }
+
+            Account account = accountRepository.findById(accountId).orElseThrow();
+            account.setBalance(account.getBalance() + credits.stream().mapToLong(Transaction::getAmount).sum());
+            pendingCreditRepository.deleteByTransactionIdIn(credits.stream().map(Transaction::getId).toList());
+            for (Transaction credit : credits) {
+                balanceService.recordTransaction(account, credit);
+            }
+
+            batches.increment();
+            batchedCredits.add(credits.size());
+            largestBatch.accumulateAndGet(credits.size(), Math::max);
+        });
+    }
+
+    private RuntimeException rethrow(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException exception) {
+            return exception;
+        } else if (e.getCause() instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(e.getCause());
+    }
+}
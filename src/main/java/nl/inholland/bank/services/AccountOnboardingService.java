@@ -0,0 +1,254 @@
+package nl.inholland.bank.services;
+
+import nl.inholland.bank.models.*;
+import nl.inholland.bank.models.dtos.AccountDTO.AccountBulkRequest;
+import nl.inholland.bank.models.dtos.UserDTO.UserRequest;
+import nl.inholland.bank.models.exceptions.PasswordHashingBusyException;
+import nl.inholland.bank.repositories.AccountRepository;
+import nl.inholland.bank.repositories.UserRepository;
+import org.hibernate.ObjectNotFoundException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Opens accounts in bulk, for example for all employees of a new corporate client.
+ * Lines are handled in chunks: the checks of addUser and addAccount run against the users and usernames that are
+ * fetched once for the whole chunk, and the new users, limits and accounts of the chunk are saved in one transaction,
+ * in JDBC batches. Usernames are checked before the passwords are hashed, so lines that fail on them cost no hashing. A line that fails a check leaves nothing behind, the other lines of the chunk still go through.
+ */
+@Service
+public class AccountOnboardingService {
+    private final UserRepository userRepository;
+    private final AccountRepository accountRepository;
+    private final AccountService accountService;
+    private final UserService userService;
+    private final UserLimitsService userLimitsService;
+    private final PasswordHashingService passwordHashingService;
+    private final TransactionTemplate transactionTemplate;
+
+    // A line after the first checks, before anything is looked up in the database.
+    private record Line(AccountBulkRequest request, User newUser, CurrencyType currencyType, List<AccountType> accountTypes) {
+    }
+
+    public AccountOnboardingService(UserRepository userRepository, AccountRepository accountRepository,
+                                    AccountService accountService, UserService userService,
+                                    UserLimitsService userLimitsService, PasswordHashingService passwordHashingService,
+                                    PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.accountRepository = accountRepository;
+        this.accountService = accountService;
+        this.userService = userService;
+        this.userLimitsService = userLimitsService;
+        this.passwordHashingService = passwordHashingService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Creates the users and opens the accounts of one chunk of lines.
+     * @param requests The lines of the chunk. A line has either a user_id or a user.
+     * @return Returns the result of each line, in the same order as the requests.
+     */
+    public List<AccountBulkResult> onboard(List<AccountBulkRequest> requests) {
+        AccountBulkResult[] results = new AccountBulkResult[requests.size()];
+        Line[] lines = new Line[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                lines[i] = parse(requests.get(i));
+            } catch (RuntimeException e) {
+                results[i] = new AccountBulkResult(i, null, null, e);
+            }
+        }
+
+        // Lines with a username that is taken fail anyway, so their passwords are not hashed
+        rejectTakenUsernames(lines, results);
+
+        hashPasswords(lines, results);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> save(lines, results));
+        } catch (DataAccessException e) {
+            // Another request took a username in the meantime, or the chunk failed before every line was checked.
+            // None of the chunk was saved
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null || results[i].isSuccessful()) {
+                    results[i] = new AccountBulkResult(i, null, null, e);
+                }
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private Line parse(AccountBulkRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Line cannot be empty.");
+        }
+        if ((request.user_id() == null) == (request.user() == null)) {
+            throw new IllegalArgumentException("Line must have either a user_id or a user.");
+        }
+        if (request.currency_type() == null) {
+            throw new IllegalArgumentException("Currency type is required.");
+        }
+
+        CurrencyType currencyType = accountService.mapCurrencyTypeToString(request.currency_type());
+        List<AccountType> accountTypes = request.account_types() == null ? List.of() : request.account_types().stream()
+                .map(accountType -> accountService.mapAccountTypeToString(String.valueOf(accountType)))
+                .toList();
+
+        User newUser = null;
+        UserRequest userRequest = request.user();
+        if (userRequest != null) {
+            if (!userService.isPasswordValid(userRequest.getPassword())) {
+                throw new IllegalArgumentException("Password does not meet requirements.");
+            }
+            newUser = userService.mapUserRequestToUser(userRequest);
+        }
+
+        return new Line(request, newUser, currencyType, accountTypes);
+    }
+
+    // Fails the lines of new users whose username exists, or is used by an earlier line of the chunk.
+    // A username taken after this check makes saving the chunk fail on the unique constraint.
+    private void rejectTakenUsernames(Line[] lines, AccountBulkResult[] results) {
+        Set<String> usernames = new HashSet<>();
+        for (Line line : lines) {
+            if (line != null && line.newUser() != null) {
+                usernames.add(line.newUser().getUsername());
+            }
+        }
+        if (usernames.isEmpty()) {
+            return;
+        }
+
+        Set<String> takenUsernames = new HashSet<>(userRepository.findUsernamesByUsernameIn(usernames));
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i] != null && lines[i].newUser() != null && !takenUsernames.add(lines[i].newUser().getUsername())) {
+                results[i] = new AccountBulkResult(i, null, null, new IllegalArgumentException(UserService.USERNAME_ALREADY_EXISTS));
+                lines[i] = null;
+            }
+        }
+    }
+
+    // Hashing is by far the slowest step, so the passwords of the chunk are hashed in parallel, outside the transaction.
+    // When hashing is too busy, the lines of new users fail, the lines of existing users still go through.
+    private void hashPasswords(Line[] lines, AccountBulkResult[] results) {
+        List<User> newUsers = Arrays.stream(lines)
+                .filter(line -> line != null && line.newUser() != null)
+                .map(Line::newUser)
+                .toList();
+        if (newUsers.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<String> hashes = passwordHashingService.encodeAll(newUsers.stream().map(User::getPassword).toList());
+            for (int i = 0; i < newUsers.size(); i++) {
+                newUsers.get(i).setPassword(hashes.get(i));
+            }
+        } catch (PasswordHashingBusyException e) {
+            for (int i = 0; i < lines.length; i++) {
+                if (lines[i] != null && lines[i].newUser() != null) {
+                    results[i] = new AccountBulkResult(i, null, null, e);
+                    lines[i] = null;
+                }
+            }
+        }
+    }
+
+    private void save(Line[] lines, AccountBulkResult[] results) {
+        Set<Integer> userIds = new HashSet<>();
+        for (Line line : lines) {
+            if (line != null && line.newUser() == null) {
+                userIds.add(line.request().user_id());
+            }
+        }
+
+        // Everything the checks need, fetched once for the chunk
+        Map<Integer, User> existingUsers = userIds.isEmpty() ? Map.of() : userRepository.findAllWithAccountsByIdIn(userIds)
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<User> newUsers = new ArrayList<>();
+        List<Account> newAccountsOfExistingUsers = new ArrayList<>();
+        for (int i = 0; i < lines.length; i++) {
+            Line line = lines[i];
+            if (line == null) {
+                continue;
+            }
+
+            try {
+                User user;
+                if (line.newUser() != null) {
+                    user = line.newUser();
+                } else {
+                    user = existingUsers.get(line.request().user_id());
+                    if (user == null) {
+                        throw new ObjectNotFoundException(line.request().user_id(), UserService.USER_NOT_FOUND);
+                    }
+                }
+
+                checkAccountTypes(user, line.accountTypes());
+                List<Account> accounts = openAccounts(user, line.accountTypes(), line.currencyType());
+                if (line.newUser() != null) {
+                    Limits limits = userLimitsService.getDefaultLimits();
+                    limits.setUser(user);
+                    user.setLimits(limits);
+                    newUsers.add(user);
+                } else {
+                    newAccountsOfExistingUsers.addAll(accounts);
+                }
+
+                results[i] = new AccountBulkResult(i, user, accounts, null);
+            } catch (RuntimeException e) {
+                results[i] = new AccountBulkResult(i, null, null, e);
+            }
+        }
+
+        // New users bring their limits and accounts along, accounts of existing users are added to managed users
+        userRepository.saveAll(newUsers);
+        accountRepository.saveAll(newAccountsOfExistingUsers);
+    }
+
+    // The checks of AccountService.addAccount, against the accounts the user has so far, before anything is changed.
+    private void checkAccountTypes(User user, List<AccountType> accountTypes) {
+        boolean hasCurrentAccount = user.getCurrentAccount() != null;
+        boolean hasSavingAccount = user.getSavingAccount() != null;
+
+        for (AccountType accountType : accountTypes) {
+            if (accountType == AccountType.CURRENT) {
+                if (hasCurrentAccount) {
+                    throw new IllegalArgumentException("User already has a current account");
+                }
+                hasCurrentAccount = true;
+            } else if (accountType == AccountType.SAVING) {
+                if (!hasCurrentAccount) {
+                    throw new IllegalArgumentException("User does not have a current account");
+                }
+                if (hasSavingAccount) {
+                    throw new IllegalArgumentException("User already has a saving account");
+                }
+                hasSavingAccount = true;
+            }
+        }
+    }
+
+    private List<Account> openAccounts(User user, List<AccountType> accountTypes, CurrencyType currencyType) {
+        List<Account> accounts = new ArrayList<>();
+        for (AccountType accountType : accountTypes) {
+            Account account = accountService.createAccount(user, accountType, currencyType);
+            if (accountType == AccountType.CURRENT) {
+                user.setCurrentAccount(account);
+            } else {
+                user.setSavingAccount(account);
+            }
+            accounts.add(account);
+        }
+        return accounts;
+    }
+}
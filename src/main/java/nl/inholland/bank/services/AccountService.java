@@ -11,25 +11,27 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import javax.security.auth.login.AccountNotFoundException;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 public class AccountService {
     AccountRepository accountRepository;
     UserService userService;
+    IBANAllocator ibanAllocator;
     @Value("${bankapi.bank.account}")
     private String bankAccountIBAN;
 
-    public AccountService(AccountRepository accountRepository, UserService userService) {
+    public AccountService(AccountRepository accountRepository, UserService userService, IBANAllocator ibanAllocator) {
         this.accountRepository = accountRepository;
         this.userService = userService;
+        this.ibanAllocator = ibanAllocator;
     }
 
     public Account createAccount(User user, AccountType accountType, CurrencyType currencyType) {
         Account account = new Account();
         account.setUser(user);
-        account.setIBAN(IBANGenerator.generateIBAN().toString());
+        account.setIBAN(ibanAllocator.allocate());
         account.setType(accountType);
         account.setCurrencyType(currencyType);
         account.setBalance(0);
@@ -112,6 +114,53 @@ public class AccountService {
         accountRepository.save(account);
     }
 
+    public void updateAccounts(List<Account> accounts) {
+        accountRepository.saveAll(accounts);
+    }
+
+    /**
+     * Locks the accounts with the given IBANs until the end of the current transaction.
+     * Must be called before the accounts are loaded in that transaction, so they are read only once the lock is held.
+     * Accounts are always locked in order of their id, so two transfers between the same accounts
+     * in opposite directions cannot deadlock.
+     * @param ibans The IBANs of the accounts to lock. Unknown IBANs are ignored.
+     */
+    public void lockAccounts(String... ibans) {
+        List<String> uppercaseIbans = Arrays.stream(ibans)
+                .filter(Objects::nonNull)
+                .map(String::toUpperCase)
+                .distinct()
+                .toList();
+        if (uppercaseIbans.isEmpty()) {
+            return;
+        }
+
+        // One query for all accounts, which locks them in order of their id
+        List<Integer> ids = accountRepository.findIdsByIBANIn(uppercaseIbans);
+        if (!ids.isEmpty()) {
+            accountRepository.lockByIdIn(ids);
+        }
+    }
+
+    /**
+     * Retrieves all accounts with the given IBANs in a single query.
+     * @param ibans The IBANs to find.
+     * @return Returns the found accounts by their uppercase IBAN. IBANs without an account are left out.
+     */
+    public Map<String, Account> getAccountsByIBANs(Collection<String> ibans) {
+        List<String> uppercaseIbans = ibans.stream()
+                .filter(Objects::nonNull)
+                .map(String::toUpperCase)
+                .distinct()
+                .toList();
+        if (uppercaseIbans.isEmpty()) {
+            return Map.of();
+        }
+
+        return accountRepository.findAllByIBANIn(uppercaseIbans).stream()
+                .collect(Collectors.toMap(Account::getIBAN, account -> account));
+    }
+
     public Account getAccountById(int id) throws AccountNotFoundException {
         return accountRepository.findById(id).orElseThrow(() -> new AccountNotFoundException("Account not found"));
     }
@@ -183,4 +232,18 @@ public class AccountService {
         // Find accounts
         return accountRepository.findAccounts(IBAN, fName, lName, accountType, pageable).getContent();
     }
+
+    /**
+     * Counts the accounts that getAccounts can return, over all pages.
+     * @param iban The IBAN to find.
+     * @param firstName The first name to find.
+     * @param lastName The last name to find.
+     * @param accountTypeString The account type to find.
+     * @return Returns the number of accounts.
+     */
+    public long countAccounts(Optional<String> iban, Optional<String> firstName,
+                              Optional<String> lastName, Optional<String> accountTypeString) {
+        AccountType accountType = accountTypeString.map(this::mapAccountTypeToString).orElse(null);
+        return accountRepository.countAccounts(iban.orElse(""), firstName.orElse(""), lastName.orElse(""), accountType);
+    }
 }
@@ -0,0 +1,103 @@
+package nl.inholland.bank.services;
+
+import nl.inholland.bank.models.Account;
+import nl.inholland.bank.models.BalanceCheckpoint;
+import nl.inholland.bank.models.Transaction;
+import nl.inholland.bank.repositories.BalanceCheckpointRepository;
+import nl.inholland.bank.repositories.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Balances of accounts at past moments. Every bankapi.balance.checkpoint-interval transactions of an account, its
+ * balance is written to a checkpoint. The balance at a moment is the balance of the nearest checkpoint, with only the
+ * transactions in between replayed, so it never takes more than about that many transactions.
+ */
+@Service
+public class BalanceService {
+    // After any transaction
+    private static final LocalDateTime END_OF_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final BalanceCheckpointRepository balanceCheckpointRepository;
+    private final TransactionRepository transactionRepository;
+    @Value("${bankapi.balance.checkpoint-interval:100}")
+    private int checkpointInterval;
+
+    public BalanceService(BalanceCheckpointRepository balanceCheckpointRepository, TransactionRepository transactionRepository) {
+        this.balanceCheckpointRepository = balanceCheckpointRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    /**
+     * Counts a saved transaction of an account, and writes a checkpoint when it is the account's turn.
+     * Should be called with the account locked and in the same database transaction as the transaction itself,
+     * in the order of the transactions of the account.
+     * @param account The account that sent or received the money.
+     * @param balance The balance of the account right after the transaction.
+     * @param transaction The transaction, which has to have its id.
+     */
+    public void recordTransaction(Account account, long balance, Transaction transaction) {
+        recordTransaction(account, transaction, () -> balance);
+    }
+
+    /**
+     * Counts a saved transaction of an account, like {@link #recordTransaction(Account, long, Transaction)}, for an
+     * account whose balance may not include every earlier transaction yet, because the account lanes add credits later.
+     * When it is the account's turn, the balance right after the transaction is worked out from the database.
+     * Should be called with the account locked, any change to its balance made, and in the same database transaction.
+     * @param account The account that sent or received the money.
+     * @param transaction The transaction, which has to have its id.
+     */
+    public void recordTransaction(Account account, Transaction transaction) {
+        recordTransaction(account, transaction, () ->
+                transactionRepository.getBalanceAfter(account.getId(), transaction.getId()));
+    }
+
+    private void recordTransaction(Account account, Transaction transaction, LongSupplier balance) {
+        int transactions = account.getTransactionsSinceCheckpoint() + 1;
+        if (transactions < checkpointInterval) {
+            account.setTransactionsSinceCheckpoint(transactions);
+            return;
+        }
+
+        balanceCheckpointRepository.save(new BalanceCheckpoint(account.getId(), transaction, balance.getAsLong()));
+        account.setTransactionsSinceCheckpoint(0);
+    }
+
+    /**
+     * Gets the balance of an account at a moment, after all transactions up to and including that moment.
+     * @param account The account.
+     * @param at The moment.
+     * @return Returns the balance.
+     */
+    public long getBalanceAt(Account account, LocalDateTime at) {
+        int accountId = account.getId();
+
+        // Forward from the last checkpoint before the moment
+        Optional<BalanceCheckpoint> before = balanceCheckpointRepository
+                .findFirstByAccountIdAndTimestampLessThanEqualOrderByTimestampDescTransactionIdDesc(accountId, at);
+        if (before.isPresent()) {
+            BalanceCheckpoint checkpoint = before.get();
+            return checkpoint.getBalance()
+                    + transactionRepository.sumReceivedBetween(accountId, checkpoint.getTimestamp(), checkpoint.getTransactionId(), at, Integer.MAX_VALUE)
+                    - transactionRepository.sumSentBetween(accountId, checkpoint.getTimestamp(), checkpoint.getTransactionId(), at, Integer.MAX_VALUE);
+        }
+
+        // Back from the first checkpoint after the moment, or from the current balance when there is none yet.
+        // The current balance does not have the credits the account lanes have not added yet, which are taken back below.
+        Optional<BalanceCheckpoint> after = balanceCheckpointRepository
+                .findFirstByAccountIdAndTimestampGreaterThanOrderByTimestampAscTransactionIdAsc(accountId, at);
+        long balance = after.isPresent()
+                ? after.get().getBalance()
+                : account.getBalance() + transactionRepository.sumPendingCredits(accountId);
+        LocalDateTime toTimestamp = after.map(BalanceCheckpoint::getTimestamp).orElse(END_OF_TIME);
+        int toId = after.map(BalanceCheckpoint::getTransactionId).orElse(Integer.MAX_VALUE);
+        return balance
+                - transactionRepository.sumReceivedBetween(accountId, at, Integer.MAX_VALUE, toTimestamp, toId)
+                + transactionRepository.sumSentBetween(accountId, at, Integer.MAX_VALUE, toTimestamp, toId);
+    }
+}
@@ -0,0 +1,236 @@
+package nl.inholland.bank.services;
+
+import nl.inholland.bank.models.Account;
+import nl.inholland.bank.models.AccountType;
+import nl.inholland.bank.models.DailySpend;
+import nl.inholland.bank.models.Limits;
+import nl.inholland.bank.models.Transaction;
+import nl.inholland.bank.models.User;
+import nl.inholland.bank.models.exceptions.DailyTransactionLimitException;
+import nl.inholland.bank.repositories.DailySpendRepository;
+import nl.inholland.bank.repositories.TransactionRepository;
+import nl.inholland.bank.repositories.UserLimitsRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service keeping track of how much money each user has spent today.
+ * The totals are persisted per user and day, and cached in memory, so checking the daily limit costs a map lookup
+ * instead of a scan over all of today's transactions. The stored total is what enforces the limit: spends are added
+ * to it with a single update that only succeeds while the total stays within the limit. The cache only holds
+ * committed totals, so it is updated after the transaction that changed them commits.
+ */
+@Service
+public class DailySpendService {
+    private final DailySpendRepository dailySpendRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserLimitsRepository userLimitsRepository;
+
+    // Never touches the database while holding a bin of the map, only plain values are merged into it.
+    private final Map<Integer, CachedSpend> todaysSpend = new ConcurrentHashMap<>();
+
+    private record CachedSpend(LocalDate day, long amount) {
+    }
+
+    public DailySpendService(DailySpendRepository dailySpendRepository, TransactionRepository transactionRepository,
+                             UserLimitsRepository userLimitsRepository) {
+        this.dailySpendRepository = dailySpendRepository;
+        this.transactionRepository = transactionRepository;
+        this.userLimitsRepository = userLimitsRepository;
+    }
+
+    /**
+     * Get the amount a user has spent today, as far as it has been committed.
+     * @param userId The id of the user.
+     * @return The amount spent today.
+     */
+    public long getSpentToday(int userId) {
+        LocalDate today = LocalDate.now();
+        CachedSpend cached = todaysSpend.get(userId);
+        if (isOfDay(cached, today)) {
+            return cached.amount();
+        }
+
+        long amount = dailySpendRepository.findAmount(userId, today)
+                .orElseGet(() -> calculateTotalSpent(findTodaysTransactions(userId, today), userId));
+        cacheCommitted(userId, today, amount);
+        return amount;
+    }
+
+    /**
+     * Adds the transaction to the spend of the performing user, if it counts towards the daily limit.
+     * @param transaction The transaction that has been made.
+     * @throws DailyTransactionLimitException If the spend would exceed the daily limit of the user.
+     */
+    public void recordTransaction(Transaction transaction) {
+        if (countsTowardsDailyLimit(transaction.getUser(), transaction.getAccountSender(), transaction.getAccountReceiver())) {
+            recordSpend(transaction.getUser().getId(), transaction.getAmount());
+        }
+    }
+
+    /**
+     * Adds the transactions to the spend of the performing users, summed per user.
+     * @param transactions The transactions that have been made.
+     * @throws DailyTransactionLimitException If the spend of a user would exceed their daily limit.
+     */
+    public void recordTransactions(List<Transaction> transactions) {
+        Map<Integer, Long> spendPerUser = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            if (countsTowardsDailyLimit(transaction.getUser(), transaction.getAccountSender(), transaction.getAccountReceiver())) {
+                spendPerUser.merge(transaction.getUser().getId(), transaction.getAmount(), Long::sum);
+            }
+        }
+
+        spendPerUser.forEach(this::recordSpend);
+    }
+
+    /**
+     * Adds an amount to the spend of a user for today, if that keeps it within the daily limit of the user.
+     * The update keeps the row of the user locked until the calling transaction ends, so concurrent spends of the
+     * same user are checked against each other's totals, not against a total read earlier.
+     * @param userId The id of the user.
+     * @param amount The amount spent.
+     * @throws DailyTransactionLimitException If the spend would exceed the daily limit of the user.
+     */
+    public void recordSpend(int userId, long amount) {
+        LocalDate today = LocalDate.now();
+        createSpendIfMissing(userId, today);
+
+        if (dailySpendRepository.addToAmountWithinLimit(userId, today, amount, getDailyTransactionLimit(userId)) == 0) {
+            throw new DailyTransactionLimitException("Amount exceeds remaining daily transaction limit.");
+        }
+
+        // Nobody else can change the row before this transaction ends, so this is the total it commits.
+        long total = dailySpendRepository.findAmount(userId, today).orElseThrow();
+        afterCommit(() -> cacheCommitted(userId, today, total));
+    }
+
+    /**
+     * Recalculates the spend of a user for today from all of today's transactions, overwriting the stored total.
+     * @param userId The id of the user.
+     * @return The amount spent today.
+     */
+    public long reconcile(int userId) {
+        LocalDate today = LocalDate.now();
+        DailySpend spend = dailySpendRepository.findByUserIdAndSpendDate(userId, today)
+                .orElseGet(() -> new DailySpend(userId, today, 0));
+        spend.setAmount(calculateTotalSpent(findTodaysTransactions(userId, today), userId));
+        dailySpendRepository.save(spend);
+
+        long total = spend.getAmount();
+        afterCommit(() -> todaysSpend.put(userId, new CachedSpend(today, total)));
+        return total;
+    }
+
+    /**
+     * Calculate how much a user has spent, based on a list of transactions.
+     * @param transactions The transactions of the user.
+     * @param userId The id of the user.
+     * @return The total amount that counts towards the daily limit.
+     */
+    public long calculateTotalSpent(List<Transaction> transactions, int userId) {
+        long total = 0;
+        for (Transaction transaction : transactions) {
+            // Ignore transactions from SAVINGS accounts.
+            if (transaction.getAccountSender() != null && transaction.getAccountSender().getType().equals(AccountType.SAVING)) {
+                continue;
+            }
+
+            // Ignore transactions to SAVINGS accounts.
+            if (transaction.getAccountReceiver() != null && transaction.getAccountReceiver().getType().equals(AccountType.SAVING)) {
+                continue;
+            }
+
+            // Ignore deposits to CURRENT accounts.
+            if (transaction.getAccountSender() == null && transaction.getAccountReceiver() != null) {
+                continue;
+            }
+
+            // Ignore deposits to CURRENT accounts.
+            if (transaction.getAccountReceiver() != null && transaction.getAccountSender().getUser().getId() != userId) {
+                continue;
+            }
+
+            total += transaction.getAmount();
+        }
+
+        return total;
+    }
+
+    /**
+     * Checks if a transaction counts towards the daily limit of the user performing it.
+     * Uses the same rules as {@link #calculateTotalSpent(List, int)}.
+     * @param user The user performing the transaction.
+     * @param accountSender The account the money comes from.
+     * @param accountReceiver The account the money goes to.
+     * @return True if the amount should be added to the daily spend.
+     */
+    boolean countsTowardsDailyLimit(User user, Account accountSender, Account accountReceiver) {
+        if (accountSender == null || accountSender.getType() == AccountType.SAVING) {
+            return false;
+        }
+
+        if (accountReceiver == null) {
+            return true;
+        }
+
+        return accountReceiver.getType() != AccountType.SAVING
+                && accountSender.getUser() != null
+                && accountSender.getUser().getId() == user.getId();
+    }
+
+    private boolean isOfDay(CachedSpend spend, LocalDate day) {
+        return spend != null && spend.day().equals(day);
+    }
+
+    // Totals only grow during a day, so of two committed totals the larger one is the latest.
+    private void cacheCommitted(int userId, LocalDate day, long amount) {
+        todaysSpend.merge(userId, new CachedSpend(day, amount), (cached, loaded) ->
+                isOfDay(cached, day) && cached.amount() >= loaded.amount() ? cached : loaded);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Creates the row in the calling transaction, so no second connection is needed while the caller holds one.
+    private void createSpendIfMissing(int userId, LocalDate day) {
+        if (dailySpendRepository.findAmount(userId, day).isPresent()) {
+            return;
+        }
+
+        // Nothing stored yet for today, so start from the transactions that were made before the ledger.
+        // Created by a concurrent spend in the meantime, the row already has that spend and is left as it is.
+        dailySpendRepository.insertIfMissing(userId, day);
+        long spentBefore = calculateTotalSpent(findTodaysTransactions(userId, day), userId);
+        if (spentBefore > 0) {
+            dailySpendRepository.setAmountIfNothingSpent(userId, day, spentBefore);
+        }
+    }
+
+    private long getDailyTransactionLimit(int userId) {
+        Limits limits = userLimitsRepository.findFirstByUserId(userId);
+        return limits == null ? Long.MAX_VALUE : limits.getDailyTransactionLimit();
+    }
+
+    private List<Transaction> findTodaysTransactions(int userId, LocalDate day) {
+        return transactionRepository.findAllByTimestampIsAfterAndUserId(day.atStartOfDay(), userId);
+    }
+}
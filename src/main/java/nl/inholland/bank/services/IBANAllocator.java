@@ -0,0 +1,70 @@
+package nl.inholland.bank.services;
+
+import nl.inholland.bank.models.IBANGenerator;
+import nl.inholland.bank.repositories.AccountRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Hands out the IBANs for new accounts, without having to check if an IBAN is already in use.
+ * Account numbers are reserved in blocks: every value of the iban_block_seq sequence is a block of
+ * bankapi.iban.block-size numbers that only this instance uses, so instances never hand out the same IBAN.
+ * Numbers of the block that are already taken, by accounts that got a random IBAN before, are skipped.
+ */
+@Service
+public class IBANAllocator {
+    private final AccountRepository accountRepository;
+
+    @Value("${bankapi.iban.block-size:1000}")
+    private int blockSize;
+
+    // Next account number to hand out, and the end of the current block (exclusive).
+    private long next;
+    private long end;
+    private Set<Long> taken = Set.of();
+
+    public IBANAllocator(AccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+    }
+
+    /**
+     * Takes the next free IBAN of this instance, reserving a new block of account numbers when needed.
+     * @return Returns an IBAN that no other account has.
+     */
+    public synchronized String allocate() {
+        while (true) {
+            if (next >= end) {
+                reserveBlock();
+            }
+
+            long accountNumber = next++;
+            if (!taken.contains(accountNumber)) {
+                return IBANGenerator.createIBAN(accountNumber);
+            }
+        }
+    }
+
+    private void reserveBlock() {
+        long start = accountRepository.nextIBANBlock() * blockSize;
+        if (start + blockSize - 1 > IBANGenerator.MAX_ACCOUNT_NUMBER) {
+            throw new IllegalStateException("No account numbers left.");
+        }
+
+        Set<Long> takenInBlock = new HashSet<>();
+        for (String iban : accountRepository.findIBANsWithAccountNumberBetween(
+                accountNumber(start), accountNumber(start + blockSize - 1))) {
+            takenInBlock.add(Long.parseLong(iban.substring(8)));
+        }
+
+        taken = takenInBlock;
+        next = start;
+        end = start + blockSize;
+    }
+
+    private static String accountNumber(long number) {
+        return String.format("%010d", number);
+    }
+}
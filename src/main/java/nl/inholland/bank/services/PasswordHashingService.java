@@ -0,0 +1,170 @@
+package nl.inholland.bank.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import nl.inholland.bank.models.exceptions.PasswordHashingBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashes and checks passwords on a fixed pool of threads, one per core by default, instead of on the request threads.
+ * A burst of logins then keeps at most that many cores busy with BCrypt, while the other requests keep being served.
+ * Only a limited number of hashes can wait for a thread: when that many are waiting, new ones are refused straight away
+ * with a PasswordHashingBusyException (503 Service Unavailable), so the client can try again later.
+ * Bulk hashing, like onboarding many users at once, only gets bankapi.passwords.hashing.bulk-threads of the threads
+ * together, all but one by default, so logins never wait behind a large batch.
+ */
+@Service
+public class PasswordHashingService {
+    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+
+    @Value("${bankapi.passwords.hashing.threads:0}")
+    private int threads;
+    @Value("${bankapi.passwords.hashing.queue-size:100}")
+    private int queueSize;
+    @Value("${bankapi.passwords.hashing.bulk-threads:0}")
+    private int bulkThreads;
+
+    private ThreadPoolExecutor executor;
+    // One permit per thread that bulk hashing may use, taken before a slice is submitted and given back when it is done.
+    private Semaphore bulkPermits;
+
+    public PasswordHashingService(BCryptPasswordEncoder bCryptPasswordEncoder) {
+        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        if (bulkThreads <= 0 || bulkThreads >= threads) {
+            bulkThreads = Math.max(1, threads - 1);
+        }
+        bulkPermits = new Semaphore(bulkThreads);
+
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Hashes a password.
+     * @param rawPassword The password to hash.
+     * @return Returns the hash.
+     * @throws PasswordHashingBusyException If too many passwords are already waiting to be hashed.
+     */
+    public String encode(String rawPassword) {
+        return await(submit(() -> bCryptPasswordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * Hashes many passwords at once, spread over the threads bulk hashing may use. Waits while other bulk hashing uses
+     * them all.
+     * @param rawPasswords The passwords to hash.
+     * @return Returns the hashes, in the same order as the passwords.
+     * @throws PasswordHashingBusyException If too many passwords are already waiting to be hashed.
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        // One task per bulk thread, so a large batch takes only a few places in the queue
+        int sliceSize = Math.max(1, (rawPasswords.size() + bulkThreads - 1) / bulkThreads);
+        List<Future<List<String>>> slices = new ArrayList<>();
+        for (int from = 0; from < rawPasswords.size(); from += sliceSize) {
+            List<String> slice = rawPasswords.subList(from, Math.min(rawPasswords.size(), from + sliceSize));
+            acquireBulkPermit();
+            try {
+                slices.add(submit(() -> {
+                    try {
+                        return slice.stream().map(bCryptPasswordEncoder::encode).toList();
+                    } finally {
+                        bulkPermits.release();
+                    }
+                }));
+            } catch (PasswordHashingBusyException e) {
+                bulkPermits.release();
+                throw e;
+            }
+        }
+
+        List<String> hashes = new ArrayList<>(rawPasswords.size());
+        for (Future<List<String>> slice : slices) {
+            hashes.addAll(await(slice));
+        }
+        return hashes;
+    }
+
+    /**
+     * Checks a password against its hash.
+     * @param rawPassword The password to check.
+     * @param encodedPassword The stored hash.
+     * @return Returns true if the password matches the hash.
+     * @throws PasswordHashingBusyException If too many passwords are already waiting to be hashed.
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return await(submit(() -> bCryptPasswordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * @param encodedPassword A stored hash that a password just matched.
+     * @return Returns true if the hash was made with another cost than new hashes get, so it should be hashed again.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return bCryptPasswordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * @return The number of hashes waiting for a thread.
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new PasswordHashingBusyException("Too many requests, please try again later.");
+        }
+    }
+
+    private void acquireBulkPermit() {
+        try {
+            bulkPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to hash the passwords.", e);
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException exception) {
+                throw exception;
+            } else if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the password hash.", e);
+        }
+    }
+}
@@ -1,35 +1,109 @@
 package nl.inholland.bank.services;
 
-import nl.inholland.bank.models.BlacklistedRefreshToken;
+import jakarta.annotation.PostConstruct;
 import nl.inholland.bank.repositories.RefreshTokenBlacklistRepository;
+import nl.inholland.bank.utils.BloomFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+
 /**
- * Service for managing the refresh token blacklist
+ * Service for managing the refresh token blacklist.
+ * Tokens are stored as their SHA-256 hash. The hashes are also kept in a Bloom filter, so checking a token that was
+ * never blacklisted, which is nearly every token, does not query the database. The filter only knows the tokens this
+ * instance blacklisted and the ones that were stored when it was built, so blacklisting always goes to the database.
+ * Tokens are removed once they have expired, as an expired token is refused anyway.
  */
 @Service
 public class RefreshTokenBlacklistService {
+    private static final HexFormat HEX = HexFormat.of();
+
     private final RefreshTokenBlacklistRepository refreshTokenBlacklistRepository;
 
+    @Value("${bankapi.token.refresh.expiration}")
+    private long validityRefreshInMilliseconds;
+    @Value("${bankapi.token.blacklist.expected-size:100000}")
+    private int expectedSize;
+    @Value("${bankapi.token.blacklist.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter bloomFilter;
+
     public RefreshTokenBlacklistService(RefreshTokenBlacklistRepository refreshTokenBlacklistRepository) {
         this.refreshTokenBlacklistRepository = refreshTokenBlacklistRepository;
     }
 
+    @PostConstruct
+    public void init() {
+        rebuildBloomFilter();
+    }
+
     /**
      * Checks if a token is blacklisted
      * @param token The token to check
      * @return True if the token is blacklisted, false otherwise
      */
     public boolean isBlacklisted(String token) {
-        return refreshTokenBlacklistRepository.existsByToken(token);
+        if (token == null) {
+            return false;
+        }
+
+        byte[] hash = hash(token);
+        return bloomFilter.mightContain(hash) && refreshTokenBlacklistRepository.existsById(HEX.formatHex(hash));
     }
 
     /**
-     * Blacklists a token
+     * Blacklists a token, unless it already is.
+     * This is a single insert on the hash as primary key, so when the same token is blacklisted at the same time,
+     * also through other instances, only one of them succeeds.
      * @param token The token to blacklist
+     * @return True if the token was blacklisted now, false if it already was
      */
-    public void blacklist(String token) {
-        if (!isBlacklisted(token))
-            refreshTokenBlacklistRepository.save(new BlacklistedRefreshToken(token));
+    public boolean blacklist(String token) {
+        byte[] hash = hash(token);
+        bloomFilter.add(hash);
+        try {
+            refreshTokenBlacklistRepository.insert(HEX.formatHex(hash), LocalDateTime.now());
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Removes the tokens that have expired since they were blacklisted, and builds the Bloom filter again without them.
+     */
+    @Scheduled(fixedDelayString = "${bankapi.token.blacklist.purge-interval:600000}",
+            initialDelayString = "${bankapi.token.blacklist.purge-interval:600000}")
+    public void purgeExpired() {
+        refreshTokenBlacklistRepository.deleteBlacklistedBefore(
+                LocalDateTime.now().minus(validityRefreshInMilliseconds, ChronoUnit.MILLIS));
+        rebuildBloomFilter();
+    }
+
+    private void rebuildBloomFilter() {
+        BloomFilter filter = new BloomFilter(expectedSize, falsePositiveRate);
+        // Tokens blacklisted while the filter is loaded may be missing from it, blacklisting them again still fails.
+        bloomFilter = filter;
+        for (String tokenHash : refreshTokenBlacklistRepository.findAllTokenHashes()) {
+            filter.add(HEX.parseHex(tokenHash));
+        }
+    }
+
+    static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java runtime has SHA-256.
+            throw new IllegalStateException(e);
+        }
     }
 }
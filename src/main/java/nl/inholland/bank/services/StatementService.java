@@ -0,0 +1,163 @@
+package nl.inholland.bank.services;
+
+import nl.inholland.bank.models.AccountStatement;
+import nl.inholland.bank.models.AccountTotals;
+import nl.inholland.bank.repositories.AccountRepository;
+import nl.inholland.bank.repositories.AccountStatementRepository;
+import nl.inholland.bank.repositories.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Closes the months of accounts into statements: the balance at the start and end of the month, and the money that
+ * went in and out. Accounts are closed in chunks, each chunk in its own transaction on one of a few threads, with
+ * the totals of a whole chunk summed in two grouped queries.
+ * The opening balance of a month is the closing balance of the month before. Without one, it is worked back from the
+ * current balance and the transactions since the start of the month, read together in one statement, so transfers
+ * made while the month is closed do not get counted in one and not the other.
+ */
+@Service
+public class StatementService {
+    private final AccountRepository accountRepository;
+    private final AccountStatementRepository accountStatementRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${bankapi.statements.chunk-size:200}")
+    private int chunkSize;
+    @Value("${bankapi.statements.threads:4}")
+    private int threads;
+
+    public StatementService(AccountRepository accountRepository, AccountStatementRepository accountStatementRepository,
+                            TransactionRepository transactionRepository, PlatformTransactionManager transactionManager) {
+        this.accountRepository = accountRepository;
+        this.accountStatementRepository = accountStatementRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Closes the month that just ended, on the first of every month by default.
+     */
+    @Scheduled(cron = "${bankapi.statements.cron:0 0 1 1 * *}")
+    public void closePreviousMonth() {
+        closeMonth(YearMonth.now().minusMonths(1));
+    }
+
+    /**
+     * Closes a month for every account that does not have a statement for it yet.
+     * Accounts without any money or transactions up to the end of the month get no statement.
+     * @param month The month to close, which must have ended.
+     * @return Returns the number of statements that were written.
+     */
+    public int closeMonth(YearMonth month) {
+        if (!month.isBefore(YearMonth.now())) {
+            throw new IllegalArgumentException("Only months that have ended can be closed.");
+        }
+
+        Set<Integer> closedAccountIds = accountStatementRepository.findAccountIdsByStatementMonth(month.atDay(1));
+        List<Integer> accountIds = accountRepository.findAllIds().stream()
+                .filter(accountId -> !closedAccountIds.contains(accountId))
+                .toList();
+        if (accountIds.isEmpty()) {
+            return 0;
+        }
+
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int i = 0; i < accountIds.size(); i += chunkSize) {
+            chunks.add(accountIds.subList(i, Math.min(i + chunkSize, accountIds.size())));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, chunks.size()));
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (List<Integer> chunk : chunks) {
+                results.add(executor.submit(() -> transactionTemplate.execute(status -> closeChunk(chunk, month))));
+            }
+
+            int written = 0;
+            for (Future<Integer> result : results) {
+                written += result.get();
+            }
+            return written;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Closing the month was interrupted.", e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private int closeChunk(List<Integer> accountIds, YearMonth month) {
+        LocalDateTime start = month.atDay(1).atStartOfDay();
+        LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+
+        Map<Integer, Long> openingBalances = accountStatementRepository
+                .findAllByStatementMonthAndAccountIdIn(month.minusMonths(1).atDay(1), accountIds)
+                .stream()
+                .collect(Collectors.toMap(AccountStatement::getAccountId, AccountStatement::getClosingBalance));
+        Set<Integer> withoutPreviousStatement = accountIds.stream()
+                .filter(accountId -> !openingBalances.containsKey(accountId))
+                .collect(Collectors.toSet());
+        if (!withoutPreviousStatement.isEmpty()) {
+            accountRepository.findBalancesBeforeByIdIn(withoutPreviousStatement, start)
+                    .forEach(balance -> openingBalances.put(balance.accountId(), balance.balance()));
+        }
+
+        Map<Integer, AccountTotals> received = byAccount(transactionRepository.sumReceivedByAccount(accountIds, start, end));
+        Map<Integer, AccountTotals> sent = byAccount(transactionRepository.sumSentByAccount(accountIds, start, end));
+
+        List<AccountStatement> statements = new ArrayList<>();
+        for (int accountId : accountIds) {
+            AccountTotals in = received.get(accountId);
+            AccountTotals out = sent.get(accountId);
+            long openingBalance = openingBalances.getOrDefault(accountId, 0L);
+            long transactionCount = (in == null ? 0 : in.count()) + (out == null ? 0 : out.count());
+            if (openingBalance == 0 && transactionCount == 0 && withoutPreviousStatement.contains(accountId)) {
+                continue;
+            }
+
+            statements.add(new AccountStatement(accountId, month, openingBalance, in == null ? 0 : in.amount(),
+                    out == null ? 0 : out.amount(), transactionCount));
+        }
+        accountStatementRepository.saveAll(statements);
+
+        return statements.size();
+    }
+
+    private Map<Integer, AccountTotals> byAccount(List<AccountTotals> totals) {
+        return totals.stream().collect(Collectors.toMap(AccountTotals::accountId, Function.identity()));
+    }
+
+    /**
+     * Gets the statements of an account.
+     * @param accountId The id of the account.
+     * @param month Only the statement of this month, if given.
+     * @return Returns the statements, newest month first.
+     */
+    public List<AccountStatement> getStatements(int accountId, Optional<YearMonth> month) {
+        if (month.isPresent()) {
+            return accountStatementRepository.findByAccountIdAndStatementMonth(accountId, month.get().atDay(1))
+                    .map(List::of)
+                    .orElse(List.of());
+        }
+        return accountStatementRepository.findAllByAccountIdOrderByStatementMonthDesc(accountId);
+    }
+}
@@ -1,23 +1,27 @@
 package nl.inholland.bank.services;
 
+import jakarta.transaction.Transactional;
 import nl.inholland.bank.models.*;
 import nl.inholland.bank.models.dtos.TransactionDTO.TransactionRequest;
 import nl.inholland.bank.models.dtos.TransactionDTO.TransactionSearchRequest;
 import nl.inholland.bank.models.dtos.TransactionDTO.WithdrawDepositRequest;
 import nl.inholland.bank.models.exceptions.*;
+import nl.inholland.bank.repositories.PendingCreditRepository;
 import nl.inholland.bank.repositories.TransactionRepository;
 import nl.inholland.bank.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import javax.naming.InsufficientResourcesException;
 import javax.security.auth.login.AccountNotFoundException;
 import javax.security.sasl.AuthenticationException;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class TransactionService {
@@ -26,23 +30,33 @@ public class TransactionService {
     private final UserService userService;
     private final AccountService accountService;
     private final UserLimitsService userLimitsService;
+    private final BalanceService balanceService;
+    private final PendingCreditRepository pendingCreditRepository;
 
     private static final LocalDateTime EARLIEST_TIME = LocalDateTime.of(1, 1, 1, 0, 0, 0);
 
+    @Value("${bankapi.transactions.export.fetch-size:500}")
+    private int exportFetchSize;
+
     /**
      * @param transactionRepository the transaction repository
      * @param userRepository        the user repository
      * @param userService           the user service
      * @param accountService        the account service
      * @param userLimitsService     the user limits service
+     * @param balanceService        the balance service, which keeps the balance checkpoints
+     * @param pendingCreditRepository the credits the account lanes still have to add
      */
     public TransactionService(TransactionRepository transactionRepository, UserRepository userRepository, UserService userService,
-                              AccountService accountService, UserLimitsService userLimitsService) {
+                              AccountService accountService, UserLimitsService userLimitsService, BalanceService balanceService,
+                              PendingCreditRepository pendingCreditRepository) {
         this.transactionRepository = transactionRepository;
         this.userRepository = userRepository;
         this.userService = userService;
         this.accountService = accountService;
         this.userLimitsService = userLimitsService;
+        this.balanceService = balanceService;
+        this.pendingCreditRepository = pendingCreditRepository;
     }
 
     /**
@@ -55,7 +69,7 @@ public class TransactionService {
      * @param transactionType the type of the transaction
      * @return the transaction object
      */
-    public Transaction createTransaction(User user, Account accountSender, Account accountReceiver, CurrencyType currencyType, double amount, String description, TransactionType transactionType) {
+    public Transaction createTransaction(User user, Account accountSender, Account accountReceiver, CurrencyType currencyType, long amount, String description, TransactionType transactionType) {
         Transaction transaction = new Transaction();
         transaction.setUser(user);
         transaction.setAccountSender(accountSender);
@@ -64,7 +78,7 @@ public class TransactionService {
         transaction.setAmount(amount);
         transaction.setTimestamp(LocalDateTime.now());
         transaction.setTransactionType(transactionType);
-        transaction.setDescription(description);
+        transaction.setMemo(description);
 
 
         return transaction;
@@ -82,15 +96,20 @@ public class TransactionService {
      * @throws AuthenticationException           if the user is not authenticated
      * @throws UserNotTheOwnerOfAccountException if the user is not the owner of the account
      */
+    @Transactional
     public Transaction withdrawMoney(WithdrawDepositRequest withdrawDepositRequest) throws AccountNotFoundException, InsufficientResourcesException, AuthenticationException, UserNotTheOwnerOfAccountException, javax.naming.AuthenticationException {
+        accountService.lockAccounts(withdrawDepositRequest.IBAN());
         Account accountSender = accountService.getAccountByIBAN(withdrawDepositRequest.IBAN());
         User user = getUserByUsername();
         checkAccountPreconditionsForWithdrawOrDeposit(accountSender, user);
         checkUserLimits(accountSender, withdrawDepositRequest.amount(), null);
         Transaction transaction = createTransaction(user, accountSender, null, withdrawDepositRequest.currencyType(), withdrawDepositRequest.amount(), "", TransactionType.WITHDRAWAL);
         updateAccountBalance(accountSender, withdrawDepositRequest.amount(), false);
+        transactionRepository.save(transaction);
+        balanceService.recordTransaction(accountSender, accountSender.getBalance(), transaction);
+        userLimitsService.recordTransaction(transaction);
 
-        return transactionRepository.save(transaction);
+        return transaction;
     }
 
     /**
@@ -101,18 +120,23 @@ public class TransactionService {
      * @throws UserNotTheOwnerOfAccountException if the user is not the owner of the account
      * @throws InsufficientResourcesException    if the account does not have enough balance
      */
+    @Transactional
     public Transaction depositMoney(WithdrawDepositRequest depositRequest) throws AccountNotFoundException, AuthenticationException, UserNotTheOwnerOfAccountException, InsufficientResourcesException {
+        accountService.lockAccounts(depositRequest.IBAN());
         Account accountReceiver = accountService.getAccountByIBAN(depositRequest.IBAN());
         User user = getUserByUsername();
         checkAccountPreconditionsForWithdrawOrDeposit(accountReceiver, user);
         Transaction transaction = createTransaction(user, null, accountReceiver, depositRequest.currencyType(), depositRequest.amount(), "", TransactionType.DEPOSIT);
         updateAccountBalance(accountReceiver, depositRequest.amount(), true);
+        transactionRepository.save(transaction);
+        balanceService.recordTransaction(accountReceiver, accountReceiver.getBalance(), transaction);
 
-        return transactionRepository.save(transaction);
+        return transaction;
     }
 
+    // Called after the account is loaded, so its owner, the only user allowed to deposit or withdraw, is found without a query.
     private User getUserByUsername() throws AccountNotFoundException {
-        return userRepository.findUserByUsername(userService.getBearerUsername())
+        return userService.getBearerUser()
                 .orElseThrow(() -> new AccountNotFoundException("User not found"));
     }
 
@@ -132,6 +156,7 @@ public class TransactionService {
 
     /**
      * Processes the transaction and checks for requirements.
+     * Both accounts stay locked from before the checks until the transaction has been saved.
      *
      * @param request The request given of the attempted transaction information.
      * @return Returns the newly made transaction.
@@ -139,23 +164,55 @@ public class TransactionService {
      * @throws InsufficientResourcesException    If not enough money is present on the sender account.
      * @throws UserNotTheOwnerOfAccountException If the user is not the owner of the transaction.
      */
+    @Transactional
     public Transaction processTransaction(TransactionRequest request) throws AccountNotFoundException,
             InsufficientResourcesException,
             UserNotTheOwnerOfAccountException,
             javax.naming.AuthenticationException {
-        // Get performing user
-        User user = userRepository.findUserByUsername(userService.getBearerUsername()).orElse(null);
+        // Lock both accounts before anything is loaded, so the balance checks below cannot race with another transfer
+        accountService.lockAccounts(request.sender_iban(), request.receiver_iban());
+
+        return validateAndTransfer(request, true);
+    }
 
+    /**
+     * Processes the transaction like {@link #processTransaction(TransactionRequest)}, but only takes the money from the
+     * sender account. Only the sender account is locked. The credit to the receiver is saved as a {@link PendingCredit}
+     * with the transaction, for {@link AccountLaneService} to add, which batches the credits to the same account.
+     *
+     * @param request The request given of the attempted transaction information.
+     * @return Returns the newly made transaction.
+     * @throws AccountNotFoundException          If no account has been found.
+     * @throws InsufficientResourcesException    If not enough money is present on the sender account.
+     * @throws UserNotTheOwnerOfAccountException If the user is not the owner of the transaction.
+     */
+    @Transactional
+    public Transaction processDebit(TransactionRequest request) throws AccountNotFoundException,
+            InsufficientResourcesException,
+            UserNotTheOwnerOfAccountException,
+            javax.naming.AuthenticationException {
+        accountService.lockAccounts(request.sender_iban());
+
+        return validateAndTransfer(request, false);
+    }
+
+    private Transaction validateAndTransfer(TransactionRequest request, boolean creditReceiver) throws AccountNotFoundException,
+            InsufficientResourcesException,
+            UserNotTheOwnerOfAccountException,
+            javax.naming.AuthenticationException {
         // Check if accounts exists and get the corresponding accounts of the given IBANs
         Account accountSender = accountService.getAccountByIBAN(request.sender_iban());
         Account accountReceiver = accountService.getAccountByIBAN(request.receiver_iban());
 
+        // Get performing user, after the accounts, so a customer is already loaded as the owner of the sender account
+        User user = userService.getBearerUser().orElse(null);
+
         if (accountSender == null || accountReceiver == null) {
             String message = "Account with IBAN (" + (accountSender == null ? request.sender_iban() : request.receiver_iban()) + ") not found.";
             throw new AccountNotFoundException(message);
         }
 
-        double amount = request.amount();
+        long amount = request.amount();
 
         // Perform all requirements checks
         checkUserAuthorization(user, accountSender);
@@ -166,7 +223,136 @@ public class TransactionService {
         checkUserLimits(accountSender, amount, accountReceiver);
 
         // If all requirements have been met, create transaction
-        return transferMoney(user, accountSender, accountReceiver, accountSender.getCurrencyType(), amount, request.description());
+        return transferMoney(user, accountSender, accountReceiver, accountSender.getCurrencyType(), amount, request.description(), creditReceiver);
+    }
+
+    /**
+     * Processes a batch of transactions in a single database transaction.
+     * All accounts are locked and loaded at once, balances and daily limits are tracked in memory while the batch is
+     * checked, and everything is saved at the end.
+     *
+     * @param requests     The transactions to make, in order.
+     * @param allOrNothing If true, nothing is saved when any of the transactions fails.
+     *                     Otherwise, the failed transactions are skipped and the others are made.
+     * @return Returns the result of each transaction, in the same order as the requests.
+     */
+    @Transactional
+    public List<TransactionBatchResult> processTransactions(List<TransactionRequest> requests, boolean allOrNothing) {
+        List<String> ibans = requests.stream()
+                .filter(Objects::nonNull)
+                .flatMap(request -> Stream.of(request.sender_iban(), request.receiver_iban()))
+                .toList();
+
+        // Lock all accounts before anything is loaded, like a single transaction does
+        accountService.lockAccounts(ibans.toArray(String[]::new));
+
+        Map<String, Account> accounts = accountService.getAccountsByIBANs(ibans);
+        // After the accounts, so a customer is already loaded as the owner of their accounts
+        User user = userService.getBearerUser().orElse(null);
+        Role role = userService.getBearerUserRole();
+
+        // Balances and limits as they will be after the transactions checked so far
+        Map<String, Long> balances = new HashMap<>();
+        Map<Integer, Limits> limitsPerUser = new HashMap<>();
+
+        List<TransactionBatchResult> results = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TransactionRequest request = requests.get(i);
+            try {
+                if (request == null) {
+                    throw new IllegalArgumentException("Transaction cannot be empty.");
+                }
+
+                Account accountSender = request.sender_iban() == null ? null : accounts.get(request.sender_iban().toUpperCase());
+                Account accountReceiver = request.receiver_iban() == null ? null : accounts.get(request.receiver_iban().toUpperCase());
+                if (accountSender == null || accountReceiver == null) {
+                    String message = "Account with IBAN (" + (accountSender == null ? request.sender_iban() : request.receiver_iban()) + ") not found.";
+                    throw new AccountNotFoundException(message);
+                }
+
+                // Checked before the limits of the owner are loaded, so an account of someone else only fails this item
+                if (!isUserAuthorizedForTransaction(role, user, accountSender)) {
+                    throw new UserNotTheOwnerOfAccountException("You are not authorized to perform this transaction.");
+                }
+
+                int ownerId = accountSender.getUser().getId();
+                if (!limitsPerUser.containsKey(ownerId)) {
+                    limitsPerUser.put(ownerId, userLimitsService.getUserLimitsNoAuth(ownerId));
+                }
+                Limits limits = limitsPerUser.get(ownerId);
+                long senderBalance = balances.getOrDefault(accountSender.getIBAN(), accountSender.getBalance());
+                long amount = request.amount();
+
+                // Perform all requirements checks
+                checkAccountStatus(accountSender, "sender");
+                checkAccountStatus(accountReceiver, "receiver");
+                checkSameAccount(accountSender, accountReceiver);
+                checkSavingAccountOwnership(user, accountSender, accountReceiver);
+                checkUserLimits(limits, senderBalance, accountSender, amount, accountReceiver);
+
+                Transaction transaction = createTransaction(user, accountSender, accountReceiver,
+                        accountSender.getCurrencyType(), amount, request.description(), TransactionType.TRANSACTION);
+                balances.put(accountSender.getIBAN(), senderBalance - amount);
+                balances.put(accountReceiver.getIBAN(), balances.getOrDefault(accountReceiver.getIBAN(), accountReceiver.getBalance()) + amount);
+                if (userLimitsService.countsTowardsDailyLimit(user, accountSender, accountReceiver)) {
+                    limits.setRemainingDailyTransactionLimit(limits.getRemainingDailyTransactionLimit() - amount);
+                }
+
+                results.add(new TransactionBatchResult(i, transaction, null));
+            } catch (AccountNotFoundException | RuntimeException e) {
+                results.add(new TransactionBatchResult(i, null, e));
+            }
+        }
+
+        boolean anyFailed = results.stream().anyMatch(result -> !result.isSuccessful());
+        if (allOrNothing && anyFailed) {
+            // Nothing has been changed yet, so only the results have to be updated
+            return results.stream()
+                    .map(result -> result.isSuccessful()
+                            ? new TransactionBatchResult(result.index(), null, new OperationNotAllowedException("Transaction was not made, because another transaction in the batch failed."))
+                            : result)
+                    .toList();
+        }
+
+        List<Transaction> transactions = results.stream()
+                .filter(TransactionBatchResult::isSuccessful)
+                .map(TransactionBatchResult::transaction)
+                .toList();
+        if (transactions.isEmpty()) {
+            return results;
+        }
+
+        // Save everything at once, so Hibernate can send the inserts in JDBC batches
+        transactionRepository.saveAll(transactions);
+        recordBatchCheckpoints(transactions);
+
+        List<Account> changedAccounts = new ArrayList<>();
+        balances.forEach((iban, balance) -> {
+            Account account = accounts.get(iban);
+            account.setBalance(balance);
+            changedAccounts.add(account);
+        });
+        accountService.updateAccounts(changedAccounts);
+        userLimitsService.recordTransactions(transactions);
+
+        return results;
+    }
+
+    // Counts the saved transactions of a batch towards the balance checkpoints, with the balances right after each one.
+    // Called before the new balances are applied, so the accounts still have the balances from before the batch.
+    private void recordBatchCheckpoints(List<Transaction> transactions) {
+        Map<String, Long> balances = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            Account accountSender = transaction.getAccountSender();
+            Account accountReceiver = transaction.getAccountReceiver();
+            long senderBalance = balances.getOrDefault(accountSender.getIBAN(), accountSender.getBalance()) - transaction.getAmount();
+            long receiverBalance = balances.getOrDefault(accountReceiver.getIBAN(), accountReceiver.getBalance()) + transaction.getAmount();
+            balances.put(accountSender.getIBAN(), senderBalance);
+            balances.put(accountReceiver.getIBAN(), receiverBalance);
+
+            balanceService.recordTransaction(accountSender, senderBalance, transaction);
+            balanceService.recordTransaction(accountReceiver, receiverBalance, transaction);
+        }
     }
 
     /**
@@ -190,7 +376,10 @@ public class TransactionService {
      * @return Returns a boolean if the user is authorized.
      */
     boolean isUserAuthorizedForTransaction(User user, Account account) {
-        Role role = userService.getBearerUserRole();
+        return isUserAuthorizedForTransaction(userService.getBearerUserRole(), user, account);
+    }
+
+    private boolean isUserAuthorizedForTransaction(Role role, User user, Account account) {
         if (role == Role.CUSTOMER) {
             return Objects.equals(account.getUser(), user);
         } else return role == Role.EMPLOYEE || role == Role.ADMIN;
@@ -249,10 +438,22 @@ public class TransactionService {
      * @throws DailyTransactionLimitException Exception if transaction exceeds daily limit.
      * @throws InsufficientFundsException Exception if insufficient funds.
      */
-    void checkUserLimits(Account accountSender, double amount, Account accountReceiver) throws TransactionLimitException,
+    void checkUserLimits(Account accountSender, long amount, Account accountReceiver) throws TransactionLimitException,
             DailyTransactionLimitException, InsufficientFundsException, javax.naming.AuthenticationException {
         Limits limits = this.userLimitsService.getUserLimits(accountSender.getUser().getId());
+        checkUserLimits(limits, accountSender.getBalance(), accountSender, amount, accountReceiver);
+    }
 
+    /**
+     * Checks the account holder's limits against the given balance, instead of the balance stored in the account.
+     *
+     * @param limits        The limits of the account holder.
+     * @param balance       The balance of the sender account.
+     * @param accountSender The account to check.
+     * @param amount        The amount of the transaction.
+     * @param accountReceiver The account receiving the money.
+     */
+    private void checkUserLimits(Limits limits, long balance, Account accountSender, long amount, Account accountReceiver) {
         if (amount > limits.getTransactionLimit()) {
             if (accountReceiver == null || (accountReceiver.getType() != AccountType.SAVING && accountSender.getType() != AccountType.SAVING)) {
                 throw new TransactionLimitException("Amount exceeds the transaction limit.");
@@ -263,13 +464,14 @@ public class TransactionService {
                 throw new DailyTransactionLimitException("Amount exceeds remaining daily transaction limit.");
             }
         }
-        if (accountSender.getBalance() - amount < accountSender.getAbsoluteLimit()) {
+        if (balance - amount < accountSender.getAbsoluteLimit()) {
             throw new InsufficientFundsException("Insufficient funds, transaction exceeds the absolute limit.");
         }
     }
 
     /**
      * Creates a new transaction and updates the balances of the sender and receiver.
+     * The caller is expected to hold the locks on both accounts, see {@link AccountService#lockAccounts(String...)}.
      *
      * @param user            The user performing the transaction.
      * @param accountSender   The account where the money originates from.
@@ -279,19 +481,41 @@ public class TransactionService {
      * @param description     The description of the transaction.
      * @return Returns a new transaction.
      */
+    @Transactional
     public Transaction transferMoney(User user, Account accountSender, Account accountReceiver,
-                                     CurrencyType currencyType, double amount, String description) {
+                                     CurrencyType currencyType, long amount, String description) {
+        return transferMoney(user, accountSender, accountReceiver, currencyType, amount, description, true);
+    }
+
+    private Transaction transferMoney(User user, Account accountSender, Account accountReceiver,
+                                      CurrencyType currencyType, long amount, String description, boolean creditReceiver) {
         // Create the transaction
         Transaction transaction = createTransaction(user, accountSender, accountReceiver, currencyType, amount,
                 description, TransactionType.TRANSACTION);
 
         // Update the account balances
         updateAccountBalance(accountSender, amount, false);
-        updateAccountBalance(accountReceiver, amount, true);
+        if (creditReceiver) {
+            updateAccountBalance(accountReceiver, amount, true);
+        }
 
         // Save the transaction
         transactionRepository.save(transaction);
 
+        // Count it towards the balance checkpoints of the accounts whose balance changed
+        if (creditReceiver) {
+            balanceService.recordTransaction(accountSender, accountSender.getBalance(), transaction);
+            balanceService.recordTransaction(accountReceiver, accountReceiver.getBalance(), transaction);
+        } else {
+            // Saved with the transfer, so the receiver gets the money even when the lane never gets to credit it.
+            // The receiver counts the transfer towards its checkpoints once the credit has been added.
+            pendingCreditRepository.insert(transaction.getId(), accountReceiver.getId());
+            balanceService.recordTransaction(accountSender, transaction);
+        }
+
+        // Add the amount to the daily spend of the user
+        userLimitsService.recordTransaction(transaction);
+
         // Return the transaction
         return transaction;
     }
@@ -301,28 +525,111 @@ public class TransactionService {
      * @param amount    The amount to update the balance with.
      * @param isDeposit If the amount is a deposit or withdraw (or not).
      */
-    public void updateAccountBalance(Account account, double amount, boolean isDeposit) {
-        double balance = account.getBalance();
-        double newBalance = isDeposit ? balance + amount : balance - amount;
+    public void updateAccountBalance(Account account, long amount, boolean isDeposit) {
+        long balance = account.getBalance();
+        long newBalance = isDeposit ? balance + amount : balance - amount;
         account.setBalance(newBalance);
 
         accountService.updateAccount(account);
     }
 
+    // Search criteria of a TransactionSearchRequest, with defaults filled in and the users looked up.
+    private record TransactionSearch(long minAmount, long maxAmount,
+                                     LocalDateTime startDateTime, LocalDateTime endDateTime, int transactionID,
+                                     String ibanSender, String ibanReceiver,
+                                     User user, User userSender, User userReceiver, TransactionType transactionType) {
+    }
+
     /**
      * Retrieves transactions dependent on user role and requests
      *
      * @param page    Page of results.
      * @param limit   Limit amount of results.
      * @param request The request to query by.
-     * @return Returns a list of Transactions.
+     * @return Returns a list of summaries of the transactions.
+     * @throws AuthenticationException If user is not authorized to perform the action.
+     */
+    public List<TransactionSummary> getTransactions(Optional<Integer> page, Optional<Integer> limit,
+                                                    TransactionSearchRequest request) throws AuthenticationException {
+        TransactionSearch search = toSearch(request);
+
+        // Set up pagination
+        int pageNumber = page.orElse(0);
+        int pageSize = limit.orElse(10);
+        Pageable pageable = PageRequest.of(pageNumber, pageSize);
+
+        return transactionRepository.findTransactions(
+                search.minAmount(), search.maxAmount(), search.startDateTime(), search.endDateTime(),
+                search.transactionID(), search.ibanSender(), search.ibanReceiver(),
+                search.user(), search.userSender(), search.userReceiver(), search.transactionType(),
+                pageable).getContent();
+    }
+
+    /**
+     * Retrieves transactions like getTransactions, newest first, continuing after a cursor instead of at a page.
+     * Deep pages are as fast as the first one, and no total count is made.
+     *
+     * @param cursor  The cursor of the previous slice, empty for the first slice.
+     * @param limit   Limit amount of results.
+     * @param request The request to query by.
+     * @return Returns the transactions, and whether there are more.
      * @throws AuthenticationException If user is not authorized to perform the action.
      */
-    public List<Transaction> getTransactions(Optional<Integer> page, Optional<Integer> limit,
-                                             TransactionSearchRequest request) throws AuthenticationException {
+    public Slice<TransactionSummary> getTransactionsAfter(Optional<String> cursor, Optional<Integer> limit,
+                                                          TransactionSearchRequest request) throws AuthenticationException {
+        TransactionSearch search = toSearch(request);
+        TransactionCursor position = cursor.filter(value -> !value.isBlank()).map(TransactionCursor::decode).orElse(null);
+
+        return transactionRepository.findTransactionsAfter(
+                search.minAmount(), search.maxAmount(), search.startDateTime(), search.endDateTime(),
+                search.transactionID(), search.ibanSender(), search.ibanReceiver(),
+                search.user(), search.userSender(), search.userReceiver(), search.transactionType(),
+                position, limit.orElse(10));
+    }
+
+    /**
+     * Gives all transactions that getTransactions can return, oldest first, to the consumer one by one.
+     * The transactions are read from the database while they are consumed, bankapi.transactions.export.fetch-size at
+     * a time, so exports of any length take the same memory.
+     *
+     * @param request  The request to query by.
+     * @param consumer Receives the transactions, within the transaction that reads them.
+     * @throws AuthenticationException If user is not authorized to perform the action, before any transaction is given.
+     */
+    @Transactional
+    public void exportTransactions(TransactionSearchRequest request, Consumer<TransactionSummary> consumer)
+            throws AuthenticationException {
+        TransactionSearch search = toSearch(request);
+
+        try (Stream<TransactionSummary> transactions = transactionRepository.streamTransactions(
+                search.minAmount(), search.maxAmount(), search.startDateTime(), search.endDateTime(),
+                search.transactionID(), search.ibanSender(), search.ibanReceiver(),
+                search.user(), search.userSender(), search.userReceiver(), search.transactionType(),
+                exportFetchSize)) {
+            transactions.forEach(consumer);
+        }
+    }
+
+    /**
+     * Counts the transactions that getTransactions can return, over all pages.
+     *
+     * @param request The request to query by.
+     * @return Returns the number of transactions.
+     * @throws AuthenticationException If user is not authorized to perform the action.
+     */
+    public long countTransactions(TransactionSearchRequest request) throws AuthenticationException {
+        TransactionSearch search = toSearch(request);
+
+        return transactionRepository.countTransactions(
+                search.minAmount(), search.maxAmount(), search.startDateTime(), search.endDateTime(),
+                search.transactionID(), search.ibanSender(), search.ibanReceiver(),
+                search.user(), search.userSender(), search.userReceiver(), search.transactionType());
+    }
+
+    private TransactionSearch toSearch(TransactionSearchRequest request) throws AuthenticationException {
         // Set up search criteria
-        double minAmount = request.minAmount().orElse(0.0);
-        double maxAmount = request.maxAmount().orElse(Double.MAX_VALUE);
+        long minAmount = request.minAmount().orElse(0L);
+        long maxAmount = request.maxAmount().orElse(Long.MAX_VALUE);
         LocalDateTime startDateTime = request.startDate().orElse(EARLIEST_TIME);
         LocalDateTime endDateTime = request.endDate().orElse(LocalDateTime.now());
         int transactionID = request.transactionID().orElse(0);
@@ -334,11 +641,6 @@ public class TransactionService {
         User userSender = request.userSenderId().map(userService::getUserById).orElse(null);
         User userReceiver = request.userReceiverId().map(userService::getUserById).orElse(null);
 
-        // Set up pagination
-        int pageNumber = page.orElse(0);
-        int pageSize = limit.orElse(10);
-        Pageable pageable = PageRequest.of(pageNumber, pageSize);
-
         // Check user role
         Role userRole = userService.getBearerUserRole();
         if (userRole == null) {
@@ -346,12 +648,11 @@ public class TransactionService {
         }
 
         // Get user if they have the Role.USER, safety check for regular users to only see their own transactions.
-        User user = (userRole == Role.CUSTOMER) ? userRepository.findUserByUsername(userService.getBearerUsername()).orElse(null) : null;
+        // The search only needs their id, so the user is not loaded.
+        User user = (userRole == Role.CUSTOMER) ? userService.getBearerUserReference().orElse(null) : null;
 
-        return transactionRepository.findTransactions(
-                minAmount, maxAmount, startDateTime, endDateTime, transactionID,
-                ibanSender, ibanReceiver, user, userSender, userReceiver, transactionType,
-                pageable).getContent();
+        return new TransactionSearch(minAmount, maxAmount, startDateTime, endDateTime, transactionID,
+                ibanSender, ibanReceiver, user, userSender, userReceiver, transactionType);
     }
 
     /**
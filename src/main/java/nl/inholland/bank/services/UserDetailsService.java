@@ -1,5 +1,6 @@
 package nl.inholland.bank.services;
 
+import nl.inholland.bank.models.AuthenticatedUser;
 import nl.inholland.bank.repositories.UserRepository;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -25,12 +26,24 @@ public class UserDetailsService implements org.springframework.security.core.use
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return loadAuthenticatedUser(username).userDetails();
+    }
+
+    /**
+     * Loads a user by username, together with the id, role and active state of the user
+     * @param username The username of the user to load
+     * @return The authenticated user
+     * @throws UsernameNotFoundException Thrown when the user is not found
+     */
+    public AuthenticatedUser loadAuthenticatedUser(String username) throws UsernameNotFoundException {
         nl.inholland.bank.models.User member = userRepository.findUserByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException(String.format("User %s not found", username)));
 
-        return User.withUsername(member.getUsername())
+        UserDetails userDetails = User.withUsername(member.getUsername())
                 .password(member.getPassword())
                 .authorities(member.getRole())
                 .build();
+
+        return new AuthenticatedUser(member.getId(), member.getUsername(), member.getRole(), member.isActive(), userDetails);
     }
 }
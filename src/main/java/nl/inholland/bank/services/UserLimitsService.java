@@ -2,7 +2,6 @@ package nl.inholland.bank.services;
 
 import nl.inholland.bank.models.*;
 import nl.inholland.bank.models.dtos.UserDTO.UserLimitsRequest;
-import nl.inholland.bank.repositories.TransactionRepository;
 import nl.inholland.bank.repositories.UserLimitsRepository;
 import nl.inholland.bank.repositories.UserRepository;
 import nl.inholland.bank.utils.JwtTokenProvider;
@@ -12,7 +11,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.MethodNotAllowedException;
 
 import javax.naming.AuthenticationException;
-import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -23,18 +21,18 @@ public class UserLimitsService {
     private final UserLimitsRepository userLimitsRepository;
     private final JwtTokenProvider jwtTokenProvider;
     private final UserRepository userRepository;
-    private final TransactionRepository transactionRepository;
+    private final DailySpendService dailySpendService;
 
     @Value("${bankapi.user.defaults.dailyTransactionLimit}")
     private int defaultDailyTransactionLimit;
     @Value("${bankapi.user.defaults.transactionLimit}")
     private int defaultTransactionLimit;
 
-    public UserLimitsService(UserLimitsRepository userLimitsRepository, JwtTokenProvider jwtTokenProvider, UserRepository userRepository, TransactionRepository transactionRepository) {
+    public UserLimitsService(UserLimitsRepository userLimitsRepository, JwtTokenProvider jwtTokenProvider, UserRepository userRepository, DailySpendService dailySpendService) {
         this.userLimitsRepository = userLimitsRepository;
         this.jwtTokenProvider = jwtTokenProvider;
         this.userRepository = userRepository;
-        this.transactionRepository = transactionRepository;
+        this.dailySpendService = dailySpendService;
     }
 
     /**
@@ -48,12 +46,8 @@ public class UserLimitsService {
         }
         Limits limits = userLimitsRepository.findFirstByUserId(userId);
 
-        // Get all transactions from today for this user using findAllByTimestampIsAfter.
-        List<Transaction> todayTransactions = transactionRepository.findAllByTimestampIsAfterAndUserId(LocalDate.now().atStartOfDay(), userId);
-        double remainingDailyLimit = calculateRemainingDailyLimit(limits, todayTransactions, userId);
-
-        // Calculate the remaining daily limit
-        limits.setRemainingDailyTransactionLimit(remainingDailyLimit);
+        // Calculate the remaining daily limit from the running total of today's spend.
+        limits.setRemainingDailyTransactionLimit(limits.getDailyTransactionLimit() - dailySpendService.getSpentToday(userId));
 
         return limits;
     }
@@ -111,12 +105,9 @@ public class UserLimitsService {
         userLimitsRepository.save(limits);
 
         Limits limitsResponse = userLimitsRepository.findFirstByUserId(userId);
-        // Get all transactions from today for this user using findAllByTimestampIsAfter.
-        List<Transaction> todayTransactions = transactionRepository.findAllByTimestampIsAfterAndUserId(LocalDate.now().atStartOfDay(), userId);
-        double remainingDailyLimit = calculateRemainingDailyLimit(limits, todayTransactions, userId);
 
-        // Calculate the remaining daily limit
-        limitsResponse.setRemainingDailyTransactionLimit(remainingDailyLimit);
+        // Calculate the remaining daily limit from the running total of today's spend.
+        limitsResponse.setRemainingDailyTransactionLimit(limits.getDailyTransactionLimit() - dailySpendService.getSpentToday(userId));
 
         return limitsResponse;
     }
@@ -128,33 +119,35 @@ public class UserLimitsService {
      * @param userId The id of the user.
      * @return The remaining daily limit.
      */
-    public Double calculateRemainingDailyLimit(Limits limits, List<Transaction> todaysTransactions, int userId) {
-        double totalToday = 0;
-        for (Transaction transaction : todaysTransactions) {
-            // Ignore transactions from SAVINGS accounts.
-            if (transaction.getAccountSender() != null && transaction.getAccountSender().getType().equals(AccountType.SAVING)) {
-                continue;
-            }
-
-            // Ignore transactions to SAVINGS accounts.
-            if (transaction.getAccountReceiver() != null && transaction.getAccountReceiver().getType().equals(AccountType.SAVING)) {
-                continue;
-            }
-
-            // Ignore deposits to CURRENT accounts.
-            if (transaction.getAccountSender() == null && transaction.getAccountReceiver() != null) {
-                continue;
-            }
-
-            // Ignore deposits to CURRENT accounts.
-            if (transaction.getAccountReceiver() != null && transaction.getAccountSender().getUser().getId() != userId) {
-                  continue;
-            }
-
-            totalToday += transaction.getAmount();
-        }
+    public long calculateRemainingDailyLimit(Limits limits, List<Transaction> todaysTransactions, int userId) {
+        return limits.getDailyTransactionLimit() - dailySpendService.calculateTotalSpent(todaysTransactions, userId);
+    }
+
+    /**
+     * Add a transaction to the daily spend of the user that made it.
+     * @param transaction The transaction that has been made.
+     */
+    public void recordTransaction(Transaction transaction) {
+        dailySpendService.recordTransaction(transaction);
+    }
 
-        return limits.getDailyTransactionLimit() - totalToday;
+    /**
+     * Add transactions to the daily spend of the users that made them, with one update per user.
+     * @param transactions The transactions that have been made.
+     */
+    public void recordTransactions(List<Transaction> transactions) {
+        dailySpendService.recordTransactions(transactions);
+    }
+
+    /**
+     * Check if a transaction will count towards the daily limit of the user performing it.
+     * @param user The user performing the transaction.
+     * @param accountSender The account the money comes from.
+     * @param accountReceiver The account the money goes to.
+     * @return True if the amount will be added to the daily spend.
+     */
+    public boolean countsTowardsDailyLimit(User user, Account accountSender, Account accountReceiver) {
+        return dailySpendService.countsTowardsDailyLimit(user, accountSender, accountReceiver);
     }
 
     /**
@@ -163,9 +156,10 @@ public class UserLimitsService {
      */
     public Limits getDefaultLimits() {
         Limits limits = new Limits();
-        limits.setDailyTransactionLimit(this.defaultDailyTransactionLimit);
-        limits.setTransactionLimit(this.defaultTransactionLimit);
-        limits.setRemainingDailyTransactionLimit(this.defaultDailyTransactionLimit);
+        // The defaults are configured in whole euros
+        limits.setDailyTransactionLimit(Money.toCents(this.defaultDailyTransactionLimit));
+        limits.setTransactionLimit(Money.toCents(this.defaultTransactionLimit));
+        limits.setRemainingDailyTransactionLimit(Money.toCents(this.defaultDailyTransactionLimit));
         return limits;
     }
 }
@@ -2,6 +2,8 @@ package nl.inholland.bank.services;
 
 import nl.inholland.bank.models.Account;
 import nl.inholland.bank.models.AccountType;
+import nl.inholland.bank.models.AuthenticatedUser;
+import nl.inholland.bank.models.PasswordPolicy;
 import nl.inholland.bank.models.Role;
 import nl.inholland.bank.models.User;
 import nl.inholland.bank.models.dtos.AuthDTO.LoginRequest;
@@ -11,6 +13,7 @@ import nl.inholland.bank.models.dtos.Token;
 import nl.inholland.bank.models.dtos.UserDTO.UserForAdminRequest;
 import nl.inholland.bank.models.dtos.UserDTO.UserRequest;
 import nl.inholland.bank.models.exceptions.OperationNotAllowedException;
+import nl.inholland.bank.models.exceptions.PasswordHashingBusyException;
 import nl.inholland.bank.repositories.AccountRepository;
 import nl.inholland.bank.repositories.UserRepository;
 import nl.inholland.bank.utils.JwtTokenProvider;
@@ -20,7 +23,6 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.authentication.DisabledException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import javax.naming.AuthenticationException;
@@ -28,6 +30,7 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 /**
  * Service class for User objects.
@@ -37,7 +40,7 @@ public class UserService {
     protected final UserRepository userRepository;
     private final UserLimitsService userLimitsService;
     private final AccountRepository accountRepository;
-    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtTokenProvider jwtTokenProvider;
 
     @Value("${bankapi.application.request.limits}")
@@ -47,13 +50,16 @@ public class UserService {
     public static final String USER_NOT_FOUND = "User not found.";
     public static final String USERNAME_ALREADY_EXISTS = "Username already exists.";
 
+    private static final Pattern DATE_PATTERN = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
     @Value("${bankapi.bank.account}")
     private String bankAccountIBAN;
 
 
-    public UserService(UserRepository userRepository, BCryptPasswordEncoder bCryptPasswordEncoder, JwtTokenProvider jwtTokenProvider, UserLimitsService userLimitsService, AccountRepository accountRepository) {
+    public UserService(UserRepository userRepository, PasswordHashingService passwordHashingService, JwtTokenProvider jwtTokenProvider, UserLimitsService userLimitsService, AccountRepository accountRepository) {
         this.userRepository = userRepository;
-        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.jwtTokenProvider = jwtTokenProvider;
         this.userLimitsService = userLimitsService;
         this.accountRepository = accountRepository;
@@ -80,7 +86,7 @@ public class UserService {
         }
 
         User user = mapUserRequestToUser(userRequest);
-        user.setPassword(bCryptPasswordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
         user.setLimits(userLimitsService.getDefaultLimits());
         userRepository.save(user);
         userLimitsService.initialiseLimits(user);
@@ -103,7 +109,7 @@ public class UserService {
 
         User user = mapUserRequestToUser(userRequest);
         user.setLimits(userLimitsService.getDefaultLimits());
-        user.setPassword(bCryptPasswordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
         userRepository.save(user);
         userLimitsService.initialiseLimits(user);
         return userRepository.findUserByUsername(user.getUsername()).orElseThrow(() -> new ObjectNotFoundException(user.getId(), "User"));
@@ -146,6 +152,22 @@ public class UserService {
         return users;
     }
 
+    /**
+     * Counts the users that getAllUsers can return, over all pages.
+     * @param name (Optional) Name of user to search for.
+     * @param hasNoAccount (Optional) If true, counts only users that have no accounts.
+     * @param isActive (Optional) If true, counts only active users.
+     * @return Number of users.
+     */
+    public long countUsers(Optional<String> name, Optional<Boolean> hasNoAccount, Optional<Boolean> isActive) {
+        Role userRole = getBearerUserRole();
+
+        if (userRole == Role.ADMIN || userRole == Role.EMPLOYEE) {
+            return userRepository.countUsers(name, hasNoAccount, isActive);
+        }
+        return userRepository.countUsers(name, Optional.of(false), Optional.of(true));
+    }
+
     /**
      * Returns a user by id.
      * @param id Id of user to return.
@@ -171,12 +193,28 @@ public class UserService {
         if (!user.isActive())
             throw new DisabledException("User has been deactivated. Please contact customer support.");
 
-        if (!bCryptPasswordEncoder.matches(loginRequest.password(), user.getPassword()))
+        if (!passwordHashingService.matches(loginRequest.password(), user.getPassword()))
             throw new AuthenticationException("Password incorrect");
 
+        rehashPassword(user, loginRequest.password());
+
         return jwtTokenProvider.createToken(user.getUsername(), user.getRole());
     }
 
+    // Hashes the password again when the cost of hashing changed since it was stored, the password is only known now.
+    private void rehashPassword(User user, String password) {
+        if (!passwordHashingService.needsRehash(user.getPassword())) {
+            return;
+        }
+
+        try {
+            // Only replaces the hash the user logged in with, in case the password was changed in the meantime.
+            userRepository.updatePassword(user.getId(), user.getPassword(), passwordHashingService.encode(password));
+        } catch (PasswordHashingBusyException e) {
+            // The login itself succeeded, the password is hashed again on a next login.
+        }
+    }
+
     /**
      * Creates a refresh token for a user.
      * @param username Username of user to create refresh token for.
@@ -216,7 +254,7 @@ public class UserService {
      * @param userRequest User request to map.
      * @return User object.
      */
-    private User mapUserRequestToUser(UserRequest userRequest) {
+    public User mapUserRequestToUser(UserRequest userRequest) {
         User user = new User();
         user.setRole(Role.CUSTOMER);
         transferUserRequestToExistingUser(userRequest, user);
@@ -267,6 +305,36 @@ public class UserService {
         return username;
     }
 
+    /**
+     * Returns the user that is currently logged in.
+     * Looked up by the id carried in the token authentication. Within a transaction that already loaded the user, like
+     * through an account they own, the user is found without a query, otherwise it is loaded by its primary key.
+     * Use {@link #getBearerUserReference()} when only the id of the user is needed.
+     * @return User that is currently logged in, empty if the request is not authenticated.
+     */
+    public Optional<User> getBearerUser() {
+        AuthenticatedUser authenticatedUser = jwtTokenProvider.getAuthenticatedUser();
+        if (authenticatedUser == null) {
+            return Optional.empty();
+        }
+
+        return userRepository.findById(authenticatedUser.id());
+    }
+
+    /**
+     * Returns a reference to the user that is currently logged in, without a query.
+     * Only the id of the reference can be read, the other fields are only loaded on use within a transaction.
+     * @return Reference to the user that is currently logged in, empty if the request is not authenticated.
+     */
+    public Optional<User> getBearerUserReference() {
+        AuthenticatedUser authenticatedUser = jwtTokenProvider.getAuthenticatedUser();
+        if (authenticatedUser == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(userRepository.getReferenceById(authenticatedUser.id()));
+    }
+
     /**
      * Returns the role of the user that is currently logged in.
      * @return Role of user that is currently logged in.
@@ -281,21 +349,7 @@ public class UserService {
      * @return True if password is valid, false if not.
      */
     public boolean isPasswordValid(String password) {
-        if (password == null || password.length() < 8) {
-            return false;
-        }
-
-        // Password cannot have repeating character only (e.g. 'aaaaaaaa')
-        if (password.matches("(.)\\1+")) {
-            return false;
-        }
-
-        // Password must adhere to the following rules:
-        // - Must contain at least one digit
-        // - Must contain at least one lowercase character
-        // - Must contain at least one uppercase character
-        // - Must contain at least one special character
-        return password.matches("^(?=.*[0-9])(?=.*[a-z])(?=.*[A-Z])(?=.*[!@#$%^&*()_+-={}:;'\",./<>?]).{8,}$");
+        return PasswordPolicy.isSatisfiedBy(password);
     }
 
     /**
@@ -324,13 +378,17 @@ public class UserService {
             if (!isPasswordValid(userRequest.getPassword())) {
                 throw new IllegalArgumentException("Password is not valid.");
             }
-            userRequest.setPassword(bCryptPasswordEncoder.encode(userRequest.getPassword()));
+            userRequest.setPassword(passwordHashingService.encode(userRequest.getPassword()));
         }
 
+        String oldUsername = user.getUsername();
         transferUserRequestToExistingUser(userRequest, user);
         user.setActive(true); // Reactivate user if it was deactivated.
         try {
-            return userRepository.save(user);
+            User updatedUser = userRepository.save(user);
+            // Role or username may have changed, so cached tokens of this user have to be verified again.
+            jwtTokenProvider.evictUser(oldUsername);
+            return updatedUser;
         } catch (DataIntegrityViolationException e) {
             throw new IllegalArgumentException(USERNAME_ALREADY_EXISTS);
         }
@@ -372,6 +430,7 @@ public class UserService {
         }
 
         userRepository.delete(user);
+        jwtTokenProvider.evictUser(user.getUsername());
     }
 
     /**
@@ -398,6 +457,7 @@ public class UserService {
 
         user.setActive(false);
         userRepository.save(user);
+        jwtTokenProvider.evictUser(user.getUsername());
     }
 
     /**
@@ -440,11 +500,10 @@ public class UserService {
             throw new IllegalArgumentException("Birth date is required.");
         }
 
-        if (!date.matches("\\d{4}-\\d{2}-\\d{2}")) {
+        if (!DATE_PATTERN.matcher(date).matches()) {
             throw new IllegalArgumentException("Birth date must be in format yyyy-MM-dd");
         }
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        return LocalDate.parse(date, formatter);
+        return LocalDate.parse(date, DATE_FORMATTER);
     }
 }
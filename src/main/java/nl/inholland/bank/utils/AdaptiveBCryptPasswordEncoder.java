@@ -0,0 +1,75 @@
+package nl.inholland.bank.utils;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder of which the cost (strength) can be chosen when the application starts, by timing how long a hash
+ * takes on the machine it runs on. Every extra step of cost doubles the time a hash takes.
+ * Passwords hashed with another cost than the current one are reported as needing an upgrade, so they can be hashed
+ * again when the user logs in, also after the cost went down.
+ */
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    public static final int MAXIMUM_STRENGTH = 31;
+
+    // Cheap enough to run a few times at startup, expensive enough to time reliably.
+    private static final int CALIBRATION_STRENGTH = 8;
+    private static final int CALIBRATION_RUNS = 3;
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final int strength;
+
+    public AdaptiveBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * Creates an encoder whose hashes take about the target time on this machine.
+     * @param targetMilliseconds How long a single hash should take.
+     * @param minimumStrength The lowest cost to use, however fast the machine is.
+     * @return Returns the encoder.
+     */
+    public static AdaptiveBCryptPasswordEncoder calibrate(long targetMilliseconds, int minimumStrength) {
+        return new AdaptiveBCryptPasswordEncoder(calibrateStrength(targetMilliseconds, minimumStrength));
+    }
+
+    static int calibrateStrength(long targetMilliseconds, int minimumStrength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(CALIBRATION_STRENGTH);
+        // The first hashes run before the JIT compiler has done its work, so the fastest run counts.
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_RUNS; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+
+        double doublings = Math.log((double) targetMilliseconds * 1_000_000 / Math.max(fastest, 1)) / Math.log(2);
+        int strength = CALIBRATION_STRENGTH + (int) Math.round(doublings);
+        return Math.max(minimumStrength, Math.min(MAXIMUM_STRENGTH, strength));
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * @param encodedPassword A BCrypt hash.
+     * @return Returns the cost the hash was made with, or -1 if it is not a BCrypt hash.
+     */
+    public static int strengthOf(String encodedPassword) {
+        if (encodedPassword == null) {
+            return -1;
+        }
+        Matcher matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int storedStrength = strengthOf(encodedPassword);
+        return storedStrength != -1 && storedStrength != strength;
+    }
+}
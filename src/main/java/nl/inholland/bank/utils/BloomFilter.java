@@ -0,0 +1,76 @@
+package nl.inholland.bank.utils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set of hashes that can answer "certainly not added" without looking anything up, at the cost of sometimes answering
+ * "maybe added" for a hash that was never added. Values can not be removed, build a new filter instead.
+ * Takes values that are already hashed well, like SHA-256 digests, and derives the bits to set from their first 16 bytes.
+ * Safe to use from any thread.
+ */
+public class BloomFilter {
+    private final AtomicLongArray bits;
+    private final int bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedSize The number of values the filter is made for, more values raise the false positive rate.
+     * @param falsePositiveRate The chance of "maybe added" for a value that was not added, at the expected size.
+     */
+    public BloomFilter(int expectedSize, double falsePositiveRate) {
+        if (expectedSize <= 0) {
+            throw new IllegalArgumentException("Expected size must be positive.");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1.");
+        }
+
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedSize * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, optimalBits));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedSize * ln2));
+        this.bits = new AtomicLongArray((bitCount + 63) / 64);
+    }
+
+    public void add(byte[] hash) {
+        ByteBuffer buffer = ByteBuffer.wrap(hash);
+        long first = buffer.getLong();
+        long second = buffer.getLong();
+        for (int i = 0; i < hashCount; i++) {
+            int bit = bitIndex(first, second, i);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(byte[] hash) {
+        ByteBuffer buffer = ByteBuffer.wrap(hash);
+        long first = buffer.getLong();
+        long second = buffer.getLong();
+        for (int i = 0; i < hashCount; i++) {
+            int bit = bitIndex(first, second, i);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Every further bit is the first hash plus a multiple of the second one, which works as well as separate hashes.
+    private int bitIndex(long first, long second, int i) {
+        return (int) Math.floorMod(first + i * second, (long) bitCount);
+    }
+
+    public int getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+}
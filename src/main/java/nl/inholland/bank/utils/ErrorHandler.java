@@ -87,6 +87,10 @@ public class ErrorHandler {
     @ExceptionHandler(HttpMessageNotReadableException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public String handleHttpMessageNotReadableException(HttpMessageNotReadableException e) {
+        // A value in the body was rejected, like an amount with more than two decimals.
+        if (e.getMostSpecificCause() instanceof IllegalArgumentException illegalArgumentException) {
+            return "{\"error_message\": \"" + illegalArgumentException.getMessage() + "\"}";
+        }
         // Body is not readable or missing.
         return "{\"error_message\": \"Body does not match the schema, is unreadable, or is missing.\"}";
     }
@@ -173,6 +177,13 @@ public class ErrorHandler {
         return "{\"error_message\": \"" + e.getMessage() + "\"}";
     }
 
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public String handlePasswordHashingBusyException(PasswordHashingBusyException e) {
+        // Too many logins or new users at once, the client can try again in a moment.
+        return "{\"error_message\": \"" + e.getMessage() + "\"}";
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     // This one catches all other exceptions.
@@ -2,22 +2,26 @@ package nl.inholland.bank.utils;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import nl.inholland.bank.models.AuthenticatedUser;
 import nl.inholland.bank.models.Role;
-import nl.inholland.bank.models.User;
 import nl.inholland.bank.models.dtos.Token;
-import nl.inholland.bank.repositories.UserRepository;
 import nl.inholland.bank.services.RefreshTokenBlacklistService;
 import nl.inholland.bank.services.UserDetailsService;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import javax.naming.AuthenticationException;
 import java.util.Date;
-import java.util.Optional;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtTokenProvider {
@@ -25,19 +29,28 @@ public class JwtTokenProvider {
     private long validityInMilliseconds;
     @Value("${bankapi.token.refresh.expiration}")
     private long validityRefreshInMilliseconds;
+    // How long a verified token is remembered, 0 disables the cache. This is also how long a user deactivated
+    // without going through evictUser, for example on another instance, can keep using their token.
+    @Value("${bankapi.token.cache.ttl:60000}")
+    private long cacheTtlInMilliseconds;
+    @Value("${bankapi.token.cache.maxsize:10000}")
+    private int cacheMaxSize;
 
     private final UserDetailsService userDetailsService;
     private final JwtKeyProvider jwtKeyProvider;
     private final RefreshTokenBlacklistService refreshTokenBlacklistService;
-    private final UserRepository userRepository;
 
-    private Authentication authentication;
+    // Built once on first use and shared, parsers are immutable and thread-safe.
+    private volatile JwtParser jwtParser;
+    private final Map<String, CachedAuthentication> authenticationCache = new ConcurrentHashMap<>();
 
-    public JwtTokenProvider(UserDetailsService userDetailsService, JwtKeyProvider jwtKeyProvider, RefreshTokenBlacklistService refreshTokenBlacklistService, UserRepository userRepository) {
+    private record CachedAuthentication(AuthenticatedUser user, Authentication authentication, long expiresAt) {
+    }
+
+    public JwtTokenProvider(UserDetailsService userDetailsService, JwtKeyProvider jwtKeyProvider, RefreshTokenBlacklistService refreshTokenBlacklistService) {
         this.userDetailsService = userDetailsService;
         this.jwtKeyProvider = jwtKeyProvider;
         this.refreshTokenBlacklistService = refreshTokenBlacklistService;
-        this.userRepository = userRepository;
     }
 
     public Token createToken(String username, Role role) {
@@ -62,42 +75,105 @@ public class JwtTokenProvider {
         Date expiresAt = new Date(issuedAt.getTime() + validityRefreshInMilliseconds);
         claims.put("auth", "refresh");
 
+        // The issued at time only has seconds, without an id a token rotated within the same second would be the
+        // same token as the one it replaces, which is already blacklisted.
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(issuedAt)
                 .setExpiration(expiresAt)
                 .signWith(jwtKeyProvider.getPrivateKey())
                 .compact();
     }
 
+    /**
+     * Verifies the token and returns the authentication of the user it belongs to. Tokens of deactivated users are
+     * refused, like their logins.
+     * The {@link AuthenticatedUser} is stored in the details of the authentication, so it travels with the
+     * security context of the request instead of being kept in this singleton.
+     * Verified tokens are cached until they expire or for bankapi.token.cache.ttl milliseconds, whichever comes first,
+     * so repeated requests with the same token do not query the database. A cached user is not checked again, so
+     * changes to the user that {@link #evictUser} is not called for, like those made through another instance, only
+     * apply once the entry expires.
+     * @param token The access token.
+     * @return The authentication for Spring Security.
+     */
     public Authentication getAuthentication(String token) {
         try {
-            Jws<Claims> claims = Jwts.parserBuilder()
-                    .setSigningKey(jwtKeyProvider.getPrivateKey())
-                    .build()
-                    .parseClaimsJws(token);
-            String username = claims.getBody().getSubject();
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-            this.authentication = new UsernamePasswordAuthenticationToken(userDetails, token, userDetails.getAuthorities());
-            return authentication;
+            long now = System.currentTimeMillis();
+            CachedAuthentication cached = token == null ? null : authenticationCache.get(token);
+            if (cached == null || cached.expiresAt() <= now) {
+                cached = authenticate(token, now);
+            }
+
+            return cached.authentication();
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage());
         }
     }
 
+    private CachedAuthentication authenticate(String token, long now) {
+        Jws<Claims> claims = getParser().parseClaimsJws(token);
+        AuthenticatedUser user = userDetailsService.loadAuthenticatedUser(claims.getBody().getSubject());
+        if (!user.active()) {
+            // Not cached, so the user is checked again once reactivated.
+            throw new DisabledException("User has been deactivated. Please contact customer support.");
+        }
+
+        UsernamePasswordAuthenticationToken tokenAuthentication = new UsernamePasswordAuthenticationToken(user.userDetails(), token, user.userDetails().getAuthorities());
+        tokenAuthentication.setDetails(user);
+
+        long expiresAt = Math.min(claims.getBody().getExpiration().getTime(), now + cacheTtlInMilliseconds);
+        CachedAuthentication cached = new CachedAuthentication(user, tokenAuthentication, expiresAt);
+        if (cacheTtlInMilliseconds > 0) {
+            if (authenticationCache.size() >= cacheMaxSize) {
+                removeExpiredAuthentications(now);
+            }
+            authenticationCache.put(token, cached);
+        }
+
+        return cached;
+    }
+
+    private void removeExpiredAuthentications(long now) {
+        authenticationCache.values().removeIf(cached -> cached.expiresAt() <= now);
+
+        // Still full, drop entries until there is room again. They are simply verified again on their next use.
+        Iterator<String> tokens = authenticationCache.keySet().iterator();
+        while (authenticationCache.size() >= cacheMaxSize && tokens.hasNext()) {
+            tokens.next();
+            tokens.remove();
+        }
+    }
+
+    /**
+     * Forgets all cached tokens of a user, so changes to the user are picked up on their next request.
+     * @param username The username of the user.
+     */
+    public void evictUser(String username) {
+        authenticationCache.values().removeIf(cached -> cached.user().username().equals(username));
+    }
+
+    private JwtParser getParser() {
+        if (jwtParser == null) {
+            jwtParser = Jwts.parserBuilder()
+                    .setSigningKey(jwtKeyProvider.getPrivateKey())
+                    .build();
+        }
+        return jwtParser;
+    }
+
     public String refreshTokenUsername(String refreshToken) throws AuthenticationException {
         try {
-            // Check if token is blacklisted.
+            // Check if token is blacklisted, which only queries the database for tokens that may have been used.
             if (refreshTokenBlacklistService.isBlacklisted(refreshToken))
                 throw new AuthenticationException("Refresh token has already been used.");
 
-            Jws<Claims> claims = Jwts.parserBuilder()
-                    .setSigningKey(jwtKeyProvider.getPrivateKey())
-                    .build()
-                    .parseClaimsJws(refreshToken);
+            Jws<Claims> claims = getParser().parseClaimsJws(refreshToken);
 
-            // Expire old refresh token.
-            refreshTokenBlacklistService.blacklist(refreshToken);
+            // Expire old refresh token. This single insert decides which refresh wins when the same token is used at once.
+            if (!refreshTokenBlacklistService.blacklist(refreshToken))
+                throw new AuthenticationException("Refresh token has already been used.");
 
             return claims.getBody().getSubject();
         } catch (Exception e) {
@@ -106,20 +182,37 @@ public class JwtTokenProvider {
     }
 
     public String getUsername() {
-        // Get username from authentication.
-        if (authentication == null) {
+        // Get username from the authentication of the current request.
+        AuthenticatedUser authenticatedUser = getAuthenticatedUser();
+        if (authenticatedUser == null) {
             return null;
         }
 
-        return authentication.getName();
+        return authenticatedUser.username();
     }
 
     public Role getRole() {
-        Optional<User> user = userRepository.findUserByUsername(getUsername());
-        return user.map(User::getRole).orElse(null);
+        AuthenticatedUser authenticatedUser = getAuthenticatedUser();
+        if (authenticatedUser == null) {
+            return null;
+        }
+
+        return authenticatedUser.role();
+    }
+
+    /**
+     * @return The user of the current request, or null if the request is not authenticated.
+     */
+    public AuthenticatedUser getAuthenticatedUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getDetails() instanceof AuthenticatedUser authenticatedUser) {
+            return authenticatedUser;
+        }
+
+        return null;
     }
 
     public void clearAuthentication() {
-        this.authentication = null;
+        SecurityContextHolder.clearContext();
     }
 }
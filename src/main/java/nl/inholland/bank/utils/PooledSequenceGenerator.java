@@ -0,0 +1,33 @@
+package nl.inholland.bank.utils;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence generator that reserves a block of ids per database round trip, using the pooled-lo optimizer.
+ * The block size is read from the bankapi.id.allocation-size Hibernate setting
+ * (spring.jpa.properties.bankapi.id.allocation-size in application.properties), so it can be tuned without code changes.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+    public static final String ALLOCATION_SIZE_SETTING = "bankapi.id.allocation-size";
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        // Without the setting, Hibernate's default allocation size of 50 is used.
+        Object allocationSize = serviceRegistry.getService(ConfigurationService.class)
+                .getSettings()
+                .get(ALLOCATION_SIZE_SETTING);
+        if (allocationSize != null) {
+            parameters.put(INCREMENT_PARAM, allocationSize.toString());
+        }
+
+        parameters.putIfAbsent(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
@@ -0,0 +1,96 @@
+-- The schema as Hibernate created it before migrations were used.
+
+-- Account and transaction ids are reserved in blocks of spring.jpa.properties.bankapi.id.allocation-size,
+-- see PooledSequenceGenerator, so their sequences step by the same size.
+create sequence account_seq start with 1 increment by ${idAllocationSize};
+create sequence blacklisted_refresh_token_seq start with 1 increment by 50;
+create sequence daily_spend_seq start with 1 increment by 50;
+create sequence limits_seq start with 1 increment by 50;
+create sequence transaction_seq start with 1 increment by ${idAllocationSize};
+create sequence users_seq start with 1 increment by 50;
+
+-- Blocks of account numbers for new IBANs, see IBANAllocator.
+create sequence iban_block_seq start with 1 increment by 1;
+
+create table users (
+    id integer not null,
+    active boolean not null,
+    bsn varchar(255),
+    date_of_birth date,
+    email varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    password varchar(255),
+    phone_number varchar(255),
+    role smallint,
+    username varchar(255),
+    current_account_id integer,
+    limits_id integer,
+    saving_account_id integer,
+    primary key (id),
+    constraint uk_users_username unique (username)
+);
+
+create table account (
+    id integer not null,
+    iban varchar(255),
+    absolute_limit float(53) not null,
+    balance float(53) not null,
+    currency_type smallint,
+    is_active boolean not null,
+    type smallint,
+    user_id integer,
+    primary key (id),
+    constraint uk_account_iban unique (iban),
+    constraint fk_account_user foreign key (user_id) references users
+);
+
+create table limits (
+    id integer not null,
+    daily_transaction_limit float(53) not null,
+    transaction_limit float(53) not null,
+    user_id integer,
+    primary key (id),
+    constraint fk_limits_user foreign key (user_id) references users on delete cascade
+);
+
+alter table users add constraint fk_users_current_account foreign key (current_account_id) references account;
+alter table users add constraint fk_users_saving_account foreign key (saving_account_id) references account;
+alter table users add constraint fk_users_limits foreign key (limits_id) references limits;
+
+create table transaction (
+    id integer not null,
+    amount float(53),
+    currency_type smallint,
+    description varchar(255),
+    timestamp timestamp(6),
+    transaction_type smallint,
+    account_receiver_id integer,
+    account_sender_id integer,
+    user_id integer,
+    primary key (id)
+);
+
+-- Newest first, overall and per account, for paging with a TransactionCursor.
+create index idx_transaction_timestamp_id on transaction (timestamp, id);
+create index idx_transaction_sender_timestamp_id on transaction (account_sender_id, timestamp, id);
+create index idx_transaction_receiver_timestamp_id on transaction (account_receiver_id, timestamp, id);
+
+alter table transaction add constraint fk_transaction_receiver foreign key (account_receiver_id) references account;
+alter table transaction add constraint fk_transaction_sender foreign key (account_sender_id) references account;
+alter table transaction add constraint fk_transaction_user foreign key (user_id) references users;
+
+create table daily_spend (
+    id integer not null,
+    amount float(53) not null,
+    spend_date date not null,
+    user_id integer not null,
+    primary key (id),
+    constraint uk_daily_spend_user_date unique (user_id, spend_date)
+);
+
+create table blacklisted_refresh_token (
+    id bigint not null,
+    token varchar(1000),
+    primary key (id)
+);
@@ -0,0 +1,6 @@
+-- Transactions a user made since a moment, for the daily limit (TransactionRepository.findAllByTimestampIsAfterAndUserId)
+create index idx_transaction_user_timestamp on transaction (user_id, timestamp);
+
+-- Accounts of a user, for the user_id filter of GET /transactions and AccountRepository.findAllByUser.
+-- Not every database indexes foreign keys by itself.
+create index idx_account_user_id on account (user_id);
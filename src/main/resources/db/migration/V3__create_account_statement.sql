@@ -0,0 +1,17 @@
+-- Closed months of each account, see StatementService.
+-- The unique constraint is also the index to look statements up by account and month.
+create sequence account_statement_seq start with 1 increment by 50;
+
+create table account_statement (
+    id integer not null,
+    account_id integer not null,
+    statement_month date not null,
+    opening_balance float(53) not null,
+    closing_balance float(53) not null,
+    total_in float(53) not null,
+    total_out float(53) not null,
+    transaction_count bigint not null,
+    primary key (id),
+    constraint uk_account_statement_account_month unique (account_id, statement_month),
+    constraint fk_account_statement_account foreign key (account_id) references account
+);
@@ -0,0 +1,20 @@
+-- Balances of accounts after every so many transactions, see BalanceService.
+-- The index is created before the foreign key, so H2 uses it for the key instead of adding one on account_id alone.
+create sequence balance_checkpoint_seq start with 1 increment by 50;
+
+create table balance_checkpoint (
+    id integer not null,
+    account_id integer not null,
+    timestamp timestamp(6) not null,
+    transaction_id integer not null,
+    balance float(53) not null,
+    primary key (id)
+);
+
+create index idx_balance_checkpoint_account_timestamp on balance_checkpoint (account_id, timestamp, transaction_id);
+
+alter table balance_checkpoint
+    add constraint fk_balance_checkpoint_account foreign key (account_id) references account;
+
+-- Transactions of the account since its last checkpoint
+alter table account add column transactions_since_checkpoint integer default 0 not null;
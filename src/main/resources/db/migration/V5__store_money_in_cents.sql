@@ -0,0 +1,28 @@
+-- Amounts of money are stored as whole cents instead of floating point euros, see Money.
+-- The euros are rounded to cents first, so the conversion to bigint does not depend on how the database rounds.
+update account set balance = round(balance * 100), absolute_limit = round(absolute_limit * 100);
+alter table account alter column balance set data type bigint;
+alter table account alter column absolute_limit set data type bigint;
+
+update transaction set amount = round(amount * 100);
+alter table transaction alter column amount set data type bigint;
+
+update limits set transaction_limit = round(transaction_limit * 100),
+                  daily_transaction_limit = round(daily_transaction_limit * 100);
+alter table limits alter column transaction_limit set data type bigint;
+alter table limits alter column daily_transaction_limit set data type bigint;
+
+update daily_spend set amount = round(amount * 100);
+alter table daily_spend alter column amount set data type bigint;
+
+update account_statement set opening_balance = round(opening_balance * 100),
+                             closing_balance = round(closing_balance * 100),
+                             total_in = round(total_in * 100),
+                             total_out = round(total_out * 100);
+alter table account_statement alter column opening_balance set data type bigint;
+alter table account_statement alter column closing_balance set data type bigint;
+alter table account_statement alter column total_in set data type bigint;
+alter table account_statement alter column total_out set data type bigint;
+
+update balance_checkpoint set balance = round(balance * 100);
+alter table balance_checkpoint alter column balance set data type bigint;
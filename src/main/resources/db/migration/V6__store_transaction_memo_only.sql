@@ -0,0 +1,9 @@
+-- Transactions only store the description the user gave, the rest of the sentence is rendered from the other columns
+-- when a transaction is shown, see TransactionDescription.
+-- Stored descriptions end with " ('memo')" when the user gave one, which is all that is kept; the others become null.
+-- The words before it never contain " ('", so the first one starts the memo.
+alter table transaction alter column description rename to memo;
+
+update transaction set memo = case
+    when memo like '% (''%'')' then regexp_replace(memo, '^.*? \(''(.*)''\)$', '$1', 'n')
+    end;
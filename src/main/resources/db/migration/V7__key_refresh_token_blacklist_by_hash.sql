@@ -0,0 +1,19 @@
+-- Blacklisted refresh tokens are kept as the SHA-256 of the token, which is also the key, see RefreshTokenBlacklistService.
+-- Rows are removed once the token has expired. Tokens that are already blacklisted are kept for one more refresh
+-- token lifetime from now, as it is not known when they were blacklisted.
+create table blacklisted_refresh_token_hash (
+    token_hash varchar(64) not null,
+    blacklisted_at timestamp(6) not null,
+    primary key (token_hash)
+);
+
+create index idx_blacklisted_refresh_token_blacklisted_at on blacklisted_refresh_token_hash (blacklisted_at);
+
+insert into blacklisted_refresh_token_hash (token_hash, blacklisted_at)
+select distinct lower(rawtohex(hash('SHA-256', stringtoutf8(token)))), localtimestamp
+from blacklisted_refresh_token
+where token is not null;
+
+drop table blacklisted_refresh_token;
+drop sequence blacklisted_refresh_token_seq;
+alter table blacklisted_refresh_token_hash rename to blacklisted_refresh_token;
@@ -0,0 +1,15 @@
+-- Transfers whose money the account lanes still have to add to the receiver, see AccountLaneService.
+-- Saved in the same database transaction as the transfer, and removed in the same one as the credit.
+create table pending_credit (
+    transaction_id integer not null,
+    account_id integer not null,
+    primary key (transaction_id)
+);
+
+-- Pending credits of an account, for the lane that adds them. Not every database indexes foreign keys by itself.
+create index idx_pending_credit_account_id on pending_credit (account_id, transaction_id);
+
+alter table pending_credit
+    add constraint fk_pending_credit_transaction foreign key (transaction_id) references transaction;
+alter table pending_credit
+    add constraint fk_pending_credit_account foreign key (account_id) references account;
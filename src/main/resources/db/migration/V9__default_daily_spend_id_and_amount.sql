@@ -0,0 +1,4 @@
+-- A spend of a user for a day is created with a single merge on (user_id, spend_date), see DailySpendRepository,
+-- which only names those columns, so the others get their value here.
+alter table daily_spend alter column id set default next value for daily_spend_seq;
+alter table daily_spend alter column amount set default 0;
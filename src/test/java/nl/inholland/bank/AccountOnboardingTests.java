@@ -0,0 +1,73 @@
+package nl.inholland.bank;
+
+import nl.inholland.bank.models.AccountBulkResult;
+import nl.inholland.bank.models.Limits;
+import nl.inholland.bank.models.User;
+import nl.inholland.bank.models.dtos.AccountDTO.AccountBulkRequest;
+import nl.inholland.bank.models.dtos.UserDTO.UserRequest;
+import nl.inholland.bank.repositories.AccountRepository;
+import nl.inholland.bank.repositories.UserLimitsRepository;
+import nl.inholland.bank.repositories.UserRepository;
+import nl.inholland.bank.services.AccountOnboardingService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk onboarding against the database: new users come with their limits and accounts, in the same way
+ * as users and accounts that are added one by one.
+ */
+@SpringBootTest
+class AccountOnboardingTests {
+    private static final int USERS = 100;
+
+    @Autowired
+    private AccountOnboardingService accountOnboardingService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserLimitsRepository userLimitsRepository;
+    @Autowired
+    private BCryptPasswordEncoder bCryptPasswordEncoder;
+
+    @Test
+    void onboardedUsersAndAccountsAreSaved() {
+        // A customer without accounts yet, who gets them in the same chunk as the new users.
+        User existingUser = accountOnboardingService.onboard(List.of(new AccountBulkRequest(null,
+                new UserRequest("existing@example.com", "existing", "Password1!", "Ex", "Isting", "123456782",
+                        "0612345678", "1990-01-01"), "EURO", List.of()))).get(0).user();
+
+        List<AccountBulkRequest> requests = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            UserRequest userRequest = new UserRequest("onboarded" + i + "@example.com", "onboarded" + i, "Password1!",
+                    "On", "Boarded", "123456782", "0612345678", "1990-01-01");
+            requests.add(new AccountBulkRequest(null, userRequest, "EURO", List.of("CURRENT", "SAVING")));
+        }
+        requests.add(new AccountBulkRequest(existingUser.getId(), null, "EURO", List.of("CURRENT", "SAVING")));
+        long accountsBefore = accountRepository.count();
+
+        List<AccountBulkResult> results = accountOnboardingService.onboard(requests);
+
+        Assertions.assertTrue(results.stream().allMatch(AccountBulkResult::isSuccessful));
+        Assertions.assertEquals(accountsBefore + 2L * (USERS + 1), accountRepository.count());
+
+        User onboarded = userRepository.findUserByUsername("onboarded0").orElseThrow();
+        Assertions.assertNotNull(onboarded.getCurrentAccount());
+        Assertions.assertNotNull(onboarded.getSavingAccount());
+        Assertions.assertTrue(bCryptPasswordEncoder.matches("Password1!", onboarded.getPassword()));
+        Assertions.assertEquals(2, accountRepository.findAllByUser(onboarded).size());
+        Limits limits = userLimitsRepository.findFirstByUserId(onboarded.getId());
+        Assertions.assertNotNull(limits);
+
+        User updatedUser = userRepository.findById(existingUser.getId()).orElseThrow();
+        Assertions.assertNotNull(updatedUser.getCurrentAccount());
+        Assertions.assertNotNull(updatedUser.getSavingAccount());
+    }
+}
@@ -0,0 +1,136 @@
+package nl.inholland.bank;
+
+import nl.inholland.bank.models.*;
+import nl.inholland.bank.models.dtos.TransactionDTO.TransactionRequest;
+import nl.inholland.bank.repositories.AccountRepository;
+import nl.inholland.bank.repositories.AccountStatementRepository;
+import nl.inholland.bank.repositories.TransactionRepository;
+import nl.inholland.bank.repositories.UserRepository;
+import nl.inholland.bank.services.AccountLaneService;
+import nl.inholland.bank.services.StatementService;
+import nl.inholland.bank.services.TransactionService;
+import nl.inholland.bank.utils.JwtTokenProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Closing months against the database: each month starts where the month before ended,
+ * with the totals of the transactions in the month.
+ */
+@SpringBootTest
+class AccountStatementTests {
+    // Far before the seeded data and the transactions of other tests, so only these are in the closed months.
+    private static final YearMonth JANUARY = YearMonth.of(2003, 1);
+    private static final YearMonth FEBRUARY = YearMonth.of(2003, 2);
+
+    @Autowired
+    private StatementService statementService;
+    @Autowired
+    private AccountStatementRepository accountStatementRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountLaneService accountLaneService;
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    private Account bobby;
+    private Account berta;
+
+    @BeforeEach
+    void setUp() {
+        accountStatementRepository.deleteAll();
+        LocalDateTime start = JANUARY.atDay(1).atStartOfDay();
+        transactionRepository.deleteAll(transactionRepository.findAll(
+                (root, query, builder) -> builder.between(root.get("timestamp"), start, start.plusYears(1))));
+
+        User employee = userRepository.findUserByUsername("employee").orElseThrow();
+        bobby = userRepository.findUserByUsername("bobby").orElseThrow().getCurrentAccount();
+        berta = userRepository.findUserByUsername("berta").orElseThrow().getCurrentAccount();
+        save(new Transaction(employee, null, bobby, 10000, CurrencyType.EURO, TransactionType.DEPOSIT), start.plusDays(1));
+        save(new Transaction(employee, bobby, berta, 3000, CurrencyType.EURO, TransactionType.TRANSACTION), start.plusDays(2));
+        save(new Transaction(employee, null, bobby, 5000, CurrencyType.EURO, TransactionType.DEPOSIT),
+                FEBRUARY.atDay(28).atTime(23, 59));
+    }
+
+    private void save(Transaction transaction, LocalDateTime timestamp) {
+        transaction.setTimestamp(timestamp);
+        transaction.setMemo("");
+        transactionRepository.save(transaction);
+    }
+
+    private AccountStatement statement(Account account, YearMonth month) {
+        List<AccountStatement> statements = statementService.getStatements(account.getId(), Optional.of(month));
+        Assertions.assertEquals(1, statements.size());
+        return statements.get(0);
+    }
+
+    @Test
+    void closedMonthsFollowOnFromEachOther() {
+        Assertions.assertTrue(statementService.closeMonth(JANUARY) > 0);
+        Assertions.assertTrue(statementService.closeMonth(FEBRUARY) > 0);
+
+        AccountStatement january = statement(bobby, JANUARY);
+        Assertions.assertEquals(10000, january.getTotalIn());
+        Assertions.assertEquals(3000, january.getTotalOut());
+        Assertions.assertEquals(2, january.getTransactionCount());
+        Assertions.assertEquals(january.getOpeningBalance() + 7000, january.getClosingBalance());
+
+        AccountStatement february = statement(bobby, FEBRUARY);
+        Assertions.assertEquals(january.getClosingBalance(), february.getOpeningBalance());
+        Assertions.assertEquals(5000, february.getTotalIn());
+        Assertions.assertEquals(february.getOpeningBalance() + 5000, february.getClosingBalance());
+
+        AccountStatement bertaJanuary = statement(berta, JANUARY);
+        Assertions.assertEquals(3000, bertaJanuary.getTotalIn());
+        Assertions.assertEquals(1, bertaJanuary.getTransactionCount());
+
+        List<AccountStatement> all = statementService.getStatements(bobby.getId(), Optional.empty());
+        Assertions.assertEquals(List.of(FEBRUARY, JANUARY), all.stream().map(AccountStatement::getMonth).toList());
+    }
+
+    @Test
+    void closingAMonthAgainWritesNothing() {
+        statementService.closeMonth(JANUARY);
+
+        Assertions.assertEquals(0, statementService.closeMonth(JANUARY));
+    }
+
+    @Test
+    void creditsTheLanesHaveNotAddedYetDoNotChangeTheOpeningBalance() throws Exception {
+        User employee = userRepository.findUserByUsername("employee").orElseThrow();
+        Mockito.when(jwtTokenProvider.getUsername()).thenReturn("employee");
+        Mockito.when(jwtTokenProvider.getRole()).thenReturn(Role.EMPLOYEE);
+        Mockito.when(jwtTokenProvider.getAuthenticatedUser())
+                .thenReturn(new AuthenticatedUser(employee.getId(), "employee", Role.EMPLOYEE, true, null));
+        berta.setBalance(100000);
+        accountRepository.save(berta);
+
+        // Taken from berta, but not added to bobby yet
+        transactionService.processDebit(new TransactionRequest(berta.getIBAN(), bobby.getIBAN(), 700, "Pending"));
+        statementService.closeMonth(JANUARY);
+        long opening = statement(bobby, JANUARY).getOpeningBalance();
+
+        accountLaneService.retryPendingCredits();
+        accountStatementRepository.deleteAll();
+        statementService.closeMonth(JANUARY);
+
+        Assertions.assertEquals(statement(bobby, JANUARY).getOpeningBalance(), opening);
+    }
+}
@@ -65,25 +65,25 @@ public class AccountTests {
 
     @Test
     void depositMoneyShouldIncreaseBalance() {
-        double balanceBeforeTransaction = 250;
+        long balanceBeforeTransaction = 25000;
         account.setBalance(balanceBeforeTransaction);
 
-        double depositAmount = 100;
+        long depositAmount = 10000;
         account.setBalance(balanceBeforeTransaction + depositAmount);
 
-        double expectedBalance = balanceBeforeTransaction + depositAmount;
+        long expectedBalance = balanceBeforeTransaction + depositAmount;
         Assertions.assertEquals(expectedBalance, account.getBalance());
     }
 
     @Test
     void withdrawMoneyShouldDecreaseBalance() {
-        double balanceBeforeTransaction = 250;
+        long balanceBeforeTransaction = 25000;
         account.setBalance(balanceBeforeTransaction);
 
-        double withdrawAmount = 100;
+        long withdrawAmount = 10000;
         account.setBalance(balanceBeforeTransaction - withdrawAmount);
 
-        double expectedBalance = balanceBeforeTransaction - withdrawAmount;
+        long expectedBalance = balanceBeforeTransaction - withdrawAmount;
         Assertions.assertEquals(expectedBalance, account.getBalance());
     }
 
@@ -0,0 +1,92 @@
+package nl.inholland.bank;
+
+import nl.inholland.bank.models.Role;
+import nl.inholland.bank.models.User;
+import nl.inholland.bank.repositories.UserRepository;
+import nl.inholland.bank.utils.JwtTokenProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AuthenticationIsolationTests {
+    private static final int CLIENTS = 500;
+    private static final int REQUESTS_PER_CLIENT = 4;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void parallelClientsOnlySeeTheirOwnIdentity() throws InterruptedException {
+        User bobby = userRepository.findUserByUsername("bobby").orElseThrow();
+        User berta = userRepository.findUserByUsername("berta").orElseThrow();
+        String bobbyToken = jwtTokenProvider.createToken(bobby.getUsername(), Role.CUSTOMER).jwt();
+        String bertaToken = jwtTokenProvider.createToken(berta.getUsername(), Role.CUSTOMER).jwt();
+
+        HttpClient client = HttpClient.newHttpClient();
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            User self = i % 2 == 0 ? bobby : berta;
+            User other = i % 2 == 0 ? berta : bobby;
+            String token = i % 2 == 0 ? bobbyToken : bertaToken;
+
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < REQUESTS_PER_CLIENT; j++) {
+                        // Customers get all details of themselves, but only the public details of other users.
+                        String own = getUser(client, token, self.getId());
+                        if (!own.contains("\"username\":\"" + self.getUsername() + "\"")) {
+                            failures.add(self.getUsername() + " did not get own details: " + own);
+                        }
+
+                        String others = getUser(client, token, other.getId());
+                        if (others.contains("\"username\"")) {
+                            failures.add(self.getUsername() + " got details of " + other.getUsername() + ": " + others);
+                        }
+                    }
+                } catch (Exception e) {
+                    failures.add(e.toString());
+                }
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+        Assertions.assertEquals(List.of(), failures);
+    }
+
+    private String getUser(HttpClient client, String token, int id) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users/" + id))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode() + ": " + response.body());
+        }
+        return response.body();
+    }
+}
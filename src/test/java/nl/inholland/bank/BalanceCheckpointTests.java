@@ -0,0 +1,172 @@
+package nl.inholland.bank;
+
+import nl.inholland.bank.models.Account;
+import nl.inholland.bank.models.AuthenticatedUser;
+import nl.inholland.bank.models.Role;
+import nl.inholland.bank.models.User;
+import nl.inholland.bank.models.dtos.TransactionDTO.TransactionRequest;
+import nl.inholland.bank.repositories.AccountRepository;
+import nl.inholland.bank.repositories.BalanceCheckpointRepository;
+import nl.inholland.bank.repositories.PendingCreditRepository;
+import nl.inholland.bank.repositories.UserRepository;
+import nl.inholland.bank.services.AccountLaneService;
+import nl.inholland.bank.services.BalanceService;
+import nl.inholland.bank.services.TransactionService;
+import nl.inholland.bank.utils.JwtTokenProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+/**
+ * Transfers write balance checkpoints, and the balance at any moment between the transfers is the balance the account
+ * had at that moment, whether there is a checkpoint before it or only after it. Also when the account lanes add the
+ * credits of the transfers later.
+ */
+@SpringBootTest(properties = "bankapi.balance.checkpoint-interval=3")
+class BalanceCheckpointTests {
+    private static final int TRANSFERS = 10;
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private BalanceService balanceService;
+    @Autowired
+    private BalanceCheckpointRepository balanceCheckpointRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PendingCreditRepository pendingCreditRepository;
+    @Autowired
+    private AccountLaneService accountLaneService;
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    private Account bobby;
+    private Account berta;
+
+    @BeforeEach
+    void setUp() {
+        User employee = userRepository.findUserByUsername("employee").orElseThrow();
+        Mockito.when(jwtTokenProvider.getUsername()).thenReturn("employee");
+        Mockito.when(jwtTokenProvider.getRole()).thenReturn(Role.EMPLOYEE);
+        Mockito.when(jwtTokenProvider.getAuthenticatedUser())
+                .thenReturn(new AuthenticatedUser(employee.getId(), "employee", Role.EMPLOYEE, true, null));
+
+        bobby = userRepository.findUserByUsername("bobby").orElseThrow().getCurrentAccount();
+        berta = userRepository.findUserByUsername("berta").orElseThrow().getCurrentAccount();
+        bobby.setBalance(100000);
+        // The balances are set without a transaction, so earlier checkpoints no longer add up. Both tests start over.
+        balanceCheckpointRepository.deleteAll();
+        bobby.setTransactionsSinceCheckpoint(0);
+        berta.setTransactionsSinceCheckpoint(0);
+        accountRepository.save(bobby);
+        accountRepository.save(berta);
+    }
+
+    private long balance(Account account) {
+        return accountRepository.findById(account.getId()).orElseThrow().getBalance();
+    }
+
+    @Test
+    void balanceAtMomentIsTheBalanceTheAccountHadThen() throws Exception {
+        List<LocalDateTime> moments = new ArrayList<>();
+        List<Long> balances = new ArrayList<>();
+        moments.add(LocalDateTime.now());
+        balances.add(balance(bobby));
+        for (int i = 1; i <= TRANSFERS; i++) {
+            Thread.sleep(2);
+            transactionService.processTransaction(new TransactionRequest(bobby.getIBAN(), berta.getIBAN(), 100L * i, "Checkpoint " + i));
+            moments.add(LocalDateTime.now());
+            balances.add(balance(bobby));
+        }
+
+        long checkpoints = StreamSupport.stream(balanceCheckpointRepository.findAll().spliterator(), false)
+                .filter(checkpoint -> checkpoint.getAccountId() == bobby.getId())
+                .count();
+        Assertions.assertEquals(TRANSFERS / 3, checkpoints);
+
+        Account current = accountRepository.findById(bobby.getId()).orElseThrow();
+        for (int i = 0; i < moments.size(); i++) {
+            Assertions.assertEquals(balances.get(i), balanceService.getBalanceAt(current, moments.get(i)),
+                    "Balance after " + i + " transfers");
+        }
+    }
+
+    @Test
+    void creditsAddedLaterByTheLanesKeepTheBalanceAtMomentRight() throws Exception {
+        berta.setBalance(100000);
+        accountRepository.save(berta);
+
+        List<LocalDateTime> moments = new ArrayList<>();
+        List<Long> bobbyBalances = new ArrayList<>();
+        List<Long> bertaBalances = new ArrayList<>();
+        long bobbyBalance = 100000;
+        long bertaBalance = 100000;
+        for (int i = 1; i <= TRANSFERS; i++) {
+            Thread.sleep(2);
+            // Only the debits, as on the lanes, so both accounts have credits pending when they send money themselves.
+            if (i % 2 == 1) {
+                transactionService.processDebit(new TransactionRequest(bobby.getIBAN(), berta.getIBAN(), 100L * i, "Lane " + i));
+                bobbyBalance -= 100L * i;
+                bertaBalance += 100L * i;
+            } else {
+                transactionService.processDebit(new TransactionRequest(berta.getIBAN(), bobby.getIBAN(), 10L * i, "Lane " + i));
+                bertaBalance -= 10L * i;
+                bobbyBalance += 10L * i;
+            }
+            moments.add(LocalDateTime.now());
+            bobbyBalances.add(bobbyBalance);
+            bertaBalances.add(bertaBalance);
+        }
+
+        // The lanes are disabled here, so the pending credits are added right away. The second time finds none.
+        accountLaneService.retryPendingCredits();
+        accountLaneService.retryPendingCredits();
+        Assertions.assertEquals(bobbyBalance, balance(bobby));
+        Assertions.assertEquals(bertaBalance, balance(berta));
+        Assertions.assertFalse(pendingCreditRepository.findAccountIds().contains(berta.getId()));
+
+        Account currentBobby = accountRepository.findById(bobby.getId()).orElseThrow();
+        Account currentBerta = accountRepository.findById(berta.getId()).orElseThrow();
+        for (int i = 0; i < moments.size(); i++) {
+            Assertions.assertEquals(bobbyBalances.get(i), balanceService.getBalanceAt(currentBobby, moments.get(i)),
+                    "Balance of bobby after " + (i + 1) + " transfers");
+            Assertions.assertEquals(bertaBalances.get(i), balanceService.getBalanceAt(currentBerta, moments.get(i)),
+                    "Balance of berta after " + (i + 1) + " transfers");
+        }
+    }
+
+    @Test
+    void creditsStillPendingAreCountedInTheBalanceAtMoment() throws Exception {
+        berta.setBalance(100000);
+        accountRepository.save(berta);
+
+        // Only the debits, so berta has no checkpoint yet and her balance is worked back from the current one
+        LocalDateTime before = LocalDateTime.now();
+        Thread.sleep(2);
+        transactionService.processDebit(new TransactionRequest(bobby.getIBAN(), berta.getIBAN(), 1000, "Pending 1"));
+        Thread.sleep(2);
+        LocalDateTime between = LocalDateTime.now();
+        Thread.sleep(2);
+        transactionService.processDebit(new TransactionRequest(bobby.getIBAN(), berta.getIBAN(), 2000, "Pending 2"));
+
+        Account currentBerta = accountRepository.findById(berta.getId()).orElseThrow();
+        Assertions.assertEquals(100000, currentBerta.getBalance());
+        Assertions.assertEquals(100000, balanceService.getBalanceAt(currentBerta, before));
+        Assertions.assertEquals(101000, balanceService.getBalanceAt(currentBerta, between));
+        Assertions.assertEquals(103000, balanceService.getBalanceAt(currentBerta, LocalDateTime.now()));
+
+        accountLaneService.retryPendingCredits();
+    }
+}
@@ -0,0 +1,117 @@
+package nl.inholland.bank;
+
+import nl.inholland.bank.models.Limits;
+import nl.inholland.bank.models.exceptions.DailyTransactionLimitException;
+import nl.inholland.bank.repositories.DailySpendRepository;
+import nl.inholland.bank.repositories.UserLimitsRepository;
+import nl.inholland.bank.repositories.UserRepository;
+import nl.inholland.bank.services.DailySpendService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent spends of the same user can not exceed the daily limit together, whatever each of them read before,
+ * also when none of them finds a spend stored for today yet.
+ */
+@SpringBootTest
+class DailySpendConcurrencyTests {
+    private static final int SPENDS = 50;
+    private static final int THREADS = 16;
+    private static final long AMOUNT = 100;
+    private static final long ROOM = 1000;
+
+    @Autowired
+    private DailySpendService dailySpendService;
+    @Autowired
+    private DailySpendRepository dailySpendRepository;
+    @Autowired
+    private UserLimitsRepository userLimitsRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentSpendsStayWithinTheDailyLimit() throws InterruptedException {
+        int userId = userRepository.findUserByUsername("bobby").orElseThrow().getId();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // Make sure today's spend is stored, then leave room for exactly ten spends.
+        transactionTemplate.executeWithoutResult(status -> dailySpendService.recordSpend(userId, 0));
+        long spentBefore = dailySpendRepository.findAmount(userId, LocalDate.now()).orElseThrow();
+        Limits limits = userLimitsRepository.findFirstByUserId(userId);
+        long dailyTransactionLimit = limits.getDailyTransactionLimit();
+        limits.setDailyTransactionLimit(spentBefore + ROOM);
+        userLimitsRepository.save(limits);
+
+        try {
+            AtomicInteger successes = new AtomicInteger();
+            AtomicInteger refused = new AtomicInteger();
+            List<Exception> unexpected = Collections.synchronizedList(new ArrayList<>());
+
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            for (int i = 0; i < SPENDS; i++) {
+                executor.submit(() -> {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> dailySpendService.recordSpend(userId, AMOUNT));
+                        successes.incrementAndGet();
+                    } catch (DailyTransactionLimitException e) {
+                        refused.incrementAndGet();
+                    } catch (Exception e) {
+                        unexpected.add(e);
+                    }
+                });
+            }
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+            Assertions.assertEquals(List.of(), unexpected);
+            Assertions.assertEquals(ROOM / AMOUNT, successes.get());
+            Assertions.assertEquals(SPENDS - ROOM / AMOUNT, refused.get());
+            Assertions.assertEquals(spentBefore + ROOM, dailySpendRepository.findAmount(userId, LocalDate.now()).orElseThrow());
+            Assertions.assertEquals(spentBefore + ROOM, dailySpendService.getSpentToday(userId));
+        } finally {
+            limits.setDailyTransactionLimit(dailyTransactionLimit);
+            userLimitsRepository.save(limits);
+        }
+    }
+
+    @Test
+    void concurrentFirstSpendsOfTheDayAreAllStored() throws InterruptedException {
+        int userId = userRepository.findUserByUsername("berta").orElseThrow().getId();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long spentBefore = dailySpendService.reconcile(userId);
+        dailySpendRepository.findByUserIdAndSpendDate(userId, LocalDate.now()).ifPresent(dailySpendRepository::delete);
+
+        List<Exception> unexpected = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(() -> {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> dailySpendService.recordSpend(userId, 1));
+                } catch (Exception e) {
+                    unexpected.add(e);
+                }
+            });
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        // Every spend either created the row or waited for the one that did, none of them failed on a duplicate
+        Assertions.assertEquals(List.of(), unexpected);
+        Assertions.assertEquals(spentBefore + THREADS, dailySpendRepository.findAmount(userId, LocalDate.now()).orElseThrow());
+    }
+}
@@ -0,0 +1,28 @@
+package nl.inholland.bank;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The application starts with another id block size than the default, as the benchmarks do, because the migrations
+ * create the account and transaction sequences with the same increment.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.bankapi.id.allocation-size=1")
+class IdAllocationSizeTests {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long increment(String sequence) {
+        return jdbcTemplate.queryForObject("select increment from information_schema.sequences where sequence_name = ?",
+                Long.class, sequence.toUpperCase());
+    }
+
+    @Test
+    void sequencesStepByTheConfiguredBlockSize() {
+        Assertions.assertEquals(1, increment("account_seq"));
+        Assertions.assertEquals(1, increment("transaction_seq"));
+    }
+}
@@ -0,0 +1,17 @@
+package nl.inholland.bank;
+
+import nl.inholland.bank.models.dtos.TransactionDTO.TransactionRequest;
+import nl.inholland.bank.services.AccountLaneService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "bankapi.transactions.lanes.enabled=true")
+class LaneTransactionConcurrencyTests extends TransactionConcurrencyTests {
+    @Autowired
+    private AccountLaneService accountLaneService;
+
+    @Override
+    protected void transfer(TransactionRequest request) throws Exception {
+        accountLaneService.processTransaction(request);
+    }
+}
@@ -0,0 +1,71 @@
+package nl.inholland.bank;
+
+import nl.inholland.bank.models.dtos.AuthDTO.RefreshTokenRequest;
+import nl.inholland.bank.models.dtos.AuthDTO.jwt;
+import nl.inholland.bank.services.UserService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.naming.AuthenticationException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A refresh token can be exchanged only once, also when it is replayed from many threads at the same time.
+ */
+@SpringBootTest
+class RefreshTokenRotationTests {
+    private static final int THREADS = 100;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void sameRefreshTokenFromManyThreadsSucceedsOnce() throws Exception {
+        RefreshTokenRequest request = new RefreshTokenRequest(userService.createRefreshToken("bobby"));
+        AtomicInteger successes = new AtomicInteger();
+        AtomicInteger alreadyUsed = new AtomicInteger();
+        List<Exception> unexpected = Collections.synchronizedList(new ArrayList<>());
+        List<jwt> tokens = Collections.synchronizedList(new ArrayList<>());
+
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                    tokens.add(userService.refresh(request));
+                    successes.incrementAndGet();
+                } catch (AuthenticationException e) {
+                    alreadyUsed.incrementAndGet();
+                } catch (Exception e) {
+                    unexpected.add(e);
+                }
+            });
+        }
+        Assertions.assertTrue(ready.await(30, TimeUnit.SECONDS));
+        start.countDown();
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(List.of(), unexpected);
+        Assertions.assertEquals(1, successes.get());
+        Assertions.assertEquals(THREADS - 1, alreadyUsed.get());
+
+        // The new refresh token can be used, once, also when it was issued within the same second as the old one.
+        RefreshTokenRequest next = new RefreshTokenRequest(tokens.get(0).refresh_token());
+        Assertions.assertNotEquals(request.refresh_token(), next.refresh_token());
+        Assertions.assertNotNull(userService.refresh(next));
+        Assertions.assertThrows(AuthenticationException.class, () -> userService.refresh(next));
+    }
+}
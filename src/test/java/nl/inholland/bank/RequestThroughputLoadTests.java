@@ -0,0 +1,130 @@
+package nl.inholland.bank;
+
+import nl.inholland.bank.models.Role;
+import nl.inholland.bank.models.User;
+import nl.inholland.bank.repositories.UserRepository;
+import nl.inholland.bank.utils.JwtTokenProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test comparing request handling on the Tomcat thread pool with handling on virtual threads.
+ * Keeps the given numbers of connections busy with GET /users/{id} and prints the throughput and latency per level.
+ * Not part of the normal build, run it once per mode:
+ * <pre>
+ * mvn test -Dtest=RequestThroughputLoadTests -Dbankapi.loadtest=true
+ * mvn test -Pjava21 -Dtest=RequestThroughputLoadTests -Dbankapi.loadtest=true -Dbankapi.threads.virtual.enabled=true
+ * </pre>
+ * The levels and the duration of each level can be changed with bankapi.loadtest.levels and bankapi.loadtest.duration.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.tomcat.max-connections=20000",
+        "server.tomcat.accept-count=10000"
+})
+@EnabledIfSystemProperty(named = "bankapi.loadtest", matches = "true")
+class RequestThroughputLoadTests {
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${bankapi.loadtest.levels:100,1000,10000}")
+    private List<Integer> levels;
+    // Seconds each level runs, after a warm-up of the same length.
+    @Value("${bankapi.loadtest.duration:10}")
+    private int durationInSeconds;
+    @Value("${bankapi.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private record LevelResult(int connections, long requests, long errors, double requestsPerSecond,
+                               long p50Millis, long p99Millis) {
+    }
+
+    @Test
+    void measureThroughputPerConcurrencyLevel() {
+        User user = userRepository.findUserByUsername("bobby").orElseThrow();
+        String token = jwtTokenProvider.createToken(user.getUsername(), Role.CUSTOMER).jwt();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users/" + user.getId()))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofMinutes(1))
+                .GET()
+                .build();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMinutes(1)).build();
+
+        List<LevelResult> results = new ArrayList<>();
+        for (int connections : levels) {
+            run(client, request, connections);
+            results.add(run(client, request, connections));
+        }
+
+        System.out.println("Request handling on " + (virtualThreads ? "virtual threads" : "the Tomcat thread pool"));
+        System.out.println("connections  requests  errors  requests/s  p50 ms  p99 ms");
+        for (LevelResult result : results) {
+            System.out.printf("%11d  %8d  %6d  %10.0f  %6d  %6d%n", result.connections(), result.requests(),
+                    result.errors(), result.requestsPerSecond(), result.p50Millis(), result.p99Millis());
+            Assertions.assertTrue(result.requests() > 0);
+        }
+    }
+
+    private LevelResult run(HttpClient client, HttpRequest request, int connections) {
+        long start = System.nanoTime();
+        long deadline = start + Duration.ofSeconds(durationInSeconds).toNanos();
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        LongAdder errors = new LongAdder();
+
+        List<CompletableFuture<Void>> clients = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            clients.add(sendUntil(client, request, deadline, latencies, errors));
+        }
+        CompletableFuture.allOf(clients.toArray(CompletableFuture[]::new)).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return new LevelResult(connections, sorted.length, errors.sum(), sorted.length / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99));
+    }
+
+    private CompletableFuture<Void> sendUntil(HttpClient client, HttpRequest request, long deadline,
+                                              ConcurrentLinkedQueue<Long> latencies, LongAdder errors) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long sent = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, exception) -> {
+                    if (exception == null && response.statusCode() == 200) {
+                        latencies.add((System.nanoTime() - sent) / 1_000_000);
+                    } else {
+                        errors.increment();
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> sendUntil(client, request, deadline, latencies, errors));
+    }
+
+    private long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(sorted.length * percentile))];
+    }
+}
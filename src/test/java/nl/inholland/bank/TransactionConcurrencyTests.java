@@ -0,0 +1,142 @@
+package nl.inholland.bank;
+
+import nl.inholland.bank.models.Account;
+import nl.inholland.bank.models.AuthenticatedUser;
+import nl.inholland.bank.models.Role;
+import nl.inholland.bank.models.TransactionBatchResult;
+import nl.inholland.bank.models.User;
+import nl.inholland.bank.models.dtos.TransactionDTO.TransactionRequest;
+import nl.inholland.bank.models.exceptions.InsufficientFundsException;
+import nl.inholland.bank.repositories.AccountRepository;
+import nl.inholland.bank.repositories.TransactionRepository;
+import nl.inholland.bank.repositories.UserRepository;
+import nl.inholland.bank.services.TransactionService;
+import nl.inholland.bank.utils.JwtTokenProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+@SpringBootTest
+class TransactionConcurrencyTests {
+    private static final int TRANSFERS = 2000;
+    private static final int THREADS = 16;
+    private static final long STARTING_BALANCE = 100000;
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Value("${bankapi.bank.account}")
+    private String bankAccountIBAN;
+
+    private List<Account> accounts;
+
+    @BeforeEach
+    void setUp() {
+        // Employees may transfer between any accounts, and their transfers do not count towards anyone's daily limit.
+        User employee = userRepository.findUserByUsername("employee").orElseThrow();
+        Mockito.when(jwtTokenProvider.getUsername()).thenReturn("employee");
+        Mockito.when(jwtTokenProvider.getRole()).thenReturn(Role.EMPLOYEE);
+        Mockito.when(jwtTokenProvider.getAuthenticatedUser())
+                .thenReturn(new AuthenticatedUser(employee.getId(), "employee", Role.EMPLOYEE, true, null));
+
+        accounts = new ArrayList<>();
+        accounts.add(accountRepository.findByIBAN(bankAccountIBAN).orElseThrow());
+        accounts.add(userRepository.findUserByUsername("bobby").orElseThrow().getCurrentAccount());
+        accounts.add(userRepository.findUserByUsername("berta").orElseThrow().getCurrentAccount());
+
+        for (Account account : accounts) {
+            account.setBalance(STARTING_BALANCE);
+            accountRepository.save(account);
+        }
+    }
+
+    protected void transfer(TransactionRequest request) throws Exception {
+        transactionService.processTransaction(request);
+    }
+
+    @Test
+    void concurrentTransfersConserveMoney() throws InterruptedException {
+        long transactionsBefore = transactionRepository.count();
+        AtomicIntegerArray sent = new AtomicIntegerArray(accounts.size());
+        AtomicIntegerArray received = new AtomicIntegerArray(accounts.size());
+        List<Exception> unexpected = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < TRANSFERS; i++) {
+            executor.submit(() -> {
+                int from = ThreadLocalRandom.current().nextInt(accounts.size());
+                int to = (from + 1 + ThreadLocalRandom.current().nextInt(accounts.size() - 1)) % accounts.size();
+                try {
+                    transfer(new TransactionRequest(accounts.get(from).getIBAN(), accounts.get(to).getIBAN(), 100, "stress"));
+                    sent.incrementAndGet(from);
+                    received.incrementAndGet(to);
+                } catch (InsufficientFundsException e) {
+                    // Expected once an account has been drained.
+                } catch (Exception e) {
+                    unexpected.add(e);
+                }
+            });
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+
+        Assertions.assertEquals(List.of(), unexpected);
+
+        long total = 0;
+        int successful = 0;
+        for (int i = 0; i < accounts.size(); i++) {
+            Account account = accountRepository.findById(accounts.get(i).getId()).orElseThrow();
+            Assertions.assertEquals(STARTING_BALANCE - 100L * sent.get(i) + 100L * received.get(i), account.getBalance());
+            Assertions.assertTrue(account.getBalance() >= account.getAbsoluteLimit());
+            total += account.getBalance();
+            successful += sent.get(i);
+        }
+
+        Assertions.assertEquals(STARTING_BALANCE * accounts.size(), total);
+        Assertions.assertEquals(transactionsBefore + successful, transactionRepository.count());
+    }
+
+    @Test
+    void batchTransfersApplyRunningBalances() throws Exception {
+        long transactionsBefore = transactionRepository.count();
+        String bank = accounts.get(0).getIBAN();
+        String bobby = accounts.get(1).getIBAN();
+        String berta = accounts.get(2).getIBAN();
+
+        List<TransactionBatchResult> results = transactionService.processTransactions(List.of(
+                new TransactionRequest(bank, bobby, 60000, "payroll"),
+                new TransactionRequest(bank, berta, 60000, "payroll"),
+                new TransactionRequest(bobby, berta, 10000, "rent")
+        ), false);
+
+        Assertions.assertTrue(results.get(0).isSuccessful());
+        Assertions.assertInstanceOf(InsufficientFundsException.class, results.get(1).error());
+        Assertions.assertTrue(results.get(2).isSuccessful());
+        Assertions.assertEquals(40000, accountRepository.findByIBAN(bank).orElseThrow().getBalance());
+        Assertions.assertEquals(150000, accountRepository.findByIBAN(bobby).orElseThrow().getBalance());
+        Assertions.assertEquals(110000, accountRepository.findByIBAN(berta).orElseThrow().getBalance());
+        Assertions.assertEquals(transactionsBefore + 2, transactionRepository.count());
+    }
+}
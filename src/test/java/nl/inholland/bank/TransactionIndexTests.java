@@ -0,0 +1,183 @@
+package nl.inholland.bank;
+
+import nl.inholland.bank.models.TransactionCursor;
+import nl.inholland.bank.models.User;
+import nl.inholland.bank.repositories.TransactionRepository;
+import nl.inholland.bank.repositories.UserRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The searches on transactions use the indexes of the migrations instead of scanning the whole table.
+ * The statements that are explained are the ones Hibernate runs for the searches of TransactionRepository, recorded
+ * with their parameters on their way to the database.
+ */
+@SpringBootTest
+@Import(TransactionIndexTests.StatementRecorder.class)
+class TransactionIndexTests {
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2023, 12, 31, 0, 0);
+
+    @Autowired
+    private StatementRecorder statementRecorder;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private record RecordedStatement(String sql, Map<Integer, Object> parameters) {
+    }
+
+    // Wraps the data source, so every prepared statement is recorded with its parameters when it is run.
+    @TestConfiguration
+    static class StatementRecorder implements BeanPostProcessor {
+        private final List<RecordedStatement> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return proxy(DataSource.class, dataSource, (method, args, result) ->
+                    result instanceof Connection connection ? proxy(Connection.class, connection, this::recordStatement) : result);
+        }
+
+        private Object recordStatement(Method method, Object[] args, Object result) {
+            if (!method.getName().equals("prepareStatement")) {
+                return result;
+            }
+
+            String sql = (String) args[0];
+            Map<Integer, Object> parameters = new TreeMap<>();
+            return proxy(PreparedStatement.class, (PreparedStatement) result, (called, calledArgs, calledResult) -> {
+                if (called.getName().startsWith("set") && calledArgs != null && calledArgs.length >= 2
+                        && calledArgs[0] instanceof Integer index) {
+                    parameters.put(index, called.getName().equals("setNull") ? null : calledArgs[1]);
+                } else if (called.getName().startsWith("execute") && (calledArgs == null || calledArgs.length == 0)) {
+                    statements.add(new RecordedStatement(sql, new TreeMap<>(parameters)));
+                }
+                return calledResult;
+            });
+        }
+
+        // The searches on transactions that were run since the last call
+        List<RecordedStatement> takeTransactionSearches() {
+            List<RecordedStatement> taken = new ArrayList<>(statements);
+            statements.clear();
+            return taken.stream()
+                    .filter(statement -> statement.sql().startsWith("select") && statement.sql().contains(" from transaction "))
+                    .toList();
+        }
+    }
+
+    private interface Interceptor {
+        Object intercept(Method method, Object[] args, Object result) throws Exception;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Interceptor interceptor) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            try {
+                return interceptor.intercept(method, args, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    @BeforeEach
+    void setUp() {
+        statementRecorder.takeTransactionSearches();
+    }
+
+    private List<String> explainRecordedStatements() {
+        List<RecordedStatement> statements = statementRecorder.takeTransactionSearches();
+        Assertions.assertFalse(statements.isEmpty(), "Expected statements on transactions to be recorded");
+        return statements.stream()
+                .map(statement -> jdbcTemplate.queryForObject("explain " + statement.sql(), String.class,
+                        statement.parameters().values().toArray()).toLowerCase())
+                .toList();
+    }
+
+    private void assertUsesIndex(String index, String plan) {
+        Assertions.assertTrue(plan.contains(index), () -> "Expected " + index + " in the plan: " + plan);
+        Assertions.assertFalse(plan.contains("transaction.tablescan"), () -> "Expected no table scan: " + plan);
+    }
+
+    @Test
+    void searchingNewestTransactionsUsesTheTimestampIndex() {
+        transactionRepository.findTransactionsAfter(0, Long.MAX_VALUE, START, END, 0, "", "",
+                null, null, null, null, new TransactionCursor(END, Integer.MAX_VALUE), 50);
+
+        List<String> plans = explainRecordedStatements();
+        Assertions.assertEquals(1, plans.size());
+        assertUsesIndex("idx_transaction_timestamp_id", plans.get(0));
+    }
+
+    @Test
+    void searchingBySenderIbanUsesTheSenderIndex() {
+        transactionRepository.findTransactions(0, Long.MAX_VALUE, START, END, 0, "NL01INHO0000000001", "",
+                null, null, null, null, PageRequest.of(0, 50));
+
+        List<String> plans = explainRecordedStatements();
+        Assertions.assertEquals(1, plans.size());
+        assertUsesIndex("uk_account_iban", plans.get(0));
+        assertUsesIndex("idx_transaction_sender_timestamp_id", plans.get(0));
+    }
+
+    @Test
+    void searchingByReceiverIbanUsesTheReceiverIndex() {
+        transactionRepository.findTransactions(0, Long.MAX_VALUE, START, END, 0, "", "NL01INHO0000000001",
+                null, null, null, null, PageRequest.of(0, 50));
+
+        List<String> plans = explainRecordedStatements();
+        Assertions.assertEquals(1, plans.size());
+        assertUsesIndex("uk_account_iban", plans.get(0));
+        assertUsesIndex("idx_transaction_receiver_timestamp_id", plans.get(0));
+    }
+
+    @Test
+    void searchingTransactionsOfAUserSinceAMomentUsesTheUserIndex() {
+        transactionRepository.findAllByTimestampIsAfterAndUserId(START, 3);
+
+        List<String> plans = explainRecordedStatements();
+        assertUsesIndex("idx_transaction_user_timestamp", plans.get(0));
+    }
+
+    @Test
+    void searchingTransactionsOfAUserLooksUpEachSideInItsAccountIndex() {
+        User bobby = userRepository.findUserByUsername("bobby").orElseThrow();
+
+        transactionRepository.findTransactionsAfter(0, Long.MAX_VALUE, START, END, 0, "", "",
+                bobby, null, null, null, null, 50);
+
+        // One statement for the transactions from the accounts of the user, one for those to them
+        List<String> plans = explainRecordedStatements();
+        Assertions.assertEquals(2, plans.size());
+        assertUsesIndex("idx_transaction_sender_timestamp_id", plans.get(0));
+        assertUsesIndex("idx_transaction_receiver_timestamp_id", plans.get(1));
+    }
+}
@@ -0,0 +1,176 @@
+package nl.inholland.bank;
+
+import nl.inholland.bank.models.*;
+import nl.inholland.bank.models.dtos.TransactionDTO.TransactionSearchRequest;
+import nl.inholland.bank.repositories.TransactionRepository;
+import nl.inholland.bank.repositories.UserRepository;
+import nl.inholland.bank.services.TransactionService;
+import nl.inholland.bank.utils.JwtTokenProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Paging through transactions with a cursor returns every transaction once, newest first,
+ * also when transactions have the same timestamp.
+ */
+@SpringBootTest
+class TransactionPaginationTests {
+    private static final int TRANSACTIONS = 25;
+    // Far before the seeded data and the transactions of other tests, so only these are found.
+    private static final LocalDateTime START = LocalDateTime.of(2001, 1, 1, 0, 0);
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    private List<Transaction> transactions;
+
+    @BeforeEach
+    void setUp() {
+        User employee = userRepository.findUserByUsername("employee").orElseThrow();
+        Mockito.when(jwtTokenProvider.getUsername()).thenReturn("employee");
+        Mockito.when(jwtTokenProvider.getRole()).thenReturn(Role.EMPLOYEE);
+        Mockito.when(jwtTokenProvider.getAuthenticatedUser())
+                .thenReturn(new AuthenticatedUser(employee.getId(), "employee", Role.EMPLOYEE, true, null));
+
+        transactionRepository.deleteAll(transactionRepository.findAll(
+                (root, query, builder) -> builder.between(root.get("timestamp"), START, START.plusYears(1))));
+
+        Account sender = userRepository.findUserByUsername("bobby").orElseThrow().getCurrentAccount();
+        Account receiver = userRepository.findUserByUsername("berta").orElseThrow().getCurrentAccount();
+        transactions = new ArrayList<>();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            Transaction transaction = new Transaction(employee, sender, receiver, 1, CurrencyType.EURO, TransactionType.TRANSACTION);
+            // Three transactions per minute, so most pages end between transactions with the same timestamp
+            transaction.setTimestamp(START.plusMinutes(i / 3));
+            transactions.add(transactionRepository.save(transaction));
+        }
+        transactions.sort(Comparator.comparing(Transaction::getTimestamp).thenComparing(Transaction::getId).reversed());
+    }
+
+    private TransactionSearchRequest search() {
+        return new TransactionSearchRequest(Optional.empty(), Optional.empty(), Optional.of(START),
+                Optional.of(START.plusYears(1)), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty());
+    }
+
+    @Test
+    void pagingWithCursorReturnsEveryTransactionOnceNewestFirst() throws Exception {
+        List<Integer> found = new ArrayList<>();
+        Optional<String> cursor = Optional.of("");
+        int slices = 0;
+        while (true) {
+            Slice<TransactionSummary> slice = transactionService.getTransactionsAfter(cursor, Optional.of(4), search());
+            slice.getContent().forEach(transaction -> found.add(transaction.id()));
+            slices++;
+            if (!slice.hasNext()) {
+                break;
+            }
+            cursor = Optional.of(TransactionCursor.of(slice.getContent().get(slice.getContent().size() - 1)).encode());
+        }
+
+        Assertions.assertEquals(transactions.stream().map(Transaction::getId).toList(), found);
+        Assertions.assertEquals((TRANSACTIONS + 3) / 4, slices);
+    }
+
+    @Test
+    void pagingWithCursorKeepsTheOtherFilters() throws Exception {
+        TransactionSearchRequest request = new TransactionSearchRequest(Optional.empty(), Optional.empty(),
+                Optional.of(START), Optional.of(START.plusMinutes(2)), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
+
+        Slice<TransactionSummary> slice = transactionService.getTransactionsAfter(Optional.of(""), Optional.of(100), request);
+
+        // Minutes 0, 1 and 2, both ends included
+        Assertions.assertEquals(9, slice.getContent().size());
+        Assertions.assertFalse(slice.hasNext());
+    }
+
+    @Test
+    void pagingWithOffsetReturnsSlicesWithoutCounting() throws Exception {
+        Slice<TransactionSummary> secondPage = transactionRepository.findTransactions(0, Long.MAX_VALUE, START,
+                START.plusYears(1), 0, "", "", null, null, null, null, PageRequest.of(1, 10));
+        Slice<TransactionSummary> lastPage = transactionRepository.findTransactions(0, Long.MAX_VALUE, START,
+                START.plusYears(1), 0, "", "", null, null, null, null, PageRequest.of(2, 10));
+
+        Assertions.assertEquals(10, secondPage.getContent().size());
+        Assertions.assertTrue(secondPage.hasNext());
+        Assertions.assertEquals(5, lastPage.getContent().size());
+        Assertions.assertFalse(lastPage.hasNext());
+        Assertions.assertFalse(secondPage instanceof Page);
+        Assertions.assertEquals(TRANSACTIONS, transactionService.countTransactions(search()));
+    }
+
+    @Test
+    void searchingByUserFindsTransactionsFromAndToTheirAccounts() {
+        User bobby = userRepository.findUserByUsername("bobby").orElseThrow();
+        User berta = userRepository.findUserByUsername("berta").orElseThrow();
+        User employee = userRepository.findUserByUsername("employee").orElseThrow();
+
+        Slice<TransactionSummary> fromBobby = transactionRepository.findTransactions(0, Long.MAX_VALUE, START,
+                START.plusYears(1), 0, "", "", bobby, null, null, null, PageRequest.of(0, 100));
+        Slice<TransactionSummary> toBerta = transactionRepository.findTransactions(0, Long.MAX_VALUE, START,
+                START.plusYears(1), 0, "", "", berta, null, null, null, PageRequest.of(0, 100));
+        Slice<TransactionSummary> ofEmployee = transactionRepository.findTransactions(0, Long.MAX_VALUE, START,
+                START.plusYears(1), 0, "", "", employee, null, null, null, PageRequest.of(0, 100));
+
+        Assertions.assertEquals(TRANSACTIONS, fromBobby.getContent().size());
+        Assertions.assertEquals(TRANSACTIONS, toBerta.getContent().size());
+        // Made the transactions, but owns neither account
+        Assertions.assertEquals(0, ofEmployee.getContent().size());
+    }
+
+    @Test
+    void searchingByUserMergesTransactionsFromAndToTheirAccountsNewestFirst() {
+        User employee = userRepository.findUserByUsername("employee").orElseThrow();
+        User bobby = userRepository.findUserByUsername("bobby").orElseThrow();
+        Account berta = userRepository.findUserByUsername("berta").orElseThrow().getCurrentAccount();
+        // Money back to bobby in between, which the search finds on the receiver side
+        for (int i = 0; i < 10; i++) {
+            Transaction transaction = new Transaction(employee, berta, bobby.getCurrentAccount(), 1, CurrencyType.EURO, TransactionType.TRANSACTION);
+            transaction.setTimestamp(START.plusMinutes(i).plusSeconds(30));
+            transactions.add(transactionRepository.save(transaction));
+        }
+        transactions.sort(Comparator.comparing(Transaction::getTimestamp).thenComparing(Transaction::getId).reversed());
+
+        List<Integer> found = new ArrayList<>();
+        TransactionCursor cursor = null;
+        while (true) {
+            Slice<TransactionSummary> slice = transactionRepository.findTransactionsAfter(0, Long.MAX_VALUE, START,
+                    START.plusYears(1), 0, "", "", bobby, null, null, null, cursor, 4);
+            slice.getContent().forEach(transaction -> found.add(transaction.id()));
+            if (!slice.hasNext()) {
+                break;
+            }
+            cursor = TransactionCursor.of(slice.getContent().get(slice.getContent().size() - 1));
+        }
+        Slice<TransactionSummary> secondPage = transactionRepository.findTransactions(0, Long.MAX_VALUE, START,
+                START.plusYears(1), 0, "", "", bobby, null, null, null, PageRequest.of(1, 10));
+
+        List<Integer> expected = transactions.stream().map(Transaction::getId).toList();
+        Assertions.assertEquals(expected, found);
+        Assertions.assertEquals(expected.subList(10, 20), secondPage.getContent().stream().map(TransactionSummary::id).toList());
+        Assertions.assertTrue(secondPage.hasNext());
+        Assertions.assertEquals(TRANSACTIONS + 10, transactionRepository.countTransactions(0, Long.MAX_VALUE, START,
+                START.plusYears(1), 0, "", "", bobby, null, null, null));
+    }
+}
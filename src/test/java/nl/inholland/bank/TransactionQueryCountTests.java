@@ -0,0 +1,186 @@
+package nl.inholland.bank;
+
+import jakarta.persistence.EntityManagerFactory;
+import nl.inholland.bank.models.*;
+import nl.inholland.bank.models.dtos.TransactionDTO.TransactionSearchRequest;
+import nl.inholland.bank.repositories.AccountRepository;
+import nl.inholland.bank.repositories.TransactionRepository;
+import nl.inholland.bank.repositories.UserRepository;
+import nl.inholland.bank.services.AccountService;
+import nl.inholland.bank.services.TransactionService;
+import nl.inholland.bank.utils.JwtTokenProvider;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Searching and exporting transactions takes the same number of statements for any number of transactions:
+ * the accounts and users of the transactions are not loaded one by one. Likewise, locking the accounts of a transfer
+ * or a batch of them takes the same number of statements for any number of accounts.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TransactionQueryCountTests {
+    private static final int TRANSACTIONS = 30;
+    // Far before the seeded data and the transactions of other tests, so only these are found.
+    private static final LocalDateTime START = LocalDateTime.of(2002, 1, 1, 0, 0);
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private TransactionRepository transactionRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User employee = userRepository.findUserByUsername("employee").orElseThrow();
+        Mockito.when(jwtTokenProvider.getUsername()).thenReturn("employee");
+        Mockito.when(jwtTokenProvider.getRole()).thenReturn(Role.EMPLOYEE);
+        Mockito.when(jwtTokenProvider.getAuthenticatedUser())
+                .thenReturn(new AuthenticatedUser(employee.getId(), "employee", Role.EMPLOYEE, true, null));
+
+        transactionRepository.deleteAll(transactionRepository.findAll(
+                (root, query, builder) -> builder.between(root.get("timestamp"), START, START.plusYears(1))));
+
+        // Transfers, deposits and withdrawals between accounts of different users
+        Account bobby = userRepository.findUserByUsername("bobby").orElseThrow().getCurrentAccount();
+        Account berta = userRepository.findUserByUsername("berta").orElseThrow().getCurrentAccount();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            Transaction transaction = switch (i % 3) {
+                case 0 -> new Transaction(employee, bobby, berta, 1, CurrencyType.EURO, TransactionType.TRANSACTION);
+                case 1 -> new Transaction(employee, null, berta, 1, CurrencyType.EURO, TransactionType.DEPOSIT);
+                default -> new Transaction(employee, bobby, null, 1, CurrencyType.EURO, TransactionType.WITHDRAWAL);
+            };
+            transaction.setTimestamp(START.plusMinutes(i));
+            transaction.setMemo("");
+            transactionRepository.save(transaction);
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private TransactionSearchRequest search() {
+        return new TransactionSearchRequest(Optional.empty(), Optional.empty(), Optional.of(START),
+                Optional.of(START.plusYears(1)), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty());
+    }
+
+    private long statementsToGetPage(int limit) throws Exception {
+        statistics.clear();
+        List<TransactionSummary> transactions = transactionService.getTransactions(Optional.of(0), Optional.of(limit), search());
+        Assertions.assertEquals(limit, transactions.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void searchingTransactionsTakesTheSameNumberOfStatementsForAnyPageSize() throws Exception {
+        long small = statementsToGetPage(3);
+        long large = statementsToGetPage(TRANSACTIONS);
+
+        Assertions.assertEquals(1, small);
+        Assertions.assertEquals(small, large);
+    }
+
+    @Test
+    void lockingAccountsTakesTheSameNumberOfStatementsForAnyNumberOfAccounts() {
+        List<String> ibans = new ArrayList<>();
+        accountRepository.findAll().forEach(account -> ibans.add(account.getIBAN()));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        statistics.clear();
+        transactionTemplate.executeWithoutResult(status -> accountService.lockAccounts(ibans.get(0)));
+        long one = statistics.getPrepareStatementCount();
+        statistics.clear();
+        transactionTemplate.executeWithoutResult(status -> accountService.lockAccounts(ibans.toArray(String[]::new)));
+        long all = statistics.getPrepareStatementCount();
+
+        Assertions.assertTrue(ibans.size() > 2);
+        Assertions.assertEquals(2, one);
+        Assertions.assertEquals(one, all);
+    }
+
+    @Test
+    void searchingWithCursorTakesOneStatement() throws Exception {
+        statistics.clear();
+        transactionService.getTransactionsAfter(Optional.of(""), Optional.of(TRANSACTIONS), search());
+
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void searchingAsCustomerTakesOneStatementPerSideWithoutLoadingTheCustomer() throws Exception {
+        User bobby = userRepository.findUserByUsername("bobby").orElseThrow();
+        Mockito.when(jwtTokenProvider.getRole()).thenReturn(Role.CUSTOMER);
+        Mockito.when(jwtTokenProvider.getAuthenticatedUser())
+                .thenReturn(new AuthenticatedUser(bobby.getId(), "bobby", Role.CUSTOMER, true, null));
+
+        statistics.clear();
+        Slice<TransactionSummary> transactions = transactionService.getTransactionsAfter(Optional.of(""), Optional.of(TRANSACTIONS), search());
+
+        // The transactions from and to the accounts of the customer, the customer is only referred to by id
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(TRANSACTIONS / 3 * 2, transactions.getContent().size());
+    }
+
+    @Test
+    void exportingTransactionsTakesOneStatementAndGivesAllOldestFirst() throws Exception {
+        List<TransactionSummary> exported = new ArrayList<>();
+        statistics.clear();
+        transactionService.exportTransactions(search(), exported::add);
+
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(TRANSACTIONS, exported.size());
+        for (int i = 1; i < exported.size(); i++) {
+            Assertions.assertTrue(exported.get(i - 1).timestamp().isBefore(exported.get(i).timestamp()));
+        }
+    }
+
+    @Test
+    void summariesHaveTheAccountsAndUserOfTheTransaction() throws Exception {
+        List<TransactionSummary> transactions = transactionService
+                .getTransactionsAfter(Optional.of(""), Optional.of(3), search()).getContent();
+
+        // Newest first: a withdrawal, a deposit and a transfer
+        TransactionSummary withdrawal = transactions.get(0);
+        TransactionSummary deposit = transactions.get(1);
+        TransactionSummary transfer = transactions.get(2);
+        String bobby = userRepository.findUserByUsername("bobby").orElseThrow().getCurrentAccount().getIBAN();
+        String berta = userRepository.findUserByUsername("berta").orElseThrow().getCurrentAccount().getIBAN();
+
+        Assertions.assertEquals(TransactionType.WITHDRAWAL, withdrawal.transactionType());
+        Assertions.assertEquals(bobby, withdrawal.senderIBAN());
+        Assertions.assertNull(withdrawal.receiverIBAN());
+        Assertions.assertNull(deposit.senderIBAN());
+        Assertions.assertEquals(berta, deposit.receiverIBAN());
+        Assertions.assertEquals(bobby, transfer.senderIBAN());
+        Assertions.assertEquals(berta, transfer.receiverIBAN());
+        Assertions.assertEquals("employee", transfer.username());
+        Assertions.assertEquals(1, transfer.amount());
+    }
+}
@@ -7,7 +7,10 @@ import nl.inholland.bank.models.dtos.AccountDTO.AccountAbsoluteLimitRequest;
 import nl.inholland.bank.models.dtos.AccountDTO.AccountActiveRequest;
 import nl.inholland.bank.models.dtos.AccountDTO.AccountClientResponse;
 import nl.inholland.bank.models.dtos.AccountDTO.AccountRequest;
+import nl.inholland.bank.models.exceptions.PasswordHashingBusyException;
+import nl.inholland.bank.services.AccountOnboardingService;
 import nl.inholland.bank.services.AccountService;
+import nl.inholland.bank.services.BalanceService;
 import nl.inholland.bank.services.UserService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,19 +21,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest(AccountController.class)
@@ -40,12 +47,21 @@ class AccountControllerTests {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ApplicationContext applicationContext;
+
     @MockBean
     private AccountService accountService;
 
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private AccountOnboardingService accountOnboardingService;
+
+    @MockBean
+    private BalanceService balanceService;
+
     private Account account;
 
     private Account account2;
@@ -80,7 +96,7 @@ class AccountControllerTests {
         user.setRole(Role.CUSTOMER);
         user.setBsn("123456782");
         account.setUser(user);
-        account.setBalance(100);
+        account.setBalance(10000);
         account.setCurrencyType(CurrencyType.EURO);
         account.setIBAN("NL87INHO7354367047");
         account.setType(AccountType.CURRENT);
@@ -100,7 +116,7 @@ class AccountControllerTests {
         user2.setRole(Role.CUSTOMER);
         user2.setBsn("038718352");
         account2.setUser(user2);
-        account2.setBalance(100);
+        account2.setBalance(10000);
         account2.setCurrencyType(CurrencyType.EURO);
         account2.setIBAN("NL87INHO7354367047");
         account2.setType(AccountType.CURRENT);
@@ -120,7 +136,7 @@ class AccountControllerTests {
 
         accountRequest = new AccountRequest(CurrencyType.EURO.toString(), AccountType.CURRENT.toString(), 1);
         accountActiveRequest = new AccountActiveRequest(false);
-        accountAbsoluteLimitRequest = new AccountAbsoluteLimitRequest(-30);
+        accountAbsoluteLimitRequest = new AccountAbsoluteLimitRequest(-3000);
 
         Mockito.when(userService.getUserById(account.getUser().getId())).thenReturn(user);
     }
@@ -141,8 +157,8 @@ class AccountControllerTests {
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].currency_type").value(account.getCurrencyType().toString()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].account_type").value(account.getType().toString()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].isActive").value(account.isActive()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].balance").value(account.getBalance()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].absolute_limit").value(account.getAbsoluteLimit()));
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].balance").value(Money.toEuros(account.getBalance())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].absolute_limit").value(Money.toEuros(account.getAbsoluteLimit())));
     }
 
     @Test
@@ -161,8 +177,8 @@ class AccountControllerTests {
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].currency_type").value(account.getCurrencyType().toString()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].account_type").value(account.getType().toString()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].isActive").value(account.isActive()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].balance").value(account.getBalance()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].absolute_limit").value(account.getAbsoluteLimit()));
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].balance").value(Money.toEuros(account.getBalance())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].absolute_limit").value(Money.toEuros(account.getAbsoluteLimit())));
     }
 
     @Test
@@ -183,8 +199,8 @@ class AccountControllerTests {
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].currency_type").value(account.getCurrencyType().toString()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].account_type").value(account.getType().toString()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$[0].isActive").value(account.isActive()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].balance").value(account.getBalance()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$[0].absolute_limit").value(account.getAbsoluteLimit()));
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].balance").value(Money.toEuros(account.getBalance())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].absolute_limit").value(Money.toEuros(account.getAbsoluteLimit())));
     }
 
     @Test
@@ -243,8 +259,8 @@ class AccountControllerTests {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.currency_type").value(account.getCurrencyType().toString()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.account_type").value(account.getType().toString()))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.isActive").value(account.isActive()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.balance").value(account.getBalance()))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.absolute_limit").value(account.getAbsoluteLimit()));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.balance").value(Money.toEuros(account.getBalance())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.absolute_limit").value(Money.toEuros(account.getAbsoluteLimit())));
     }
 
     @Test
@@ -319,7 +335,7 @@ class AccountControllerTests {
                         .content(mapper.writeValueAsString(accountAbsoluteLimitRequest))
                 )
                 .andExpect(MockMvcResultMatchers.status().isOk())
-                .andExpect(MockMvcResultMatchers.jsonPath("$.absolute_limit").value(account.getAbsoluteLimit()));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.absolute_limit").value(Money.toEuros(account.getAbsoluteLimit())));
     }
 
     @Test
@@ -391,8 +407,142 @@ class AccountControllerTests {
 
     @Test
     void buildAccountClientResponse() {
-        AccountController accountController = new AccountController(accountService, userService);
+        AccountController accountController = new AccountController(accountService, userService, accountOnboardingService, balanceService, mapper);
         AccountClientResponse response = accountController.buildAccountClientResponse(account);
         Assertions.assertEquals(account.getIBAN(), response.IBAN());
     }
+
+    @Test
+    @WithMockUser(username = "employee", roles = {"EMPLOYEE"})
+    void addingAccountsInBulkShouldWriteOneResultPerLine() throws Exception {
+        Mockito.when(userService.getBearerUserRole()).thenReturn(Role.EMPLOYEE);
+        Mockito.when(accountOnboardingService.onboard(Mockito.anyList())).thenReturn(List.of(
+                new AccountBulkResult(0, user, List.of(account), null),
+                new AccountBulkResult(1, null, null, new IllegalArgumentException("User already has a current account"))
+        ));
+
+        String body = """
+                {"user_id": 1, "currency_type": "EURO", "account_types": ["CURRENT"]}
+                not json
+
+                {"user_id": 2, "currency_type": "EURO", "account_types": ["CURRENT"]}
+                """;
+
+        String response = mockMvc.perform(MockMvcRequestBuilders.post("/accounts/bulk")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = response.lines().toList();
+        Assertions.assertEquals(3, lines.size());
+        Assertions.assertTrue(lines.get(0).contains("\"line\":2,\"status\":400"));
+        Assertions.assertTrue(lines.get(1).contains("\"line\":1,\"status\":201,\"user_id\":1"));
+        Assertions.assertTrue(lines.get(1).contains(account.getIBAN()));
+        Assertions.assertTrue(lines.get(2).contains("\"line\":4,\"status\":400"));
+        Assertions.assertTrue(lines.get(2).contains("User already has a current account"));
+    }
+
+    @Test
+    @WithMockUser(username = "employee", roles = {"EMPLOYEE"})
+    void addingAccountsInBulkShouldSendEachChunkToTheService() throws Exception {
+        AccountController accountController = applicationContext.getBean(AccountController.class);
+        ReflectionTestUtils.setField(accountController, "bulkChunkSize", 2);
+        Mockito.when(userService.getBearerUserRole()).thenReturn(Role.EMPLOYEE);
+        Mockito.when(accountOnboardingService.onboard(Mockito.anyList())).thenAnswer(invocation -> {
+            List<?> chunk = invocation.getArgument(0);
+            return IntStream.range(0, chunk.size())
+                    .mapToObj(i -> new AccountBulkResult(i, user, List.of(), null))
+                    .toList();
+        });
+
+        String line = "{\"user_id\": 1, \"currency_type\": \"EURO\", \"account_types\": []}\n";
+        try {
+            mockMvc.perform(MockMvcRequestBuilders.post("/accounts/bulk")
+                            .contentType("application/x-ndjson")
+                            .content(line.repeat(5)))
+                    .andExpect(MockMvcResultMatchers.status().isOk());
+        } finally {
+            ReflectionTestUtils.setField(accountController, "bulkChunkSize", 500);
+        }
+
+        Mockito.verify(accountOnboardingService, Mockito.times(3)).onboard(Mockito.anyList());
+    }
+
+    @Test
+    @WithMockUser(username = "employee", roles = {"EMPLOYEE"})
+    void addingAccountsInBulkShouldWriteServiceUnavailableForLinesThatCouldNotBeHashed() throws Exception {
+        Mockito.when(userService.getBearerUserRole()).thenReturn(Role.EMPLOYEE);
+        Mockito.when(accountOnboardingService.onboard(Mockito.anyList())).thenReturn(List.of(
+                new AccountBulkResult(0, null, null, new PasswordHashingBusyException("Too many requests, please try again later."))
+        ));
+
+        String response = mockMvc.perform(MockMvcRequestBuilders.post("/accounts/bulk")
+                        .contentType("application/x-ndjson")
+                        .content("{\"user_id\": 1, \"currency_type\": \"EURO\", \"account_types\": [\"CURRENT\"]}\n"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        Assertions.assertTrue(response.contains("\"line\":1,\"status\":503"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"CUSTOMER"})
+    void addingAccountsInBulkAsCustomerShouldBeUnauthorized() throws Exception {
+        Mockito.when(userService.getBearerUserRole()).thenReturn(Role.CUSTOMER);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/accounts/bulk")
+                        .contentType("application/x-ndjson")
+                        .content("{\"user_id\": 1, \"currency_type\": \"EURO\", \"account_types\": [\"CURRENT\"]}\n"))
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+
+        Mockito.verifyNoInteractions(accountOnboardingService);
+    }
+
+    @Test
+    @WithMockUser(username = "employee", roles = {"EMPLOYEE"})
+    void getAccountsShouldOnlyCountWhenAsked() throws Exception {
+        Mockito.when(userService.getBearerUserRole()).thenReturn(Role.EMPLOYEE);
+        Mockito.when(accountService.getAccounts(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenReturn(List.of(account));
+        Mockito.when(accountService.countAccounts(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(12L);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/accounts"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().doesNotExist(PagingHeaders.TOTAL_COUNT));
+        Mockito.verify(accountService, Mockito.never()).countAccounts(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/accounts").param("withTotalCount", "true"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(PagingHeaders.TOTAL_COUNT, "12"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"CUSTOMER"})
+    void gettingBalanceAtMomentAsOwnerShouldReturnBalance() throws Exception {
+        LocalDateTime at = LocalDateTime.of(2023, 5, 1, 12, 30);
+        Mockito.when(accountService.getAccountByIBAN(account.getIBAN())).thenReturn(account);
+        Mockito.when(userService.getBearerUserRole()).thenReturn(Role.CUSTOMER);
+        Mockito.when(userService.getBearerUsername()).thenReturn("user");
+        Mockito.when(balanceService.getBalanceAt(account, at)).thenReturn(4250L);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/accounts/" + account.getIBAN() + "/balance")
+                        .param("at", "2023-05-01T12:30:00"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.IBAN").value(account.getIBAN()))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.balance").value(42.5));
+    }
+
+    @Test
+    @WithMockUser(username = "user2", roles = {"CUSTOMER"})
+    void gettingBalanceOfSomeoneElsesAccountShouldBeUnauthorized() throws Exception {
+        Mockito.when(accountService.getAccountByIBAN(account.getIBAN())).thenReturn(account);
+        Mockito.when(userService.getBearerUserRole()).thenReturn(Role.CUSTOMER);
+        Mockito.when(userService.getBearerUsername()).thenReturn("user2");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/accounts/" + account.getIBAN() + "/balance"))
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+
+        Mockito.verifyNoInteractions(balanceService);
+    }
 }
@@ -8,6 +8,7 @@ import nl.inholland.bank.models.dtos.AuthDTO.LoginRequest;
 import nl.inholland.bank.models.dtos.AuthDTO.RefreshTokenRequest;
 import nl.inholland.bank.models.dtos.AuthDTO.jwt;
 import nl.inholland.bank.models.dtos.Token;
+import nl.inholland.bank.models.exceptions.PasswordHashingBusyException;
 import nl.inholland.bank.services.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -88,6 +89,16 @@ class AuthControllerTests {
                 .andExpect(MockMvcResultMatchers.status().isUnauthorized());
     }
 
+    @Test
+    void loginWhileHashingIsBusyShouldReturn503() throws Exception {
+        Mockito.when(userService.login(mockLoginRequest)).thenThrow(new PasswordHashingBusyException("Too many requests, please try again later."));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/auth/login")
+                .contentType("application/json")
+                .content(mapper.writeValueAsString(mockLoginRequest)))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+    }
+
     @Test
     void refreshingTokenReturnsNewJwt() throws Exception {
         Mockito.when(userService.refresh(mockRefreshTokenRequest)).thenReturn(mockJwt);
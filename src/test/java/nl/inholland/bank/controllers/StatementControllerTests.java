@@ -0,0 +1,132 @@
+package nl.inholland.bank.controllers;
+
+import nl.inholland.bank.configuration.ApiTestConfiguration;
+import nl.inholland.bank.models.*;
+import nl.inholland.bank.services.AccountService;
+import nl.inholland.bank.services.StatementService;
+import nl.inholland.bank.services.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(StatementController.class)
+@Import(ApiTestConfiguration.class)
+@AutoConfigureMockMvc(addFilters = false)
+class StatementControllerTests {
+    private static final String IBAN = "NL87INHO7354367047";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private StatementService statementService;
+
+    @MockBean
+    private AccountService accountService;
+
+    @MockBean
+    private UserService userService;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        User user = new User();
+        user.setId(1);
+        user.setUsername("user");
+        account = new Account();
+        account.setId(1);
+        account.setUser(user);
+        account.setIBAN(IBAN);
+        Mockito.when(accountService.getAccountByIBAN(IBAN)).thenReturn(account);
+        Mockito.when(statementService.getStatements(1, Optional.empty())).thenReturn(List.of(
+                new AccountStatement(1, YearMonth.of(2023, 2), 12000, 5000, 0, 1),
+                new AccountStatement(1, YearMonth.of(2023, 1), 5000, 10000, 3000, 2)));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void gettingStatementsAsOwnerShouldReturnThemNewestFirst() throws Exception {
+        Mockito.when(userService.getBearerUserRole()).thenReturn(Role.CUSTOMER);
+        Mockito.when(userService.getBearerUsername()).thenReturn("user");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/accounts/" + IBAN + "/statements"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].IBAN").value(IBAN))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].month").value("2023-02"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].month").value("2023-01"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].opening_balance").value(50.0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].closing_balance").value(120.0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].total_in").value(100.0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].total_out").value(30.0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].transaction_count").value(2));
+    }
+
+    @Test
+    @WithMockUser(username = "employee", roles = {"EMPLOYEE"})
+    void gettingStatementOfMonthShouldOnlyAskForThatMonth() throws Exception {
+        Mockito.when(userService.getBearerUserRole()).thenReturn(Role.EMPLOYEE);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/accounts/" + IBAN + "/statements").param("month", "2023-01"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        Mockito.verify(statementService).getStatements(1, Optional.of(YearMonth.of(2023, 1)));
+    }
+
+    @Test
+    @WithMockUser(username = "other", roles = {"USER"})
+    void gettingStatementsOfSomeoneElsesAccountShouldReturnUnauthorized() throws Exception {
+        Mockito.when(userService.getBearerUserRole()).thenReturn(Role.CUSTOMER);
+        Mockito.when(userService.getBearerUsername()).thenReturn("other");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/accounts/" + IBAN + "/statements"))
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+    }
+
+    @Test
+    @WithMockUser(username = "employee", roles = {"EMPLOYEE"})
+    void gettingStatementsWithInvalidMonthShouldReturnBadRequest() throws Exception {
+        Mockito.when(userService.getBearerUserRole()).thenReturn(Role.EMPLOYEE);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/accounts/" + IBAN + "/statements").param("month", "January"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void closingMonthAsAdminShouldReturnNumberOfStatements() throws Exception {
+        Mockito.when(userService.getBearerUserRole()).thenReturn(Role.ADMIN);
+        Mockito.when(statementService.closeMonth(YearMonth.of(2023, 1))).thenReturn(5);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/accounts/statements").param("month", "2023-01"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string("5"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    void closingMonthAsCustomerShouldReturnUnauthorized() throws Exception {
+        Mockito.when(userService.getBearerUserRole()).thenReturn(Role.CUSTOMER);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/accounts/statements").param("month", "2023-01"))
+                .andExpect(MockMvcResultMatchers.status().isUnauthorized());
+
+        Mockito.verify(statementService, Mockito.never()).closeMonth(Mockito.any());
+    }
+}
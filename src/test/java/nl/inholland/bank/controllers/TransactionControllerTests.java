@@ -3,13 +3,18 @@ package nl.inholland.bank.controllers;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import nl.inholland.bank.configuration.ApiTestConfiguration;
 import nl.inholland.bank.models.*;
+import nl.inholland.bank.models.dtos.TransactionDTO.TransactionBatchRequest;
 import nl.inholland.bank.models.dtos.TransactionDTO.TransactionRequest;
 import nl.inholland.bank.models.dtos.TransactionDTO.TransactionSearchRequest;
 import nl.inholland.bank.models.dtos.TransactionDTO.WithdrawDepositRequest;
+import nl.inholland.bank.models.exceptions.InsufficientFundsException;
+import nl.inholland.bank.models.exceptions.SameAccountTransferException;
 import nl.inholland.bank.models.exceptions.UserNotTheOwnerOfAccountException;
+import nl.inholland.bank.services.AccountLaneService;
 import nl.inholland.bank.services.TransactionService;
 import nl.inholland.bank.services.UserService;
 import org.hibernate.ObjectNotFoundException;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,6 +25,8 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -28,11 +35,18 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import javax.security.auth.login.AccountNotFoundException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -51,6 +65,9 @@ class TransactionControllerTests {
     @MockBean
     UserService userService;
 
+    @MockBean
+    AccountLaneService accountLaneService;
+
     private Transaction mockTransaction;
 
     ObjectMapper mapper = new ObjectMapper();
@@ -70,14 +87,14 @@ class TransactionControllerTests {
     void setUp() {
         mockAccountFrom = new Account();
         mockAccountFrom.setId(1);
-        mockAccountFrom.setBalance(150);
+        mockAccountFrom.setBalance(15000);
         mockAccountFrom.setIBAN("NL11INHO6847043768");
         mockAccountFrom.setType(AccountType.CURRENT);
         mockAccountFrom.setUser(mockUser);
 
         mockAccountTo = new Account();
         mockAccountTo.setId(2);
-        mockAccountTo.setBalance(100);
+        mockAccountTo.setBalance(10000);
         mockAccountTo.setIBAN("NL34INHO3870387379");
 
         mockUser = new User();
@@ -88,27 +105,27 @@ class TransactionControllerTests {
 
         mockTransaction = new Transaction();
         mockTransaction.setId(1);
-        mockTransaction.setAmount(100);
+        mockTransaction.setAmount(10000);
         mockTransaction.setAccountReceiver(mockAccountTo);
         mockTransaction.setAccountSender(mockAccountFrom);
         mockTransaction.setUser(mockUser);
 
         Transaction mockTransaction2 = new Transaction();
         mockTransaction2.setId(2);
-        mockTransaction2.setAmount(100);
+        mockTransaction2.setAmount(10000);
         mockTransaction2.setAccountReceiver(mockAccountTo);
         mockTransaction2.setAccountSender(mockAccountFrom);
 
-        mockTransactionRequest = new TransactionRequest("NL37INHO4953307353", "NL77INHO6916372942", 100, "testing");
-        mockWithdrawDepositRequest = new WithdrawDepositRequest("NL37INHO4953307353", 100, CurrencyType.EURO);
-        mockBadTransactionRequest = new WithdrawDepositRequest("NL01INH12345678902qwrzhuzsgvbhSGLZCadblvaghvlizgsLZIVG", 100, CurrencyType.EURO);
+        mockTransactionRequest = new TransactionRequest("NL37INHO4953307353", "NL77INHO6916372942", 10000, "testing");
+        mockWithdrawDepositRequest = new WithdrawDepositRequest("NL37INHO4953307353", 10000, CurrencyType.EURO);
+        mockBadTransactionRequest = new WithdrawDepositRequest("NL01INH12345678902qwrzhuzsgvbhSGLZCadblvaghvlizgsLZIVG", 10000, CurrencyType.EURO);
     }
 
 
 
     @Test
     void transferMoneyWithUnknownAccountOrOwnerShouldReturnCodeFourHundred() throws Exception {
-        when(transactionService.transferMoney(new User(), new Account(), new Account(), CurrencyType.EURO, 100, "testing")).thenReturn(mockTransaction);
+        when(transactionService.transferMoney(new User(), new Account(), new Account(), CurrencyType.EURO, 10000, "testing")).thenReturn(mockTransaction);
         when(userService.getBearerUserRole()).thenReturn(Role.ADMIN);
         mockMvc.perform(MockMvcRequestBuilders.post("/transactions")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -138,10 +155,112 @@ class TransactionControllerTests {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.receiver_iban").value("NL34INHO3870387379"));
     }
 
+    @Test
+    void transferMoneyWithMoreThanTwoDecimalsShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"sender_iban\": \"NL37INHO4953307353\", \"receiver_iban\": \"NL77INHO6916372942\","
+                                + " \"amount\": 100.123, \"description\": \"testing\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error_message").value("Amount can not have more than two decimals."));
+
+        verify(transactionService, never()).processTransaction(Mockito.any());
+    }
+
+    @Test
+    void transferMoneyShouldUseLanesWhenEnabled() throws Exception {
+        Mockito.when(accountLaneService.isEnabled()).thenReturn(true);
+        Mockito.when(accountLaneService.processTransaction(
+                ArgumentMatchers.any(TransactionRequest.class)
+        )).thenReturn(mockTransaction);
+
+        MockHttpServletRequestBuilder post = MockMvcRequestBuilders.post(
+                "/transactions")
+                .contentType("application/json")
+                .content(mapper.writeValueAsString(mockTransactionRequest));
+
+        mockMvc.perform(post)
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(1));
+        Mockito.verify(transactionService, Mockito.never()).processTransaction(ArgumentMatchers.any());
+    }
+
+    @Test
+    void transferMoneyBatchShouldReturnResultPerTransaction() throws Exception {
+        Mockito.when(transactionService.processTransactions(ArgumentMatchers.anyList(), ArgumentMatchers.eq(false)))
+                .thenReturn(List.of(
+                        new TransactionBatchResult(0, mockTransaction, null),
+                        new TransactionBatchResult(1, null, new InsufficientFundsException("Insufficient funds")),
+                        new TransactionBatchResult(2, null, new AccountNotFoundException("Account not found"))
+                ));
+
+        TransactionBatchRequest request = new TransactionBatchRequest(
+                List.of(mockTransactionRequest, mockTransactionRequest, mockTransactionRequest), false);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(request)))
+                .andExpect(status().is(207))
+                .andExpect(jsonPath("$.successful").value(1))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.results[0].status").value(201))
+                .andExpect(jsonPath("$.results[0].transaction.id").value(1))
+                .andExpect(jsonPath("$.results[1].status").value(403))
+                .andExpect(jsonPath("$.results[2].status").value(404));
+    }
+
+    @Test
+    void transferMoneyBatchShouldReturnServerErrorForUnexpectedErrors() throws Exception {
+        Mockito.when(transactionService.processTransactions(ArgumentMatchers.anyList(), ArgumentMatchers.eq(false)))
+                .thenReturn(List.of(
+                        new TransactionBatchResult(0, null, new NullPointerException()),
+                        new TransactionBatchResult(1, null, new SameAccountTransferException("Same account"))
+                ));
+
+        TransactionBatchRequest request = new TransactionBatchRequest(
+                List.of(mockTransactionRequest, mockTransactionRequest), false);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(request)))
+                .andExpect(jsonPath("$.results[0].status").value(500))
+                .andExpect(jsonPath("$.results[1].status").value(403));
+    }
+
+    @Test
+    void transferMoneyBatchShouldRejectEmptyBatch() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(new TransactionBatchRequest(List.of(), true))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getLaneStatisticsShouldReturnBatchSizes() throws Exception {
+        Mockito.when(accountLaneService.isEnabled()).thenReturn(true);
+        Mockito.when(accountLaneService.getQueueDepths()).thenReturn(List.of(0, 3));
+        Mockito.when(accountLaneService.getBatchCount()).thenReturn(2L);
+        Mockito.when(accountLaneService.getBatchedCreditCount()).thenReturn(5L);
+        Mockito.when(accountLaneService.getLargestBatch()).thenReturn(4);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/transactions/lanes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.queue_depths", hasSize(2)))
+                .andExpect(jsonPath("$.largest_batch").value(4))
+                .andExpect(jsonPath("$.average_batch_size").value(2.5));
+    }
+
+    private TransactionSummary summaryOf(Transaction transaction) {
+        return new TransactionSummary(transaction.getId(), transaction.getUser().getUsername(),
+                transaction.getAccountSender().getIBAN(), transaction.getAccountReceiver().getIBAN(),
+                transaction.getAmount(), transaction.getCurrencyType(), transaction.getTimestamp(),
+                transaction.getMemo(), transaction.getTransactionType());
+    }
+
     @Test
     void getAllTransactionsShouldReturnATransaction() throws Exception {
         when(transactionService.getTransactions(Optional.empty(), Optional.empty(), new TransactionSearchRequest(Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty())))
-                .thenReturn(List.of(mockTransaction));
+                .thenReturn(List.of(summaryOf(mockTransaction)));
 
         Mockito.when(userService.getBearerUserRole()).thenReturn(Role.ADMIN);
 
@@ -155,6 +274,123 @@ class TransactionControllerTests {
                 .andExpect(jsonPath("$[0].receiver_iban").value("NL34INHO3870387379"));
     }
 
+    @Test
+    void getTransactionsWithCursorShouldReturnSliceAndNextCursor() throws Exception {
+        mockTransaction.setTimestamp(LocalDateTime.of(2023, 5, 1, 12, 0));
+        when(transactionService.getTransactionsAfter(Mockito.eq(Optional.of("")), Mockito.eq(Optional.of(1)), Mockito.any()))
+                .thenReturn(new SliceImpl<>(List.of(summaryOf(mockTransaction)), PageRequest.of(0, 1), true));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/transactions")
+                        .param("cursor", "")
+                        .param("limit", "1"))
+                .andExpect(status().is(200))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(header().string(PagingHeaders.NEXT_CURSOR,
+                        TransactionCursor.of(mockTransaction).encode()));
+
+        verify(transactionService, never()).getTransactions(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void getTransactionsWithCursorOnLastSliceShouldNotReturnNextCursor() throws Exception {
+        when(transactionService.getTransactionsAfter(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenReturn(new SliceImpl<>(List.of(summaryOf(mockTransaction)), PageRequest.of(0, 10), false));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/transactions")
+                        .param("cursor", "MjAyMy0wNS0wMVQxMjowMHwx"))
+                .andExpect(status().is(200))
+                .andExpect(header().doesNotExist(PagingHeaders.NEXT_CURSOR));
+    }
+
+    @Test
+    void getTransactionsShouldOnlyCountWhenAsked() throws Exception {
+        when(transactionService.getTransactions(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(List.of(summaryOf(mockTransaction)));
+        when(transactionService.countTransactions(Mockito.any())).thenReturn(42L);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/transactions"))
+                .andExpect(status().is(200))
+                .andExpect(header().doesNotExist(PagingHeaders.TOTAL_COUNT));
+        verify(transactionService, never()).countTransactions(Mockito.any());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/transactions").param("withTotalCount", "true"))
+                .andExpect(status().is(200))
+                .andExpect(header().string(PagingHeaders.TOTAL_COUNT, "42"));
+    }
+
+    private void exportTransactions(TransactionSummary... transactions) throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Consumer<TransactionSummary> consumer = invocation.getArgument(1);
+            for (TransactionSummary transaction : transactions) {
+                consumer.accept(transaction);
+            }
+            return null;
+        }).when(transactionService).exportTransactions(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void exportTransactionsShouldWriteCsvByDefault() throws Exception {
+        TransactionSummary transfer = new TransactionSummary(1, "user", "NL11INHO6847043768", "NL34INHO3870387379", 10000,
+                CurrencyType.EURO, LocalDateTime.of(2023, 5, 1, 12, 0), null,
+                TransactionType.TRANSACTION);
+        TransactionSummary deposit = new TransactionSummary(2, "user", null, "NL34INHO3870387379", 1250,
+                CurrencyType.EURO, LocalDateTime.of(2023, 5, 2, 12, 0), "\"rent\", May", TransactionType.DEPOSIT);
+        exportTransactions(transfer, deposit);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/transactions/export"))
+                .andExpect(status().is(200))
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string(
+                        "id,username,sender_iban,receiver_iban,amount,currency_type,timestamp,description,transaction_type\n"
+                                + "1,user,NL11INHO6847043768,NL34INHO3870387379,100.00,EURO,2023-05-01T12:00,"
+                                + "Transferred 100.00 EURO to NL34INHO3870387379,TRANSACTION\n"
+                                + "2,user,,NL34INHO3870387379,12.50,EURO,2023-05-02T12:00,\"Deposited 12.50 EURO ('\"\"rent\"\", May')\",DEPOSIT\n"));
+    }
+
+    @Test
+    void exportTransactionsAsNdjsonShouldWriteOneTransactionPerLine() throws Exception {
+        exportTransactions(summaryOf(mockTransaction), summaryOf(mockTransaction));
+
+        String body = mockMvc.perform(MockMvcRequestBuilders.get("/transactions/export").param("format", "ndjson"))
+                .andExpect(status().is(200))
+                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertEquals(1, mapper.readTree(lines[0]).get("id").asInt());
+        Assertions.assertEquals("NL11INHO6847043768", mapper.readTree(lines[1]).get("sender_iban").asText());
+    }
+
+    @Test
+    void exportTransactionsWithoutTransactionsShouldOnlyWriteCsvHeader() throws Exception {
+        exportTransactions();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/transactions/export").param("format", "csv"))
+                .andExpect(status().is(200))
+                .andExpect(content().string(
+                        "id,username,sender_iban,receiver_iban,amount,currency_type,timestamp,description,transaction_type\n"));
+    }
+
+    @Test
+    void exportTransactionsWithUnknownFormatShouldReturn400() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/transactions/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+
+        verify(transactionService, never()).exportTransactions(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void exportTransactionsWhenSearchIsInvalidShouldReturnJsonError() throws Exception {
+        Mockito.doThrow(new IllegalArgumentException("Invalid transaction type"))
+                .when(transactionService).exportTransactions(Mockito.any(), Mockito.any());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/transactions/export").param("transactionType", "GIFT"))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist("Content-Disposition"))
+                .andExpect(jsonPath("$.error_message").value("Invalid transaction type"));
+    }
+
     @Test
     void depositMoneyShouldBeSuccessfulAndReturn201() throws Exception {
         when(transactionService.depositMoney(mockWithdrawDepositRequest)).thenReturn(mockTransaction);
@@ -67,14 +67,14 @@ class UserControllerTests {
         mockUser.setBsn("123456782");
 
         Limits limits = new Limits();
-        limits.setTransactionLimit(1000);
-        limits.setDailyTransactionLimit(1000);
-        limits.setRemainingDailyTransactionLimit(1000);
+        limits.setTransactionLimit(100000);
+        limits.setDailyTransactionLimit(100000);
+        limits.setRemainingDailyTransactionLimit(100000);
         mockUser.setLimits(limits);
 
         Account currentAccount = new Account();
         currentAccount.setType(AccountType.CURRENT);
-        currentAccount.setBalance(1000);
+        currentAccount.setBalance(100000);
         currentAccount.setIBAN("NL62INHO2395766879");
         currentAccount.setUser(mockUser);
         currentAccount.setId(1);
@@ -85,7 +85,7 @@ class UserControllerTests {
 
         Account savingAccount = new Account();
         savingAccount.setType(AccountType.SAVING);
-        savingAccount.setBalance(1000);
+        savingAccount.setBalance(100000);
         savingAccount.setIBAN("NL04INHO2539494278");
         savingAccount.setUser(mockUser);
         savingAccount.setId(1);
@@ -95,7 +95,7 @@ class UserControllerTests {
 
         mockUserRequest = new UserRequest("email@ex.com", "user", "Password1!", "Firstly", "Fister", "820510026", "0612345678", "2000-09-08");
         mockUserForAdminRequest = new UserForAdminRequest("email@mail.com", "user2", "Password1!", "Firstly", "Fister", "820510026", "0612345678", "2000-09-08", "employee");
-        mockUserLimitsRequest = new UserLimitsRequest(1000, 1000);
+        mockUserLimitsRequest = new UserLimitsRequest(100000, 100000);
     }
 
     @Test
@@ -114,6 +114,24 @@ class UserControllerTests {
                 .andExpect(jsonPath("$[0].role").exists());
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = { "ADMIN" })
+    void gettingAllUsersShouldOnlyCountWhenAsked() throws Exception {
+        Mockito.when(userService.getAllUsers(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenReturn(List.of(mockUser));
+        Mockito.when(userService.countUsers(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(7L);
+        Mockito.when(userService.getBearerUserRole()).thenReturn(Role.ADMIN);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().doesNotExist(PagingHeaders.TOTAL_COUNT));
+        Mockito.verify(userService, Mockito.never()).countUsers(Mockito.any(), Mockito.any(), Mockito.any());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users").param("withTotalCount", "true"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string(PagingHeaders.TOTAL_COUNT, "7"));
+    }
+
     @Test
     @WithMockUser(username = "user" )
     void gettingAllUsersAsUserShouldReturnListWithOneUser() throws Exception {
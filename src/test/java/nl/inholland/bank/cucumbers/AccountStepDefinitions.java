@@ -6,6 +6,7 @@ import io.cucumber.java.en.And;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.When;
 import io.jsonwebtoken.lang.Assert;
+import nl.inholland.bank.models.Money;
 import nl.inholland.bank.models.dtos.AccountDTO.AccountAbsoluteLimitRequest;
 import nl.inholland.bank.models.dtos.AccountDTO.AccountRequest;
 import nl.inholland.bank.models.dtos.AccountDTO.AccountResponse;
@@ -88,7 +89,7 @@ public class AccountStepDefinitions extends BaseStepDefinitions{
     @Given("I call the application accounts end point with absoluteLimit {double} with userId {int}, accountId {int}")
     public void iCallTheApplicationAccountsEndPointWithAbsoluteLimitWithUserIdAccountId(double absoluteLimit, int userId, int accountId) {
         AccountAbsoluteLimitRequest accountAbsoluteLimitRequest = new AccountAbsoluteLimitRequest(
-                absoluteLimit
+                Money.toCents(absoluteLimit)
         );
 
         headers.setContentType(MediaType.APPLICATION_JSON);
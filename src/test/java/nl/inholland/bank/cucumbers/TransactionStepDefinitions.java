@@ -3,6 +3,7 @@ package nl.inholland.bank.cucumbers;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.When;
 import nl.inholland.bank.models.CurrencyType;
+import nl.inholland.bank.models.Money;
 import nl.inholland.bank.models.dtos.TransactionDTO.TransactionRequest;
 import nl.inholland.bank.models.dtos.TransactionDTO.TransactionSearchRequest;
 import nl.inholland.bank.models.dtos.TransactionDTO.WithdrawDepositRequest;
@@ -44,7 +45,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions{
         LocalDateTime endDateTimeConverted = LocalDateTime.parse(endDateTime, formatter);
 
         TransactionSearchRequest request = new TransactionSearchRequest(
-                Optional.of(minAmount), Optional.of(maxAmount), Optional.of(startDateTimeConverted), Optional.of(endDateTimeConverted),
+                Optional.of(Money.toCents(minAmount)), Optional.of(Money.toCents(maxAmount)), Optional.of(startDateTimeConverted), Optional.of(endDateTimeConverted),
                 Optional.of(transactionID), Optional.of(ibanSender), Optional.of(ibanReceiver),
                 Optional.of(userSenderID), Optional.of(userReceiverID), Optional.of(transactionType)
         );
@@ -68,7 +69,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions{
         TransactionRequest transactionRequest = new TransactionRequest(
                 sender_iban,
                 receiver_iban,
-                amount,
+                Money.toCents(amount),
                 description
         );
 
@@ -96,7 +97,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions{
 
         WithdrawDepositRequest withdrawDepositRequest = new WithdrawDepositRequest(
                 iban,
-                amount,
+                Money.toCents(amount),
                 currency
         );
 
@@ -120,7 +121,7 @@ public class TransactionStepDefinitions extends BaseStepDefinitions{
 
         WithdrawDepositRequest withdrawDepositRequest = new WithdrawDepositRequest(
                 iban,
-                amount,
+                Money.toCents(amount),
                 currency
         );
 
@@ -46,7 +46,7 @@ class AccountTest {
     @Test
     public void setBalance_PositiveBalance_SetsBalance() {
         // Arrange
-        double positiveBalance = 1000;
+        long positiveBalance = 100000;
 
         // Act
         account.setBalance(positiveBalance);
@@ -55,17 +55,6 @@ class AccountTest {
         Assertions.assertEquals(positiveBalance, account.getBalance());
     }
 
-    @Test
-    public void balanceCannotBeNaN() {
-        // Arrange
-        double nanBalance = Double.NaN;
-
-        // Act & Assert
-        Assertions.assertThrows(IllegalArgumentException.class, () -> {
-            account.setBalance(nanBalance);
-        });
-    }
-
     @Test
     public void setCurrencyType_NullCurrencyType_ThrowsIllegalArgumentException() {
         // Arrange
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDateTime;
+
 class BlacklistedRefreshTokenTests {
 
     private BlacklistedRefreshToken blacklistedRefreshToken;
@@ -11,21 +13,21 @@ class BlacklistedRefreshTokenTests {
     @BeforeEach
     public void setUp() {
         blacklistedRefreshToken = new BlacklistedRefreshToken();
-        blacklistedRefreshToken.setToken("token");
+        blacklistedRefreshToken.setTokenHash("hash");
     }
 
     @Test
-    void settingTokenShouldWork() {
-        blacklistedRefreshToken.setToken("token");
-        Assertions.assertEquals("token", blacklistedRefreshToken.getToken());
+    void settingTokenHashShouldWork() {
+        blacklistedRefreshToken.setTokenHash("hash");
+        Assertions.assertEquals("hash", blacklistedRefreshToken.getTokenHash());
 
-        blacklistedRefreshToken = new BlacklistedRefreshToken("token");
-        Assertions.assertEquals("token", blacklistedRefreshToken.getToken());
+        blacklistedRefreshToken = new BlacklistedRefreshToken("hash", LocalDateTime.of(2023, 6, 10, 18, 25));
+        Assertions.assertEquals("hash", blacklistedRefreshToken.getTokenHash());
     }
 
     @Test
-    void settingAndGettingIdShouldWork() {
-        blacklistedRefreshToken.setId(1);
-        Assertions.assertEquals(1, blacklistedRefreshToken.getId());
+    void settingAndGettingBlacklistedAtShouldWork() {
+        blacklistedRefreshToken.setBlacklistedAt(LocalDateTime.of(2023, 6, 10, 18, 25));
+        Assertions.assertEquals(LocalDateTime.of(2023, 6, 10, 18, 25), blacklistedRefreshToken.getBlacklistedAt());
     }
 }
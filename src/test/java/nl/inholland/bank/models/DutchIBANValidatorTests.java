@@ -0,0 +1,68 @@
+package nl.inholland.bank.models;
+
+import org.apache.commons.validator.routines.IBANValidator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DutchIBANValidatorTests {
+    @Test
+    void isValid_WithValidIBANOfThisBank_ShouldReturnTrue() {
+        assertTrue(DutchIBANValidator.isValid("NL10INHO6628932884"));
+    }
+
+    @Test
+    void isValid_WithValidIBANOfOtherDutchBank_ShouldReturnTrue() {
+        assertTrue(DutchIBANValidator.isValid("NL91ABNA0417164300"));
+    }
+
+    @Test
+    void isValid_WithWrongCheckDigits_ShouldReturnFalse() {
+        assertFalse(DutchIBANValidator.isValid("NL11INHO6628932884"));
+        assertFalse(DutchIBANValidator.isValid("NL00INHO0000000000"));
+    }
+
+    @Test
+    void isValid_WithWrongStructure_ShouldReturnFalse() {
+        assertFalse(DutchIBANValidator.isValid("NL10INHO662893288"));
+        assertFalse(DutchIBANValidator.isValid("NL10INHO66289328845"));
+        assertFalse(DutchIBANValidator.isValid("NL10IN1O6628932884"));
+        assertFalse(DutchIBANValidator.isValid("NL10INHO662893288A"));
+        assertFalse(DutchIBANValidator.isValid("nl10inho6628932884"));
+        assertFalse(DutchIBANValidator.isValid(""));
+        assertFalse(DutchIBANValidator.isValid(null));
+    }
+
+    @Test
+    void isValid_WithValidIBANOfOtherCountry_ShouldReturnFalse() {
+        assertFalse(DutchIBANValidator.isValid("DE89370400440532013000"));
+    }
+
+    @Test
+    void isValid_CalledAgain_ShouldReturnSameResult() {
+        assertTrue(DutchIBANValidator.isValid("NL89INHO9277178029"));
+        assertTrue(DutchIBANValidator.isValid("NL89INHO9277178029"));
+        assertFalse(DutchIBANValidator.isValid("NL10INHO6628923423"));
+        assertFalse(DutchIBANValidator.isValid("NL10INHO6628923423"));
+    }
+
+    @Test
+    void isValidWithoutCache_ShouldAgreeWithCommonsValidator() {
+        IBANValidator ibanValidator = new IBANValidator();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 1000; i++) {
+            String iban = IBANGenerator.generateIBAN().toString();
+            assertTrue(DutchIBANValidator.isValidWithoutCache(iban), iban);
+
+            // Change one digit, which breaks the check digits most of the time.
+            char[] changed = iban.toCharArray();
+            int position = 8 + random.nextInt(10);
+            changed[position] = (char) ('0' + random.nextInt(10));
+            String changedIban = new String(changed);
+            assertEquals(ibanValidator.isValid(changedIban), DutchIBANValidator.isValidWithoutCache(changedIban), changedIban);
+        }
+    }
+}
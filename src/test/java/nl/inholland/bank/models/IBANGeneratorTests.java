@@ -16,6 +16,30 @@ class IBANGeneratorTests {
         assertTrue(iban.toString().startsWith("NL"));
     }
 
+    @Test
+    void createIBAN_ShouldReturnValidIBANWithAccountNumber() {
+        // Act
+        String iban = IBANGenerator.createIBAN(1000);
+
+        // Assert
+        assertEquals("NL96INHO0000001000", iban);
+        assertTrue(IBANGenerator.isValidIBAN(iban));
+    }
+
+    @Test
+    void createIBAN_ShouldAgreeWithGeneratedIBANs() {
+        for (int i = 0; i < 1000; i++) {
+            String iban = IBANGenerator.generateIBAN().toString();
+            assertEquals(iban, IBANGenerator.createIBAN(Long.parseLong(iban.substring(8))));
+        }
+    }
+
+    @Test
+    void createIBAN_WithAccountNumberOutOfRange_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> IBANGenerator.createIBAN(-1));
+        assertThrows(IllegalArgumentException.class, () -> IBANGenerator.createIBAN(10_000_000_000L));
+    }
+
     @Test
     void isValidIBAN_WithValidBankIBAN_ShouldReturnTrue() {
         // Arrange
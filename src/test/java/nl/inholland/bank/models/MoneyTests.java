@@ -0,0 +1,51 @@
+package nl.inholland.bank.models;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MoneyTests {
+    @Test
+    void eurosAreConvertedToCents() {
+        Assertions.assertEquals(10000, Money.toCents(100));
+        Assertions.assertEquals(1250, Money.toCents(12.5));
+        Assertions.assertEquals(-5, Money.toCents(-0.05));
+    }
+
+    @Test
+    void eurosThatAreNotExactAsDoubleAreConvertedToCents() {
+        Assertions.assertEquals(10, Money.toCents(0.1));
+        Assertions.assertEquals(30, Money.toCents(0.1 + 0.2));
+        Assertions.assertEquals(1999, Money.toCents(19.99));
+        Assertions.assertEquals(123456789012L, Money.toCents(1234567890.12));
+    }
+
+    @Test
+    void noMoreThan2Decimals() {
+        Exception exception = Assertions.assertThrows(IllegalArgumentException.class, () -> Money.toCents(100.123));
+
+        Assertions.assertEquals("Amount can not have more than two decimals.", exception.getMessage());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Money.toCents(0.001));
+    }
+
+    @Test
+    void amountsThatAreNotNumbersOrDoNotFitAreRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Money.toCents(Double.NaN));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Money.toCents(Double.POSITIVE_INFINITY));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Money.toCents(1e17));
+    }
+
+    @Test
+    void centsAreConvertedToEuros() {
+        Assertions.assertEquals(12.5, Money.toEuros(1250));
+        Assertions.assertEquals(0.1, Money.toEuros(10));
+    }
+
+    @Test
+    void centsAreFormattedWithTwoDecimals() {
+        Assertions.assertEquals("1234.50", Money.format(123450));
+        Assertions.assertEquals("0.05", Money.format(5));
+        Assertions.assertEquals("-0.05", Money.format(-5));
+        Assertions.assertEquals("-12.00", Money.format(-1200));
+        Assertions.assertEquals("-92233720368547758.08", Money.format(Long.MIN_VALUE));
+    }
+}
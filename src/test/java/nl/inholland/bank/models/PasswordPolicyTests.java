@@ -0,0 +1,92 @@
+package nl.inholland.bank.models;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+class PasswordPolicyTests {
+    // The regular expressions the policy used to be checked with, the scanner has to accept exactly the same passwords.
+    private static final Pattern REPEATING = Pattern.compile("(.)\\1+");
+    private static final Pattern RULES = Pattern.compile("^(?=.*[0-9])(?=.*[a-z])(?=.*[A-Z])(?=.*[!@#$%^&*()_+-={}:;'\",./<>?]).{8,}$");
+
+    // Every kind of character the rules care about, including the ones the old expression treated differently.
+    private static final String[] CHARACTERS = {
+            "a", "z", "A", "Z", "0", "9", "!", "?", "+", "-", "=", ".", "<", "{", "'", "\"", "~", "[", "`", "|", " ",
+            "\t", "\n", "\r", "\u0085", "\u2028", "\u2029", "é", "É", "٣", "€", "😀", "\uD83D", "\uDE00"
+    };
+
+    private static boolean acceptedByRegex(String password) {
+        return password != null && password.length() >= 8
+                && !REPEATING.matcher(password).matches() && RULES.matcher(password).matches();
+    }
+
+    @Test
+    void validPasswordsAreAccepted() {
+        Assertions.assertTrue(PasswordPolicy.isSatisfiedBy("Password123!"));
+        Assertions.assertTrue(PasswordPolicy.isSatisfiedBy("aB3$aB3$"));
+    }
+
+    @Test
+    void passwordsMissingACharacterClassAreRejected() {
+        Assertions.assertFalse(PasswordPolicy.isSatisfiedBy("password123!"));
+        Assertions.assertFalse(PasswordPolicy.isSatisfiedBy("PASSWORD123!"));
+        Assertions.assertFalse(PasswordPolicy.isSatisfiedBy("Password!!!"));
+        Assertions.assertFalse(PasswordPolicy.isSatisfiedBy("Password~~~"));
+    }
+
+    @Test
+    void digitsCountAsSpecialCharacters() {
+        Assertions.assertTrue(PasswordPolicy.isSatisfiedBy("Password1"));
+    }
+
+    @Test
+    void shortOrMissingPasswordsAreRejected() {
+        Assertions.assertFalse(PasswordPolicy.isSatisfiedBy(null));
+        Assertions.assertFalse(PasswordPolicy.isSatisfiedBy(""));
+        Assertions.assertFalse(PasswordPolicy.isSatisfiedBy("Pa1!Pa1"));
+        Assertions.assertFalse(PasswordPolicy.isSatisfiedBy("aaaaaaaaaaaaa"));
+    }
+
+    @Test
+    void passwordsWithLineBreaksAreRejected() {
+        Assertions.assertFalse(PasswordPolicy.isSatisfiedBy("Password123!\n"));
+        Assertions.assertFalse(PasswordPolicy.isSatisfiedBy("Pass\u2028word123!"));
+    }
+
+    @Test
+    void charactersOutsideTheBasicPlaneCountOnce() {
+        Assertions.assertFalse(PasswordPolicy.isSatisfiedBy("aA1!😀😀"));
+        Assertions.assertTrue(PasswordPolicy.isSatisfiedBy("aA1!😀😀xxxx"));
+    }
+
+    @Test
+    void acceptsTheSamePasswordsAsTheRegularExpressions() {
+        Random random = new Random(22);
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(14);
+            for (int j = 0; j < length; j++) {
+                builder.append(CHARACTERS[random.nextInt(CHARACTERS.length)]);
+            }
+            String password = builder.toString();
+
+            Assertions.assertEquals(acceptedByRegex(password), PasswordPolicy.isSatisfiedBy(password), password);
+        }
+    }
+
+    @Test
+    void acceptsTheSamePasswordsAsTheRegularExpressionsForAnyAsciiCharacter() {
+        Random random = new Random(8);
+        for (int i = 0; i < 200_000; i++) {
+            char[] password = new char[8 + random.nextInt(4)];
+            for (int j = 0; j < password.length; j++) {
+                password[j] = (char) random.nextInt(128);
+            }
+
+            String value = new String(password);
+            Assertions.assertEquals(acceptedByRegex(value), PasswordPolicy.isSatisfiedBy(value), value);
+        }
+    }
+}
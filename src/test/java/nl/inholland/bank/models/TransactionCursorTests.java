@@ -0,0 +1,30 @@
+package nl.inholland.bank.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionCursorTests {
+    @Test
+    void decode_WithEncodedCursor_ShouldReturnSamePosition() {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2023, 5, 1, 12, 30, 15, 123456000), 42);
+
+        assertEquals(cursor, TransactionCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void encode_ShouldBeSafeInUrls() {
+        String encoded = new TransactionCursor(LocalDateTime.of(2023, 5, 1, 12, 30), 7).encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+    }
+
+    @Test
+    void decode_WithInvalidCursor_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode("bm8gc2VwYXJhdG9y"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode(""));
+    }
+}
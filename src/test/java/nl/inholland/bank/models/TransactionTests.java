@@ -13,7 +13,7 @@ class TransactionTests {
         User user = new User();
         Account accountSender = new Account();
         Account accountReceiver = new Account();
-        double amount = 100.0;
+        long amount = 10000;
         CurrencyType currencyType = CurrencyType.EURO;
         TransactionType transactionType = TransactionType.DEPOSIT;
 
@@ -34,14 +34,14 @@ class TransactionTests {
     @Test
     void testSetAmount_ValidAmount_Success() {
         Transaction transaction = new Transaction();
-        transaction.setAmount(100.0);
-        assertEquals(100.0, transaction.getAmount());
+        transaction.setAmount(10000);
+        assertEquals(10000, transaction.getAmount());
     }
 
     @Test
     void testSetAmount_NegativeAmount_ThrowsException() {
         Transaction transaction = new Transaction();
-        assertThrows(IllegalArgumentException.class, () -> transaction.setAmount(-50.0));
+        assertThrows(IllegalArgumentException.class, () -> transaction.setAmount(-5000));
     }
 
     @Test
@@ -132,13 +132,13 @@ class TransactionTests {
     }
 
     @Test
-    void setDescription() {
+    void setMemo() {
         // Create test data
         String description = "Test description";
         Transaction transaction = new Transaction();
 
         // Set the description
-        transaction.setDescription(description);
+        transaction.setMemo(description);
 
         String descriptionText = transaction.getDescription().replace('.', ',');
 
@@ -147,7 +147,7 @@ class TransactionTests {
     }
 
     @Test
-    void setDescriptionTransaction() {
+    void setMemoTransaction() {
         // Create test data
         String description = "Test description";
         Transaction transaction = new Transaction();
@@ -157,7 +157,7 @@ class TransactionTests {
         transaction.setAccountReceiver(receiver);
 
         // Set the description
-        transaction.setDescription(description);
+        transaction.setMemo(description);
 
         String descriptionResult = transaction.getDescription();
         descriptionResult = descriptionResult.replace('.', ',');
@@ -165,7 +165,7 @@ class TransactionTests {
     }
 
     @Test
-    void setDescriptionDeposit() {
+    void setMemoDeposit() {
         // Create test data
         String description = "Test description";
         Transaction transaction = new Transaction();
@@ -175,7 +175,7 @@ class TransactionTests {
         transaction.setAccountReceiver(receiver);
 
         // Set the description
-        transaction.setDescription(description);
+        transaction.setMemo(description);
 
         String descriptionText = transaction.getDescription().replace('.', ',');
 
@@ -184,11 +184,32 @@ class TransactionTests {
     }
 
     @Test
-    void noMoreThan2Decimals() {
-        // Create test data
+    void emptyMemoIsNotStoredOrRendered() {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionType(TransactionType.DEPOSIT);
+        transaction.setCurrencyType(CurrencyType.EURO);
+        transaction.setAmount(1250);
+
+        transaction.setMemo("");
+
+        assertNull(transaction.getMemo());
+        assertEquals("Deposited 12.50 EURO", transaction.getDescription());
+    }
+
+    @Test
+    void descriptionIsRenderedFromCurrentColumns() {
         Transaction transaction = new Transaction();
+        transaction.setTransactionType(TransactionType.TRANSACTION);
+        transaction.setCurrencyType(CurrencyType.EURO);
+        transaction.setAmount(5);
+        Account receiver = new Account();
+        receiver.setIBAN("NL01INHO0000000001");
+        transaction.setAccountReceiver(receiver);
+        transaction.setMemo("rent");
 
-        assertThrows(IllegalArgumentException.class, () -> transaction.setAmount(100.123));
+        assertEquals("Transferred 0.05 EURO to NL01INHO0000000001 ('rent')", transaction.getDescription());
+        assertEquals(transaction.getDescription(), new TransactionSummary(1, "user", null, "NL01INHO0000000001", 5,
+                CurrencyType.EURO, null, "rent", TransactionType.TRANSACTION).description());
     }
 
     @Test
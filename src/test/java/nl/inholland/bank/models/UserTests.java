@@ -62,6 +62,16 @@ class UserTests {
         Assertions.assertEquals("Phone number must only contain numbers", exception.getMessage());
     }
 
+    @Test
+    void phoneNumbersMayStartWithASinglePlusSign() {
+        user.setPhoneNumber("+316123456");
+        Assertions.assertEquals("+316123456", user.getPhoneNumber());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> user.setPhoneNumber("++3161234"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> user.setPhoneNumber("0612+34567"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> user.setPhoneNumber("+"));
+    }
+
     @Test
     void localPhoneNumbersCannotBeLongerThan10Digits() {
         Exception exception = Assertions.assertThrows(IllegalArgumentException.class, () -> {
@@ -8,7 +8,7 @@ class AccountDTOsTests {
 
     @Test
     void settingAccountResponse() {
-        AccountResponse accountResponse = new AccountResponse(1, "IBAN", "EURO", "SAVING", false, 0d, 0, "firstName", "lastName");
+        AccountResponse accountResponse = new AccountResponse(1, "IBAN", "EURO", "SAVING", false, 0, 0, "firstName", "lastName");
         Assertions.assertEquals("IBAN", accountResponse.IBAN());
         Assertions.assertEquals("EURO", accountResponse.currency_type());
         Assertions.assertEquals("SAVING", accountResponse.account_type());
@@ -1,5 +1,6 @@
 package nl.inholland.bank.models.dtos;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import nl.inholland.bank.models.CurrencyType;
 import nl.inholland.bank.models.TransactionType;
 import nl.inholland.bank.models.dtos.TransactionDTO.TransactionRequest;
@@ -23,6 +24,17 @@ class TransactionDTOsTests {
         Assertions.assertEquals("description", transactionRequest.description());
     }
 
+    @Test
+    void transactionRequestAmountIsEurosInJson() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        TransactionRequest transactionRequest = new TransactionRequest("senderiban", "reiceiveriban", 1250, "description");
+
+        String json = mapper.writeValueAsString(transactionRequest);
+
+        Assertions.assertTrue(json.contains("\"amount\":12.5"));
+        Assertions.assertEquals(transactionRequest, mapper.readValue(json, TransactionRequest.class));
+    }
+
     @Test
     void transactionResponse() {
         TransactionResponse transactionResponse = new TransactionResponse(1, "username", "senderiban", "reiceiveriban", 100, CurrencyType.EURO, LocalDateTime.of(2023, 6, 10, 18, 25, 0), "description", TransactionType.TRANSACTION);
@@ -41,19 +53,19 @@ class TransactionDTOsTests {
 
     @Test
     void transactionSearchRequest() {
-        /*record TransactionSearchRequest(Optional<Double> minAmount, Optional<Double> maxAmount,
+        /*record TransactionSearchRequest(Optional<Long> minAmount, Optional<Long> maxAmount,
                                Optional<LocalDateTime> startDate, Optional<LocalDateTime> endDate,
                                Optional<Integer> transactionID,
                                Optional<String> ibanSender, Optional<String> ibanReceiver,
                                Optional<Integer> userSenderId, Optional<Integer> userReceiverId,
                                Optional<String> transactionType)*/
-        TransactionSearchRequest transactionSearchRequest = new TransactionSearchRequest(Optional.of(0d), Optional.of(100d),
+        TransactionSearchRequest transactionSearchRequest = new TransactionSearchRequest(Optional.of(0L), Optional.of(10000L),
 Optional.of(LocalDateTime.of(2023, 6, 10, 18, 25, 0)), Optional.of(LocalDateTime.of(2023, 6, 10, 18, 25, 0)),
                 Optional.of(1), Optional.of("senderiban"), Optional.of("reiceiveriban"),
                 Optional.of(1), Optional.of(1), Optional.of("transactionType"));
 
-        Assertions.assertEquals(Optional.of(0d), transactionSearchRequest.minAmount());
-        Assertions.assertEquals(Optional.of(100d), transactionSearchRequest.maxAmount());
+        Assertions.assertEquals(Optional.of(0L), transactionSearchRequest.minAmount());
+        Assertions.assertEquals(Optional.of(10000L), transactionSearchRequest.maxAmount());
         Assertions.assertEquals(Optional.of(LocalDateTime.of(2023, 6, 10, 18, 25, 0)), transactionSearchRequest.startDate());
         Assertions.assertEquals(Optional.of(LocalDateTime.of(2023, 6, 10, 18, 25, 0)), transactionSearchRequest.endDate());
         Assertions.assertEquals(Optional.of(1), transactionSearchRequest.transactionID());
@@ -8,7 +8,7 @@ import org.junit.jupiter.api.Test;
 class UserDTOsTests {
     @Test
     void settingUserResponse() {
-        UserResponse userResponse = new UserResponse(1, "username", "email", "username", "lastname", "1234", "phone", "2000", 0d, "role", new AccountResponse(0, "bian", "eur", "a", false, 0, 0, "firstName", "lastName"), null, true);
+        UserResponse userResponse = new UserResponse(1, "username", "email", "username", "lastname", "1234", "phone", "2000", 0L, "role", new AccountResponse(0, "bian", "eur", "a", false, 0, 0, "firstName", "lastName"), null, true);
         Assertions.assertEquals("username", userResponse.firstname());
         Assertions.assertEquals("email", userResponse.email());
         Assertions.assertEquals("role", userResponse.role());
@@ -1,5 +1,7 @@
 package nl.inholland.bank.repositories;
 
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
 import nl.inholland.bank.configuration.ApiTestConfiguration;
 import nl.inholland.bank.models.*;
 import org.junit.jupiter.api.Assertions;
@@ -13,9 +15,11 @@ import org.springframework.data.repository.query.FluentQuery;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 @ExtendWith(SpringExtension.class)
 @Import(ApiTestConfiguration.class)
@@ -29,10 +33,10 @@ class TransactionRepositoryTests {
                 setUser(new User());
                 setAccountSender(new Account());
                 setAccountReceiver(new Account());
-                setAmount(50.00);
+                setAmount(5000);
                 setCurrencyType(CurrencyType.EURO);
                 setTransactionType(TransactionType.TRANSACTION);
-                setDescription("Transaction");
+                setMemo("Transaction");
             }
         };
 
@@ -43,10 +47,10 @@ class TransactionRepositoryTests {
                 setUser(new User());
                 setAccountSender(new Account());
                 setAccountReceiver(new Account());
-                setAmount(10.00);
+                setAmount(1000);
                 setCurrencyType(CurrencyType.EURO);
                 setTransactionType(TransactionType.DEPOSIT);
-                setDescription("Transaction");
+                setMemo("Transaction");
             }
         };
 
@@ -57,13 +61,30 @@ class TransactionRepositoryTests {
                 setUser(new User());
                 setAccountSender(new Account());
                 setAccountReceiver(new Account());
-                setAmount(60.00);
+                setAmount(6000);
                 setCurrencyType(CurrencyType.EURO);
                 setTransactionType(TransactionType.WITHDRAWAL);
-                setDescription("Transaction");
+                setMemo("Transaction");
             }
         };
 
+        @Override
+        public Slice<Transaction> findSlice(Specification<Transaction> specification, Pageable pageable) {
+            return new SliceImpl<>(List.of(transaction, deposit, withdrawal));
+        }
+
+        @Override
+        public <R> Slice<R> findSlice(Specification<Transaction> specification, Pageable pageable, Class<R> projection,
+                                      Function<Root<Transaction>, List<Selection<?>>> selection) {
+            return new SliceImpl<>(List.of());
+        }
+
+        @Override
+        public <R> Stream<R> streamAll(Specification<Transaction> specification, Sort sort, Class<R> projection,
+                                       Function<Root<Transaction>, List<Selection<?>>> selection, int fetchSize) {
+            return Stream.empty();
+        }
+
         @Override
         public <S extends Transaction> S save(S entity) {
             return null;
@@ -168,12 +189,47 @@ class TransactionRepositoryTests {
         public List<Transaction> findAllByTimestampIsAfterAndUserId(LocalDateTime start, int userId) {
             return null;
         }
+
+        @Override
+        public List<AccountTotals> sumReceivedByAccount(Collection<Integer> accountIds, LocalDateTime start, LocalDateTime end) {
+            return null;
+        }
+
+        @Override
+        public List<AccountTotals> sumSentByAccount(Collection<Integer> accountIds, LocalDateTime start, LocalDateTime end) {
+            return null;
+        }
+
+        @Override
+        public long sumReceivedBetween(int accountId, LocalDateTime fromTimestamp, int fromId, LocalDateTime toTimestamp, int toId) {
+            return 0;
+        }
+
+        @Override
+        public long sumSentBetween(int accountId, LocalDateTime fromTimestamp, int fromId, LocalDateTime toTimestamp, int toId) {
+            return 0;
+        }
+
+        @Override
+        public List<Transaction> findPendingCredits(int accountId) {
+            return List.of();
+        }
+
+        @Override
+        public long sumPendingCredits(int accountId) {
+            return 0;
+        }
+
+        @Override
+        public long getBalanceAfter(int accountId, int transactionId) {
+            return 0;
+        }
     };
 
     @Test
     void findAllTransactionsTest() {
-        double minAmount = 10.0;
-        double maxAmount = 100.0;
+        long minAmount = 1000;
+        long maxAmount = 10000;
         LocalDateTime startDate = LocalDateTime.now().minusDays(7);
         LocalDateTime endDate = LocalDateTime.now();
         int transactionID = 0;
@@ -188,8 +244,8 @@ class TransactionRepositoryTests {
 
     @Test
     void findAllTransactionsByTransactionIDTest() {
-        double minAmount = 10.0;
-        double maxAmount = 100.0;
+        long minAmount = 1000;
+        long maxAmount = 10000;
         LocalDateTime startDate = LocalDateTime.now().minusDays(7);
         LocalDateTime endDate = LocalDateTime.now();
         int transactionID = 1;
@@ -208,8 +264,8 @@ class TransactionRepositoryTests {
 
     @Test
     void findAllTransactionsTestByIBAN() {
-        double minAmount = 10.0;
-        double maxAmount = 100.0;
+        long minAmount = 1000;
+        long maxAmount = 10000;
         LocalDateTime startDate = LocalDateTime.now().minusDays(7);
         LocalDateTime endDate = LocalDateTime.now();
         int transactionID = 0;
@@ -228,8 +284,8 @@ class TransactionRepositoryTests {
 
     @Test
     void findAllTransactionsTestByUsers() {
-        double minAmount = 10.0;
-        double maxAmount = 100.0;
+        long minAmount = 1000;
+        long maxAmount = 10000;
         LocalDateTime startDate = LocalDateTime.now().minusDays(7);
         LocalDateTime endDate = LocalDateTime.now();
         int transactionID = 0;
@@ -1,5 +1,7 @@
 package nl.inholland.bank.repositories;
 
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
 import nl.inholland.bank.configuration.ApiTestConfiguration;
 import nl.inholland.bank.models.Role;
 import nl.inholland.bank.models.User;
@@ -12,12 +14,19 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @ExtendWith(SpringExtension.class)
 @Import(ApiTestConfiguration.class)
@@ -49,6 +58,48 @@ class UserRepositoryTests {
             return Optional.empty();
         }
 
+        @Override
+        public Slice<User> findSlice(Specification<User> specification, Pageable pageable) {
+            return new SliceImpl<>(List.of(user));
+        }
+
+        @Override
+        public <R> Slice<R> findSlice(Specification<User> specification, Pageable pageable, Class<R> projection,
+                                      Function<Root<User>, List<Selection<?>>> selection) {
+            return new SliceImpl<>(List.of());
+        }
+
+        @Override
+        public <R> Stream<R> streamAll(Specification<User> specification, Sort sort, Class<R> projection,
+                                       Function<Root<User>, List<Selection<?>>> selection, int fetchSize) {
+            return Stream.empty();
+        }
+
+        @Override
+        public long count(Specification<User> specification) {
+            return 1;
+        }
+
+        @Override
+        public User getReferenceById(Integer id) {
+            return user;
+        }
+
+        @Override
+        public Set<String> findUsernamesByUsernameIn(Collection<String> usernames) {
+            return Set.of();
+        }
+
+        @Override
+        public List<User> findAllWithAccountsByIdIn(Collection<Integer> ids) {
+            return List.of();
+        }
+
+        @Override
+        public int updatePassword(int id, String oldPassword, String newPassword) {
+            return 0;
+        }
+
         @Override
         public Boolean existsByEmail(String email) {
             return null;
@@ -0,0 +1,199 @@
+package nl.inholland.bank.services;
+
+import nl.inholland.bank.configuration.ApiTestConfiguration;
+import nl.inholland.bank.models.Account;
+import nl.inholland.bank.models.Transaction;
+import nl.inholland.bank.models.dtos.TransactionDTO.TransactionRequest;
+import nl.inholland.bank.models.exceptions.InsufficientFundsException;
+import nl.inholland.bank.repositories.AccountRepository;
+import nl.inholland.bank.repositories.PendingCreditRepository;
+import nl.inholland.bank.repositories.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(SpringExtension.class)
+@Import(ApiTestConfiguration.class)
+@AutoConfigureMockMvc(addFilters = false)
+class AccountLaneServiceTests {
+    private AccountLaneService accountLaneService;
+
+    @MockBean
+    private AccountRepository accountRepository;
+    @MockBean
+    private TransactionRepository transactionRepository;
+    @MockBean
+    private PendingCreditRepository pendingCreditRepository;
+    @MockBean
+    private TransactionService transactionService;
+    @MockBean
+    private BalanceService balanceService;
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+
+    private final TransactionRequest request = new TransactionRequest("NL11INHO6847043768", "NL01INHO0000000001", 10, "test");
+    private Account receiver;
+
+    @BeforeEach
+    void setUp() {
+        accountLaneService = new AccountLaneService(accountRepository, transactionRepository, pendingCreditRepository,
+                transactionService, balanceService, transactionManager);
+        ReflectionTestUtils.setField(accountLaneService, "enabled", true);
+        ReflectionTestUtils.setField(accountLaneService, "laneCount", 2);
+        accountLaneService.init();
+
+        Mockito.when(accountRepository.findIdByIBAN("NL11INHO6847043768")).thenReturn(Optional.of(2));
+        Mockito.when(accountRepository.findIdByIBAN("NL01INHO0000000001")).thenReturn(Optional.of(1));
+
+        receiver = new Account();
+        receiver.setId(1);
+        receiver.setBalance(1000);
+        Mockito.when(accountRepository.findById(1)).thenReturn(Optional.of(receiver));
+    }
+
+    @AfterEach
+    void tearDown() {
+        accountLaneService.shutdown();
+    }
+
+    private Transaction transaction(int id, long amount) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setAmount(amount);
+        return transaction;
+    }
+
+    @Test
+    void transferDebitsOnLaneAndCreditsReceiver() throws Exception {
+        Transaction transaction = transaction(5, 10);
+        Mockito.when(transactionService.processDebit(request)).thenReturn(transaction);
+        Mockito.when(transactionRepository.findPendingCredits(1)).thenReturn(List.of(transaction));
+
+        Assertions.assertEquals(transaction, accountLaneService.processTransaction(request));
+        Assertions.assertEquals(1010, receiver.getBalance());
+        Mockito.verify(accountRepository).lockByIdIn(List.of(1));
+        Mockito.verify(pendingCreditRepository).deleteByTransactionIdIn(List.of(5));
+        Mockito.verify(balanceService).recordTransaction(receiver, transaction);
+        Mockito.verify(transactionService, Mockito.never()).processTransaction(request);
+    }
+
+    @Test
+    void failedDebitDoesNotCreditReceiver() throws Exception {
+        Mockito.when(transactionService.processDebit(request)).thenThrow(new InsufficientFundsException("Insufficient funds"));
+
+        Assertions.assertThrows(InsufficientFundsException.class, () -> accountLaneService.processTransaction(request));
+        Mockito.verify(transactionRepository, Mockito.never()).findPendingCredits(Mockito.anyInt());
+    }
+
+    @Test
+    void failedCreditStaysPendingAndIsRetried() throws Exception {
+        Transaction transaction = transaction(5, 10);
+        Mockito.when(transactionService.processDebit(request)).thenReturn(transaction);
+        Mockito.when(transactionRepository.findPendingCredits(1))
+                .thenThrow(new QueryTimeoutException("Timed out"))
+                .thenReturn(List.of(transaction), List.of());
+        Mockito.when(pendingCreditRepository.findAccountIds()).thenReturn(List.of(1));
+
+        // The transfer has been made, only its credit is still to be added.
+        Assertions.assertEquals(transaction, accountLaneService.processTransaction(request));
+        Assertions.assertEquals(1000, receiver.getBalance());
+
+        accountLaneService.retryPendingCredits();
+        accountLaneService.applyCredits(1);
+
+        Assertions.assertEquals(1010, receiver.getBalance());
+        Mockito.verify(pendingCreditRepository).deleteByTransactionIdIn(List.of(5));
+    }
+
+    @Test
+    void transferWithinDatabaseTransactionIsRefused() throws Exception {
+        // The connection of the transaction would be held while waiting for the lanes
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            Assertions.assertThrows(IllegalStateException.class, () -> accountLaneService.processTransaction(request));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        Mockito.verifyNoInteractions(accountRepository, transactionService);
+    }
+
+    @Test
+    void nothingIsAddedWhenNoCreditsArePending() {
+        Mockito.when(transactionRepository.findPendingCredits(1)).thenReturn(List.of());
+
+        accountLaneService.applyCredits(1);
+
+        Assertions.assertEquals(1000, receiver.getBalance());
+        Mockito.verify(pendingCreditRepository, Mockito.never()).deleteByTransactionIdIn(Mockito.any());
+        Assertions.assertEquals(0, accountLaneService.getBatchCount());
+    }
+
+    @Test
+    void unknownAccountFallsBackToTransactionService() throws Exception {
+        Mockito.when(accountRepository.findIdByIBAN("NL01INHO0000000001")).thenReturn(Optional.empty());
+
+        accountLaneService.processTransaction(request);
+
+        Mockito.verify(transactionService).processTransaction(request);
+    }
+
+    @Test
+    void waitingCreditsAreAppliedInOneBatch() throws Exception {
+        // Keep the lane of account 1 busy, so the credits queue up behind it.
+        CountDownLatch release = new CountDownLatch(1);
+        List<Transaction> pending = Collections.synchronizedList(new ArrayList<>());
+        Mockito.when(transactionRepository.findPendingCredits(1)).thenAnswer(invocation -> {
+            release.await();
+            synchronized (pending) {
+                List<Transaction> credits = List.copyOf(pending);
+                pending.clear();
+                return credits;
+            }
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<?>> credits = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            pending.add(transaction(i + 1, 1));
+            credits.add(executor.submit(() -> accountLaneService.applyCredits(1)));
+        }
+        Thread.sleep(200);
+        release.countDown();
+        for (Future<?> credit : credits) {
+            credit.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Assertions.assertEquals(1010, receiver.getBalance());
+        Assertions.assertEquals(10, accountLaneService.getBatchedCreditCount());
+        Assertions.assertTrue(accountLaneService.getBatchCount() < 10);
+        Assertions.assertTrue(accountLaneService.getLargestBatch() > 1);
+    }
+
+    @Test
+    void queueDepthsAreReportedPerLane() {
+        Assertions.assertEquals(2, accountLaneService.getQueueDepths().size());
+    }
+}
@@ -0,0 +1,241 @@
+package nl.inholland.bank.services;
+
+import nl.inholland.bank.configuration.ApiTestConfiguration;
+import nl.inholland.bank.models.*;
+import nl.inholland.bank.models.dtos.AccountDTO.AccountBulkRequest;
+import nl.inholland.bank.models.dtos.UserDTO.UserRequest;
+import nl.inholland.bank.models.exceptions.PasswordHashingBusyException;
+import nl.inholland.bank.repositories.AccountRepository;
+import nl.inholland.bank.repositories.UserRepository;
+import nl.inholland.bank.utils.JwtTokenProvider;
+import org.hibernate.ObjectNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+
+@ExtendWith(SpringExtension.class)
+@Import(ApiTestConfiguration.class)
+@AutoConfigureMockMvc(addFilters = false)
+class AccountOnboardingServiceTests {
+    private AccountOnboardingService accountOnboardingService;
+
+    @MockBean
+    private UserRepository userRepository;
+    @MockBean
+    private AccountRepository accountRepository;
+    @MockBean
+    private UserLimitsService userLimitsService;
+    @MockBean
+    private IBANAllocator ibanAllocator;
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    private final BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder(4);
+    private PasswordHashingService passwordHashingService;
+    private User existingUser;
+
+    @BeforeEach
+    void setUp() {
+        passwordHashingService = new PasswordHashingService(bCryptPasswordEncoder);
+        ReflectionTestUtils.setField(passwordHashingService, "queueSize", 10);
+        passwordHashingService.init();
+        UserService userService = new UserService(userRepository, passwordHashingService, jwtTokenProvider,
+                userLimitsService, accountRepository);
+        AccountService accountService = new AccountService(accountRepository, userService, ibanAllocator);
+        accountOnboardingService = new AccountOnboardingService(userRepository, accountRepository, accountService,
+                userService, userLimitsService, passwordHashingService, transactionManager);
+
+        AtomicLong accountNumber = new AtomicLong(1000);
+        Mockito.when(ibanAllocator.allocate()).thenAnswer(invocation -> IBANGenerator.createIBAN(accountNumber.getAndIncrement()));
+        Mockito.when(userLimitsService.getDefaultLimits()).thenAnswer(invocation -> new Limits());
+        Mockito.when(userRepository.findUsernamesByUsernameIn(anyCollection())).thenReturn(Set.of("taken"));
+
+        existingUser = new User("Existing", "User", "existing@example.com", "123456782", "0612345678",
+                LocalDate.of(1990, 1, 1), "existing", "hash", Role.CUSTOMER);
+        existingUser.setId(7);
+        Mockito.when(userRepository.findAllWithAccountsByIdIn(anyCollection())).thenReturn(List.of(existingUser));
+    }
+
+    private AccountBulkRequest newUserLine(String username, String... accountTypes) {
+        UserRequest userRequest = new UserRequest(username + "@example.com", username, "Password1!", "New", "Customer",
+                "123456782", "0612345678", "1990-01-01");
+        return new AccountBulkRequest(null, userRequest, "EURO", List.of(accountTypes));
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    void onboardingNewUserShouldCreateUserWithLimitsAndAccounts() {
+        List<AccountBulkResult> results = accountOnboardingService.onboard(List.of(newUserLine("new", "CURRENT", "SAVING")));
+
+        AccountBulkResult result = results.get(0);
+        Assertions.assertTrue(result.isSuccessful());
+        User user = result.user();
+        Assertions.assertEquals(2, result.accounts().size());
+        Assertions.assertSame(result.accounts().get(0), user.getCurrentAccount());
+        Assertions.assertSame(result.accounts().get(1), user.getSavingAccount());
+        Assertions.assertSame(user, user.getLimits().getUser());
+        Assertions.assertTrue(bCryptPasswordEncoder.matches("Password1!", user.getPassword()));
+        Assertions.assertEquals(Role.CUSTOMER, user.getRole());
+
+        ArgumentCaptor<List<User>> savedUsers = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(userRepository).saveAll(savedUsers.capture());
+        Assertions.assertEquals(List.of(user), savedUsers.getValue());
+    }
+
+    @Test
+    void onboardingExistingUserShouldSaveOnlyTheNewAccounts() {
+        List<AccountBulkResult> results = accountOnboardingService.onboard(List.of(
+                new AccountBulkRequest(7, null, "EURO", List.of("CURRENT"))));
+
+        Assertions.assertTrue(results.get(0).isSuccessful());
+        Assertions.assertSame(existingUser.getCurrentAccount(), results.get(0).accounts().get(0));
+        Mockito.verify(accountRepository).saveAll(results.get(0).accounts());
+    }
+
+    @Test
+    void onboardingShouldLookUpUsersOnceForTheWholeChunk() {
+        List<AccountBulkRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            requests.add(newUserLine("user" + i, "CURRENT"));
+        }
+        requests.add(new AccountBulkRequest(7, null, "EURO", List.of("CURRENT")));
+
+        accountOnboardingService.onboard(requests);
+
+        Mockito.verify(userRepository, Mockito.times(1)).findUsernamesByUsernameIn(anyCollection());
+        Mockito.verify(userRepository, Mockito.times(1)).findAllWithAccountsByIdIn(anyCollection());
+        Mockito.verify(userRepository, Mockito.never()).findUserByUsername(any());
+        Mockito.verify(accountRepository, Mockito.never()).findAllByUser(any());
+    }
+
+    @Test
+    void onboardingShouldReportFailedLinesAndKeepTheOthers() {
+        List<AccountBulkResult> results = accountOnboardingService.onboard(List.of(
+                newUserLine("taken", "CURRENT"),
+                newUserLine("twice", "CURRENT"),
+                newUserLine("twice", "CURRENT"),
+                newUserLine("saving", "SAVING"),
+                new AccountBulkRequest(8, null, "EURO", List.of("CURRENT")),
+                new AccountBulkRequest(7, null, "DOLLAR", List.of("CURRENT")),
+                new AccountBulkRequest(null, null, "EURO", List.of("CURRENT")),
+                newUserLine("fine", "CURRENT")
+        ));
+
+        Assertions.assertEquals(UserService.USERNAME_ALREADY_EXISTS, results.get(0).error().getMessage());
+        Assertions.assertTrue(results.get(1).isSuccessful());
+        Assertions.assertEquals(UserService.USERNAME_ALREADY_EXISTS, results.get(2).error().getMessage());
+        Assertions.assertEquals("User does not have a current account", results.get(3).error().getMessage());
+        Assertions.assertInstanceOf(ObjectNotFoundException.class, results.get(4).error());
+        Assertions.assertEquals("Invalid currencyType: DOLLAR", results.get(5).error().getMessage());
+        Assertions.assertInstanceOf(IllegalArgumentException.class, results.get(6).error());
+        Assertions.assertTrue(results.get(7).isSuccessful());
+
+        ArgumentCaptor<List<User>> savedUsers = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(userRepository).saveAll(savedUsers.capture());
+        Assertions.assertEquals(List.of(results.get(1).user(), results.get(7).user()), savedUsers.getValue());
+    }
+
+    @Test
+    void onboardingShouldNotChangeUserWhenOneOfItsAccountsFails() {
+        List<AccountBulkResult> results = accountOnboardingService.onboard(List.of(
+                new AccountBulkRequest(7, null, "EURO", List.of("CURRENT", "CURRENT"))));
+
+        Assertions.assertEquals("User already has a current account", results.get(0).error().getMessage());
+        Assertions.assertNull(existingUser.getCurrentAccount());
+        Mockito.verify(ibanAllocator, Mockito.never()).allocate();
+    }
+
+    @Test
+    void onboardingShouldFailTheWholeChunkWhenSavingFails() {
+        Mockito.when(userRepository.saveAll(any())).thenThrow(new DataIntegrityViolationException("Duplicate username"));
+
+        List<AccountBulkResult> results = accountOnboardingService.onboard(List.of(
+                newUserLine("first", "CURRENT"),
+                newUserLine("taken", "CURRENT")));
+
+        Assertions.assertInstanceOf(DataIntegrityViolationException.class, results.get(0).error());
+        Assertions.assertEquals(UserService.USERNAME_ALREADY_EXISTS, results.get(1).error().getMessage());
+    }
+
+    @Test
+    void onboardingShouldNotHashPasswordsOfTakenUsernames() {
+        PasswordHashingService hashingService = Mockito.spy(passwordHashingService);
+        UserService userService = new UserService(userRepository, hashingService, jwtTokenProvider, userLimitsService,
+                accountRepository);
+        accountOnboardingService = new AccountOnboardingService(userRepository, accountRepository,
+                new AccountService(accountRepository, userService, ibanAllocator), userService, userLimitsService,
+                hashingService, transactionManager);
+
+        List<AccountBulkResult> results = accountOnboardingService.onboard(List.of(
+                newUserLine("taken", "CURRENT"),
+                newUserLine("twice", "CURRENT"),
+                newUserLine("twice", "CURRENT")));
+
+        Assertions.assertEquals(UserService.USERNAME_ALREADY_EXISTS, results.get(0).error().getMessage());
+        Assertions.assertTrue(results.get(1).isSuccessful());
+        Assertions.assertEquals(UserService.USERNAME_ALREADY_EXISTS, results.get(2).error().getMessage());
+        Mockito.verify(hashingService).encodeAll(List.of("Password1!"));
+    }
+
+    @Test
+    void onboardingShouldFailEveryLineWhenTheChunkFailsBeforeAllLinesAreChecked() {
+        Mockito.when(userRepository.findAllWithAccountsByIdIn(anyCollection())).thenThrow(new QueryTimeoutException("Timeout"));
+
+        List<AccountBulkResult> results = accountOnboardingService.onboard(List.of(
+                newUserLine("first", "CURRENT"),
+                new AccountBulkRequest(7, null, "EURO", List.of("CURRENT")),
+                newUserLine("taken", "CURRENT")));
+
+        Assertions.assertInstanceOf(QueryTimeoutException.class, results.get(0).error());
+        Assertions.assertInstanceOf(QueryTimeoutException.class, results.get(1).error());
+        Assertions.assertEquals(UserService.USERNAME_ALREADY_EXISTS, results.get(2).error().getMessage());
+    }
+
+    @Test
+    void onboardingShouldFailOnlyTheNewUsersWhenHashingIsBusy() {
+        PasswordHashingService hashingService = Mockito.spy(passwordHashingService);
+        Mockito.doThrow(new PasswordHashingBusyException("Too many requests, please try again later."))
+                .when(hashingService).encodeAll(Mockito.anyList());
+        UserService userService = new UserService(userRepository, hashingService, jwtTokenProvider, userLimitsService,
+                accountRepository);
+        accountOnboardingService = new AccountOnboardingService(userRepository, accountRepository,
+                new AccountService(accountRepository, userService, ibanAllocator), userService, userLimitsService,
+                hashingService, transactionManager);
+
+        List<AccountBulkResult> results = accountOnboardingService.onboard(List.of(
+                newUserLine("first", "CURRENT"),
+                new AccountBulkRequest(7, null, "EURO", List.of("CURRENT"))));
+
+        Assertions.assertInstanceOf(PasswordHashingBusyException.class, results.get(0).error());
+        Assertions.assertTrue(results.get(1).isSuccessful());
+    }
+}
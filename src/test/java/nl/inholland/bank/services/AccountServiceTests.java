@@ -40,6 +40,9 @@ class AccountServiceTests {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private IBANAllocator ibanAllocator;
+
     private AccountRequest accountRequest;
 
     private Account account;
@@ -48,7 +51,8 @@ class AccountServiceTests {
 
     @BeforeEach
     void setUp() {
-        accountService = new AccountService(accountRepository, userService);
+        accountService = new AccountService(accountRepository, userService, ibanAllocator);
+        Mockito.when(ibanAllocator.allocate()).thenReturn("NL96INHO0000001000");
 
         accountRequest = new AccountRequest(
                 CurrencyType.EURO.toString(),
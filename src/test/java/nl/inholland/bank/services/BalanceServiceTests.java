@@ -0,0 +1,120 @@
+package nl.inholland.bank.services;
+
+import nl.inholland.bank.configuration.ApiTestConfiguration;
+import nl.inholland.bank.models.Account;
+import nl.inholland.bank.models.BalanceCheckpoint;
+import nl.inholland.bank.models.Transaction;
+import nl.inholland.bank.repositories.BalanceCheckpointRepository;
+import nl.inholland.bank.repositories.TransactionRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+
+@ExtendWith(SpringExtension.class)
+@Import(ApiTestConfiguration.class)
+@AutoConfigureMockMvc(addFilters = false)
+class BalanceServiceTests {
+    private static final LocalDateTime AT = LocalDateTime.of(2023, 5, 1, 12, 0);
+
+    private BalanceService balanceService;
+
+    @MockBean
+    private BalanceCheckpointRepository balanceCheckpointRepository;
+    @MockBean
+    private TransactionRepository transactionRepository;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        balanceService = new BalanceService(balanceCheckpointRepository, transactionRepository);
+        ReflectionTestUtils.setField(balanceService, "checkpointInterval", 3);
+
+        account = new Account();
+        account.setId(4);
+        account.setBalance(50000);
+    }
+
+    private Transaction transaction(int id, LocalDateTime timestamp) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+
+    @Test
+    void recordingTransactionsWritesCheckpointEveryInterval() {
+        for (int i = 1; i <= 7; i++) {
+            balanceService.recordTransaction(account, 100 + i, transaction(i, AT.plusMinutes(i)));
+        }
+
+        ArgumentCaptor<BalanceCheckpoint> checkpoints = ArgumentCaptor.forClass(BalanceCheckpoint.class);
+        Mockito.verify(balanceCheckpointRepository, Mockito.times(2)).save(checkpoints.capture());
+        BalanceCheckpoint second = checkpoints.getAllValues().get(1);
+        Assertions.assertEquals(4, second.getAccountId());
+        Assertions.assertEquals(6, second.getTransactionId());
+        Assertions.assertEquals(AT.plusMinutes(6), second.getTimestamp());
+        Assertions.assertEquals(106, second.getBalance());
+        Assertions.assertEquals(1, account.getTransactionsSinceCheckpoint());
+    }
+
+    @Test
+    void balanceAtMomentReplaysForwardFromCheckpointBefore() {
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint(4, transaction(9, AT.minusHours(1)), 20000);
+        Mockito.when(balanceCheckpointRepository
+                        .findFirstByAccountIdAndTimestampLessThanEqualOrderByTimestampDescTransactionIdDesc(4, AT))
+                .thenReturn(Optional.of(checkpoint));
+        Mockito.when(transactionRepository.sumReceivedBetween(4, AT.minusHours(1), 9, AT, Integer.MAX_VALUE)).thenReturn(3000L);
+        Mockito.when(transactionRepository.sumSentBetween(4, AT.minusHours(1), 9, AT, Integer.MAX_VALUE)).thenReturn(1000L);
+
+        Assertions.assertEquals(22000, balanceService.getBalanceAt(account, AT));
+        Mockito.verify(balanceCheckpointRepository, Mockito.never())
+                .findFirstByAccountIdAndTimestampGreaterThanOrderByTimestampAscTransactionIdAsc(anyInt(), any());
+    }
+
+    @Test
+    void balanceAtMomentBeforeFirstCheckpointReplaysBackwardFromIt() {
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint(4, transaction(9, AT.plusHours(1)), 20000);
+        Mockito.when(balanceCheckpointRepository
+                        .findFirstByAccountIdAndTimestampGreaterThanOrderByTimestampAscTransactionIdAsc(4, AT))
+                .thenReturn(Optional.of(checkpoint));
+        Mockito.when(transactionRepository.sumReceivedBetween(4, AT, Integer.MAX_VALUE, AT.plusHours(1), 9)).thenReturn(3000L);
+        Mockito.when(transactionRepository.sumSentBetween(4, AT, Integer.MAX_VALUE, AT.plusHours(1), 9)).thenReturn(1000L);
+
+        Assertions.assertEquals(18000, balanceService.getBalanceAt(account, AT));
+    }
+
+    @Test
+    void balanceAtMomentWithoutCheckpointsWorksBackFromCurrentBalance() {
+        Mockito.when(transactionRepository.sumReceivedBetween(Mockito.eq(4), Mockito.eq(AT), Mockito.eq(Integer.MAX_VALUE), any(), anyInt()))
+                .thenReturn(10000L);
+        Mockito.when(transactionRepository.sumSentBetween(Mockito.eq(4), Mockito.eq(AT), Mockito.eq(Integer.MAX_VALUE), any(), anyInt()))
+                .thenReturn(2500L);
+
+        Assertions.assertEquals(42500, balanceService.getBalanceAt(account, AT));
+    }
+
+    @Test
+    void balanceAtMomentWithoutCheckpointsCountsCreditsStillPending() {
+        // 2000 received after the moment, which the lanes have not added to the balance yet
+        Mockito.when(transactionRepository.sumPendingCredits(4)).thenReturn(2000L);
+        Mockito.when(transactionRepository.sumReceivedBetween(Mockito.eq(4), Mockito.eq(AT), Mockito.eq(Integer.MAX_VALUE), any(), anyInt()))
+                .thenReturn(2000L);
+
+        Assertions.assertEquals(50000, balanceService.getBalanceAt(account, AT));
+    }
+}
@@ -0,0 +1,201 @@
+package nl.inholland.bank.services;
+
+import nl.inholland.bank.configuration.ApiTestConfiguration;
+import nl.inholland.bank.models.*;
+import nl.inholland.bank.models.exceptions.DailyTransactionLimitException;
+import nl.inholland.bank.repositories.DailySpendRepository;
+import nl.inholland.bank.repositories.TransactionRepository;
+import nl.inholland.bank.repositories.UserLimitsRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@ExtendWith(SpringExtension.class)
+@Import(ApiTestConfiguration.class)
+@AutoConfigureMockMvc(addFilters = false)
+class DailySpendServiceTests {
+    private DailySpendService dailySpendService;
+
+    @MockBean
+    private DailySpendRepository dailySpendRepository;
+    @MockBean
+    private TransactionRepository transactionRepository;
+    @MockBean
+    private UserLimitsRepository userLimitsRepository;
+
+    private User user;
+    private User otherUser;
+    private Account currentAccount;
+    private Account savingAccount;
+    private Account otherAccount;
+
+    @BeforeEach
+    void setUp() {
+        dailySpendService = new DailySpendService(dailySpendRepository, transactionRepository, userLimitsRepository);
+
+        user = new User();
+        user.setId(1);
+        otherUser = new User();
+        otherUser.setId(2);
+
+        currentAccount = new Account(user, 1000, CurrencyType.EURO, "NL62INHO2395766879", AccountType.CURRENT, 0);
+        savingAccount = new Account(user, 1000, CurrencyType.EURO, "NL19INHO2943276296", AccountType.SAVING, 0);
+        otherAccount = new Account(otherUser, 1000, CurrencyType.EURO, "NL04INHO2539494278", AccountType.CURRENT, 0);
+    }
+
+    private Transaction transaction(User performer, Account sender, Account receiver, long amount) {
+        Transaction transaction = new Transaction();
+        transaction.setUser(performer);
+        transaction.setAccountSender(sender);
+        transaction.setAccountReceiver(receiver);
+        transaction.setAmount(amount);
+        transaction.setTimestamp(LocalDateTime.now());
+        return transaction;
+    }
+
+    private Limits limits(long dailyTransactionLimit) {
+        Limits limits = new Limits();
+        limits.setDailyTransactionLimit(dailyTransactionLimit);
+        return limits;
+    }
+
+    @Test
+    void spendIsRebuiltFromTransactionsWhenNothingIsStored() {
+        Mockito.when(transactionRepository.findAllByTimestampIsAfterAndUserId(Mockito.any(), Mockito.eq(1)))
+                .thenReturn(List.of(transaction(user, currentAccount, otherAccount, 100)));
+
+        Assertions.assertEquals(100, dailySpendService.getSpentToday(1));
+    }
+
+    @Test
+    void storedSpendIsUsedWithoutScanningTransactions() {
+        Mockito.when(dailySpendRepository.findAmount(1, LocalDate.now())).thenReturn(Optional.of(250L));
+
+        Assertions.assertEquals(250, dailySpendService.getSpentToday(1));
+        Mockito.verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void cachedSpendIsOnlyLoadedOnce() {
+        dailySpendService.getSpentToday(1);
+        dailySpendService.getSpentToday(1);
+
+        Mockito.verify(dailySpendRepository, Mockito.times(1)).findAmount(1, LocalDate.now());
+    }
+
+    @Test
+    void recordingTransferAddsItWithinTheDailyLimit() {
+        Mockito.when(userLimitsRepository.findFirstByUserId(1)).thenReturn(limits(1000));
+        Mockito.when(dailySpendRepository.findAmount(1, LocalDate.now())).thenReturn(Optional.of(150L));
+        Mockito.when(dailySpendRepository.addToAmountWithinLimit(1, LocalDate.now(), 100, 1000)).thenReturn(1);
+
+        dailySpendService.recordTransaction(transaction(user, currentAccount, otherAccount, 100));
+
+        Assertions.assertEquals(150, dailySpendService.getSpentToday(1));
+        Mockito.verify(dailySpendRepository, Mockito.never()).save(Mockito.any(DailySpend.class));
+    }
+
+    @Test
+    void spendIsStoredFromTransactionsBeforeTheFirstRecord() {
+        Mockito.when(transactionRepository.findAllByTimestampIsAfterAndUserId(Mockito.any(), Mockito.eq(1)))
+                .thenReturn(List.of(transaction(user, currentAccount, otherAccount, 100)));
+        Mockito.when(dailySpendRepository.findAmount(1, LocalDate.now())).thenReturn(Optional.empty(), Optional.of(150L));
+        Mockito.when(dailySpendRepository.addToAmountWithinLimit(Mockito.eq(1), Mockito.any(), Mockito.eq(50L), Mockito.anyLong())).thenReturn(1);
+
+        dailySpendService.recordTransaction(transaction(user, currentAccount, null, 50));
+
+        Mockito.verify(dailySpendRepository).insertIfMissing(1, LocalDate.now());
+        Mockito.verify(dailySpendRepository).setAmountIfNothingSpent(1, LocalDate.now(), 100);
+        Mockito.verify(dailySpendRepository, Mockito.never()).save(Mockito.any(DailySpend.class));
+        Assertions.assertEquals(150, dailySpendService.getSpentToday(1));
+    }
+
+    @Test
+    void firstSpendWithoutEarlierTransactionsOnlyCreatesTheSpend() {
+        Mockito.when(dailySpendRepository.findAmount(1, LocalDate.now())).thenReturn(Optional.empty(), Optional.of(50L));
+        Mockito.when(dailySpendRepository.addToAmountWithinLimit(Mockito.eq(1), Mockito.any(), Mockito.eq(50L), Mockito.anyLong())).thenReturn(1);
+
+        dailySpendService.recordSpend(1, 50);
+
+        Mockito.verify(dailySpendRepository).insertIfMissing(1, LocalDate.now());
+        Mockito.verify(dailySpendRepository, Mockito.never()).setAmountIfNothingSpent(Mockito.anyInt(), Mockito.any(), Mockito.anyLong());
+        Assertions.assertEquals(50, dailySpendService.getSpentToday(1));
+    }
+
+    @Test
+    void spendOverTheDailyLimitIsRefused() {
+        Mockito.when(userLimitsRepository.findFirstByUserId(1)).thenReturn(limits(1000));
+        Mockito.when(dailySpendRepository.findAmount(1, LocalDate.now())).thenReturn(Optional.of(950L));
+
+        Assertions.assertThrows(DailyTransactionLimitException.class,
+                () -> dailySpendService.recordTransaction(transaction(user, currentAccount, otherAccount, 100)));
+        Mockito.verify(dailySpendRepository).addToAmountWithinLimit(1, LocalDate.now(), 100, 1000);
+    }
+
+    @Test
+    void spendIsOnlyCachedOnceItIsCommitted() {
+        Mockito.when(dailySpendRepository.findAmount(1, LocalDate.now())).thenReturn(Optional.of(150L));
+        Mockito.when(dailySpendRepository.addToAmountWithinLimit(Mockito.eq(1), Mockito.any(), Mockito.eq(100L), Mockito.anyLong())).thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            dailySpendService.recordSpend(1, 100);
+
+            // Other transactions still read the total from before.
+            Mockito.when(dailySpendRepository.findAmount(1, LocalDate.now())).thenReturn(Optional.of(50L));
+            Assertions.assertEquals(50, dailySpendService.getSpentToday(1));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            Assertions.assertEquals(150, dailySpendService.getSpentToday(1));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void transfersInvolvingSavingAccountsAreNotRecorded() {
+        dailySpendService.recordTransaction(transaction(user, currentAccount, savingAccount, 100));
+        dailySpendService.recordTransaction(transaction(user, savingAccount, currentAccount, 100));
+
+        Assertions.assertEquals(0, dailySpendService.getSpentToday(1));
+        Mockito.verify(dailySpendRepository, Mockito.never()).addToAmountWithinLimit(Mockito.anyInt(), Mockito.any(), Mockito.anyLong(), Mockito.anyLong());
+    }
+
+    @Test
+    void depositsAreNotRecorded() {
+        dailySpendService.recordTransaction(transaction(user, null, currentAccount, 100));
+
+        Assertions.assertEquals(0, dailySpendService.getSpentToday(1));
+    }
+
+    @Test
+    void transfersFromAccountOfOtherUserAreNotRecorded() {
+        dailySpendService.recordTransaction(transaction(user, otherAccount, currentAccount, 100));
+
+        Assertions.assertEquals(0, dailySpendService.getSpentToday(1));
+    }
+
+    @Test
+    void reconcileOverwritesCachedSpend() {
+        Mockito.when(dailySpendRepository.findAmount(1, LocalDate.now())).thenReturn(Optional.of(500L));
+        Assertions.assertEquals(500, dailySpendService.getSpentToday(1));
+        Mockito.when(transactionRepository.findAllByTimestampIsAfterAndUserId(Mockito.any(), Mockito.eq(1)))
+                .thenReturn(List.of(transaction(user, currentAccount, otherAccount, 100)));
+
+        Assertions.assertEquals(100, dailySpendService.reconcile(1));
+        Assertions.assertEquals(100, dailySpendService.getSpentToday(1));
+    }
+}
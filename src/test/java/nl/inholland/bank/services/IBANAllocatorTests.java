@@ -0,0 +1,88 @@
+package nl.inholland.bank.services;
+
+import nl.inholland.bank.configuration.ApiTestConfiguration;
+import nl.inholland.bank.models.IBANGenerator;
+import nl.inholland.bank.repositories.AccountRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.anyString;
+
+@ExtendWith(SpringExtension.class)
+@Import(ApiTestConfiguration.class)
+@AutoConfigureMockMvc(addFilters = false)
+class IBANAllocatorTests {
+    private IBANAllocator ibanAllocator;
+
+    @MockBean
+    private AccountRepository accountRepository;
+
+    @BeforeEach
+    void setUp() {
+        ibanAllocator = new IBANAllocator(accountRepository);
+        ReflectionTestUtils.setField(ibanAllocator, "blockSize", 10);
+        Mockito.when(accountRepository.findIBANsWithAccountNumberBetween(anyString(), anyString())).thenReturn(List.of());
+    }
+
+    @Test
+    void allocateShouldHandOutTheNumbersOfTheReservedBlockInOrder() {
+        Mockito.when(accountRepository.nextIBANBlock()).thenReturn(3L);
+
+        Assertions.assertEquals(IBANGenerator.createIBAN(30), ibanAllocator.allocate());
+        Assertions.assertEquals(IBANGenerator.createIBAN(31), ibanAllocator.allocate());
+        Mockito.verify(accountRepository, Mockito.times(1)).nextIBANBlock();
+        Mockito.verify(accountRepository).findIBANsWithAccountNumberBetween("0000000030", "0000000039");
+    }
+
+    @Test
+    void allocateShouldReserveANewBlockWhenTheBlockIsUsedUp() {
+        Mockito.when(accountRepository.nextIBANBlock()).thenReturn(1L, 5L);
+
+        for (int i = 0; i < 10; i++) {
+            ibanAllocator.allocate();
+        }
+
+        Assertions.assertEquals(IBANGenerator.createIBAN(50), ibanAllocator.allocate());
+        Mockito.verify(accountRepository, Mockito.times(2)).nextIBANBlock();
+    }
+
+    @Test
+    void allocateShouldSkipAccountNumbersThatAreAlreadyTaken() {
+        Mockito.when(accountRepository.nextIBANBlock()).thenReturn(1L);
+        Mockito.when(accountRepository.findIBANsWithAccountNumberBetween("0000000010", "0000000019"))
+                .thenReturn(List.of(IBANGenerator.createIBAN(10), IBANGenerator.createIBAN(12)));
+
+        Assertions.assertEquals(IBANGenerator.createIBAN(11), ibanAllocator.allocate());
+        Assertions.assertEquals(IBANGenerator.createIBAN(13), ibanAllocator.allocate());
+    }
+
+    @Test
+    void allocateShouldFailWhenNoAccountNumbersAreLeft() {
+        Mockito.when(accountRepository.nextIBANBlock()).thenReturn(1_000_000_000L);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> ibanAllocator.allocate());
+    }
+
+    @Test
+    void allocateShouldNotHandOutTheSameIBANTwiceOnDifferentThreads() {
+        Mockito.when(accountRepository.nextIBANBlock()).thenReturn(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L);
+        Set<String> ibans = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 100).parallel().forEach(i -> ibans.add(ibanAllocator.allocate()));
+
+        Assertions.assertEquals(100, ibans.size());
+    }
+}
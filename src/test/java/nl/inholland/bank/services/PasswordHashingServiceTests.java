@@ -0,0 +1,126 @@
+package nl.inholland.bank.services;
+
+import nl.inholland.bank.models.exceptions.PasswordHashingBusyException;
+import nl.inholland.bank.utils.AdaptiveBCryptPasswordEncoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class PasswordHashingServiceTests {
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashingService passwordHashingService;
+
+    // Hashes the password "blocked" only after the test releases it, to keep the thread of the pool busy.
+    private final AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(4) {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if ("blocked".contentEquals(rawPassword)) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.encode(rawPassword);
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        passwordHashingService = new PasswordHashingService(encoder);
+        ReflectionTestUtils.setField(passwordHashingService, "threads", 1);
+        ReflectionTestUtils.setField(passwordHashingService, "queueSize", 1);
+        passwordHashingService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    void encodedPasswordMatches() {
+        String hash = passwordHashingService.encode("Password1!");
+
+        Assertions.assertTrue(passwordHashingService.matches("Password1!", hash));
+        Assertions.assertFalse(passwordHashingService.matches("Password2!", hash));
+    }
+
+    @Test
+    void encodeAllKeepsTheOrderOfThePasswords() {
+        passwordHashingService.shutdown();
+        ReflectionTestUtils.setField(passwordHashingService, "threads", 3);
+        passwordHashingService.init();
+        List<String> passwords = List.of("one", "two", "three", "four", "five");
+
+        List<String> hashes = passwordHashingService.encodeAll(passwords);
+
+        Assertions.assertEquals(passwords.size(), hashes.size());
+        for (int i = 0; i < passwords.size(); i++) {
+            Assertions.assertTrue(encoder.matches(passwords.get(i), hashes.get(i)));
+        }
+    }
+
+    @Test
+    void hashesAreRefusedWhenTooManyAreWaiting() throws Exception {
+        ExecutorService requests = Executors.newFixedThreadPool(2);
+        try {
+            // One hash keeps the only thread busy, the next one takes the only place in the queue.
+            Future<String> running = requests.submit(() -> passwordHashingService.encode("blocked"));
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> waiting = requests.submit(() -> passwordHashingService.encode("waiting"));
+            while (passwordHashingService.getQueueSize() == 0) {
+                Thread.onSpinWait();
+            }
+
+            Assertions.assertThrows(PasswordHashingBusyException.class, () -> passwordHashingService.encode("refused"));
+
+            release.countDown();
+            Assertions.assertTrue(encoder.matches("blocked", running.get(5, TimeUnit.SECONDS)));
+            Assertions.assertTrue(encoder.matches("waiting", waiting.get(5, TimeUnit.SECONDS)));
+        } finally {
+            requests.shutdownNow();
+        }
+    }
+
+    @Test
+    void bulkHashingLeavesAThreadForOtherHashes() throws Exception {
+        passwordHashingService.shutdown();
+        ReflectionTestUtils.setField(passwordHashingService, "threads", 2);
+        passwordHashingService.init();
+
+        ExecutorService requests = Executors.newSingleThreadExecutor();
+        try {
+            // Bulk hashing only gets one of the two threads, which the first slice keeps busy
+            Future<List<String>> bulk = requests.submit(() -> passwordHashingService.encodeAll(List.of("blocked", "one", "two")));
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            String hash = passwordHashingService.encode("login");
+
+            Assertions.assertTrue(encoder.matches("login", hash));
+            Assertions.assertFalse(bulk.isDone());
+            release.countDown();
+            Assertions.assertEquals(3, bulk.get(5, TimeUnit.SECONDS).size());
+        } finally {
+            requests.shutdownNow();
+        }
+    }
+
+    @Test
+    void hashWithAnotherCostNeedsRehash() {
+        Assertions.assertFalse(passwordHashingService.needsRehash(new AdaptiveBCryptPasswordEncoder(4).encode("Password1!")));
+        Assertions.assertTrue(passwordHashingService.needsRehash(new AdaptiveBCryptPasswordEncoder(5).encode("Password1!")));
+    }
+}
@@ -6,11 +6,18 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
 
 @ExtendWith(SpringExtension.class)
 @Import(ApiTestConfiguration.class)
@@ -21,21 +28,75 @@ class RefreshTokenBlacklistServiceTests {
     @MockBean
     private RefreshTokenBlacklistRepository refreshTokenBlacklistRepository;
 
+    private final String tokenHash = HexFormat.of().formatHex(RefreshTokenBlacklistService.hash("token"));
+
     @BeforeEach
     void setUp() {
         refreshTokenBlacklistService = new RefreshTokenBlacklistService(refreshTokenBlacklistRepository);
+        ReflectionTestUtils.setField(refreshTokenBlacklistService, "validityRefreshInMilliseconds", 3_600_000L);
+        ReflectionTestUtils.setField(refreshTokenBlacklistService, "expectedSize", 1000);
+        ReflectionTestUtils.setField(refreshTokenBlacklistService, "falsePositiveRate", 0.01);
     }
 
     @Test
     void isBlacklistedReturnsTrueWhenTokenIsBlacklisted() {
-        Mockito.when(refreshTokenBlacklistRepository.existsByToken("token")).thenReturn(true);
+        Mockito.when(refreshTokenBlacklistRepository.findAllTokenHashes()).thenReturn(List.of(tokenHash));
+        Mockito.when(refreshTokenBlacklistRepository.existsById(tokenHash)).thenReturn(true);
+        refreshTokenBlacklistService.init();
+
         Assertions.assertTrue(refreshTokenBlacklistService.isBlacklisted("token"));
     }
 
+    @Test
+    void tokensThatWereNeverBlacklistedAreNotLookedUp() {
+        refreshTokenBlacklistService.init();
+
+        Assertions.assertFalse(refreshTokenBlacklistService.isBlacklisted("token"));
+        Assertions.assertFalse(refreshTokenBlacklistService.isBlacklisted(null));
+        Mockito.verify(refreshTokenBlacklistRepository, Mockito.never()).existsById(Mockito.any());
+    }
+
     @Test
     void blacklistingTokenShouldSucceed() {
-        Mockito.when(refreshTokenBlacklistRepository.existsByToken("token")).thenReturn(false);
+        refreshTokenBlacklistService.init();
+
+        Assertions.assertTrue(refreshTokenBlacklistService.blacklist("token"));
+
+        // A single insert, without looking the token up first.
+        Mockito.verify(refreshTokenBlacklistRepository).insert(Mockito.eq(tokenHash), Mockito.notNull());
+        Mockito.verify(refreshTokenBlacklistRepository, Mockito.never()).existsById(Mockito.any());
+
+        // Now the filter knows the token, so it is looked up.
+        Mockito.when(refreshTokenBlacklistRepository.existsById(tokenHash)).thenReturn(true);
+        Assertions.assertTrue(refreshTokenBlacklistService.isBlacklisted("token"));
+    }
+
+    @Test
+    void blacklistingTokenThatIsAlreadyBlacklistedReturnsFalse() {
+        // Blacklisted by another instance, so this instance's filter does not know it.
+        refreshTokenBlacklistService.init();
+        Mockito.when(refreshTokenBlacklistRepository.insert(Mockito.eq(tokenHash), Mockito.any()))
+                .thenThrow(new DataIntegrityViolationException("Unique index or primary key violation"));
+
+        Assertions.assertFalse(refreshTokenBlacklistService.blacklist("token"));
+    }
+
+    @Test
+    void purgingRemovesTokensOlderThanTheRefreshTokenLifetime() {
+        refreshTokenBlacklistService.init();
         refreshTokenBlacklistService.blacklist("token");
-        Mockito.verify(refreshTokenBlacklistRepository, Mockito.times(1)).save(Mockito.any());
+
+        LocalDateTime before = LocalDateTime.now().minusHours(1);
+        refreshTokenBlacklistService.purgeExpired();
+        LocalDateTime after = LocalDateTime.now().minusHours(1);
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        Mockito.verify(refreshTokenBlacklistRepository).deleteBlacklistedBefore(cutoff.capture());
+        Assertions.assertFalse(cutoff.getValue().isBefore(before));
+        Assertions.assertFalse(cutoff.getValue().isAfter(after));
+
+        // The filter is built again from the tokens that are left, which no longer include the purged one.
+        Mockito.when(refreshTokenBlacklistRepository.existsById(tokenHash)).thenReturn(true);
+        Assertions.assertFalse(refreshTokenBlacklistService.isBlacklisted("token"));
     }
 }
@@ -0,0 +1,151 @@
+package nl.inholland.bank.services;
+
+import nl.inholland.bank.configuration.ApiTestConfiguration;
+import nl.inholland.bank.models.AccountBalance;
+import nl.inholland.bank.models.AccountStatement;
+import nl.inholland.bank.models.AccountTotals;
+import nl.inholland.bank.repositories.AccountRepository;
+import nl.inholland.bank.repositories.AccountStatementRepository;
+import nl.inholland.bank.repositories.TransactionRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+
+@ExtendWith(SpringExtension.class)
+@Import(ApiTestConfiguration.class)
+@AutoConfigureMockMvc(addFilters = false)
+class StatementServiceTests {
+    private static final YearMonth MONTH = YearMonth.of(2020, 3);
+
+    private StatementService statementService;
+
+    @MockBean
+    private AccountRepository accountRepository;
+    @MockBean
+    private AccountStatementRepository accountStatementRepository;
+    @MockBean
+    private TransactionRepository transactionRepository;
+    @MockBean
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<Integer, AccountStatement> saved = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        statementService = new StatementService(accountRepository, accountStatementRepository, transactionRepository,
+                transactionManager);
+        // One account per chunk, so the chunks are closed on different threads
+        ReflectionTestUtils.setField(statementService, "chunkSize", 1);
+        ReflectionTestUtils.setField(statementService, "threads", 2);
+
+        Mockito.when(accountStatementRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<AccountStatement> statements = invocation.getArgument(0);
+            statements.forEach(statement -> saved.put(statement.getAccountId(), statement));
+            return statements;
+        });
+    }
+
+    // Answers the sum queries with the totals of the month.
+    private void mockTotals(Map<Integer, AccountTotals> inMonth, boolean received) {
+        Answer<List<AccountTotals>> answer = invocation -> {
+            Collection<Integer> accountIds = invocation.getArgument(0);
+            return inMonth.values().stream().filter(total -> accountIds.contains(total.accountId())).toList();
+        };
+        if (received) {
+            Mockito.when(transactionRepository.sumReceivedByAccount(anyCollection(), any(), any())).thenAnswer(answer);
+        } else {
+            Mockito.when(transactionRepository.sumSentByAccount(anyCollection(), any(), any())).thenAnswer(answer);
+        }
+    }
+
+    @Test
+    void closingMonthStartsFromPreviousStatementOrWorksBackFromBalance() {
+        Mockito.when(accountRepository.findAllIds()).thenReturn(List.of(1, 2));
+        Mockito.when(accountStatementRepository.findAccountIdsByStatementMonth(MONTH.atDay(1))).thenReturn(Set.of());
+        Mockito.when(accountStatementRepository.findAllByStatementMonthAndAccountIdIn(Mockito.eq(MONTH.minusMonths(1).atDay(1)), anyCollection()))
+                .thenAnswer(invocation -> ((Collection<Integer>) invocation.getArgument(1)).contains(1)
+                        ? List.of(new AccountStatement(1, MONTH.minusMonths(1), 0, 100, 0, 1))
+                        : List.of());
+        Mockito.when(accountRepository.findBalancesBeforeByIdIn(anyCollection(), Mockito.eq(MONTH.atDay(1).atStartOfDay())))
+                .thenReturn(List.of(new AccountBalance(2, 30)));
+        mockTotals(Map.of(1, new AccountTotals(1, 30, 2), 2, new AccountTotals(2, 20, 1)), true);
+        mockTotals(Map.of(1, new AccountTotals(1, 10, 1), 2, new AccountTotals(2, 5, 1)), false);
+
+        int written = statementService.closeMonth(MONTH);
+
+        Assertions.assertEquals(2, written);
+        AccountStatement first = saved.get(1);
+        Assertions.assertEquals(100, first.getOpeningBalance());
+        Assertions.assertEquals(30, first.getTotalIn());
+        Assertions.assertEquals(10, first.getTotalOut());
+        Assertions.assertEquals(120, first.getClosingBalance());
+        Assertions.assertEquals(3, first.getTransactionCount());
+        Assertions.assertEquals(MONTH, first.getMonth());
+
+        // Worked back to 30 at the start of the month
+        AccountStatement second = saved.get(2);
+        Assertions.assertEquals(30, second.getOpeningBalance());
+        Assertions.assertEquals(45, second.getClosingBalance());
+        Assertions.assertEquals(2, second.getTransactionCount());
+    }
+
+    @Test
+    void closingMonthSkipsClosedAndEmptyAccounts() {
+        Mockito.when(accountRepository.findAllIds()).thenReturn(List.of(1, 2, 3));
+        Mockito.when(accountStatementRepository.findAccountIdsByStatementMonth(MONTH.atDay(1))).thenReturn(Set.of(1));
+        Mockito.when(accountRepository.findBalancesBeforeByIdIn(anyCollection(), any())).thenAnswer(invocation ->
+                ((Collection<Integer>) invocation.getArgument(0)).contains(3) ? List.of(new AccountBalance(3, 10)) : List.of());
+        mockTotals(Map.of(), true);
+        mockTotals(Map.of(), false);
+
+        int written = statementService.closeMonth(MONTH);
+
+        // Account 2 had no money and no transactions yet, account 3 had money but no transactions
+        Assertions.assertEquals(1, written);
+        Assertions.assertEquals(Set.of(3), saved.keySet());
+        Assertions.assertEquals(10, saved.get(3).getOpeningBalance());
+        Assertions.assertEquals(10, saved.get(3).getClosingBalance());
+        Mockito.verify(transactionRepository, Mockito.never())
+                .sumReceivedByAccount(Mockito.argThat(ids -> ids.contains(1)), any(), any());
+    }
+
+    @Test
+    void closingMonthWithEverythingClosedWritesNothing() {
+        Mockito.when(accountRepository.findAllIds()).thenReturn(List.of(1));
+        Mockito.when(accountStatementRepository.findAccountIdsByStatementMonth(MONTH.atDay(1))).thenReturn(Set.of(1));
+
+        Assertions.assertEquals(0, statementService.closeMonth(MONTH));
+        Mockito.verify(accountStatementRepository, Mockito.never()).saveAll(any());
+    }
+
+    @Test
+    void closingCurrentMonthThrowsIllegalArgumentException() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> statementService.closeMonth(YearMonth.now()));
+    }
+
+    @Test
+    void getStatementsOfMonthLooksUpOneStatement() {
+        AccountStatement statement = new AccountStatement(1, MONTH, 0, 10, 0, 1);
+        Mockito.when(accountStatementRepository.findByAccountIdAndStatementMonth(1, MONTH.atDay(1)))
+                .thenReturn(Optional.of(statement));
+
+        Assertions.assertEquals(List.of(statement), statementService.getStatements(1, Optional.of(MONTH)));
+        Assertions.assertEquals(List.of(), statementService.getStatements(1, Optional.of(MONTH.minusMonths(1))));
+    }
+}
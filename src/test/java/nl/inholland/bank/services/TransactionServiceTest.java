@@ -6,6 +6,7 @@ import nl.inholland.bank.models.dtos.TransactionDTO.TransactionRequest;
 import nl.inholland.bank.models.dtos.TransactionDTO.TransactionSearchRequest;
 import nl.inholland.bank.models.dtos.TransactionDTO.WithdrawDepositRequest;
 import nl.inholland.bank.models.exceptions.*;
+import nl.inholland.bank.repositories.PendingCreditRepository;
 import nl.inholland.bank.repositories.TransactionRepository;
 import nl.inholland.bank.repositories.UserRepository;
 import nl.inholland.bank.utils.JwtTokenProvider;
@@ -27,6 +28,7 @@ import javax.security.sasl.AuthenticationException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -55,6 +57,12 @@ class TransactionServiceTest {
     @MockBean
     private UserLimitsService userLimitsService;
 
+    @MockBean
+    private BalanceService balanceService;
+
+    @MockBean
+    private PendingCreditRepository pendingCreditRepository;
+
     @Autowired
     private JwtTokenProvider mockJwtTokenProvider;
 
@@ -64,7 +72,7 @@ class TransactionServiceTest {
     @BeforeEach
     public void setup() {
         transactionService = new TransactionService(transactionRepository, userRepository, userService,
-                accountService, userLimitsService);
+                accountService, userLimitsService, balanceService, pendingCreditRepository);
 
         user = new User(
                 "Billy",
@@ -79,19 +87,19 @@ class TransactionServiceTest {
         );
         currentAccount = new Account(
                 user,
-                750.0,
+                75000,
                 CurrencyType.EURO,
                 "NL10INHO6628932884",
                 AccountType.CURRENT,
-                0.0
+                0
         );
         savingAccount = new Account(
                 user,
-                50.0,
+                5000,
                 CurrencyType.EURO,
                 "NL19INHO2943276296",
                 AccountType.SAVING,
-                0.0
+                0
         );
         user2 = new User(
                 "Berta",
@@ -106,19 +114,19 @@ class TransactionServiceTest {
         );
         currentAccount2 = new Account(
                 user2,
-                345.0,
+                34500,
                 CurrencyType.EURO,
                 "NL89INHO9277178029",
                 AccountType.CURRENT,
-                -100.0
+                -10000
         );
         savingAccount2 = new Account(
                 user2,
-                0.0,
+                0,
                 CurrencyType.EURO,
                 "NL17INHO7534731756",
                 AccountType.SAVING,
-                0.0
+                0
         );
         user.setId(1);
         user2.setId(2);
@@ -134,7 +142,7 @@ class TransactionServiceTest {
         Account accountSender = currentAccount;
         Account accountReceiver = currentAccount2;
         CurrencyType currencyType = CurrencyType.EURO;
-        double amount = 100.0;
+        long amount = 10000;
         String description = "Successfully transferred 100 EURO";
         TransactionType transactionType = TransactionType.TRANSACTION;
 
@@ -177,8 +185,8 @@ class TransactionServiceTest {
 
     @Test
     void processTransaction_AccountNotFoundException() throws AccountNotFoundException {
-        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL89INHO9277178029", 100.0, "description");
-        when(userRepository.findUserByUsername(anyString())).thenReturn(java.util.Optional.of(new User()));
+        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL89INHO9277178029", 10000, "description");
+        when(userService.getBearerUser()).thenReturn(Optional.of(new User()));
         when(accountService.getAccountByIBAN("NL10INHO6628932884")).thenReturn(null);
 
         assertThrows(AccountNotFoundException.class, () -> transactionService.processTransaction(request));
@@ -190,9 +198,9 @@ class TransactionServiceTest {
         User user = new User();
         Account accountSender = new Account();
         Account accountReceiver = new Account();
-        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL89INHO9277178029", 100.0, "description");
+        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL89INHO9277178029", 10000, "description");
 
-        Mockito.when(userRepository.findUserByUsername(Mockito.anyString())).thenReturn(Optional.of(user));
+        Mockito.when(userService.getBearerUser()).thenReturn(Optional.of(user));
 
         Mockito.when(accountService.getAccountByIBAN(Mockito.anyString())).thenReturn(accountSender, accountReceiver);
 
@@ -206,8 +214,7 @@ class TransactionServiceTest {
             UserNotTheOwnerOfAccountException, javax.naming.AuthenticationException {
         // Create a mock User
         User user = this.user;
-        when(userService.getBearerUsername()).thenReturn("username");
-        when(userRepository.findUserByUsername("username")).thenReturn(java.util.Optional.of(user));
+        when(userService.getBearerUser()).thenReturn(Optional.of(user));
 
         // Set to inactive
         Account accountSender = this.currentAccount;
@@ -216,7 +223,7 @@ class TransactionServiceTest {
         Account accountReceiver = this.currentAccount2;
 
         // Create a TransactionRequest
-        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL89INHO9277178029", 100.0, "description");
+        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL89INHO9277178029", 10000, "description");
 
         Mockito.when(accountService.getAccountByIBAN(request.sender_iban())).thenReturn(accountSender);
         Mockito.when(accountService.getAccountByIBAN(request.receiver_iban())).thenReturn(accountReceiver);
@@ -231,8 +238,7 @@ class TransactionServiceTest {
             UserNotTheOwnerOfAccountException, javax.naming.AuthenticationException {
         // Create a mock User
         User user = this.user;
-        when(userService.getBearerUsername()).thenReturn("username");
-        when(userRepository.findUserByUsername("username")).thenReturn(java.util.Optional.of(user));
+        when(userService.getBearerUser()).thenReturn(Optional.of(user));
 
         Account accountSender = this.currentAccount;
 
@@ -241,7 +247,7 @@ class TransactionServiceTest {
         accountReceiver.setActive(false);
 
         // Create a TransactionRequest
-        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL89INHO9277178029", 100.0, "description");
+        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL89INHO9277178029", 10000, "description");
 
         Mockito.when(accountService.getAccountByIBAN(request.sender_iban())).thenReturn(accountSender);
         Mockito.when(accountService.getAccountByIBAN(request.receiver_iban())).thenReturn(accountReceiver);
@@ -256,8 +262,7 @@ class TransactionServiceTest {
             UserNotTheOwnerOfAccountException, javax.naming.AuthenticationException {
         // Create a mock User
         User user = this.user;
-        when(userService.getBearerUsername()).thenReturn("username");
-        when(userRepository.findUserByUsername("username")).thenReturn(java.util.Optional.of(user));
+        when(userService.getBearerUser()).thenReturn(Optional.of(user));
 
         Account accountSender = this.currentAccount;
 
@@ -265,7 +270,7 @@ class TransactionServiceTest {
         Account accountReceiver = this.currentAccount;
 
         // Create a TransactionRequest
-        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL10INHO6628932884", 100.0, "description");
+        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL10INHO6628932884", 10000, "description");
 
         Mockito.when(accountService.getAccountByIBAN(request.sender_iban())).thenReturn(accountSender);
         Mockito.when(accountService.getAccountByIBAN(request.receiver_iban())).thenReturn(accountReceiver);
@@ -280,8 +285,7 @@ class TransactionServiceTest {
             UserNotTheOwnerOfAccountException, javax.naming.AuthenticationException {
         // Create a mock User
         User user = this.user;
-        when(userService.getBearerUsername()).thenReturn("username");
-        when(userRepository.findUserByUsername("username")).thenReturn(java.util.Optional.of(user));
+        when(userService.getBearerUser()).thenReturn(Optional.of(user));
 
         Account accountSender = this.currentAccount;
         accountSender.setUser(user);
@@ -291,7 +295,7 @@ class TransactionServiceTest {
         accountReceiver.setUser(user2);
 
         // Create a TransactionRequest
-        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL10INHO6628923423", 100.0, "description");
+        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL10INHO6628923423", 10000, "description");
 
         Mockito.when(accountService.getAccountByIBAN(request.sender_iban())).thenReturn(accountSender);
         Mockito.when(accountService.getAccountByIBAN(request.receiver_iban())).thenReturn(accountReceiver);
@@ -306,23 +310,22 @@ class TransactionServiceTest {
             UserNotTheOwnerOfAccountException, javax.naming.AuthenticationException {
         // Create a mock User
         User user = this.user;
-        when(userService.getBearerUsername()).thenReturn("username");
-        when(userRepository.findUserByUsername("username")).thenReturn(java.util.Optional.of(user));
+        when(userService.getBearerUser()).thenReturn(Optional.of(user));
 
         Account accountSender = this.currentAccount;
         accountSender.setUser(user);
-        accountSender.setBalance(2000);
+        accountSender.setBalance(200000);
 
         // Set to inactive
         Account accountReceiver = this.currentAccount2;
         accountReceiver.setUser(user2);
 
         Limits limits = new Limits();
-        limits.setTransactionLimit(500);
-        limits.setDailyTransactionLimit(1000);
+        limits.setTransactionLimit(50000);
+        limits.setDailyTransactionLimit(100000);
 
         // Create a TransactionRequest
-        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL10INHO6628923423", 600.0, "description");
+        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL10INHO6628923423", 60000, "description");
 
         Mockito.when(accountService.getAccountByIBAN(request.sender_iban())).thenReturn(accountSender);
         Mockito.when(accountService.getAccountByIBAN(request.receiver_iban())).thenReturn(accountReceiver);
@@ -338,23 +341,22 @@ class TransactionServiceTest {
             UserNotTheOwnerOfAccountException, javax.naming.AuthenticationException {
         // Create a mock User
         User user = this.user;
-        when(userService.getBearerUsername()).thenReturn("username");
-        when(userRepository.findUserByUsername("username")).thenReturn(java.util.Optional.of(user));
+        when(userService.getBearerUser()).thenReturn(Optional.of(user));
 
         Account accountSender = this.currentAccount;
         accountSender.setUser(user);
-        accountSender.setBalance(2000);
+        accountSender.setBalance(200000);
 
         // Set to inactive
         Account accountReceiver = this.currentAccount2;
         accountReceiver.setUser(user2);
 
         Limits limits = new Limits();
-        limits.setTransactionLimit(1500);
-        limits.setDailyTransactionLimit(1000);
+        limits.setTransactionLimit(150000);
+        limits.setDailyTransactionLimit(100000);
 
         // Create a TransactionRequest
-        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL10INHO6628923423", 1100.0, "description");
+        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL10INHO6628923423", 110000, "description");
 
         Mockito.when(accountService.getAccountByIBAN(request.sender_iban())).thenReturn(accountSender);
         Mockito.when(accountService.getAccountByIBAN(request.receiver_iban())).thenReturn(accountReceiver);
@@ -370,12 +372,11 @@ class TransactionServiceTest {
             UserNotTheOwnerOfAccountException, javax.naming.AuthenticationException {
         // Create a mock User
         User user = this.user;
-        when(userService.getBearerUsername()).thenReturn("username");
-        when(userRepository.findUserByUsername("username")).thenReturn(java.util.Optional.of(user));
+        when(userService.getBearerUser()).thenReturn(Optional.of(user));
 
         Account accountSender = this.currentAccount;
         accountSender.setUser(user);
-        accountSender.setBalance(100);
+        accountSender.setBalance(10000);
         accountSender.setAbsoluteLimit(0);
 
         // Set to inactive
@@ -383,12 +384,12 @@ class TransactionServiceTest {
         accountReceiver.setUser(user2);
 
         Limits limits = new Limits();
-        limits.setTransactionLimit(500);
-        limits.setDailyTransactionLimit(1000);
-        limits.setRemainingDailyTransactionLimit(450);
+        limits.setTransactionLimit(50000);
+        limits.setDailyTransactionLimit(100000);
+        limits.setRemainingDailyTransactionLimit(45000);
 
         // Create a TransactionRequest
-        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL10INHO6628923423", 200.0, "description");
+        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL10INHO6628923423", 20000, "description");
 
         Mockito.when(accountService.getAccountByIBAN(request.sender_iban())).thenReturn(accountSender);
         Mockito.when(accountService.getAccountByIBAN(request.receiver_iban())).thenReturn(accountReceiver);
@@ -404,12 +405,11 @@ class TransactionServiceTest {
             UserNotTheOwnerOfAccountException, javax.naming.AuthenticationException {
         // Create a mock User
         User user = this.user;
-        when(userService.getBearerUsername()).thenReturn("username");
-        when(userRepository.findUserByUsername("username")).thenReturn(java.util.Optional.of(user));
+        when(userService.getBearerUser()).thenReturn(Optional.of(user));
 
         Account accountSender = this.currentAccount;
         accountSender.setUser(user);
-        accountSender.setBalance(100);
+        accountSender.setBalance(10000);
         accountSender.setAbsoluteLimit(0);
 
         // Set to inactive
@@ -417,12 +417,12 @@ class TransactionServiceTest {
         accountReceiver.setUser(user2);
 
         Limits limits = new Limits();
-        limits.setTransactionLimit(500);
-        limits.setDailyTransactionLimit(1000);
-        limits.setRemainingDailyTransactionLimit(450);
+        limits.setTransactionLimit(50000);
+        limits.setDailyTransactionLimit(100000);
+        limits.setRemainingDailyTransactionLimit(45000);
 
         // Create a TransactionRequest
-        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL10INHO6628923423", 100.0, "description");
+        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL10INHO6628923423", 10000, "description");
 
         Mockito.when(accountService.getAccountByIBAN(request.sender_iban())).thenReturn(accountSender);
         Mockito.when(accountService.getAccountByIBAN(request.receiver_iban())).thenReturn(accountReceiver);
@@ -433,6 +433,40 @@ class TransactionServiceTest {
         assertDoesNotThrow(() -> transactionService.processTransaction(request));
     }
 
+    @Test
+    void processDebit_savesPendingCreditInsteadOfCreditingReceiver() throws AccountNotFoundException, InsufficientResourcesException,
+            UserNotTheOwnerOfAccountException, javax.naming.AuthenticationException {
+        when(userService.getBearerUser()).thenReturn(Optional.of(user));
+
+        Account accountSender = this.currentAccount;
+        accountSender.setUser(user);
+        accountSender.setBalance(10000);
+        accountSender.setAbsoluteLimit(0);
+        Account accountReceiver = this.currentAccount2;
+        accountReceiver.setUser(user2);
+        accountReceiver.setId(7);
+        accountReceiver.setBalance(500);
+
+        Limits limits = new Limits();
+        limits.setTransactionLimit(50000);
+        limits.setDailyTransactionLimit(100000);
+        limits.setRemainingDailyTransactionLimit(45000);
+
+        TransactionRequest request = new TransactionRequest("NL10INHO6628932884", "NL10INHO6628923423", 10000, "description");
+        Mockito.when(accountService.getAccountByIBAN(request.sender_iban())).thenReturn(accountSender);
+        Mockito.when(accountService.getAccountByIBAN(request.receiver_iban())).thenReturn(accountReceiver);
+        Mockito.when(userService.getBearerUserRole()).thenReturn(Role.CUSTOMER);
+        Mockito.when(userLimitsService.getUserLimits(accountSender.getUser().getId())).thenReturn(limits);
+
+        Transaction transaction = transactionService.processDebit(request);
+
+        assertEquals(0, accountSender.getBalance());
+        assertEquals(500, accountReceiver.getBalance());
+        verify(pendingCreditRepository).insert(transaction.getId(), 7);
+        verify(balanceService).recordTransaction(accountSender, transaction);
+        verify(balanceService, never()).recordTransaction(eq(accountReceiver), Mockito.anyLong(), Mockito.any());
+    }
+
     @Test
     void checkAccountStatus_AccountIsInactive_InactiveAccountExceptionThrown() {
         // Arrange
@@ -575,13 +609,13 @@ class TransactionServiceTest {
     @Test
     void checkUserLimitsTest_ExceedsTransactionLimit() throws Exception {
         Account accountSender = this.currentAccount;
-        double amount = 550.0;
+        long amount = 55000;
 
         Account accountReceiver = this.currentAccount2;
 
         Limits limits = new Limits();
-        limits.setTransactionLimit(500.0);
-        limits.setRemainingDailyTransactionLimit(1000.0);
+        limits.setTransactionLimit(50000);
+        limits.setRemainingDailyTransactionLimit(100000);
 
         Mockito.when(userLimitsService.getUserLimits(this.user.getId())).thenReturn(limits);
 
@@ -596,11 +630,11 @@ class TransactionServiceTest {
     @Test
     void checkUserLimitsTest_ExceedsDailyTransactionLimit() throws Exception {
         Account accountSender = this.currentAccount;
-        double amount = 200.0;
+        long amount = 20000;
 
         Limits limits = new Limits();
-        limits.setTransactionLimit(500.0);
-        limits.setRemainingDailyTransactionLimit(100.0);
+        limits.setTransactionLimit(50000);
+        limits.setRemainingDailyTransactionLimit(10000);
 
         Mockito.when(userLimitsService.getUserLimits(this.user.getId())).thenReturn(limits);
 
@@ -614,11 +648,11 @@ class TransactionServiceTest {
     @Test
     void checkUserLimitsTest_InsufficientFunds() throws Exception {
         Account accountSender = this.currentAccount;
-        double amount = 800.0;
+        long amount = 80000;
 
         Limits limits = new Limits();
-        limits.setTransactionLimit(1000.0);
-        limits.setRemainingDailyTransactionLimit(1000.0);
+        limits.setTransactionLimit(100000);
+        limits.setRemainingDailyTransactionLimit(100000);
 
         Mockito.when(userLimitsService.getUserLimits(this.user.getId())).thenReturn(limits);
 
@@ -632,13 +666,13 @@ class TransactionServiceTest {
     @Test
     void updateAccountBalance_WhenIsDeposit_ShouldIncreaseBalance() {
         Account account = new Account();
-        account.setBalance(100.0);
-        double amount = 50.0;
+        account.setBalance(10000);
+        long amount = 5000;
         boolean isDeposit = true;
 
         transactionService.updateAccountBalance(account, amount, isDeposit);
 
-        double expectedBalance = 150.0;
+        long expectedBalance = 15000;
         Assertions.assertEquals(expectedBalance, account.getBalance());
         Mockito.verify(accountService, Mockito.times(1)).updateAccount(account);
     }
@@ -646,13 +680,13 @@ class TransactionServiceTest {
     @Test
     void updateAccountBalance_WhenIsNotDeposit_ShouldDecreaseBalance() {
         Account account = new Account();
-        account.setBalance(100.0);
-        double amount = 50.0;
+        account.setBalance(10000);
+        long amount = 5000;
         boolean isDeposit = false;
 
         transactionService.updateAccountBalance(account, amount, isDeposit);
 
-        double expectedBalance = 50.0;
+        long expectedBalance = 5000;
         Assertions.assertEquals(expectedBalance, account.getBalance());
         Mockito.verify(accountService, Mockito.times(1)).updateAccount(account);
     }
@@ -689,12 +723,24 @@ class TransactionServiceTest {
         when(transactionRepository.save(any(Transaction.class))).thenReturn(mock(Transaction.class));
 
         Transaction result = transactionService.transferMoney(
-                user, currentAccount, currentAccount2, CurrencyType.EURO, 100.0, "Transfer");
+                user, currentAccount, currentAccount2, CurrencyType.EURO, 10000, "Transfer");
 
         assertNotNull(result);
         assertEquals(TransactionType.TRANSACTION, result.getTransactionType());
     }
 
+    @Test
+    void testTransferMoneyCountsTowardsBalanceCheckpointsOfBothAccounts() {
+        long senderBalance = currentAccount.getBalance();
+        long receiverBalance = currentAccount2.getBalance();
+
+        Transaction result = transactionService.transferMoney(
+                user, currentAccount, currentAccount2, CurrencyType.EURO, 10000, "Transfer");
+
+        verify(balanceService).recordTransaction(currentAccount, senderBalance - 10000, result);
+        verify(balanceService).recordTransaction(currentAccount2, receiverBalance + 10000, result);
+    }
+
     @Test
     void testGetTransactions_UnauthorizedAccess_ThrowsAuthenticationException() {
         when(userService.getBearerUserRole()).thenReturn(null);
@@ -716,19 +762,18 @@ class TransactionServiceTest {
 
     @Test
     void testDepositMoneySuccessfulDeposit() throws AccountNotFoundException, AuthenticationException, UserNotTheOwnerOfAccountException, InsufficientResourcesException {
-        WithdrawDepositRequest depositRequest = new WithdrawDepositRequest("NL10INHO6628932884", 100, CurrencyType.EURO);
+        WithdrawDepositRequest depositRequest = new WithdrawDepositRequest("NL10INHO6628932884", 10000, CurrencyType.EURO);
         User user = new User("Billy", "Bob", "billy@example.com", "570372562", "0612345678",
                 LocalDate.of(1990, 1, 1), "billy", "P@ssw0rd", Role.CUSTOMER);
-        Account accountReceiver = new Account(user, 750.0, CurrencyType.EURO, "NL10INHO6628932884",
-                AccountType.CURRENT, 0.0);
+        Account accountReceiver = new Account(user, 75000, CurrencyType.EURO, "NL10INHO6628932884",
+                AccountType.CURRENT, 0);
 
-        when(userService.getBearerUsername()).thenReturn("billy");
-        when(userRepository.findUserByUsername("billy")).thenReturn(Optional.of(user));
+        when(userService.getBearerUser()).thenReturn(Optional.of(user));
         when(accountService.getAccountByIBAN("NL10INHO6628932884")).thenReturn(accountReceiver);
 
         transactionService.depositMoney(depositRequest);
 
-        assertEquals(850, accountReceiver.getBalance());
+        assertEquals(85000, accountReceiver.getBalance());
 
         accountReceiver.setActive(false);
         Assertions.assertThrows(InactiveAccountException.class, () -> {
@@ -750,31 +795,31 @@ class TransactionServiceTest {
 
     @Test
     void testWithdrawMoneySuccessfulWithdrawal() throws AccountNotFoundException, AuthenticationException, UserNotTheOwnerOfAccountException, InsufficientResourcesException, javax.naming.AuthenticationException {
-        WithdrawDepositRequest depositRequest = new WithdrawDepositRequest("NL10INHO6628932884", 100, CurrencyType.EURO);
+        WithdrawDepositRequest depositRequest = new WithdrawDepositRequest("NL10INHO6628932884", 10000, CurrencyType.EURO);
         User user = new User("Billy", "Bob", "billy@example.com", "570372562", "0612345678",
                 LocalDate.of(1990, 1, 1), "billy", "P@ssw0rd", Role.CUSTOMER);
-        Account accountReceiver = new Account(user, 750.0, CurrencyType.EURO, "NL10INHO6628932884",
-                AccountType.CURRENT, 0.0);
+        Account accountReceiver = new Account(user, 75000, CurrencyType.EURO, "NL10INHO6628932884",
+                AccountType.CURRENT, 0);
 
         Limits limits = new Limits();
-        limits.setTransactionLimit(500.0);
-        limits.setRemainingDailyTransactionLimit(1000.0);
+        limits.setTransactionLimit(50000);
+        limits.setRemainingDailyTransactionLimit(100000);
 
-        Mockito.when(userService.getBearerUsername()).thenReturn("billy");
-        Mockito.when(userRepository.findUserByUsername("billy")).thenReturn(Optional.of(user));
+        Mockito.when(userService.getBearerUser()).thenReturn(Optional.of(user));
         Mockito.when(accountService.getAccountByIBAN("NL10INHO6628932884")).thenReturn(accountReceiver);
         Mockito.when(userLimitsService.getUserLimits(anyInt())).thenReturn(limits);
 
         transactionService.withdrawMoney(depositRequest);
 
-        assertEquals(650, accountReceiver.getBalance());
+        assertEquals(65000, accountReceiver.getBalance());
     }
 
     @Test
     void testGetTransactions_Authorized_ReturnsList() {
         when(userService.getBearerUserRole()).thenReturn(Role.CUSTOMER);
-        Transaction transaction = new Transaction();
-        when(transactionRepository.findTransactions(anyDouble(), anyDouble(), any(), any(), anyInt(), anyString(), anyString(), any(), any(), any(), any(), any())).thenReturn(new PageImpl<>(List.of(transaction)));
+        TransactionSummary transaction = new TransactionSummary(1, "user", null, "NL01INHO0000000001", 10,
+                CurrencyType.EURO, LocalDateTime.now(), "", TransactionType.DEPOSIT);
+        when(transactionRepository.findTransactions(anyLong(), anyLong(), any(), any(), anyInt(), anyString(), anyString(), any(), any(), any(), any(), any())).thenReturn(new PageImpl<>(List.of(transaction)));
 
         assertDoesNotThrow(() -> {
             transactionService.getTransactions(
@@ -786,4 +831,100 @@ class TransactionServiceTest {
             );
         });
     }
+
+    private void setupBatch() throws javax.naming.AuthenticationException {
+        when(userService.getBearerUserRole()).thenReturn(Role.CUSTOMER);
+        when(userService.getBearerUser()).thenReturn(Optional.of(user));
+        when(accountService.getAccountsByIBANs(Mockito.any())).thenReturn(Map.of(
+                currentAccount.getIBAN(), currentAccount,
+                currentAccount2.getIBAN(), currentAccount2
+        ));
+
+        Limits limits = new Limits();
+        limits.setTransactionLimit(100000);
+        limits.setDailyTransactionLimit(100000);
+        limits.setRemainingDailyTransactionLimit(100000);
+        when(userLimitsService.getUserLimitsNoAuth(user.getId())).thenReturn(limits);
+        when(userLimitsService.countsTowardsDailyLimit(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(true);
+    }
+
+    @Test
+    void processTransactions_balanceIsTrackedWithinBatch() throws javax.naming.AuthenticationException {
+        setupBatch();
+
+        // 750 on the sender account, so only the first two fit
+        List<TransactionBatchResult> results = transactionService.processTransactions(List.of(
+                new TransactionRequest(currentAccount.getIBAN(), currentAccount2.getIBAN(), 30000, "first"),
+                new TransactionRequest(currentAccount.getIBAN(), currentAccount2.getIBAN(), 30000, "second"),
+                new TransactionRequest(currentAccount.getIBAN(), currentAccount2.getIBAN(), 30000, "third")
+        ), false);
+
+        assertTrue(results.get(0).isSuccessful());
+        assertTrue(results.get(1).isSuccessful());
+        assertInstanceOf(InsufficientFundsException.class, results.get(2).error());
+        assertEquals(15000, currentAccount.getBalance());
+        assertEquals(94500, currentAccount2.getBalance());
+        Mockito.verify(transactionRepository).saveAll(Mockito.argThat(transactions -> ((List<?>) transactions).size() == 2));
+        Mockito.verify(userLimitsService).recordTransactions(Mockito.any());
+    }
+
+    @Test
+    void processTransactions_dailyLimitIsTrackedWithinBatch() throws javax.naming.AuthenticationException {
+        setupBatch();
+        currentAccount.setBalance(500000);
+
+        List<TransactionBatchResult> results = transactionService.processTransactions(List.of(
+                new TransactionRequest(currentAccount.getIBAN(), currentAccount2.getIBAN(), 60000, "first"),
+                new TransactionRequest(currentAccount.getIBAN(), currentAccount2.getIBAN(), 60000, "second")
+        ), false);
+
+        assertTrue(results.get(0).isSuccessful());
+        assertInstanceOf(DailyTransactionLimitException.class, results.get(1).error());
+    }
+
+    @Test
+    void processTransactions_allOrNothingSavesNothingOnFailure() throws javax.naming.AuthenticationException {
+        setupBatch();
+
+        List<TransactionBatchResult> results = transactionService.processTransactions(List.of(
+                new TransactionRequest(currentAccount.getIBAN(), currentAccount2.getIBAN(), 10000, "fine"),
+                new TransactionRequest(currentAccount.getIBAN(), "NL17INHO7534731756", 10000, "unknown account")
+        ), true);
+
+        assertInstanceOf(OperationNotAllowedException.class, results.get(0).error());
+        assertInstanceOf(AccountNotFoundException.class, results.get(1).error());
+        assertEquals(75000, currentAccount.getBalance());
+        Mockito.verify(transactionRepository, Mockito.never()).saveAll(Mockito.any());
+        Mockito.verify(accountService, Mockito.never()).updateAccounts(Mockito.any());
+    }
+
+    @Test
+    void processTransactions_locksAllAccountsFirst() throws javax.naming.AuthenticationException {
+        setupBatch();
+
+        transactionService.processTransactions(List.of(
+                new TransactionRequest(currentAccount.getIBAN(), currentAccount2.getIBAN(), 10000, "fine")
+        ), false);
+
+        Mockito.verify(accountService).lockAccounts(currentAccount.getIBAN(), currentAccount2.getIBAN());
+    }
+
+    @Test
+    void processTransactions_accountOfAnotherUserOnlyFailsThatItem() throws javax.naming.AuthenticationException {
+        setupBatch();
+        // Loading the limits of the other user with the authorization check would throw for a customer
+        when(userLimitsService.getUserLimits(Mockito.anyInt()))
+                .thenThrow(new javax.naming.AuthenticationException("You are not allowed to view this user's limits"));
+
+        List<TransactionBatchResult> results = transactionService.processTransactions(List.of(
+                new TransactionRequest(currentAccount.getIBAN(), currentAccount2.getIBAN(), 10000, "own account"),
+                new TransactionRequest(currentAccount2.getIBAN(), currentAccount.getIBAN(), 10000, "someone else's account")
+        ), false);
+
+        assertTrue(results.get(0).isSuccessful());
+        assertInstanceOf(UserNotTheOwnerOfAccountException.class, results.get(1).error());
+        Mockito.verify(transactionRepository).saveAll(Mockito.argThat(transactions -> ((List<?>) transactions).size() == 1));
+        Mockito.verify(userLimitsService, Mockito.never()).getUserLimits(Mockito.anyInt());
+        Mockito.verify(userLimitsService, Mockito.never()).getUserLimitsNoAuth(user2.getId());
+    }
 }
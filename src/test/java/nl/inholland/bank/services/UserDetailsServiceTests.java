@@ -1,6 +1,7 @@
 package nl.inholland.bank.services;
 
 import nl.inholland.bank.configuration.ApiTestConfiguration;
+import nl.inholland.bank.models.AuthenticatedUser;
 import nl.inholland.bank.models.Role;
 import nl.inholland.bank.models.User;
 import nl.inholland.bank.repositories.UserRepository;
@@ -63,4 +64,15 @@ class UserDetailsServiceTests {
                 () -> userDetailsService.loadUserByUsername("test")
         );
     }
+
+    @Test
+    void gettingAuthenticatedUserReturnsIdRoleAndDetails() {
+        Mockito.when(userRepository.findUserByUsername("user")).thenReturn(Optional.of(user));
+
+        AuthenticatedUser authenticatedUser = userDetailsService.loadAuthenticatedUser("user");
+        Assertions.assertEquals(1, authenticatedUser.id());
+        Assertions.assertEquals(Role.CUSTOMER, authenticatedUser.role());
+        Assertions.assertEquals("user", authenticatedUser.userDetails().getUsername());
+        Mockito.verify(userRepository, Mockito.times(1)).findUserByUsername("user");
+    }
 }
@@ -3,6 +3,7 @@ package nl.inholland.bank.services;
 import nl.inholland.bank.configuration.ApiTestConfiguration;
 import nl.inholland.bank.models.*;
 import nl.inholland.bank.models.dtos.UserDTO.UserLimitsRequest;
+import nl.inholland.bank.repositories.DailySpendRepository;
 import nl.inholland.bank.repositories.TransactionRepository;
 import nl.inholland.bank.repositories.UserLimitsRepository;
 import nl.inholland.bank.repositories.UserRepository;
@@ -38,6 +39,8 @@ class UserLimitsServiceTests {
     private UserRepository userRepository;
     @MockBean
     private TransactionRepository transactionRepository;
+    @MockBean
+    private DailySpendRepository dailySpendRepository;
 
     private User user;
     private User receiverUser;
@@ -53,7 +56,8 @@ class UserLimitsServiceTests {
 
     @BeforeEach
     void setUp() {
-        userLimitsService = new UserLimitsService(userLimitsRepository, mockJwtTokenProvider, userRepository, transactionRepository);
+        userLimitsService = new UserLimitsService(userLimitsRepository, mockJwtTokenProvider, userRepository,
+                new DailySpendService(dailySpendRepository, transactionRepository, userLimitsRepository));
 
         user = new User();
         user.setId(1);
@@ -13,6 +13,7 @@ import nl.inholland.bank.repositories.AccountRepository;
 import nl.inholland.bank.repositories.UserRepository;
 import nl.inholland.bank.utils.JwtTokenProvider;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,6 +29,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import javax.naming.AuthenticationException;
 import java.lang.reflect.Field;
@@ -41,6 +43,7 @@ import java.util.Optional;
 class UserServiceTests {
 
     private UserService userService;
+    private PasswordHashingService passwordHashingService;
 
     @MockBean
     private UserRepository userRepository;
@@ -72,7 +75,10 @@ class UserServiceTests {
 
     @BeforeEach
     void setUp() {
-        userService = new UserService(userRepository, bCryptPasswordEncoder, mockJwtTokenProvider, userLimitsService, accountRepository);
+        passwordHashingService = new PasswordHashingService(bCryptPasswordEncoder);
+        ReflectionTestUtils.setField(passwordHashingService, "queueSize", 10);
+        passwordHashingService.init();
+        userService = new UserService(userRepository, passwordHashingService, mockJwtTokenProvider, userLimitsService, accountRepository);
 
         user = new User();
         user.setId(1);
@@ -136,6 +142,11 @@ class UserServiceTests {
         Mockito.when(userLimitsService.getDefaultLimits()).thenReturn(defaultLimits);
     }
 
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
     @Test
     void addUserAsAdminShouldReturnUser() throws AuthenticationException {
         Mockito.when(mockJwtTokenProvider.getRole()).thenReturn(Role.ADMIN);
@@ -323,6 +334,30 @@ class UserServiceTests {
         Assertions.assertEquals(token, this.token);
     }
 
+    @Test
+    void loginWithPasswordHashedWithAnotherCostRehashesPassword() throws AuthenticationException {
+        String oldHash = user.getPassword();
+        Mockito.when(userRepository.findUserByUsername(userRequest.getUsername())).thenReturn(Optional.of(user));
+        Mockito.when(bCryptPasswordEncoder.matches(userRequest.getPassword(), oldHash)).thenReturn(true);
+        Mockito.when(bCryptPasswordEncoder.upgradeEncoding(oldHash)).thenReturn(true);
+        Mockito.when(bCryptPasswordEncoder.encode(userRequest.getPassword())).thenReturn("newhash");
+        Mockito.when(mockJwtTokenProvider.createToken(user.getUsername(), user.getRole())).thenReturn(token);
+
+        Assertions.assertEquals(token, userService.login(loginRequest));
+        Mockito.verify(userRepository).updatePassword(user.getId(), oldHash, "newhash");
+    }
+
+    @Test
+    void loginWithPasswordHashedWithCurrentCostDoesNotRehashPassword() throws AuthenticationException {
+        Mockito.when(userRepository.findUserByUsername(userRequest.getUsername())).thenReturn(Optional.of(user));
+        Mockito.when(bCryptPasswordEncoder.matches(userRequest.getPassword(), user.getPassword())).thenReturn(true);
+        Mockito.when(mockJwtTokenProvider.createToken(user.getUsername(), user.getRole())).thenReturn(token);
+
+        userService.login(loginRequest);
+        Mockito.verify(bCryptPasswordEncoder, Mockito.never()).encode(Mockito.any());
+        Mockito.verify(userRepository, Mockito.never()).updatePassword(Mockito.anyInt(), Mockito.any(), Mockito.any());
+    }
+
     @Test
     void loginToInactiveUserThrowsDisabledException() {
         Mockito.when(userRepository.findUserByUsername(userRequest.getUsername())).thenReturn(Optional.of(user));
@@ -382,6 +417,29 @@ class UserServiceTests {
         Assertions.assertEquals("user", username);
     }
 
+    @Test
+    void getBearerUserLoadsUserById() {
+        Mockito.when(mockJwtTokenProvider.getAuthenticatedUser()).thenReturn(new AuthenticatedUser(1, "user", Role.CUSTOMER, true, null));
+        Mockito.when(userRepository.findById(1)).thenReturn(Optional.of(user));
+
+        Assertions.assertEquals(Optional.of(user), userService.getBearerUser());
+        Mockito.verify(userRepository, Mockito.never()).findUserByUsername(Mockito.anyString());
+    }
+
+    @Test
+    void getBearerUserWithoutAuthenticationReturnsEmpty() {
+        Assertions.assertEquals(Optional.empty(), userService.getBearerUser());
+    }
+
+    @Test
+    void getBearerUserReferenceDoesNotLoadUser() {
+        Mockito.when(mockJwtTokenProvider.getAuthenticatedUser()).thenReturn(new AuthenticatedUser(1, "user", Role.CUSTOMER, true, null));
+        Mockito.when(userRepository.getReferenceById(1)).thenReturn(user);
+
+        Assertions.assertEquals(Optional.of(user), userService.getBearerUserReference());
+        Mockito.verify(userRepository, Mockito.never()).findById(Mockito.anyInt());
+    }
+
     @Test
     void providingValidPasswordReturnTrue() {
         Assertions.assertTrue(userService.isPasswordValid("Password123!"));
@@ -15,8 +15,8 @@ class TransactionSpecificationsTests {
     @Test
     void testWithAmountBetween() {
         // Create test data
-        double minAmount = 100.0;
-        double maxAmount = 500.0;
+        long minAmount = 10000;
+        long maxAmount = 50000;
 
         // Call the method
         Specification<Transaction> specification = TransactionSpecifications.withAmountBetween(minAmount, maxAmount);
@@ -79,6 +79,20 @@ class TransactionSpecificationsTests {
         assertNotNull(specification);
     }
 
+    @Test
+    void testFromAccountOfUser() {
+        Specification<Transaction> specification = TransactionSpecifications.fromAccountOfUser(123);
+
+        assertNotNull(specification);
+    }
+
+    @Test
+    void testToAccountOfUserFromElsewhere() {
+        Specification<Transaction> specification = TransactionSpecifications.toAccountOfUserFromElsewhere(123);
+
+        assertNotNull(specification);
+    }
+
     @Test
     void testWithSenderUser() {
         // Create test data
@@ -0,0 +1,47 @@
+package nl.inholland.bank.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+class AdaptiveBCryptPasswordEncoderTests {
+    private final AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(5);
+
+    @Test
+    void hashesAreMadeWithTheStrength() {
+        String hash = encoder.encode("Password1!");
+
+        Assertions.assertEquals(5, encoder.getStrength());
+        Assertions.assertEquals(5, AdaptiveBCryptPasswordEncoder.strengthOf(hash));
+        Assertions.assertTrue(encoder.matches("Password1!", hash));
+    }
+
+    @Test
+    void hashesWithALowerOrHigherStrengthNeedAnUpgrade() {
+        Assertions.assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("Password1!")));
+        Assertions.assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("Password1!")));
+        Assertions.assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("Password1!")));
+    }
+
+    @Test
+    void valuesThatAreNotBCryptHashesDoNotNeedAnUpgrade() {
+        Assertions.assertFalse(encoder.upgradeEncoding(null));
+        Assertions.assertFalse(encoder.upgradeEncoding(""));
+        Assertions.assertFalse(encoder.upgradeEncoding("Password1!"));
+        Assertions.assertEquals(-1, AdaptiveBCryptPasswordEncoder.strengthOf("Password1!"));
+    }
+
+    @Test
+    void calibratedStrengthIsNeverBelowTheMinimum() {
+        Assertions.assertEquals(12, AdaptiveBCryptPasswordEncoder.calibrateStrength(0, 12));
+    }
+
+    @Test
+    void calibratedStrengthGrowsWithTheTargetTime() {
+        // Every step doubles the time, so a target that is 16 times as long is about 4 steps more.
+        int fast = AdaptiveBCryptPasswordEncoder.calibrateStrength(10, 4);
+        int slow = AdaptiveBCryptPasswordEncoder.calibrateStrength(160, 4);
+
+        Assertions.assertTrue(slow - fast >= 3 && slow - fast <= 5, fast + " -> " + slow);
+    }
+}
@@ -0,0 +1,58 @@
+package nl.inholland.bank.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+class BloomFilterTests {
+    private static byte[] sha256(int value) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256").digest(ByteBuffer.allocate(4).putInt(value).array());
+    }
+
+    @Test
+    void addedValuesAreAlwaysFound() throws NoSuchAlgorithmException {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.add(sha256(i));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertTrue(filter.mightContain(sha256(i)));
+        }
+    }
+
+    @Test
+    void falsePositivesStayNearTheRate() throws NoSuchAlgorithmException {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(sha256(i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain(sha256(i))) {
+                falsePositives++;
+            }
+        }
+        Assertions.assertTrue(falsePositives < 2000, falsePositives + " false positives in 100000");
+    }
+
+    @Test
+    void sizeFollowsTheExpectedSizeAndRate() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+
+        // About 9.6 bits and 7 hashes per value for 1%.
+        Assertions.assertEquals(958_506, filter.getBitCount());
+        Assertions.assertEquals(7, filter.getHashCount());
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+    }
+}
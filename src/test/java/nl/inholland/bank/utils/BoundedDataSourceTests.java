@@ -0,0 +1,79 @@
+package nl.inholland.bank.utils;
+
+import nl.inholland.bank.configuration.ApiTestConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+@ExtendWith(SpringExtension.class)
+@Import(ApiTestConfiguration.class)
+@AutoConfigureMockMvc(addFilters = false)
+class BoundedDataSourceTests {
+    private DataSource dataSource;
+    private Connection connection;
+    private BoundedDataSource boundedDataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = Mockito.mock(DataSource.class);
+        connection = Mockito.mock(Connection.class);
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+
+        boundedDataSource = new BoundedDataSource(dataSource, 1, 50);
+    }
+
+    @Test
+    void connectionIsTakenFromDelegate() throws SQLException {
+        Connection taken = boundedDataSource.getConnection();
+        taken.setAutoCommit(false);
+
+        Mockito.verify(connection).setAutoCommit(false);
+        Assertions.assertEquals(0, boundedDataSource.getAvailablePermits());
+    }
+
+    @Test
+    void gettingMoreConnectionsThanPermitsTimesOut() throws SQLException {
+        boundedDataSource.getConnection();
+
+        Assertions.assertThrows(SQLTransientConnectionException.class, () -> boundedDataSource.getConnection());
+        Mockito.verify(dataSource, Mockito.times(1)).getConnection();
+    }
+
+    @Test
+    void closingConnectionReleasesPermitOnce() throws SQLException {
+        Connection taken = boundedDataSource.getConnection();
+        taken.close();
+        taken.close();
+
+        Assertions.assertEquals(1, boundedDataSource.getAvailablePermits());
+        Assertions.assertDoesNotThrow(() -> boundedDataSource.getConnection());
+        Mockito.verify(connection, Mockito.times(1)).close();
+    }
+
+    @Test
+    void failingDelegateReleasesPermit() throws SQLException {
+        Mockito.when(dataSource.getConnection()).thenThrow(new SQLException("Database is down"));
+
+        Assertions.assertThrows(SQLException.class, () -> boundedDataSource.getConnection());
+        Assertions.assertEquals(1, boundedDataSource.getAvailablePermits());
+    }
+
+    @Test
+    void exceptionsOfConnectionAreNotWrapped() throws SQLException {
+        Mockito.when(connection.prepareStatement("select")).thenThrow(new SQLException("Syntax error"));
+        Connection taken = boundedDataSource.getConnection();
+
+        SQLException exception = Assertions.assertThrows(SQLException.class, () -> taken.prepareStatement("select"));
+        Assertions.assertEquals("Syntax error", exception.getMessage());
+    }
+}
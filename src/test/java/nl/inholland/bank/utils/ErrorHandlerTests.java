@@ -176,4 +176,9 @@ class ErrorHandlerTests {
     void handleTransactionLimitException() {
         Assertions.assertDoesNotThrow(() -> errorHandler.handleTransactionLimitException(new nl.inholland.bank.models.exceptions.TransactionLimitException("Test")));
     }
+
+    @Test
+    void handlePasswordHashingBusyException() {
+        Assertions.assertDoesNotThrow(() -> errorHandler.handlePasswordHashingBusyException(new nl.inholland.bank.models.exceptions.PasswordHashingBusyException("Test")));
+    }
 }
@@ -3,12 +3,12 @@ package nl.inholland.bank.utils;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import nl.inholland.bank.configuration.ApiTestConfiguration;
+import nl.inholland.bank.models.AuthenticatedUser;
 import nl.inholland.bank.models.Role;
-import nl.inholland.bank.models.User;
 import nl.inholland.bank.models.dtos.Token;
-import nl.inholland.bank.repositories.UserRepository;
 import nl.inholland.bank.services.RefreshTokenBlacklistService;
 import nl.inholland.bank.services.UserDetailsService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +19,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -34,7 +35,7 @@ import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 @ExtendWith(SpringExtension.class)
 @Import(ApiTestConfiguration.class)
@@ -51,14 +52,11 @@ class JwtTokenProviderTests {
     @MockBean
     private RefreshTokenBlacklistService refreshTokenBlacklistService;
 
-    @MockBean
-    private UserRepository userRepository;
-
     private UserDetails userDetails;
 
     @BeforeEach
     public void setUp() {
-        jwtTokenProvider = new JwtTokenProvider(userDetailsService, jwtKeyProvider, refreshTokenBlacklistService, userRepository);
+        jwtTokenProvider = new JwtTokenProvider(userDetailsService, jwtKeyProvider, refreshTokenBlacklistService);
         String key = "random_secret_key";
         Mockito.when(jwtKeyProvider.getPrivateKey()).thenReturn(getPasswordBasedKey(SignatureAlgorithm.HS256.getJcaName(), 256, key.toCharArray()));
 
@@ -119,6 +117,27 @@ class JwtTokenProviderTests {
         };
     }
 
+    private AuthenticatedUser authenticatedUser() {
+        return new AuthenticatedUser(1, "username", Role.CUSTOMER, true, userDetails);
+    }
+
+    private void authenticate(String token) {
+        SecurityContextHolder.getContext().setAuthentication(jwtTokenProvider.getAuthentication(token));
+    }
+
+    private void enableCache(long ttl, int maxSize) {
+        try {
+            Field field = jwtTokenProvider.getClass().getDeclaredField("cacheTtlInMilliseconds");
+            field.setAccessible(true);
+            field.set(jwtTokenProvider, ttl);
+            field = jwtTokenProvider.getClass().getDeclaredField("cacheMaxSize");
+            field.setAccessible(true);
+            field.set(jwtTokenProvider, maxSize);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            e.printStackTrace();
+        }
+    }
+
     private static Key getPasswordBasedKey(String cipher, int keySize, char[] password) {
         try {
             byte[] salt = new byte[100];
@@ -133,6 +152,11 @@ class JwtTokenProviderTests {
         }
     }
 
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
     @Test
     void createTokenShouldReturnToken() {
         Token token = jwtTokenProvider.createToken("username", Role.CUSTOMER);
@@ -145,9 +169,14 @@ class JwtTokenProviderTests {
         Assertions.assertNotNull(refreshToken);
     }
 
+    @Test
+    void refreshTokensIssuedInTheSameSecondDiffer() {
+        Assertions.assertNotEquals(jwtTokenProvider.createRefreshToken("username"), jwtTokenProvider.createRefreshToken("username"));
+    }
+
     @Test
     void getAuthenticationShouldReturnAuthentication() {
-        Mockito.when(userDetailsService.loadUserByUsername("username")).thenReturn(userDetails);
+        Mockito.when(userDetailsService.loadAuthenticatedUser("username")).thenReturn(authenticatedUser());
 
         Token token = jwtTokenProvider.createToken("username", Role.CUSTOMER);
         Authentication authentication = jwtTokenProvider.getAuthentication(token.jwt());
@@ -156,7 +185,7 @@ class JwtTokenProviderTests {
 
     @Test
     void getAuthenticationForExpiredTokenShouldThrowRuntimeException() {
-        Mockito.when(userDetailsService.loadUserByUsername("username")).thenReturn(userDetails);
+        Mockito.when(userDetailsService.loadAuthenticatedUser("username")).thenReturn(authenticatedUser());
 
         Token token = jwtTokenProvider.createToken("username", Role.CUSTOMER);
         try {
@@ -170,10 +199,18 @@ class JwtTokenProviderTests {
     @Test
     void refreshTokenUsernameReturnsUsername() throws AuthenticationException {
         String refreshToken = jwtTokenProvider.createRefreshToken("username");
+        Mockito.when(refreshTokenBlacklistService.blacklist(refreshToken)).thenReturn(true);
         String username = jwtTokenProvider.refreshTokenUsername(refreshToken);
         Assertions.assertEquals("username", username);
     }
 
+    @Test
+    void refreshTokenUsernameWithTokenBlacklistedInTheMeantimeThrowsAuthenticationException() {
+        String refreshToken = jwtTokenProvider.createRefreshToken("username");
+        Mockito.when(refreshTokenBlacklistService.blacklist(refreshToken)).thenReturn(false);
+        Assertions.assertThrows(AuthenticationException.class, () -> jwtTokenProvider.refreshTokenUsername(refreshToken));
+    }
+
     @Test
     void refreshTokenUsernameWithBlacklistedTokenThrowsAuthenticationException() {
         String refreshToken = jwtTokenProvider.createRefreshToken("username");
@@ -195,8 +232,8 @@ class JwtTokenProviderTests {
     @Test
     void getUsernameReturnsUsername() {
         String token = jwtTokenProvider.createToken("username", Role.CUSTOMER).jwt();
-        Mockito.when(userDetailsService.loadUserByUsername("username")).thenReturn(userDetails);
-        jwtTokenProvider.getAuthentication(token);
+        Mockito.when(userDetailsService.loadAuthenticatedUser("username")).thenReturn(authenticatedUser());
+        authenticate(token);
         String username = jwtTokenProvider.getUsername();
         Assertions.assertEquals("username", username);
     }
@@ -210,11 +247,8 @@ class JwtTokenProviderTests {
     @Test
     void getRoleReturnsRole() {
         String token = jwtTokenProvider.createToken("username", Role.CUSTOMER).jwt();
-        Mockito.when(userDetailsService.loadUserByUsername("username")).thenReturn(userDetails);
-        User user = new User();
-        user.setRole(Role.CUSTOMER);
-        Mockito.when(userRepository.findUserByUsername("username")).thenReturn(Optional.of(user));
-        jwtTokenProvider.getAuthentication(token);
+        Mockito.when(userDetailsService.loadAuthenticatedUser("username")).thenReturn(authenticatedUser());
+        authenticate(token);
         Role role = jwtTokenProvider.getRole();
         Assertions.assertEquals(Role.CUSTOMER, role);
     }
@@ -229,4 +263,105 @@ class JwtTokenProviderTests {
     void clearAuthenticationWorks() {
         Assertions.assertDoesNotThrow(() -> jwtTokenProvider.clearAuthentication());
     }
+
+    @Test
+    void cachedTokenDoesNotLoadUserAgain() {
+        enableCache(60000, 100);
+        Mockito.when(userDetailsService.loadAuthenticatedUser("username")).thenReturn(authenticatedUser());
+        String token = jwtTokenProvider.createToken("username", Role.CUSTOMER).jwt();
+
+        jwtTokenProvider.getAuthentication(token);
+        jwtTokenProvider.clearAuthentication();
+        authenticate(token);
+
+        Assertions.assertEquals("username", jwtTokenProvider.getUsername());
+        Assertions.assertEquals(Role.CUSTOMER, jwtTokenProvider.getRole());
+        Assertions.assertEquals(1, jwtTokenProvider.getAuthenticatedUser().id());
+        Mockito.verify(userDetailsService, Mockito.times(1)).loadAuthenticatedUser("username");
+    }
+
+    @Test
+    void evictedUserIsLoadedAgain() {
+        enableCache(60000, 100);
+        Mockito.when(userDetailsService.loadAuthenticatedUser("username")).thenReturn(authenticatedUser());
+        String token = jwtTokenProvider.createToken("username", Role.CUSTOMER).jwt();
+
+        jwtTokenProvider.getAuthentication(token);
+        jwtTokenProvider.evictUser("username");
+        Mockito.when(userDetailsService.loadAuthenticatedUser("username"))
+                .thenReturn(new AuthenticatedUser(1, "username", Role.EMPLOYEE, true, userDetails));
+        authenticate(token);
+
+        Assertions.assertEquals(Role.EMPLOYEE, jwtTokenProvider.getRole());
+        Mockito.verify(userDetailsService, Mockito.times(2)).loadAuthenticatedUser("username");
+    }
+
+    @Test
+    void getAuthenticationForDeactivatedUserShouldThrowRuntimeException() {
+        enableCache(60000, 100);
+        Mockito.when(userDetailsService.loadAuthenticatedUser("username"))
+                .thenReturn(new AuthenticatedUser(1, "username", Role.CUSTOMER, false, userDetails));
+        String token = jwtTokenProvider.createToken("username", Role.CUSTOMER).jwt();
+
+        Assertions.assertThrows(RuntimeException.class, () -> jwtTokenProvider.getAuthentication(token));
+        // Not remembered, so the token works again once the user is reactivated
+        Mockito.when(userDetailsService.loadAuthenticatedUser("username")).thenReturn(authenticatedUser());
+        Assertions.assertNotNull(jwtTokenProvider.getAuthentication(token));
+    }
+
+    @Test
+    void deactivatedUserIsRefusedOnceEvicted() {
+        enableCache(60000, 100);
+        Mockito.when(userDetailsService.loadAuthenticatedUser("username")).thenReturn(authenticatedUser());
+        String token = jwtTokenProvider.createToken("username", Role.CUSTOMER).jwt();
+
+        jwtTokenProvider.getAuthentication(token);
+        Mockito.when(userDetailsService.loadAuthenticatedUser("username"))
+                .thenReturn(new AuthenticatedUser(1, "username", Role.CUSTOMER, false, userDetails));
+        jwtTokenProvider.evictUser("username");
+
+        Assertions.assertThrows(RuntimeException.class, () -> jwtTokenProvider.getAuthentication(token));
+    }
+
+    @Test
+    void cacheDoesNotOutliveToken() {
+        enableCache(60000, 100);
+        Mockito.when(userDetailsService.loadAuthenticatedUser("username")).thenReturn(authenticatedUser());
+        String token = jwtTokenProvider.createToken("username", Role.CUSTOMER).jwt();
+
+        jwtTokenProvider.getAuthentication(token);
+        try {
+            Thread.sleep(3000);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        Assertions.assertThrows(RuntimeException.class, () -> jwtTokenProvider.getAuthentication(token));
+    }
+
+    @Test
+    void cacheStaysWithinMaxSize() {
+        enableCache(60000, 2);
+        Mockito.when(userDetailsService.loadAuthenticatedUser(Mockito.anyString())).thenReturn(authenticatedUser());
+
+        for (int i = 0; i < 5; i++) {
+            authenticate(jwtTokenProvider.createToken("user" + i, Role.CUSTOMER).jwt());
+        }
+
+        Mockito.verify(userDetailsService, Mockito.times(5)).loadAuthenticatedUser(Mockito.anyString());
+        Assertions.assertEquals("username", jwtTokenProvider.getUsername());
+    }
+
+    @Test
+    void authenticationIsNotVisibleOnOtherThreads() throws InterruptedException {
+        Mockito.when(userDetailsService.loadAuthenticatedUser("username")).thenReturn(authenticatedUser());
+        authenticate(jwtTokenProvider.createToken("username", Role.CUSTOMER).jwt());
+
+        AtomicReference<String> otherThreadUsername = new AtomicReference<>("not read");
+        Thread thread = new Thread(() -> otherThreadUsername.set(jwtTokenProvider.getUsername()));
+        thread.start();
+        thread.join();
+
+        Assertions.assertEquals("username", jwtTokenProvider.getUsername());
+        Assertions.assertNull(otherThreadUsername.get());
+    }
 }